@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common;
+
+import com.github.rishabh9.riko.upstox.common.converters.AlwaysListTypeAdapterFactory;
+import com.github.rishabh9.riko.upstox.common.converters.NumberString;
+import com.github.rishabh9.riko.upstox.common.converters.NumberStringDeserializer;
+import com.github.rishabh9.riko.upstox.common.converters.NumberStringSerializer;
+import com.github.rishabh9.riko.upstox.common.interceptors.AuthenticationInterceptor;
+import com.github.rishabh9.riko.upstox.common.interceptors.HttpErrorLoggingInterceptor;
+import com.github.rishabh9.riko.upstox.common.models.AuthHeaders;
+import com.github.rishabh9.riko.upstox.feed.FeedApi;
+import com.github.rishabh9.riko.upstox.orders.OrderApi;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.*;
+import retrofit2.Retrofit;
+import retrofit2.adapter.java8.Java8CallAdapterFactory;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares obtaining a service proxy from the {@link ServiceGenerator} cache
+ * against the previous behaviour of rebuilding the client, Retrofit and proxy on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceGeneratorBenchmark {
+
+    private final AuthHeaders headers = new AuthHeaders("Bearer access_token_123456789", "secretApiKey");
+
+    private final HttpUrl baseUrl = HttpUrl.parse("https://api.upstox.com/");
+
+    private Gson gson;
+
+    @Setup
+    public void setup() {
+        gson = new GsonBuilder()
+                .registerTypeAdapter(NumberString.class, new NumberStringSerializer())
+                .registerTypeAdapter(NumberString.class, new NumberStringDeserializer())
+                .registerTypeAdapterFactory(new AlwaysListTypeAdapterFactory())
+                .create();
+        // Populate the cache before measuring.
+        ServiceGenerator.getInstance().createService(OrderApi.class, headers);
+        ServiceGenerator.getInstance().createService(FeedApi.class, headers);
+    }
+
+    @Benchmark
+    public OrderApi cachedOrderApi() {
+        return ServiceGenerator.getInstance().createService(OrderApi.class, headers);
+    }
+
+    @Benchmark
+    public FeedApi cachedFeedApi() {
+        return ServiceGenerator.getInstance().createService(FeedApi.class, headers);
+    }
+
+    @Benchmark
+    public OrderApi perCallRebuildOrderApi() {
+        return rebuild(OrderApi.class);
+    }
+
+    @Benchmark
+    public FeedApi perCallRebuildFeedApi() {
+        return rebuild(FeedApi.class);
+    }
+
+    /**
+     * Mirrors what {@code createService} used to do for every request:
+     * a client and Retrofit rebuild per interceptor added, followed by a new proxy.
+     */
+    private <S> S rebuild(final Class<S> serviceClass) {
+        final OkHttpClient.Builder httpClient = new OkHttpClient.Builder();
+        final Retrofit.Builder builder = new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .addConverterFactory(GsonConverterFactory.create(gson))
+                .addCallAdapterFactory(Java8CallAdapterFactory.create());
+
+        httpClient.addInterceptor(new AuthenticationInterceptor(headers.getToken(), headers.getApiKey()));
+        builder.client(httpClient.build());
+        builder.build();
+
+        httpClient.addInterceptor(new HttpErrorLoggingInterceptor());
+        builder.client(httpClient.build());
+        return builder.build().create(serviceClass);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.github.rishabh9.riko.upstox.feed.models.BidsAsk;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.github.rishabh9.riko.upstox.historical.models.Candle;
+import com.github.rishabh9.riko.upstox.orders.models.Order;
+import com.github.rishabh9.riko.upstox.orders.models.Trade;
+import com.github.rishabh9.riko.upstox.users.models.Position;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding the hot models with the streaming type adapters against Gson's reflective adapters.
+ * <p>
+ * Run with {@code -prof gc} to see the bytes allocated per payload ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeAdapterBenchmark {
+
+    private static final Type CANDLES = new TypeToken<List<Candle>>() {
+    }.getType();
+
+    private static final String FEED = "{\"timestamp\":1548310214000,\"exchange\":\"NSE_EQ\",\"symbol\":\"RELIANCE\","
+            + "\"ltp\":1230.5,\"open\":1221.0,\"high\":1235.95,\"low\":1219.1,\"close\":1225,"
+            + "\"vtt\":4512397,\"atp\":1228.73,\"oi\":\"\",\"spot_price\":1230.5,\"total_buy_qty\":125632,"
+            + "\"total_sell_qty\":98211,\"lower_circuit\":1102.5,\"upper_circuit\":1347.5,"
+            + "\"yearly_low\":875.05,\"yearly_high\":1329,"
+            + "\"bids\":[{\"quantity\":10,\"price\":1230.45,\"orders\":2},{\"quantity\":25,\"price\":1230.4,\"orders\":1},"
+            + "{\"quantity\":40,\"price\":1230.35,\"orders\":3},{\"quantity\":15,\"price\":1230.3,\"orders\":1},"
+            + "{\"quantity\":60,\"price\":1230.25,\"orders\":4}],"
+            + "\"ask\":[{\"quantity\":5,\"price\":1230.6,\"orders\":1},{\"quantity\":30,\"price\":1230.65,\"orders\":2},"
+            + "{\"quantity\":12,\"price\":1230.7,\"orders\":1},{\"quantity\":55,\"price\":1230.75,\"orders\":3},"
+            + "{\"quantity\":8,\"price\":1230.8,\"orders\":1}],"
+            + "\"ltt\":1548310213000}";
+
+    private static final String ORDER = "{\"exchange\":\"NSE_EQ\",\"token\":2885,\"symbol\":\"RELIANCE\","
+            + "\"product\":\"I\",\"order_type\":\"L\",\"duration\":\"DAY\",\"price\":1230.5,\"trigger_price\":0,"
+            + "\"quantity\":10,\"disclosed_quantity\":0,\"transaction_type\":\"B\",\"average_price\":1230.45,"
+            + "\"traded_quantity\":10,\"message\":\"\",\"exchange_order_id\":\"1100000001234567\","
+            + "\"parent_order_id\":\"NA\",\"order_id\":\"190124000012345\",\"exchange_time\":\"24-Jan-2019 09:15:01\","
+            + "\"time_in_micro\":\"1548301501000000\",\"status\":\"complete\",\"is_amo\":false,"
+            + "\"valid_date\":\"1\",\"order_request_id\":\"1\",\"fill_leg\":\"1\",\"report\":\"\",\"text\":\"\"}";
+
+    private static final String TRADE = "{\"exchange\":\"NSE_EQ\",\"token\":2885,\"symbol\":\"RELIANCE\","
+            + "\"product\":\"I\",\"order_type\":\"L\",\"transaction_type\":\"B\",\"traded_quantity\":10,"
+            + "\"exchange_order_id\":\"1100000001234567\",\"order_id\":\"190124000012345\","
+            + "\"exchange_time\":\"24-Jan-2019 09:15:01\",\"time_in_micro\":\"1548301501000000\","
+            + "\"traded_price\":1230.45,\"trade_id\":50012345}";
+
+    private static final String POSITION = "{\"exchange\":\"NSE_EQ\",\"product\":\"D\",\"symbol\":\"RELIANCE\","
+            + "\"token\":2885,\"buy_amount\":12304.5,\"sell_amount\":0,\"buy_quantity\":10,\"sell_quantity\":0,"
+            + "\"cf_buy_amount\":0,\"cf_sell_amount\":0,\"cf_buy_quantity\":0,\"cf_sell_quantity\":0,"
+            + "\"avg_buy_price\":1230.45,\"avg_sell_price\":\"\",\"net_quantity\":10,\"close_price\":1225,"
+            + "\"last_traded_price\":1231.1,\"realized_profit\":\"\",\"unrealized_profit\":6.5,\"cf_avg_price\":\"\"}";
+
+    /**
+     * A trading day of one minute candles.
+     */
+    private static final String CANDLE_LIST = candles(375);
+
+    private Gson reflective;
+    private Gson streaming;
+
+    @Setup
+    public void setup() {
+        reflective = new GsonBuilder()
+                .registerTypeAdapter(NumberString.class, new NumberStringSerializer())
+                .registerTypeAdapter(NumberString.class, new NumberStringDeserializer())
+                .registerTypeAdapterFactory(new AlwaysListTypeAdapterFactory())
+                .create();
+        streaming = new GsonBuilder()
+                .registerTypeAdapter(NumberString.class, new NumberStringSerializer())
+                .registerTypeAdapter(NumberString.class, new NumberStringDeserializer())
+                .registerTypeAdapterFactory(new AlwaysListTypeAdapterFactory())
+                .registerTypeAdapter(Feed.class, new FeedTypeAdapter())
+                .registerTypeAdapter(BidsAsk.class, new BidsAskTypeAdapter())
+                .registerTypeAdapter(Order.class, new OrderTypeAdapter())
+                .registerTypeAdapter(Trade.class, new TradeTypeAdapter())
+                .registerTypeAdapter(Position.class, new PositionTypeAdapter())
+                .registerTypeAdapter(Candle.class, new CandleTypeAdapter())
+                .create();
+    }
+
+    @Benchmark
+    public Feed reflectiveFeed() {
+        return reflective.fromJson(FEED, Feed.class);
+    }
+
+    @Benchmark
+    public Feed streamingFeed() {
+        return streaming.fromJson(FEED, Feed.class);
+    }
+
+    @Benchmark
+    public Order reflectiveOrder() {
+        return reflective.fromJson(ORDER, Order.class);
+    }
+
+    @Benchmark
+    public Order streamingOrder() {
+        return streaming.fromJson(ORDER, Order.class);
+    }
+
+    @Benchmark
+    public Trade reflectiveTrade() {
+        return reflective.fromJson(TRADE, Trade.class);
+    }
+
+    @Benchmark
+    public Trade streamingTrade() {
+        return streaming.fromJson(TRADE, Trade.class);
+    }
+
+    @Benchmark
+    public Position reflectivePosition() {
+        return reflective.fromJson(POSITION, Position.class);
+    }
+
+    @Benchmark
+    public Position streamingPosition() {
+        return streaming.fromJson(POSITION, Position.class);
+    }
+
+    @Benchmark
+    public List<Candle> reflectiveCandles() {
+        return reflective.fromJson(CANDLE_LIST, CANDLES);
+    }
+
+    @Benchmark
+    public List<Candle> streamingCandles() {
+        return streaming.fromJson(CANDLE_LIST, CANDLES);
+    }
+
+    private static String candles(final int count) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"timestamp\":").append(1548301500000L + i * 60000L)
+                    .append(",\"open\":").append(1221 + i % 7).append(".05")
+                    .append(",\"high\":").append(1228 + i % 5).append(".9")
+                    .append(",\"low\":").append(1219 + i % 3).append(".1")
+                    .append(",\"close\":").append(1224 + i % 6).append(".45")
+                    .append(",\"volume\":").append(10000 + i * 13)
+                    .append(",\"cp\":1225}");
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.websockets.dispatch.WaitStrategy;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import okhttp3.Request;
+import okhttp3.WebSocket;
+import okio.ByteString;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the garbage made by receiving a frame. Run with {@code -prof gc}, and compare {@code gc.alloc.rate.norm}:
+ * <ul>
+ * <li>{@code envelopePerFrame} wraps the web socket for every frame, as {@code MessageListener} used to,</li>
+ * <li>{@code envelopePerConnection} reuses the web socket wrapped once per connection,</li>
+ * <li>{@code onMessage} receives a frame and publishes it to a subscriber.</li>
+ * </ul>
+ * The frame itself is allocated by OkHttp, before the listener gets it, so it is not counted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageListenerBenchmark {
+
+    private static final String FRAME = "1548310214000,NSE_EQ,RELIANCE,1230.5,1225.0";
+
+    private final WebSocket socket = new StubWebSocket();
+    private WrappedWebSocket wrapped;
+    private MessageListener listener;
+
+    @Setup
+    public void setup() {
+        wrapped = new WrappedWebSocket(socket);
+        listener = new MessageListener(Collections.emptyList(), 1024, WaitStrategy.PARK);
+        listener.subscribe(new Flow.Subscriber<WebSocketMessage>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(WebSocketMessage item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        listener.onClosed(socket, 1000, "Benchmark done");
+    }
+
+    @Benchmark
+    public WebSocketMessage envelopePerFrame() {
+        return new TextMessage(new WrappedWebSocket(socket), FRAME);
+    }
+
+    @Benchmark
+    public WebSocketMessage envelopePerConnection() {
+        return new TextMessage(wrapped, FRAME);
+    }
+
+    @Benchmark
+    public void onMessage() {
+        listener.onMessage(socket, FRAME);
+    }
+
+    private static final class StubWebSocket implements WebSocket {
+
+        @Override
+        public Request request() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long queueSize() {
+            return 0L;
+        }
+
+        @Override
+        public boolean send(String text) {
+            return true;
+        }
+
+        @Override
+        public boolean send(ByteString bytes) {
+            return true;
+        }
+
+        @Override
+        public boolean close(int code, String reason) {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
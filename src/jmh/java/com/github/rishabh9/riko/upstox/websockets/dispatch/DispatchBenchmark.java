@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Compares publishing web socket messages through the {@link RingBufferPublisher}
+ * against the {@link SubmissionPublisher} on a work stealing pool, as {@code MessageListener} used to.
+ * <p>
+ * {@code throughput} publishes a batch and waits for every subscriber to receive it,
+ * {@code latency} samples the time from publishing a single message to its delivery.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final int BATCH = 512;
+
+    @Param({"SUBMISSION_PUBLISHER", "RING_PARK", "RING_YIELD", "RING_BUSY_SPIN"})
+    public String publisherType;
+
+    @Param({"1", "4"})
+    public int subscribers;
+
+    private final Object message = new Object();
+    private Consumer<Object> publish;
+    private Runnable close;
+    private CountingSubscriber[] counters;
+    private long published;
+
+    @Setup
+    public void setup() {
+        counters = new CountingSubscriber[subscribers];
+        final Flow.Publisher<Object> publisher;
+        if ("SUBMISSION_PUBLISHER".equals(publisherType)) {
+            final ExecutorService executor = Executors.newWorkStealingPool();
+            final SubmissionPublisher<Object> submissionPublisher =
+                    new SubmissionPublisher<>(executor, Flow.defaultBufferSize());
+            publish = m -> submissionPublisher.offer(m, 3, TimeUnit.SECONDS, (s, msg) -> false);
+            close = () -> {
+                submissionPublisher.close();
+                executor.shutdown();
+            };
+            publisher = submissionPublisher;
+        } else {
+            final RingBufferPublisher<Object> ringBufferPublisher = new RingBufferPublisher<>(
+                    1024, WaitStrategy.valueOf(publisherType.substring("RING_".length())));
+            publish = ringBufferPublisher::offer;
+            close = ringBufferPublisher::close;
+            publisher = ringBufferPublisher;
+        }
+        for (int i = 0; i < subscribers; i++) {
+            counters[i] = new CountingSubscriber();
+            publisher.subscribe(counters[i]);
+        }
+        published = 0L;
+    }
+
+    @TearDown
+    public void tearDown() {
+        close.run();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @OperationsPerInvocation(BATCH)
+    public void throughput() {
+        for (int i = 0; i < BATCH; i++) {
+            publish.accept(message);
+        }
+        published += BATCH;
+        awaitDelivery();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void latency() {
+        publish.accept(message);
+        published++;
+        awaitDelivery();
+    }
+
+    /**
+     * Yields, as the socket reader would block on the socket, so that the result holds on few cores too.
+     */
+    private void awaitDelivery() {
+        for (CountingSubscriber counter : counters) {
+            while (counter.received < published) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private static final class CountingSubscriber implements Flow.Subscriber<Object> {
+
+        private volatile long received;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Object item) {
+            received++;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
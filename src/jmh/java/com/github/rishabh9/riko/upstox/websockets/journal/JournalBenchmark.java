@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.journal;
+
+import com.github.rishabh9.riko.upstox.common.EpochClock;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the frames appended per second to a {@link Journal}, in a temporary directory.
+ * Run with {@code -prof gc} to check that appending a text frame allocates nothing.
+ * Mind the disk space: every iteration writes a few hundred megabytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final String LTP = "1548310214000,NSE_EQ,RELIANCE,1230.5,1225";
+
+    private static final String FULL = "1548310214000,NSE_EQ,RELIANCE,1230.5,1225,1221.0,1235.95,1219.1,4512397,"
+            + "1228.73,,1230.5,125632,98211,1102.5,1347.5,875.05,1329,"
+            + "10,1230.45,2,25,1230.4,1,40,1230.35,3,15,1230.3,1,60,1230.25,4,"
+            + "5,1230.6,1,30,1230.65,2,12,1230.7,1,55,1230.75,3,8,1230.8,1,"
+            + "1548310213000";
+
+    private final ByteBuffer binary = ByteBuffer.wrap(FULL.getBytes(StandardCharsets.UTF_8));
+
+    private Path directory;
+    private Journal journal;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new Journal(directory, 64 * 1024 * 1024, ZoneOffset.UTC);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void ltpText() throws IOException {
+        journal.appendText(EpochClock.nanos(), LTP);
+    }
+
+    @Benchmark
+    public void fullText() throws IOException {
+        journal.appendText(EpochClock.nanos(), FULL);
+    }
+
+    @Benchmark
+    public void fullBinary() throws IOException {
+        journal.appendBinary(EpochClock.nanos(), binary);
+    }
+}
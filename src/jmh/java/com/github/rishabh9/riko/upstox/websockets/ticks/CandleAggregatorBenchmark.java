@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the ticks per second, on one thread, that a {@link CandleAggregator} builds the candles of every interval
+ * from. Each tick is a quarter of a second after the previous one, so a one minute candle closes every 240 ticks.
+ * Run with {@code -prof gc}: only closing a candle allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandleAggregatorBenchmark {
+
+    private static final String QUOTE = "1548310214000,NSE_EQ,RELIANCE,1230.5,1225,1221.0,1235.95,1219.1,4512397,"
+            + "1228.73,,1230.5,125632,98211,1102.5,1347.5,875.05,1329,"
+            + "10,1230.45,2,25,1230.4,1,40,1230.35,3,15,1230.3,1,60,1230.25,4,"
+            + "5,1230.6,1,30,1230.65,2,12,1230.7,1,55,1230.75,3,8,1230.8,1,"
+            + "1548310213000";
+
+    private Tick tick;
+    private CandleAggregator aggregator;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        new TickDecoder(new InstrumentRegistry()).decode(QUOTE, decoded -> tick = decoded.copy());
+        aggregator = new CandleAggregator((instrument, interval, candle) -> blackhole.consume(candle));
+    }
+
+    @Benchmark
+    public void onTick() {
+        tick.ltt += 250L;
+        tick.vtt += 10L;
+        tick.ltp += (tick.ltt & 1024L) == 0L ? 500L : -500L;
+        aggregator.onTick(tick);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.feed.models.BidsAsk;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the updates per second, on one thread, of an {@link OrderBook} against computing the same measures
+ * from the bids and asks of a {@link Feed}, as the subscribers did. Run with {@code -prof gc} to see the bytes
+ * allocated per update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final String QUOTE = "1548310214000,NSE_EQ,RELIANCE,1230.5,1225,1221.0,1235.95,1219.1,4512397,"
+            + "1228.73,,1230.5,125632,98211,1102.5,1347.5,875.05,1329,"
+            + "10,1230.45,2,25,1230.4,1,40,1230.35,3,15,1230.3,1,60,1230.25,4,"
+            + "5,1230.6,1,30,1230.65,2,12,1230.7,1,55,1230.75,3,8,1230.8,1,"
+            + "1548310213000";
+
+    private Tick tick;
+    private OrderBook book;
+
+    @Setup
+    public void setup() {
+        new TickDecoder(new InstrumentRegistry()).decode(QUOTE, decoded -> tick = decoded.copy());
+        book = new OrderBook(tick.getInstrument());
+    }
+
+    @Benchmark
+    public void orderBook(final Blackhole blackhole) {
+        book.update(tick);
+        blackhole.consume(book.getSpread());
+        blackhole.consume(book.getMid());
+        blackhole.consume(book.getMicroprice());
+        blackhole.consume(book.getImbalance());
+    }
+
+    @Benchmark
+    public void feed(final Blackhole blackhole) {
+        final Feed feed = tick.toFeed();
+        final List<BidsAsk> bids = feed.getBids();
+        final List<BidsAsk> asks = feed.getAsk();
+        final BigDecimal bid = bids.get(0).getPrice();
+        final BigDecimal ask = asks.get(0).getPrice();
+        blackhole.consume(ask.subtract(bid));
+        blackhole.consume(bid.add(ask).divide(BigDecimal.valueOf(2L), RoundingMode.DOWN));
+        final long bidQuantity = bids.get(0).getQuantity();
+        final long askQuantity = asks.get(0).getQuantity();
+        blackhole.consume(bid.multiply(BigDecimal.valueOf(askQuantity))
+                .add(ask.multiply(BigDecimal.valueOf(bidQuantity)))
+                .doubleValue() / (bidQuantity + askQuantity));
+        long weightedBid = 0L;
+        long weightedAsk = 0L;
+        for (int i = 0; i < bids.size(); i++) {
+            weightedBid += (bids.size() - i) * bids.get(i).getQuantity();
+            weightedAsk += (asks.size() - i) * asks.get(i).getQuantity();
+        }
+        blackhole.consume((double) (weightedBid - weightedAsk) / (weightedBid + weightedAsk));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a frame of full quotes with the {@link TickDecoder} against splitting it into strings
+ * and parsing the numbers, as the subscribers did. Run with {@code -prof gc} to see the bytes allocated per frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickDecoderBenchmark {
+
+    private static final String QUOTE = "1548310214000,NSE_EQ,RELIANCE,1230.5,1225,1221.0,1235.95,1219.1,4512397,"
+            + "1228.73,,1230.5,125632,98211,1102.5,1347.5,875.05,1329,"
+            + "10,1230.45,2,25,1230.4,1,40,1230.35,3,15,1230.3,1,60,1230.25,4,"
+            + "5,1230.6,1,30,1230.65,2,12,1230.7,1,55,1230.75,3,8,1230.8,1,"
+            + "1548310213000";
+
+    private final String frame = QUOTE + ";" + QUOTE.replace("RELIANCE", "INFY") + ";"
+            + QUOTE.replace("RELIANCE", "TCS") + ";" + QUOTE.replace("RELIANCE", "SBIN");
+
+    private final TickDecoder decoder = new TickDecoder(new InstrumentRegistry());
+
+    @Benchmark
+    public void tickDecoder(final Blackhole blackhole) {
+        decoder.decode(frame, blackhole::consume);
+    }
+
+    @Benchmark
+    public void split(final Blackhole blackhole) {
+        for (String quote : frame.split(";")) {
+            final String[] fields = quote.split(",");
+            blackhole.consume(Long.parseLong(fields[0]));
+            blackhole.consume(fields[1]);
+            blackhole.consume(fields[2]);
+            for (int i = 3; i < fields.length; i++) {
+                blackhole.consume(fields[i].isEmpty() ? null : new BigDecimal(fields[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox;
+
+import com.github.rishabh9.riko.upstox.common.ExecutionContext;
+import com.github.rishabh9.riko.upstox.common.RetryPolicyFactory;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.feed.FeedService;
+import com.github.rishabh9.riko.upstox.historical.HistoricalService;
+import com.github.rishabh9.riko.upstox.login.LoginService;
+import com.github.rishabh9.riko.upstox.orders.OrderService;
+import com.github.rishabh9.riko.upstox.users.UserService;
+import com.github.rishabh9.riko.upstox.websockets.WebSocketService;
+import net.jodah.failsafe.RetryPolicy;
+import okhttp3.HttpUrl;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * An entry point to the Upstox API for a single account.
+ * <p>
+ * Each client owns its HTTP stack, its services and one executor shared by them
+ * (unless the {@link RetryPolicyFactory} hands out the {@link ExecutionContext#shared() shared executor}),
+ * so several clients (one per account) can be used concurrently without affecting each other.
+ * A client is immutable and safe for use by multiple threads.
+ * Close it once it is no longer required, to release its connections and threads.
+ */
+public class RikoClient implements Closeable {
+
+    private static final Logger log = LogManager.getLogger(RikoClient.class);
+
+    private final UpstoxAuthService upstoxAuthService;
+    private final ServiceGenerator serviceGenerator;
+    private final ScheduledExecutorService executor;
+
+    private final LoginService loginService;
+    private final UserService userService;
+    private final OrderService orderService;
+    private final FeedService feedService;
+    private final HistoricalService historicalService;
+    private final WebSocketService webSocketService;
+
+    /**
+     * @param upstoxAuthService  The service to retrieve authentication details of the account
+     * @param retryPolicyFactory The factory for the retry policy and the executor of this client
+     */
+    public RikoClient(@Nonnull final UpstoxAuthService upstoxAuthService,
+                      @Nonnull final RetryPolicyFactory retryPolicyFactory) {
+
+        this(upstoxAuthService, retryPolicyFactory, null);
+    }
+
+    /**
+     * @param upstoxAuthService  The service to retrieve authentication details of the account
+     * @param retryPolicyFactory The factory for the retry policy and the executor of this client
+     * @param baseUrl            The base URL of the Upstox API.
+     *                           If {@code null}, it is read from the system properties.
+     */
+    public RikoClient(@Nonnull final UpstoxAuthService upstoxAuthService,
+                      @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                      @Nullable final HttpUrl baseUrl) {
+
+        this.upstoxAuthService = Objects.requireNonNull(upstoxAuthService);
+        this.executor = Objects.requireNonNull(retryPolicyFactory.createExecutorService());
+        this.serviceGenerator = new ServiceGenerator(baseUrl);
+
+        final RetryPolicyFactory sharedExecutorFactory =
+                new SharedExecutorRetryPolicyFactory(retryPolicyFactory, executor);
+        this.loginService = new LoginService(upstoxAuthService, sharedExecutorFactory, serviceGenerator);
+        this.userService = new UserService(upstoxAuthService, sharedExecutorFactory, serviceGenerator);
+        this.orderService = new OrderService(upstoxAuthService, sharedExecutorFactory, serviceGenerator);
+        this.feedService = new FeedService(upstoxAuthService, sharedExecutorFactory, serviceGenerator);
+        this.historicalService =
+                new HistoricalService(upstoxAuthService, sharedExecutorFactory, serviceGenerator);
+        this.webSocketService =
+                new WebSocketService(upstoxAuthService, sharedExecutorFactory, serviceGenerator);
+    }
+
+    /**
+     * @return The service to retrieve authentication details of the account
+     */
+    public UpstoxAuthService getUpstoxAuthService() {
+        return upstoxAuthService;
+    }
+
+    public LoginService getLoginService() {
+        return loginService;
+    }
+
+    public UserService getUserService() {
+        return userService;
+    }
+
+    public OrderService getOrderService() {
+        return orderService;
+    }
+
+    public FeedService getFeedService() {
+        return feedService;
+    }
+
+    public HistoricalService getHistoricalService() {
+        return historicalService;
+    }
+
+    public WebSocketService getWebSocketService() {
+        return webSocketService;
+    }
+
+    /**
+     * Shuts down the executor and releases the HTTP resources of this client.
+     * Calls already in progress are allowed to complete.
+     * The executor of the {@link ExecutionContext#shared() shared execution context} is left running.
+     */
+    @Override
+    public void close() {
+        log.debug("Closing Riko client");
+        if (!ExecutionContext.isSharedExecutor(executor)) {
+            executor.shutdown();
+        }
+        serviceGenerator.close();
+    }
+
+    /**
+     * Hands out the same executor to all the services of a client,
+     * instead of one executor per service.
+     */
+    private static class SharedExecutorRetryPolicyFactory implements RetryPolicyFactory {
+
+        private final RetryPolicyFactory delegate;
+        private final ScheduledExecutorService executor;
+
+        SharedExecutorRetryPolicyFactory(final RetryPolicyFactory delegate,
+                                         final ScheduledExecutorService executor) {
+            this.delegate = delegate;
+            this.executor = executor;
+        }
+
+        @Nonnull
+        @Override
+        public Optional<RetryPolicy> createRetryPolicy() {
+            return delegate.createRetryPolicy();
+        }
+
+        @Nonnull
+        @Override
+        public Optional<RetryPolicy> createRetryPolicy(@Nonnull final String endpoint) {
+            return delegate.createRetryPolicy(endpoint);
+        }
+
+        @Nonnull
+        @Override
+        public ScheduledExecutorService createExecutorService() {
+            return executor;
+        }
+    }
+}
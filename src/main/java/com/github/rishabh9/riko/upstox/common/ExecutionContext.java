@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Owns the threads on which the services run their (retried) calls.
+ * <p>
+ * Use {@link #shared()} to run every service of every account on one executor,
+ * or create a dedicated context with {@link #bounded(int)} or {@link #virtual()} and close it when done.
+ * The size and the kind of threads of the shared context are read from the system properties
+ * {@code riko.executor.threads} and {@code riko.executor.virtual}.
+ */
+public final class ExecutionContext implements AutoCloseable {
+
+    private static final Logger log = LogManager.getLogger(ExecutionContext.class);
+
+    private static volatile ExecutionContext sharedContext;
+
+    private final ScheduledExecutorService executor;
+    private final boolean virtualThreads;
+    private final boolean shared;
+
+    private ExecutionContext(final ScheduledExecutorService executor,
+                             final boolean virtualThreads,
+                             final boolean shared) {
+        this.executor = executor;
+        this.virtualThreads = virtualThreads;
+        this.shared = shared;
+    }
+
+    /**
+     * @return The context shared by all the services, created on first use. It cannot be closed.
+     * @throws IllegalArgumentException If the {@code riko.executor.threads} system property is not positive
+     */
+    @Nonnull
+    public static ExecutionContext shared() {
+        ExecutionContext context = sharedContext;
+        if (null == context) {
+            synchronized (ExecutionContext.class) {
+                context = sharedContext;
+                if (null == context) {
+                    context = createShared();
+                    sharedContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Tells whether an executor is the one of the {@link #shared() shared context},
+     * without creating the shared context if it was not used yet.
+     *
+     * @param executor An executor
+     * @return {@code true} if it is the executor of the shared context.
+     */
+    public static boolean isSharedExecutor(@Nonnull final ScheduledExecutorService executor) {
+        final ExecutionContext context = sharedContext;
+        return null != context && context.executor == Objects.requireNonNull(executor);
+    }
+
+    /**
+     * @param threads The number of threads
+     * @return A new context running on a fixed number of daemon platform threads.
+     */
+    @Nonnull
+    public static ExecutionContext bounded(final int threads) {
+        return new ExecutionContext(newExecutor(threads, platformThreadFactory()), false, false);
+    }
+
+    /**
+     * Creates a context running every task on a new virtual thread, which are available from JDK 21 onwards.
+     * The delays are kept by a single platform thread.
+     * On older JDKs, a context on as many platform threads as there are processors is returned instead.
+     *
+     * @return A new context.
+     */
+    @Nonnull
+    public static ExecutionContext virtual() {
+        return virtual(RIKO_EXECUTOR_THREADS_DEFAULT);
+    }
+
+    private static ExecutionContext virtual(final int fallbackThreads) {
+        final Optional<ThreadFactory> factory = virtualThreadFactory();
+        if (!factory.isPresent()) {
+            log.warn("Virtual threads are not supported by this JVM. Falling back to platform threads.");
+            return bounded(fallbackThreads);
+        }
+        return new ExecutionContext(new ThreadPerTaskScheduledExecutor(factory.get()), true, false);
+    }
+
+    /**
+     * @return The executor of this context.
+     */
+    @Nonnull
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Shuts down the executor, letting already submitted tasks complete.
+     * The {@link #shared() shared context} is never closed.
+     */
+    @Override
+    public void close() {
+        if (shared) {
+            log.warn("Ignoring an attempt to close the shared execution context");
+            return;
+        }
+        executor.shutdown();
+    }
+
+    private static ScheduledExecutorService newExecutor(final int threads, final ThreadFactory threadFactory) {
+        checkArgument(threads > 0, "threads must be positive");
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, threadFactory);
+        // Don't keep cancelled retries around until their delay expires.
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        return new ThreadFactoryBuilder().setNameFormat("riko-executor-%d").setDaemon(true).build();
+    }
+
+    /**
+     * Looked up reflectively, as Riko is built for older JDKs.
+     */
+    private static Optional<ThreadFactory> virtualThreadFactory() {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Method name = builderClass.getMethod("name", String.class, long.class);
+            final Method factory = builderClass.getMethod("factory");
+            return Optional.of((ThreadFactory) factory.invoke(name.invoke(builder, "riko-virtual-", 0L)));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual threads are unavailable", e);
+            return Optional.empty();
+        }
+    }
+
+    static ExecutionContext createShared() {
+        final int threads = SystemProperties.getInt(RIKO_EXECUTOR_THREADS, RIKO_EXECUTOR_THREADS_DEFAULT);
+        checkArgument(threads > 0, "%s must be positive, was %s", RIKO_EXECUTOR_THREADS, threads);
+        final boolean virtual = SystemProperties.getBoolean(RIKO_EXECUTOR_VIRTUAL, RIKO_EXECUTOR_VIRTUAL_DEFAULT);
+        final ExecutionContext context = virtual ? virtual(threads) : bounded(threads);
+        if (context.virtualThreads) {
+            log.info("Created the shared execution context with a virtual thread per task");
+        } else {
+            log.info("Created the shared execution context with {} platform threads", threads);
+        }
+        return new ExecutionContext(context.executor, context.virtualThreads, true);
+    }
+}
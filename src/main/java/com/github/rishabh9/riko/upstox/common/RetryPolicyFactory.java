@@ -46,9 +46,23 @@ public interface RetryPolicyFactory {
     @Nonnull
     Optional<RetryPolicy> createRetryPolicy();
 
+    /**
+     * Allows for a different policy per endpoint, for instance to keep retries of each endpoint
+     * within their own budget. Defaults to {@link #createRetryPolicy()}.
+     *
+     * @param endpoint The endpoint called, one of {@link com.github.rishabh9.riko.upstox.common.constants.Endpoints}
+     * @return A {@link RetryPolicy} that expresses when retries of calls to the endpoint should be performed.
+     * An {@code empty} {@link RetryPolicy} indicates retries should be disabled.
+     */
+    @Nonnull
+    default Optional<RetryPolicy> createRetryPolicy(@Nonnull final String endpoint) {
+        return createRetryPolicy();
+    }
+
     /**
      * @return A {@link ScheduledExecutorService} to allow for asynchronous executions.
-     * Cannot be {@code null}.
+     * Cannot be {@code null}. It is called once per service, so returning a shared executor,
+     * such as the one of {@link ExecutionContext#shared()}, avoids a thread pool per service.
      */
     @Nonnull
     ScheduledExecutorService createExecutorService();
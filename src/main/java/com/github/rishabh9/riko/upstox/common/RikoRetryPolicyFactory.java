@@ -24,34 +24,98 @@
 
 package com.github.rishabh9.riko.upstox.common;
 
+import com.github.rishabh9.riko.upstox.common.retries.ExponentialBackoff;
+import com.github.rishabh9.riko.upstox.common.retries.RetryBudget;
+import com.github.rishabh9.riko.upstox.common.retries.RetryableFailures;
 import net.jodah.failsafe.RetryPolicy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nonnull;
+import java.time.Duration;
 import java.util.Optional;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.PLACE_ORDER;
 
 /**
  * The Riko's default retry policy factory.
+ * <p>
+ * Only failures that may succeed on a second attempt are retried (see {@link RetryableFailures}),
+ * after an exponential backoff with jitter, or after the delay asked for by {@code Retry-After}.
+ * Placing an order is retried only when Upstox surely did not receive it, to never place it twice.
+ * Retries of each endpoint are limited by a {@link RetryBudget}, so they stay a fraction of the successful calls.
  *
  * @see RetryPolicyFactory
  */
 public class RikoRetryPolicyFactory implements RetryPolicyFactory {
 
+    private static final Logger log = LogManager.getLogger(RikoRetryPolicyFactory.class);
+
+    private static final int MAX_RETRIES = 3;
+    private static final Duration BASE_DELAY = Duration.ofMillis(250L);
+    private static final Duration MAX_DELAY = Duration.ofSeconds(10L);
+    private static final Duration MAX_DURATION = Duration.ofMinutes(1L);
+    private static final double RETRY_BUDGET_RATIO = 0.1D;
+    private static final double RETRY_BUDGET_MAX_TOKENS = 10.0D;
+
+    /**
+     * Budget of the calls not attributed to an endpoint.
+     */
+    private static final String ANY_ENDPOINT = "";
+
+    private final ConcurrentMap<String, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
+
     /**
      * @return The default {@link RetryPolicy}
      */
     @Override
     public Optional<RetryPolicy> createRetryPolicy() {
-        return Optional.of(new RetryPolicy()
-                .retryOn(Throwable.class)
-                .withMaxRetries(10));
+        return createRetryPolicy(ANY_ENDPOINT);
     }
 
     /**
-     * @return The default {@link ScheduledExecutorService} to be used by {@link RetryPolicy}.
+     * @param endpoint The endpoint called
+     * @return The default {@link RetryPolicy} for the endpoint
+     */
+    @Nonnull
+    @Override
+    public Optional<RetryPolicy> createRetryPolicy(@Nonnull final String endpoint) {
+        final RetryBudget budget = retryBudgets.computeIfAbsent(endpoint,
+                e -> new RetryBudget(RETRY_BUDGET_RATIO, RETRY_BUDGET_MAX_TOKENS));
+        final Predicate<Throwable> retryable = PLACE_ORDER.equals(endpoint)
+                ? RetryableFailures::isSafeToRetry
+                : RetryableFailures::isRetryable;
+        return Optional.of(new RetryPolicy()
+                // Called once for every completed attempt, successful or not.
+                .retryIf((Object result, Throwable failure) -> {
+                    if (null == failure) {
+                        budget.onSuccess();
+                        return false;
+                    }
+                    if (!retryable.test(failure)) {
+                        return false;
+                    }
+                    if (!budget.tryRetry()) {
+                        log.warn("Retry budget of endpoint '{}' is exhausted, not retrying", endpoint);
+                        return false;
+                    }
+                    return true;
+                })
+                .withDelay(new ExponentialBackoff(BASE_DELAY, MAX_DELAY))
+                .withMaxRetries(MAX_RETRIES)
+                .withMaxDuration(MAX_DURATION.toMillis(), TimeUnit.MILLISECONDS));
+    }
+    /**
+     * @return The executor of the {@link ExecutionContext#shared() shared execution context},
+     * to be used by {@link RetryPolicy}.
      */
     @Override
     public ScheduledExecutorService createExecutorService() {
-        return Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+        return ExecutionContext.shared().getExecutor();
     }
 }
@@ -24,16 +24,26 @@
 
 package com.github.rishabh9.riko.upstox.common;
 
-import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
-import com.github.rishabh9.riko.upstox.common.models.AuthHeaders;
-import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import com.github.rishabh9.riko.upstox.common.coalescing.SingleFlight;
+import com.github.rishabh9.riko.upstox.common.ratelimiters.AsyncRateLimiter;
+import com.github.rishabh9.riko.upstox.common.ratelimiters.FairScheduler;
+import com.github.rishabh9.riko.upstox.common.ratelimiters.RateLimiterRegistry;
+import net.jodah.failsafe.CircuitBreaker;
 import net.jodah.failsafe.RetryPolicy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 /**
  * Parent class for every Service class. Holds common methods.
@@ -43,8 +53,11 @@ public abstract class Service {
     private static final Logger log = LogManager.getLogger(Service.class);
 
     protected final UpstoxAuthService upstoxAuthService;
-    protected final RetryPolicy retryPolicy;
     protected final ScheduledExecutorService retryExecutor;
+    protected final ServiceGenerator serviceGenerator;
+
+    private final RetryPolicyFactory retryPolicyFactory;
+    private final ConcurrentMap<String, RetryPolicy> retryPolicies = new ConcurrentHashMap<>();
 
     /**
      * @param upstoxAuthService The service to retrieve authentication details
@@ -52,21 +65,148 @@ public abstract class Service {
     public Service(@Nonnull final UpstoxAuthService upstoxAuthService,
                    @Nonnull final RetryPolicyFactory retryPolicyFactory) {
 
+        this(upstoxAuthService, retryPolicyFactory, ServiceGenerator.getInstance());
+    }
+
+    /**
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param serviceGenerator  The generator of the service APIs
+     */
+    public Service(@Nonnull final UpstoxAuthService upstoxAuthService,
+                   @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                   @Nonnull final ServiceGenerator serviceGenerator) {
+
         this.upstoxAuthService = Objects.requireNonNull(upstoxAuthService);
-        this.retryPolicy = Objects.requireNonNull(retryPolicyFactory).createRetryPolicy()
-                // The default behaviour is not to re-try.
-                .orElse(new RetryPolicy().withMaxRetries(0));
         this.retryExecutor = Objects.requireNonNull(retryPolicyFactory).createExecutorService();
+        this.serviceGenerator = Objects.requireNonNull(serviceGenerator);
+        this.retryPolicyFactory = retryPolicyFactory;
+    }
+
+    /**
+     * @param endpoint The endpoint being called
+     * @return The retry policy of the endpoint, created once per service.
+     */
+    protected RetryPolicy retryPolicy(@Nonnull final String endpoint) {
+
+        return retryPolicies.computeIfAbsent(endpoint, e -> retryPolicyFactory.createRetryPolicy(e)
+                // The default behaviour is not to re-try.
+                .orElse(new RetryPolicy().withMaxRetries(0)));
+    }
+
+    /**
+     * @param endpoint The endpoint being called
+     * @return The circuit breaker of the endpoint, shared by the services of the same {@link ServiceGenerator}.
+     */
+    protected CircuitBreaker circuitBreaker(@Nonnull final String endpoint) {
+
+        return serviceGenerator.getCircuitBreakerRegistry().get(endpoint);
+    }
+
+    /**
+     * Allows callers to route around an endpoint that Upstox is failing to serve,
+     * for instance by using a cached value.
+     *
+     * @param endpoint The endpoint, one of {@link com.github.rishabh9.riko.upstox.common.constants.Endpoints}
+     * @return The state of the circuit breaker of the endpoint.
+     * Calls fail fast while it is {@link CircuitBreaker.State#OPEN OPEN}.
+     */
+    public CircuitBreaker.State getCircuitState(@Nonnull final String endpoint) {
+
+        return serviceGenerator.getCircuitBreakerRegistry().getState(endpoint);
     }
 
     protected <T> T prepareServiceApi(@Nonnull final Class<T> type) {
 
         log.debug("Preparing service API: {}", type.getName());
-        final AccessToken accessToken = upstoxAuthService.getAccessToken();
-        final ApiCredentials credentials = upstoxAuthService.getApiCredentials();
+        return serviceGenerator.createService(type, upstoxAuthService);
+    }
+
+    /**
+     * @param endpoint         The endpoint being called
+     * @param permitsPerSecond The rate limit of the endpoint
+     * @return The rate limiter of the endpoint, for the account of this service.
+     */
+    protected AsyncRateLimiter rateLimiter(@Nonnull final String endpoint, final double permitsPerSecond) {
+
+        return RateLimiterRegistry.getInstance()
+                .get(upstoxAuthService.getApiCredentials().getApiKey(), endpoint, permitsPerSecond);
+    }
+
+    /**
+     * Makes a call once the rate limit of the endpoint allows it, without blocking the calling thread.
+     * The call is queued on the {@link FairScheduler}, so a busy account cannot starve the others,
+     * and takes its permit when it leaves the queue, so queued calls don't go out in a burst.
+     * It only holds its slot there while the request is issued,
+     * so a slow response does not hold up the other calls of the account.
+     *
+     * @param endpoint         The endpoint being called
+     * @param permitsPerSecond The rate limit of the endpoint
+     * @param call             The call to the endpoint
+     * @param <T>              The type of the response
+     * @return The response of the call
+     */
+    protected <T> CompletableFuture<T> rateLimited(@Nonnull final String endpoint,
+                                                   final double permitsPerSecond,
+                                                   @Nonnull final Supplier<CompletableFuture<T>> call) {
+
+        final String apiKey = upstoxAuthService.getApiCredentials().getApiKey();
+        return FairScheduler.getInstance().submit(apiKey, rateLimiter(endpoint, permitsPerSecond), call);
+    }
+
+    /**
+     * Shares one call among all the identical calls of this account that are in flight at the same time.
+     * Only idempotent calls should be coalesced. The callers share the same response, which they must not change.
+     *
+     * @param endpoint The endpoint being called
+     * @param call     The call to the endpoint, including its retries
+     * @param <T>      The type of the response
+     * @return The response of the shared call
+     * @see SingleFlight
+     */
+    protected <T> CompletableFuture<T> coalesced(@Nonnull final String endpoint,
+                                                 @Nonnull final Supplier<CompletableFuture<T>> call) {
+
+        return coalesced(endpoint, Collections.emptyList(), call);
+    }
+
+    /**
+     * Shares one call among all the identical calls of this account that are in flight at the same time.
+     * Only idempotent calls should be coalesced. The callers share the same response, which they must not change.
+     *
+     * @param endpoint   The endpoint being called
+     * @param parameters The parameters of the call, which together with the endpoint identify it
+     * @param call       The call to the endpoint, including its retries
+     * @param <T>        The type of the response
+     * @return The response of the shared call
+     * @see SingleFlight
+     */
+    protected <T> CompletableFuture<T> coalesced(@Nonnull final String endpoint,
+                                                 @Nonnull final List<?> parameters,
+                                                 @Nonnull final Supplier<CompletableFuture<T>> call) {
+
+        return coalesced(endpoint, parameters, call, UnaryOperator.identity());
+    }
+
+    /**
+     * Like {@link #coalesced(String, List, Supplier)}, but every caller except the first gets a copy of the response,
+     * for the endpoints whose responses the callers are expected to change.
+     * Copying is costly on a busy endpoint, so it is opt-in.
+     *
+     * @param endpoint   The endpoint being called
+     * @param parameters The parameters of the call, which together with the endpoint identify it
+     * @param call       The call to the endpoint, including its retries
+     * @param copy       Copies the response, like {@link ServiceGenerator#copy(Object)}
+     * @param <T>        The type of the response
+     * @return The response of the shared call, or a copy of it
+     * @see SingleFlight
+     */
+    protected <T> CompletableFuture<T> coalesced(@Nonnull final String endpoint,
+                                                 @Nonnull final List<?> parameters,
+                                                 @Nonnull final Supplier<CompletableFuture<T>> call,
+                                                 @Nonnull final UnaryOperator<T> copy) {
 
-        final String token = accessToken.getType() + " " + accessToken.getToken();
-        return ServiceGenerator.getInstance()
-                .createService(type, new AuthHeaders(token, credentials.getApiKey()));
+        final List<Object> key = Arrays.asList(
+                upstoxAuthService.getApiCredentials().getApiKey(), endpoint, parameters);
+        return SingleFlight.getInstance().execute(key, call, copy);
     }
 }
@@ -24,14 +24,31 @@
 
 package com.github.rishabh9.riko.upstox.common;
 
+import com.github.rishabh9.riko.upstox.common.circuitbreakers.CircuitBreakerRegistry;
 import com.github.rishabh9.riko.upstox.common.converters.AlwaysListTypeAdapterFactory;
+import com.github.rishabh9.riko.upstox.common.converters.BidsAskTypeAdapter;
+import com.github.rishabh9.riko.upstox.common.converters.CandleTypeAdapter;
+import com.github.rishabh9.riko.upstox.common.converters.FeedTypeAdapter;
 import com.github.rishabh9.riko.upstox.common.converters.NumberString;
 import com.github.rishabh9.riko.upstox.common.converters.NumberStringDeserializer;
 import com.github.rishabh9.riko.upstox.common.converters.NumberStringSerializer;
+import com.github.rishabh9.riko.upstox.common.converters.OrderTypeAdapter;
+import com.github.rishabh9.riko.upstox.common.converters.PositionTypeAdapter;
+import com.github.rishabh9.riko.upstox.common.converters.TradeTypeAdapter;
 import com.github.rishabh9.riko.upstox.common.interceptors.AuthenticationInterceptor;
 import com.github.rishabh9.riko.upstox.common.interceptors.HttpErrorLoggingInterceptor;
+import com.github.rishabh9.riko.upstox.common.interceptors.UpstoxAuthenticationInterceptor;
 import com.github.rishabh9.riko.upstox.common.models.AuthHeaders;
+import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.feed.models.BidsAsk;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.github.rishabh9.riko.upstox.historical.models.Candle;
+import com.github.rishabh9.riko.upstox.orders.models.Order;
+import com.github.rishabh9.riko.upstox.orders.models.Trade;
+import com.github.rishabh9.riko.upstox.users.models.Position;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import okhttp3.Credentials;
@@ -47,35 +64,70 @@ import retrofit2.converter.gson.GsonConverterFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
 
-public class ServiceGenerator {
+public class ServiceGenerator implements Closeable {
 
     private static final Logger log = LogManager.getLogger(ServiceGenerator.class);
 
-    private ServiceGenerator() {
-        final Gson gson = new GsonBuilder()
+    /**
+     * Upper bound on the number of cached service proxies (and Retrofit instances).
+     * A new entry is only created when an access token is rotated, so this is rarely reached.
+     */
+    private static final long MAX_CACHED_SERVICES = 1024L;
+
+    /**
+     * Cache key used for services that are created without authentication.
+     */
+    private static final AuthHeaders NO_AUTHENTICATION = new AuthHeaders("", "");
+
+    /**
+     * Creates a generator whose base URL and timeouts are read from the system properties.
+     * Every instance owns its HTTP stack, so one instance per Upstox account keeps accounts isolated.
+     */
+    public ServiceGenerator() {
+        this(null);
+    }
+
+    /**
+     * @param baseUrl The base URL of the Upstox API.
+     *                If {@code null}, it is read from the system properties.
+     */
+    public ServiceGenerator(@Nullable final HttpUrl baseUrl) {
+        this.gson = new GsonBuilder()
                 .registerTypeAdapter(NumberString.class, new NumberStringSerializer())
                 .registerTypeAdapter(NumberString.class, new NumberStringDeserializer())
                 .registerTypeAdapterFactory(new AlwaysListTypeAdapterFactory())
+                // Streamed without reflection, as they are the largest or the most frequent responses.
+                .registerTypeAdapter(Feed.class, new FeedTypeAdapter())
+                .registerTypeAdapter(BidsAsk.class, new BidsAskTypeAdapter())
+                .registerTypeAdapter(Order.class, new OrderTypeAdapter())
+                .registerTypeAdapter(Trade.class, new TradeTypeAdapter())
+                .registerTypeAdapter(Position.class, new PositionTypeAdapter())
+                .registerTypeAdapter(Candle.class, new CandleTypeAdapter())
                 .create();
         final String readTimeout = System.getProperty(RIKO_READ_TIMEOUT);
         final String writeTimeout = System.getProperty(RIKO_WRITE_TIMEOUT);
         final String connectTimeout = System.getProperty(RIKO_CONNECT_TIMEOUT);
-        this.httpClient = new OkHttpClient.Builder();
+        final OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder();
         if (!Strings.isNullOrEmpty(readTimeout)) {
-            this.httpClient.readTimeout(
+            httpClientBuilder.readTimeout(
                     Long.parseLong(readTimeout), TimeUnit.SECONDS);
         }
         if (!Strings.isNullOrEmpty(connectTimeout)) {
-            this.httpClient.connectTimeout(
+            httpClientBuilder.connectTimeout(
                     Long.parseLong(connectTimeout), TimeUnit.SECONDS);
         }
         if (!Strings.isNullOrEmpty(writeTimeout)) {
-            this.httpClient.writeTimeout(
+            httpClientBuilder.writeTimeout(
                     Long.parseLong(writeTimeout), TimeUnit.SECONDS);
         }
         final HttpUrl.Builder urlBuilder = new HttpUrl.Builder()
@@ -85,26 +137,55 @@ public class ServiceGenerator {
         if (!Strings.isNullOrEmpty(port)) {
             urlBuilder.port(Integer.parseInt(port));
         }
-        this.builder =
+        this.httpClient = httpClientBuilder.build();
+        this.retrofit =
                 new Retrofit.Builder()
-                        .baseUrl(Objects.requireNonNull(urlBuilder.build()))
+                        .baseUrl(null != baseUrl ? baseUrl : Objects.requireNonNull(urlBuilder.build()))
                         .addConverterFactory(GsonConverterFactory.create(gson))
                         .addCallAdapterFactory(Java8CallAdapterFactory.create())
-                        .client(httpClient.build());
-        this.retrofit = builder.build();
+                        .client(httpClient)
+                        .build();
     }
 
     private static final ServiceGenerator instance = new ServiceGenerator();
 
+    /**
+     * @return The generator shared by the services that are not given one explicitly.
+     */
     public static ServiceGenerator getInstance() {
         return ServiceGenerator.instance;
     }
 
-    private OkHttpClient.Builder httpClient;
+    /**
+     * Converts the responses, and copies them.
+     */
+    private final Gson gson;
 
-    private Retrofit.Builder builder;
+    /**
+     * The base client. Every authenticated client is derived from it,
+     * and therefore shares its connection pool and dispatcher.
+     */
+    private final OkHttpClient httpClient;
 
-    private Retrofit retrofit;
+    private volatile Retrofit retrofit;
+
+    /**
+     * The circuit breakers of the endpoints, as seen by the services of this generator.
+     */
+    private final CircuitBreakerRegistry circuitBreakerRegistry = new CircuitBreakerRegistry();
+
+    private final Cache<AuthHeaders, Retrofit> retrofits =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SERVICES).build();
+
+    private final Cache<ServiceKey, Object> services =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SERVICES).build();
+
+    /**
+     * Services whose credentials are resolved at request time, one entry per {@link UpstoxAuthService}.
+     * Keys are weakly referenced (and compared by identity), so discarded auth services are released.
+     */
+    private final Cache<UpstoxAuthService, AuthenticatedServices> authenticatedServices =
+            CacheBuilder.newBuilder().weakKeys().build();
 
     /**
      * A helper method for unit testing, allowing for random base URLs to be used per test.
@@ -113,9 +194,83 @@ public class ServiceGenerator {
      * @param url The base URL to use.
      */
     public void rebuildWithUrl(HttpUrl url) {
-        builder.client(httpClient.build());
-        builder.baseUrl(url);
-        retrofit = builder.build();
+        retrofit = retrofit.newBuilder().baseUrl(url).build();
+        services.invalidateAll();
+        retrofits.invalidateAll();
+        authenticatedServices.invalidateAll();
+    }
+
+    /**
+     * @return The circuit breakers of the endpoints called by the services of this generator.
+     */
+    @Nonnull
+    public CircuitBreakerRegistry getCircuitBreakerRegistry() {
+        return circuitBreakerRegistry;
+    }
+
+    /**
+     * Releases the connections and threads held by the HTTP client of this generator.
+     * Services created by it must not be used afterwards.
+     * The {@link #getInstance() shared instance} is never closed.
+     */
+    @Override
+    public void close() {
+        if (this == instance) {
+            log.warn("Ignoring an attempt to close the shared service generator");
+            return;
+        }
+        services.invalidateAll();
+        retrofits.invalidateAll();
+        authenticatedServices.invalidateAll();
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * @return A builder of clients sharing the connection pool and the dispatcher of this generator,
+     * for connections that are not made through a service, like web sockets.
+     */
+    @Nonnull
+    public OkHttpClient.Builder newHttpClientBuilder() {
+        return httpClient.newBuilder();
+    }
+
+    /**
+     * Copies a response through the converters of the responses, so that callers sharing a response
+     * can each be given their own objects. Its data is serialized and parsed again, which is costly,
+     * so it is only meant for the coalesced endpoints whose responses the callers change.
+     *
+     * @param response A response, or a part of one, like its data
+     * @param <T>      The type of the response
+     * @return A deep copy of the response.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <T> T copy(@Nullable final T response) {
+        if (null == response || response instanceof String || response instanceof Number
+                || response instanceof Boolean) {
+            return response;
+        }
+        // The type of the data, and of the elements of a list, is only known at run time.
+        if (response instanceof UpstoxResponse) {
+            final UpstoxResponse<?> source = (UpstoxResponse<?>) response;
+            final UpstoxResponse<Object> copy = new UpstoxResponse<>();
+            copy.setCode(source.getCode());
+            copy.setStatus(source.getStatus());
+            copy.setTimestamp(source.getTimestamp());
+            copy.setMessage(source.getMessage());
+            copy.setData(copy(source.getData()));
+            return (T) copy;
+        }
+        if (response instanceof List) {
+            final List<?> source = (List<?>) response;
+            final List<Object> copy = new ArrayList<>(source.size());
+            for (Object element : source) {
+                copy.add(copy(element));
+            }
+            return (T) copy;
+        }
+        return (T) gson.fromJson(gson.toJsonTree(response), response.getClass());
     }
 
     /**
@@ -128,7 +283,7 @@ public class ServiceGenerator {
     public <S> S createService(@Nonnull final Class<S> serviceClass) {
 
         log.debug("Creating service without authentication");
-        return createService(Objects.requireNonNull(serviceClass), null);
+        return createService(Objects.requireNonNull(serviceClass), (AuthHeaders) null);
     }
 
     /**
@@ -152,7 +307,9 @@ public class ServiceGenerator {
     }
 
     /**
-     * Create service with Token Authorization
+     * Create service with Token Authorization.
+     * The service proxy is created once per service class and authentication headers,
+     * and is returned from the cache on subsequent calls.
      *
      * @param serviceClass The Service
      * @param headers      The Authentication headers
@@ -162,51 +319,122 @@ public class ServiceGenerator {
     public <S> S createService(@Nonnull final Class<S> serviceClass,
                                @Nullable final AuthHeaders headers) {
 
-        httpClient.interceptors().clear(); // Fix StackOverFlowError
-
-        enableAuthentication(headers);
-        enableHttpErrorLogging();
-        if (log.isDebugEnabled()) {
-            enableHttpLogging();
-        }
-        log.debug("Creating service with authorization headers");
-        return retrofit.create(Objects.requireNonNull(serviceClass));
+        final AuthHeaders key = isAuthenticated(headers) ? headers : NO_AUTHENTICATION;
+        return Objects.requireNonNull(serviceClass).cast(
+                services.asMap().computeIfAbsent(new ServiceKey(serviceClass, key), serviceKey -> {
+                    log.debug("Creating service {} with authorization headers", serviceClass.getName());
+                    return retrofitFor(key).create(serviceClass);
+                }));
     }
 
-    private void enableHttpErrorLogging() {
-        addInterceptor(new HttpErrorLoggingInterceptor());
+    /**
+     * Create service whose authentication headers are resolved from the {@link UpstoxAuthService}
+     * on every request. A token refresh therefore reuses the same client, along with its warm connections.
+     *
+     * @param serviceClass      The Service
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param <S>               The type of Service
+     * @return The retrofitted service
+     */
+    public <S> S createService(@Nonnull final Class<S> serviceClass,
+                               @Nonnull final UpstoxAuthService upstoxAuthService) {
+
+        Objects.requireNonNull(serviceClass);
+        return authenticatedServices.asMap()
+                .computeIfAbsent(Objects.requireNonNull(upstoxAuthService), authService -> {
+                    log.debug("Creating client for auth service {}", authService);
+                    return new AuthenticatedServices(
+                            retrofit.newBuilder()
+                                    .client(createClient(new UpstoxAuthenticationInterceptor(authService)))
+                                    .build());
+                })
+                .get(serviceClass);
     }
 
-    private void enableAuthentication(final AuthHeaders headers) {
+    private Retrofit retrofitFor(final AuthHeaders headers) {
+        return retrofits.asMap().computeIfAbsent(headers, authHeaders ->
+                retrofit.newBuilder()
+                        .client(createClient(authHeaders))
+                        .build());
+    }
 
-        if (null != headers
-                && !Strings.isNullOrEmpty(headers.getToken())
-                && !Strings.isNullOrEmpty(headers.getApiKey())) {
+    private OkHttpClient createClient(final AuthHeaders headers) {
 
+        if (isAuthenticated(headers)) {
             log.debug("Adding auth headers interceptor");
-            addInterceptor(
+            return createClient(
                     new AuthenticationInterceptor(
                             headers.getToken(), headers.getApiKey()));
         }
+        return createClient((Interceptor) null);
     }
 
-    private void enableHttpLogging() {
+    private OkHttpClient createClient(@Nullable final Interceptor authInterceptor) {
 
-        final HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
-        // Set the desired log level
-        interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-        log.debug("Adding HTTP logging interceptor");
-        addInterceptor(interceptor);
+        // Derived from the base client so that the connection pool and dispatcher are shared.
+        final OkHttpClient.Builder builder = httpClient.newBuilder();
+        if (null != authInterceptor) {
+            builder.addInterceptor(authInterceptor);
+        }
+        builder.addInterceptor(new HttpErrorLoggingInterceptor());
+        if (log.isDebugEnabled()) {
+            final HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
+            // Set the desired log level
+            interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            log.debug("Adding HTTP logging interceptor");
+            builder.addInterceptor(interceptor);
+        }
+        return builder.build();
+    }
+
+    private static boolean isAuthenticated(@Nullable final AuthHeaders headers) {
+        return null != headers
+                && !Strings.isNullOrEmpty(headers.getToken())
+                && !Strings.isNullOrEmpty(headers.getApiKey());
     }
 
-    private void addInterceptor(Interceptor interceptor) {
+    /**
+     * The service proxies backed by a single client for one {@link UpstoxAuthService}.
+     */
+    private static final class AuthenticatedServices {
 
-        if (!httpClient.interceptors().contains(interceptor)) {
-            httpClient.addInterceptor(interceptor);
+        private final Retrofit retrofit;
+        private final ConcurrentMap<Class<?>, Object> proxies = new ConcurrentHashMap<>();
 
-            builder.client(httpClient.build());
-            retrofit = builder.build();
+        private AuthenticatedServices(final Retrofit retrofit) {
+            this.retrofit = retrofit;
+        }
+
+        private <S> S get(final Class<S> serviceClass) {
+            return serviceClass.cast(proxies.computeIfAbsent(serviceClass, retrofit::create));
         }
     }
 
+    /**
+     * Identifies a cached service proxy.
+     */
+    private static final class ServiceKey {
+
+        private final Class<?> serviceClass;
+        private final AuthHeaders headers;
+
+        private ServiceKey(final Class<?> serviceClass, final AuthHeaders headers) {
+            this.serviceClass = serviceClass;
+            this.headers = headers;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ServiceKey that = (ServiceKey) o;
+            return Objects.equals(serviceClass, that.serviceClass) &&
+                    Objects.equals(headers, that.headers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(serviceClass, headers);
+        }
+    }
 }
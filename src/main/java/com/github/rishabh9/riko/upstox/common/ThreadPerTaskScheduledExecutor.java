@@ -0,0 +1,295 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Runs every task on a new thread, as virtual threads are meant to be used, instead of on a fixed number of them.
+ * <p>
+ * The delays are kept by a single platform thread, which only hands the tasks over once they are due.
+ * As with a {@link ScheduledThreadPoolExecutor}, the delayed tasks still run after a {@link #shutdown()},
+ * the periodic ones don't, and the runs of a periodic task never overlap.
+ */
+final class ThreadPerTaskScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final ThreadFactory threadFactory;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+    private final Set<ScheduledTask<?>> pending = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+
+    /**
+     * @param threadFactory The factory of the thread of each task
+     */
+    ThreadPerTaskScheduledExecutor(@Nonnull final ThreadFactory threadFactory) {
+        this.threadFactory = Objects.requireNonNull(threadFactory);
+        this.timer = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("riko-executor-timer-%d").setDaemon(true).build());
+        // Don't keep cancelled retries around until their delay expires.
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public void execute(@Nonnull final Runnable command) {
+        Objects.requireNonNull(command);
+        synchronized (lock) {
+            if (timer.isShutdown()) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            start(command);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public ScheduledFuture<?> schedule(@Nonnull final Runnable command, final long delay, @Nonnull final TimeUnit unit) {
+        return arm(new ScheduledTask<Void>(Objects.requireNonNull(command), triggerTime(delay, unit), 0L));
+    }
+
+    @Nonnull
+    @Override
+    public <V> ScheduledFuture<V> schedule(@Nonnull final Callable<V> callable,
+                                           final long delay,
+                                           @Nonnull final TimeUnit unit) {
+        return arm(new ScheduledTask<>(Objects.requireNonNull(callable), triggerTime(delay, unit)));
+    }
+
+    @Nonnull
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(@Nonnull final Runnable command,
+                                                  final long initialDelay,
+                                                  final long period,
+                                                  @Nonnull final TimeUnit unit) {
+        checkArgument(period > 0L, "period must be positive");
+        return arm(new ScheduledTask<Void>(Objects.requireNonNull(command),
+                triggerTime(initialDelay, unit), unit.toNanos(period)));
+    }
+
+    @Nonnull
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(@Nonnull final Runnable command,
+                                                     final long initialDelay,
+                                                     final long delay,
+                                                     @Nonnull final TimeUnit unit) {
+        checkArgument(delay > 0L, "delay must be positive");
+        return arm(new ScheduledTask<Void>(Objects.requireNonNull(command),
+                triggerTime(initialDelay, unit), -unit.toNanos(delay)));
+    }
+
+    /**
+     * Lets the delayed tasks run when they are due, and cancels the periodic ones.
+     */
+    @Override
+    public void shutdown() {
+        synchronized (lock) {
+            timer.shutdown();
+        }
+        for (ScheduledTask<?> task : pending) {
+            if (task.isPeriodic()) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Interrupts the running tasks.
+     *
+     * @return The delayed tasks which were not handed over yet.
+     */
+    @Nonnull
+    @Override
+    public List<Runnable> shutdownNow() {
+        synchronized (lock) {
+            timer.shutdownNow();
+        }
+        final List<Runnable> notStarted = new ArrayList<>();
+        for (ScheduledTask<?> task : pending) {
+            if (pending.remove(task)) {
+                notStarted.add(task);
+            }
+        }
+        running.forEach(Thread::interrupt);
+        return notStarted;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return timer.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return timer.isTerminated() && running.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, @Nonnull final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        // Once the timer is done, no more tasks are handed over.
+        if (!timer.awaitTermination(timeout, unit)) {
+            return false;
+        }
+        for (Thread thread : running) {
+            NANOSECONDS.timedJoin(thread, deadline - System.nanoTime());
+        }
+        return running.isEmpty();
+    }
+
+    private void start(final Runnable task) {
+        final Thread thread = threadFactory.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                running.remove(Thread.currentThread());
+            }
+        });
+        if (null == thread) {
+            throw new RejectedExecutionException("No thread was created for " + task);
+        }
+        running.add(thread);
+        thread.start();
+    }
+
+    private <V> ScheduledTask<V> arm(final ScheduledTask<V> task) {
+        pending.add(task);
+        try {
+            task.timerFuture = timer.schedule(() -> handOver(task), task.time - System.nanoTime(), NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            pending.remove(task);
+            throw e;
+        }
+        if (task.isCancelled()) {
+            task.timerFuture.cancel(false);
+            pending.remove(task);
+        }
+        return task;
+    }
+
+    /**
+     * Runs on the timer, which keeps running the delayed tasks after a shutdown.
+     */
+    private void handOver(final ScheduledTask<?> task) {
+        if (!pending.remove(task)) {
+            return;
+        }
+        try {
+            start(task);
+        } catch (RuntimeException e) {
+            task.fail(e);
+        }
+    }
+
+    private static long triggerTime(final long delay, final TimeUnit unit) {
+        return System.nanoTime() + unit.toNanos(Math.max(0L, delay));
+    }
+
+    private final class ScheduledTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+
+        /**
+         * Positive for a fixed rate, negative for a fixed delay, 0 for a single run.
+         */
+        private final long period;
+        private volatile long time;
+        private volatile Future<?> timerFuture;
+
+        private ScheduledTask(final Callable<V> callable, final long time) {
+            super(callable);
+            this.time = time;
+            this.period = 0L;
+        }
+
+        private ScheduledTask(final Runnable runnable, final long time, final long period) {
+            super(runnable, null);
+            this.time = time;
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            if (0L == period) {
+                super.run();
+            } else if (runAndReset()) {
+                time = period > 0L ? time + period : System.nanoTime() - period;
+                try {
+                    arm(this);
+                } catch (RejectedExecutionException e) {
+                    // Shut down.
+                    cancel(false);
+                }
+            }
+        }
+
+        private boolean isPeriodic() {
+            return 0L != period;
+        }
+
+        private void fail(final Throwable failure) {
+            setException(failure);
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            final Future<?> scheduled = timerFuture;
+            if (cancelled && null != scheduled) {
+                scheduled.cancel(false);
+                pending.remove(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public long getDelay(@Nonnull final TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(@Nonnull final Delayed other) {
+            return Long.compare(getDelay(NANOSECONDS), other.getDelay(NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.circuitbreakers;
+
+import com.github.rishabh9.riko.upstox.common.retries.RetryableFailures;
+import net.jodah.failsafe.CircuitBreaker;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+
+/**
+ * Holds one circuit breaker per Upstox endpoint.
+ * <p>
+ * When too many recent calls to an endpoint failed because of a server or network error,
+ * its breaker opens and further calls fail fast with a
+ * {@link net.jodah.failsafe.CircuitBreakerOpenException}, instead of piling up behind the rate limiters.
+ * After a delay, a few trial calls are let through (half-open), and the breaker closes again if they succeed.
+ * <p>
+ * Each {@link com.github.rishabh9.riko.upstox.common.ServiceGenerator ServiceGenerator}, so each client,
+ * has its own registry, shared by its services, like it has its own HTTP stack.
+ * Thresholds and the delay are read from the {@code riko.circuit.*} system properties,
+ * and can be replaced per endpoint with {@link #register(String, CircuitBreaker)}.
+ */
+public class CircuitBreakerRegistry {
+
+    private static final Logger log = LogManager.getLogger(CircuitBreakerRegistry.class);
+
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * @param endpoint The endpoint
+     * @return The circuit breaker of the endpoint, created with the default settings if none is registered.
+     */
+    @Nonnull
+    public CircuitBreaker get(@Nonnull final String endpoint) {
+        return circuitBreakers.computeIfAbsent(Objects.requireNonNull(endpoint), this::createCircuitBreaker);
+    }
+
+    /**
+     * Replaces the circuit breaker of an endpoint, for instance to use different thresholds.
+     *
+     * @param endpoint       The endpoint
+     * @param circuitBreaker The circuit breaker to use for the endpoint
+     */
+    public void register(@Nonnull final String endpoint, @Nonnull final CircuitBreaker circuitBreaker) {
+        circuitBreakers.put(Objects.requireNonNull(endpoint), Objects.requireNonNull(circuitBreaker));
+    }
+
+    /**
+     * @param endpoint The endpoint
+     * @return The state of the circuit breaker of the endpoint.
+     */
+    @Nonnull
+    public CircuitBreaker.State getState(@Nonnull final String endpoint) {
+        final CircuitBreaker circuitBreaker = circuitBreakers.get(endpoint);
+        return null == circuitBreaker ? CircuitBreaker.State.CLOSED : circuitBreaker.getState();
+    }
+
+    /**
+     * @param endpoint The endpoint
+     * @return {@code false} if calls to the endpoint currently fail fast.
+     */
+    public boolean isAvailable(@Nonnull final String endpoint) {
+        return getState(endpoint) != CircuitBreaker.State.OPEN;
+    }
+
+    private CircuitBreaker createCircuitBreaker(final String endpoint) {
+        final int failures = getInt(RIKO_CIRCUIT_FAILURE_THRESHOLD, RIKO_CIRCUIT_FAILURE_THRESHOLD_DEFAULT);
+        final int window = getInt(RIKO_CIRCUIT_FAILURE_WINDOW, RIKO_CIRCUIT_FAILURE_WINDOW_DEFAULT);
+        final int successes = getInt(RIKO_CIRCUIT_SUCCESS_THRESHOLD, RIKO_CIRCUIT_SUCCESS_THRESHOLD_DEFAULT);
+        final int delay = getInt(RIKO_CIRCUIT_DELAY, RIKO_CIRCUIT_DELAY_DEFAULT);
+        return new CircuitBreaker()
+                // Invalid requests and rate limiting say nothing about the health of the endpoint.
+                .failIf((Object result, Throwable failure) -> RetryableFailures.indicatesOutage(failure))
+                .withFailureThreshold(failures, Math.max(failures, window))
+                .withSuccessThreshold(successes)
+                .withDelay(delay, TimeUnit.SECONDS)
+                .onOpen(() -> log.warn("Circuit of endpoint '{}' is open, calls will fail fast for {}s",
+                        endpoint, delay))
+                .onHalfOpen(() -> log.info("Circuit of endpoint '{}' is half-open, trying calls", endpoint))
+                .onClose(() -> log.info("Circuit of endpoint '{}' is closed", endpoint));
+    }
+}
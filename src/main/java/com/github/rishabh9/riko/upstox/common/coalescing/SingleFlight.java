@@ -0,0 +1,243 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.coalescing;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_COALESCE_TTL;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_COALESCE_TTL_DEFAULT;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Coalesces identical calls that are in flight at the same time into a single call.
+ * <p>
+ * The first caller for a key makes the call, and every caller arriving with the same key
+ * before it completes shares its result. A successful result can also be reused for a short time
+ * after it completed (the time-to-live), which is off by default. At most {@link #MAX_REUSABLE} results
+ * are kept for reuse, and they are evicted once expired. Failures are never reused.
+ * <p>
+ * Given a copier, the first caller gets the result of the call, and every other caller its own copy,
+ * so that no caller sees the changes another one makes to the result. Nothing is copied for a call
+ * that was not shared.
+ * <p>
+ * Only idempotent calls, such as GETs, should be coalesced.
+ */
+public class SingleFlight {
+
+    /**
+     * The number of results kept for reuse, at most.
+     */
+    public static final long MAX_REUSABLE = 10_000L;
+
+    private static final SingleFlight instance =
+            new SingleFlight(getInt(RIKO_COALESCE_TTL, RIKO_COALESCE_TTL_DEFAULT), TimeUnit.MILLISECONDS);
+
+    private final boolean reuse;
+    /**
+     * The calls in flight. A call is removed once it completes.
+     */
+    private final ConcurrentMap<Object, Flight> flights = new ConcurrentHashMap<>();
+    /**
+     * The results of the calls completed within the time-to-live, as copied once the call completed.
+     */
+    private final Cache<Object, Object> completed;
+
+    /**
+     * @param ttl  How long a successful result is reused after it completed. Zero disables the reuse.
+     * @param unit The unit of {@code ttl}
+     */
+    public SingleFlight(final long ttl, @Nonnull final TimeUnit unit) {
+        this(ttl, unit, Ticker.systemTicker());
+    }
+
+    /**
+     * @param ticker Tells the time of the time-to-live
+     */
+    SingleFlight(final long ttl, @Nonnull final TimeUnit unit, @Nonnull final Ticker ticker) {
+        checkArgument(ttl >= 0L, "ttl cannot be negative");
+        this.reuse = ttl > 0L;
+        this.completed = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl, unit)
+                .maximumSize(reuse ? MAX_REUSABLE : 0L)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * @return The instance used by the services.
+     * Its time-to-live is read, in milliseconds, from the {@code riko.coalesce.ttl} system property.
+     */
+    public static SingleFlight getInstance() {
+        return SingleFlight.instance;
+    }
+
+    /**
+     * Shares the result of the call, as is, among the callers.
+     *
+     * @param key  Identifies the call, for instance the account, the endpoint and the parameters.
+     *             It must implement {@code equals} and {@code hashCode}.
+     * @param call Makes the call, if no identical call is in flight
+     * @param <T>  The type of the result
+     * @return A future completing with the result of the shared call.
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> execute(@Nonnull final Object key,
+                                            @Nonnull final Supplier<CompletableFuture<T>> call) {
+
+        return execute(key, call, UnaryOperator.identity());
+    }
+
+    /**
+     * @param key  Identifies the call, for instance the account, the endpoint and the parameters.
+     *             It must implement {@code equals} and {@code hashCode}.
+     * @param call Makes the call, if no identical call is in flight
+     * @param copy Copies the result for the callers sharing it
+     * @param <T>  The type of the result
+     * @return A future completing with the result of the shared call, or a copy of it.
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public <T> CompletableFuture<T> execute(@Nonnull final Object key,
+                                            @Nonnull final Supplier<CompletableFuture<T>> call,
+                                            @Nonnull final UnaryOperator<T> copy) {
+
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(call);
+        Objects.requireNonNull(copy);
+        while (true) {
+            if (reuse) {
+                final Object result = completed.getIfPresent(key);
+                if (null != result) {
+                    return CompletableFuture.completedFuture(copy.apply((T) result));
+                }
+            }
+            final Flight existing = flights.get(key);
+            if (null != existing) {
+                if (existing.join()) {
+                    return ((CompletableFuture<T>) existing.shared).thenApply(copy);
+                }
+                // It just completed, without anyone to share it with.
+                continue;
+            }
+            final Flight flight = new Flight();
+            if (null == flights.putIfAbsent(key, flight)) {
+                return start(key, flight, call, copy);
+            }
+        }
+    }
+
+    /**
+     * @return The number of calls currently in flight or reusable.
+     */
+    public int size() {
+        completed.cleanUp();
+        return (int) Math.min(Integer.MAX_VALUE, flights.size() + completed.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> start(final Object key,
+                                           final Flight flight,
+                                           final Supplier<CompletableFuture<T>> call,
+                                           final UnaryOperator<T> copy) {
+
+        final CompletableFuture<T> shared = (CompletableFuture<T>) flight.shared;
+        // The first caller gets its own future, so that cancelling it does not affect the others.
+        final CompletableFuture<T> first = new CompletableFuture<>();
+        CompletableFuture<T> response;
+        try {
+            response = call.get();
+        } catch (Throwable failure) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(failure);
+        }
+        response.whenComplete((value, failure) -> {
+            if (null != failure) {
+                flights.remove(key, flight);
+                flight.close();
+                shared.completeExceptionally(failure);
+                first.completeExceptionally(failure);
+                return;
+            }
+            if (reuse) {
+                // Copied before the first caller can change it.
+                final T original = copy.apply(value);
+                if (null != original) {
+                    completed.put(key, original);
+                }
+                flights.remove(key, flight);
+                shared.complete(original);
+            } else {
+                flights.remove(key, flight);
+                if (flight.close()) {
+                    shared.complete(copy.apply(value));
+                }
+            }
+            first.complete(value);
+        });
+        return first;
+    }
+
+    private static final class Flight {
+
+        /**
+         * Completed with a copy of the result, kept unchanged for the other callers to copy.
+         */
+        private final CompletableFuture<?> shared = new CompletableFuture<>();
+        // Guarded by 'this'.
+        private boolean joined;
+        private boolean closed;
+
+        /**
+         * @return {@code false} if the call completed already, without being shared.
+         */
+        private synchronized boolean join() {
+            if (closed) {
+                return false;
+            }
+            joined = true;
+            return true;
+        }
+
+        /**
+         * @return {@code true} if another caller shares the call.
+         */
+        private synchronized boolean close() {
+            closed = true;
+            return joined;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.constants;
+
+/**
+ * Names of the Upstox API endpoints, used to scope rate limiting and other per-endpoint state.
+ */
+public class Endpoints {
+    public static final String LIVE_FEED = "live-feed";
+    public static final String SUBSCRIBE = "subscribe";
+    public static final String UNSUBSCRIBE = "unsubscribe";
+    public static final String SYMBOLS_SUBSCRIBED = "symbols-subscribed";
+    public static final String HISTORICAL = "historical";
+    public static final String LOGIN = "login";
+    public static final String ORDER_HISTORY = "order-history";
+    public static final String ORDER_DETAILS = "order-details";
+    public static final String TRADE_BOOK = "trade-book";
+    public static final String TRADE_HISTORY = "trade-history";
+    public static final String PLACE_ORDER = "place-order";
+    public static final String MODIFY_ORDER = "modify-order";
+    public static final String CANCEL_ORDER = "cancel-order";
+    public static final String PROFILE = "profile";
+    public static final String BALANCE = "balance";
+    public static final String POSITIONS = "positions";
+    public static final String HOLDINGS = "holdings";
+    public static final String MASTER_CONTRACT = "master-contract";
+    public static final String WS_PARAMS = "ws-params";
+    public static final String WEB_SOCKET = "web-socket";
+}
@@ -54,4 +54,59 @@ public class PropertyKeys {
 
     public static final String RIKO_WS_RECONNECT = "riko.ws.reconnect";
     public static final String RIKO_WS_RECONNECT_DEFAULT = "false";
+
+    public static final String RIKO_SCHEDULER_THREADS = "riko.scheduler.threads";
+    public static final int RIKO_SCHEDULER_THREADS_DEFAULT =
+            Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+    public static final String RIKO_SCHEDULER_ACCOUNT_CONCURRENCY = "riko.scheduler.account.concurrency";
+    public static final int RIKO_SCHEDULER_ACCOUNT_CONCURRENCY_DEFAULT = 2;
+
+    public static final String RIKO_EXECUTOR_THREADS = "riko.executor.threads";
+    public static final int RIKO_EXECUTOR_THREADS_DEFAULT = Runtime.getRuntime().availableProcessors();
+
+    public static final String RIKO_EXECUTOR_VIRTUAL = "riko.executor.virtual";
+    public static final boolean RIKO_EXECUTOR_VIRTUAL_DEFAULT = false;
+
+    public static final String RIKO_CIRCUIT_FAILURE_THRESHOLD = "riko.circuit.failure.threshold";
+    public static final int RIKO_CIRCUIT_FAILURE_THRESHOLD_DEFAULT = 5;
+
+    public static final String RIKO_CIRCUIT_FAILURE_WINDOW = "riko.circuit.failure.window";
+    public static final int RIKO_CIRCUIT_FAILURE_WINDOW_DEFAULT = 10;
+
+    public static final String RIKO_CIRCUIT_SUCCESS_THRESHOLD = "riko.circuit.success.threshold";
+    public static final int RIKO_CIRCUIT_SUCCESS_THRESHOLD_DEFAULT = 2;
+
+    public static final String RIKO_CIRCUIT_DELAY = "riko.circuit.delay";
+    public static final int RIKO_CIRCUIT_DELAY_DEFAULT = 30;
+
+    public static final String RIKO_COALESCE_TTL = "riko.coalesce.ttl";
+    public static final int RIKO_COALESCE_TTL_DEFAULT = 0;
+
+    public static final String RIKO_WS_RING_SIZE = "riko.ws.ring.size";
+    public static final int RIKO_WS_RING_SIZE_DEFAULT = 1024;
+
+    public static final String RIKO_WS_WAIT_STRATEGY = "riko.ws.wait.strategy";
+    public static final String RIKO_WS_WAIT_STRATEGY_DEFAULT = "PARK";
+
+    public static final String RIKO_WS_TICK_PARTITIONS = "riko.ws.tick.partitions";
+    public static final int RIKO_WS_TICK_PARTITIONS_DEFAULT = Runtime.getRuntime().availableProcessors();
+
+    public static final String RIKO_WS_RECONNECT_DELAY = "riko.ws.reconnect.delay";
+    public static final int RIKO_WS_RECONNECT_DELAY_DEFAULT = 500;
+
+    public static final String RIKO_WS_RECONNECT_MAX_DELAY = "riko.ws.reconnect.max.delay";
+    public static final int RIKO_WS_RECONNECT_MAX_DELAY_DEFAULT = 30_000;
+
+    public static final String RIKO_FEED_CACHE_MAX_AGE = "riko.feed.cache.max.age";
+    public static final int RIKO_FEED_CACHE_MAX_AGE_DEFAULT = 1000;
+
+    public static final String RIKO_JOURNAL_FILE_SIZE = "riko.journal.file.size";
+    public static final int RIKO_JOURNAL_FILE_SIZE_DEFAULT = 256;
+
+    public static final String RIKO_JOURNAL_ZONE = "riko.journal.zone";
+    public static final String RIKO_JOURNAL_ZONE_DEFAULT = "Asia/Kolkata";
+
+    public static final String RIKO_JOURNAL_UNMAP = "riko.journal.unmap";
+    public static final boolean RIKO_JOURNAL_UNMAP_DEFAULT = false;
 }
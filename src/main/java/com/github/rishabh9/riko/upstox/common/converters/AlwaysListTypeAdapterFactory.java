@@ -80,7 +80,11 @@ public class AlwaysListTypeAdapterFactory<E> implements TypeAdapterFactory {
 
         @Override
         public void write(final JsonWriter out, final List<E> list) throws IOException {
-            throw new UnsupportedOperationException();
+            out.beginArray();
+            for (E element : list) {
+                elementTypeAdapter.write(out, element);
+            }
+            out.endArray();
         }
 
         @Override
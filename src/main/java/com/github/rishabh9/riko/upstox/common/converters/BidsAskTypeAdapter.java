@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.github.rishabh9.riko.upstox.feed.models.BidsAsk;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readBigDecimal;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readLong;
+
+/**
+ * Streams {@link BidsAsk} without reflection, for the bids and asks of a {@link com.github.rishabh9.riko.upstox.feed.models.Feed feed}.
+ */
+public class BidsAskTypeAdapter extends TypeAdapter<BidsAsk> {
+
+    @Override
+    public void write(final JsonWriter out, final BidsAsk bidsAsk) throws IOException {
+        if (null == bidsAsk) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("quantity").value(bidsAsk.getQuantity());
+        out.name("price").value(bidsAsk.getPrice());
+        out.name("orders").value(bidsAsk.getOrders());
+        out.endObject();
+    }
+
+    @Override
+    public BidsAsk read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final BidsAsk bidsAsk = new BidsAsk();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "quantity":
+                    bidsAsk.setQuantity(readLong(in));
+                    break;
+                case "price":
+                    bidsAsk.setPrice(readBigDecimal(in));
+                    break;
+                case "orders":
+                    bidsAsk.setOrders(readLong(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return bidsAsk;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.github.rishabh9.riko.upstox.historical.models.Candle;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readBigDecimal;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readLong;
+
+/**
+ * Streams {@link Candle} without reflection, for the candles of the historical data.
+ */
+public class CandleTypeAdapter extends TypeAdapter<Candle> {
+
+    @Override
+    public void write(final JsonWriter out, final Candle candle) throws IOException {
+        if (null == candle) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("timestamp").value(candle.getTimestamp());
+        out.name("open").value(candle.getOpen());
+        out.name("high").value(candle.getHigh());
+        out.name("low").value(candle.getLow());
+        out.name("close").value(candle.getClose());
+        out.name("volume").value(candle.getVolume());
+        out.name("cp").value(candle.getCp());
+        out.endObject();
+    }
+
+    @Override
+    public Candle read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final Candle candle = new Candle();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "timestamp":
+                    candle.setTimestamp(readLong(in));
+                    break;
+                case "open":
+                    candle.setOpen(readBigDecimal(in));
+                    break;
+                case "high":
+                    candle.setHigh(readBigDecimal(in));
+                    break;
+                case "low":
+                    candle.setLow(readBigDecimal(in));
+                    break;
+                case "close":
+                    candle.setClose(readBigDecimal(in));
+                    break;
+                case "volume":
+                    candle.setVolume(readLong(in));
+                    break;
+                case "cp":
+                    candle.setCp(readBigDecimal(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return candle;
+    }
+}
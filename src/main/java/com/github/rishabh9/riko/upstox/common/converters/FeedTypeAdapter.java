@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.github.rishabh9.riko.upstox.feed.models.BidsAsk;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readBigDecimal;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readList;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readLong;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readNumberString;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readString;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.writeList;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.writeNumberString;
+
+/**
+ * Streams {@link Feed} without reflection, for the live feeds.
+ */
+public class FeedTypeAdapter extends TypeAdapter<Feed> {
+
+    private final TypeAdapter<BidsAsk> bidsAskAdapter = new BidsAskTypeAdapter();
+
+    @Override
+    public void write(final JsonWriter out, final Feed feed) throws IOException {
+        if (null == feed) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("timestamp").value(feed.getTimestamp());
+        out.name("exchange").value(feed.getExchange());
+        out.name("symbol").value(feed.getSymbol());
+        out.name("ltp").value(feed.getLtp());
+        out.name("open").value(feed.getOpen());
+        out.name("high").value(feed.getHigh());
+        out.name("low").value(feed.getLow());
+        out.name("close").value(feed.getClose());
+        out.name("vtt").value(feed.getVtt());
+        out.name("atp").value(feed.getAtp());
+        out.name("oi");
+        writeNumberString(out, feed.getOi());
+        out.name("spot_price").value(feed.getSpotPrice());
+        out.name("total_buy_qty").value(feed.getTotalBuyQuantity());
+        out.name("total_sell_qty").value(feed.getTotalSellQuantity());
+        out.name("lower_circuit").value(feed.getLowerCircuit());
+        out.name("upper_circuit").value(feed.getUpperCircuit());
+        out.name("yearly_low");
+        writeNumberString(out, feed.getYearlyLow());
+        out.name("yearly_high");
+        writeNumberString(out, feed.getYearlyHigh());
+        out.name("bids");
+        writeList(out, feed.getBids(), bidsAskAdapter);
+        out.name("ask");
+        writeList(out, feed.getAsk(), bidsAskAdapter);
+        out.name("ltt").value(feed.getLtt());
+        out.endObject();
+    }
+
+    @Override
+    public Feed read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final Feed feed = new Feed();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "timestamp":
+                    feed.setTimestamp(readLong(in));
+                    break;
+                case "exchange":
+                    feed.setExchange(readString(in));
+                    break;
+                case "symbol":
+                    feed.setSymbol(readString(in));
+                    break;
+                case "ltp":
+                    feed.setLtp(readBigDecimal(in));
+                    break;
+                case "open":
+                    feed.setOpen(readBigDecimal(in));
+                    break;
+                case "high":
+                    feed.setHigh(readBigDecimal(in));
+                    break;
+                case "low":
+                    feed.setLow(readBigDecimal(in));
+                    break;
+                case "close":
+                    feed.setClose(readBigDecimal(in));
+                    break;
+                case "vtt":
+                    feed.setVtt(readLong(in));
+                    break;
+                case "atp":
+                    feed.setAtp(readBigDecimal(in));
+                    break;
+                case "oi":
+                    feed.setOi(readNumberString(in));
+                    break;
+                case "spot_price":
+                    feed.setSpotPrice(readBigDecimal(in));
+                    break;
+                case "total_buy_qty":
+                    feed.setTotalBuyQuantity(readLong(in));
+                    break;
+                case "total_sell_qty":
+                    feed.setTotalSellQuantity(readLong(in));
+                    break;
+                case "lower_circuit":
+                    feed.setLowerCircuit(readBigDecimal(in));
+                    break;
+                case "upper_circuit":
+                    feed.setUpperCircuit(readBigDecimal(in));
+                    break;
+                case "yearly_low":
+                    feed.setYearlyLow(readNumberString(in));
+                    break;
+                case "yearly_high":
+                    feed.setYearlyHigh(readNumberString(in));
+                    break;
+                case "bids":
+                    feed.setBids(readList(in, bidsAskAdapter));
+                    break;
+                case "ask":
+                    feed.setAsk(readList(in, bidsAskAdapter));
+                    break;
+                case "ltt":
+                    feed.setLtt(readLong(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return feed;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes values the way Gson's own adapters do, for the hand-written model adapters.
+ */
+final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    static String readString(final JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    static Long readLong(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    static BigDecimal readBigDecimal(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return new BigDecimal(in.nextString());
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Same as {@link NumberStringDeserializer}: anything that is not a number, like an empty string,
+     * becomes a {@link NumberString} without a value.
+     */
+    static NumberString readNumberString(final JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        switch (token) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                in.nextBoolean();
+                return new NumberString(null);
+            case NUMBER:
+            case STRING:
+                try {
+                    return new NumberString(new BigDecimal(in.nextString()));
+                } catch (NumberFormatException e) {
+                    return new NumberString(null);
+                }
+            default:
+                throw new JsonParseException("Expected a number or a string but was " + token);
+        }
+    }
+
+    /**
+     * Reads a primitive boolean. A {@code null} leaves the current value untouched.
+     */
+    static boolean readBoolean(final JsonReader in, final boolean current) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return current;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    /**
+     * Same as {@link AlwaysListTypeAdapterFactory}: a single element is read as a list of one.
+     */
+    static <E> List<E> readList(final JsonReader in, final TypeAdapter<E> elementAdapter) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final List<E> list = new ArrayList<>();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            in.beginArray();
+            while (in.hasNext()) {
+                list.add(elementAdapter.read(in));
+            }
+            in.endArray();
+        } else {
+            list.add(elementAdapter.read(in));
+        }
+        return list;
+    }
+
+    static void writeNumberString(final JsonWriter out, final NumberString value) throws IOException {
+        if (null == value) {
+            out.nullValue();
+        } else if (value.isNumber()) {
+            out.value(value.value());
+        } else {
+            out.value("");
+        }
+    }
+
+    static <E> void writeList(final JsonWriter out,
+                              final List<E> list,
+                              final TypeAdapter<E> elementAdapter) throws IOException {
+        if (null == list) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (E element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+}
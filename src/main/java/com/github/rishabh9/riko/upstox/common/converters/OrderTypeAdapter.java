@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.github.rishabh9.riko.upstox.orders.models.Order;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readBigDecimal;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readBoolean;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readLong;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readString;
+
+/**
+ * Streams {@link Order} without reflection, for the orders of the order book and history.
+ */
+public class OrderTypeAdapter extends TypeAdapter<Order> {
+
+    @Override
+    public void write(final JsonWriter out, final Order order) throws IOException {
+        if (null == order) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("exchange").value(order.getExchange());
+        out.name("token").value(order.getToken());
+        out.name("symbol").value(order.getSymbol());
+        out.name("product").value(order.getProduct());
+        out.name("order_type").value(order.getOrderType());
+        out.name("duration").value(order.getDuration());
+        out.name("price").value(order.getPrice());
+        out.name("trigger_price").value(order.getTriggerPrice());
+        out.name("quantity").value(order.getQuantity());
+        out.name("disclosed_quantity").value(order.getDisclosedQuantity());
+        out.name("transaction_type").value(order.getTransactionType());
+        out.name("average_price").value(order.getAveragePrice());
+        out.name("traded_quantity").value(order.getTradedQuantity());
+        out.name("message").value(order.getMessage());
+        out.name("exchange_order_id").value(order.getExchangeOrderId());
+        out.name("parent_order_id").value(order.getParentOrderId());
+        out.name("order_id").value(order.getOrderId());
+        out.name("exchange_time").value(order.getExchangeTime());
+        out.name("time_in_micro").value(order.getTimeInMicro());
+        out.name("status").value(order.getStatus());
+        out.name("is_amo").value(order.isIs_amo());
+        out.name("valid_date").value(order.getValidDate());
+        out.name("order_request_id").value(order.getOrderRequestId());
+        out.name("fill_leg").value(order.getFillLeg());
+        out.name("report").value(order.getReport());
+        out.name("text").value(order.getText());
+        out.endObject();
+    }
+
+    @Override
+    public Order read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final Order order = new Order();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "exchange":
+                    order.setExchange(readString(in));
+                    break;
+                case "token":
+                    order.setToken(readLong(in));
+                    break;
+                case "symbol":
+                    order.setSymbol(readString(in));
+                    break;
+                case "product":
+                    order.setProduct(readString(in));
+                    break;
+                case "order_type":
+                    order.setOrderType(readString(in));
+                    break;
+                case "duration":
+                    order.setDuration(readString(in));
+                    break;
+                case "price":
+                    order.setPrice(readBigDecimal(in));
+                    break;
+                case "trigger_price":
+                    order.setTriggerPrice(readBigDecimal(in));
+                    break;
+                case "quantity":
+                    order.setQuantity(readLong(in));
+                    break;
+                case "disclosed_quantity":
+                    order.setDisclosedQuantity(readLong(in));
+                    break;
+                case "transaction_type":
+                    order.setTransactionType(readString(in));
+                    break;
+                case "average_price":
+                    order.setAveragePrice(readBigDecimal(in));
+                    break;
+                case "traded_quantity":
+                    order.setTradedQuantity(readLong(in));
+                    break;
+                case "message":
+                    order.setMessage(readString(in));
+                    break;
+                case "exchange_order_id":
+                    order.setExchangeOrderId(readString(in));
+                    break;
+                case "parent_order_id":
+                    order.setParentOrderId(readString(in));
+                    break;
+                case "order_id":
+                    order.setOrderId(readString(in));
+                    break;
+                case "exchange_time":
+                    order.setExchangeTime(readString(in));
+                    break;
+                case "time_in_micro":
+                    order.setTimeInMicro(readString(in));
+                    break;
+                case "status":
+                    order.setStatus(readString(in));
+                    break;
+                case "is_amo":
+                    order.setIs_amo(readBoolean(in, order.isIs_amo()));
+                    break;
+                case "valid_date":
+                    order.setValidDate(readString(in));
+                    break;
+                case "order_request_id":
+                    order.setOrderRequestId(readString(in));
+                    break;
+                case "fill_leg":
+                    order.setFillLeg(readString(in));
+                    break;
+                case "report":
+                    order.setReport(readString(in));
+                    break;
+                case "text":
+                    order.setText(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return order;
+    }
+}
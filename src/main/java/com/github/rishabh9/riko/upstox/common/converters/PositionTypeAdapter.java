@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.github.rishabh9.riko.upstox.users.models.Position;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readBigDecimal;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readLong;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readNumberString;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readString;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.writeNumberString;
+
+/**
+ * Streams {@link Position} without reflection, for the positions.
+ */
+public class PositionTypeAdapter extends TypeAdapter<Position> {
+
+    @Override
+    public void write(final JsonWriter out, final Position position) throws IOException {
+        if (null == position) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("exchange").value(position.getExchange());
+        out.name("product").value(position.getProduct());
+        out.name("symbol").value(position.getSymbol());
+        out.name("token").value(position.getToken());
+        out.name("buy_amount").value(position.getBuyAmount());
+        out.name("sell_amount").value(position.getSellAmount());
+        out.name("buy_quantity").value(position.getBuyQuantity());
+        out.name("sell_quantity").value(position.getSellQuantity());
+        out.name("cf_buy_amount").value(position.getCfBuyAmount());
+        out.name("cf_sell_amount").value(position.getCfSellAmount());
+        out.name("cf_buy_quantity").value(position.getCfBuyQuantity());
+        out.name("cf_sell_quantity").value(position.getCfSellQuantity());
+        out.name("avg_buy_price");
+        writeNumberString(out, position.getAverageBuyPrice());
+        out.name("avg_sell_price");
+        writeNumberString(out, position.getAverageSellPrice());
+        out.name("net_quantity").value(position.getNetQuantity());
+        out.name("close_price").value(position.getClosePrice());
+        out.name("last_traded_price");
+        writeNumberString(out, position.getLastTradedPrice());
+        out.name("realized_profit");
+        writeNumberString(out, position.getRealizedProfit());
+        out.name("unrealized_profit");
+        writeNumberString(out, position.getUnrealizedProfit());
+        out.name("cf_avg_price");
+        writeNumberString(out, position.getCfAveragePrice());
+        out.endObject();
+    }
+
+    @Override
+    public Position read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final Position position = new Position();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "exchange":
+                    position.setExchange(readString(in));
+                    break;
+                case "product":
+                    position.setProduct(readString(in));
+                    break;
+                case "symbol":
+                    position.setSymbol(readString(in));
+                    break;
+                case "token":
+                    position.setToken(readLong(in));
+                    break;
+                case "buy_amount":
+                    position.setBuyAmount(readBigDecimal(in));
+                    break;
+                case "sell_amount":
+                    position.setSellAmount(readBigDecimal(in));
+                    break;
+                case "buy_quantity":
+                    position.setBuyQuantity(readLong(in));
+                    break;
+                case "sell_quantity":
+                    position.setSellQuantity(readLong(in));
+                    break;
+                case "cf_buy_amount":
+                    position.setCfBuyAmount(readBigDecimal(in));
+                    break;
+                case "cf_sell_amount":
+                    position.setCfSellAmount(readBigDecimal(in));
+                    break;
+                case "cf_buy_quantity":
+                    position.setCfBuyQuantity(readLong(in));
+                    break;
+                case "cf_sell_quantity":
+                    position.setCfSellQuantity(readLong(in));
+                    break;
+                case "avg_buy_price":
+                    position.setAverageBuyPrice(readNumberString(in));
+                    break;
+                case "avg_sell_price":
+                    position.setAverageSellPrice(readNumberString(in));
+                    break;
+                case "net_quantity":
+                    position.setNetQuantity(readLong(in));
+                    break;
+                case "close_price":
+                    position.setClosePrice(readBigDecimal(in));
+                    break;
+                case "last_traded_price":
+                    position.setLastTradedPrice(readNumberString(in));
+                    break;
+                case "realized_profit":
+                    position.setRealizedProfit(readNumberString(in));
+                    break;
+                case "unrealized_profit":
+                    position.setUnrealizedProfit(readNumberString(in));
+                    break;
+                case "cf_avg_price":
+                    position.setCfAveragePrice(readNumberString(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return position;
+    }
+}
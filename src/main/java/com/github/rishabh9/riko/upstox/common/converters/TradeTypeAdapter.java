@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.github.rishabh9.riko.upstox.orders.models.Trade;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readBigDecimal;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readLong;
+import static com.github.rishabh9.riko.upstox.common.converters.JsonStreams.readString;
+
+/**
+ * Streams {@link Trade} without reflection, for the trades of the trade book and history.
+ */
+public class TradeTypeAdapter extends TypeAdapter<Trade> {
+
+    @Override
+    public void write(final JsonWriter out, final Trade trade) throws IOException {
+        if (null == trade) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("exchange").value(trade.getExchange());
+        out.name("token").value(trade.getToken());
+        out.name("symbol").value(trade.getSymbol());
+        out.name("product").value(trade.getProduct());
+        out.name("order_type").value(trade.getOrderType());
+        out.name("transaction_type").value(trade.getTransactionType());
+        out.name("traded_quantity").value(trade.getTradedQuantity());
+        out.name("exchange_order_id").value(trade.getExchangeOrderId());
+        out.name("order_id").value(trade.getOrderId());
+        out.name("exchange_time").value(trade.getExchangeTime());
+        out.name("time_in_micro").value(trade.getTimeInMicro());
+        out.name("traded_price").value(trade.getTradedPrice());
+        out.name("trade_id").value(trade.getTradeId());
+        out.endObject();
+    }
+
+    @Override
+    public Trade read(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final Trade trade = new Trade();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "exchange":
+                    trade.setExchange(readString(in));
+                    break;
+                case "token":
+                    trade.setToken(readLong(in));
+                    break;
+                case "symbol":
+                    trade.setSymbol(readString(in));
+                    break;
+                case "product":
+                    trade.setProduct(readString(in));
+                    break;
+                case "order_type":
+                    trade.setOrderType(readString(in));
+                    break;
+                case "transaction_type":
+                    trade.setTransactionType(readString(in));
+                    break;
+                case "traded_quantity":
+                    trade.setTradedQuantity(readLong(in));
+                    break;
+                case "exchange_order_id":
+                    trade.setExchangeOrderId(readString(in));
+                    break;
+                case "order_id":
+                    trade.setOrderId(readString(in));
+                    break;
+                case "exchange_time":
+                    trade.setExchangeTime(readString(in));
+                    break;
+                case "time_in_micro":
+                    trade.setTimeInMicro(readString(in));
+                    break;
+                case "traded_price":
+                    trade.setTradedPrice(readBigDecimal(in));
+                    break;
+                case "trade_id":
+                    trade.setTradeId(readLong(in));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return trade;
+    }
+}
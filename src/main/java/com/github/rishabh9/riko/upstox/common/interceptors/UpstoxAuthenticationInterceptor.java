@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.interceptors;
+
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Retrofit2 interceptor to add the authentication headers to every request.
+ * Unlike {@link AuthenticationInterceptor}, the token is not fixed at construction.
+ * The latest {@link AccessToken} and {@link ApiCredentials} are resolved from the
+ * {@link UpstoxAuthService} when the request is made, so a token refresh does not
+ * require a new HTTP client. The formatted headers are cached until the token changes.
+ */
+public class UpstoxAuthenticationInterceptor implements Interceptor {
+
+    private final UpstoxAuthService upstoxAuthService;
+
+    private volatile ResolvedHeaders headers;
+
+    public UpstoxAuthenticationInterceptor(@Nonnull final UpstoxAuthService upstoxAuthService) {
+        this.upstoxAuthService = Objects.requireNonNull(upstoxAuthService);
+    }
+
+    @Override
+    public Response intercept(Interceptor.Chain chain) throws IOException {
+        final ResolvedHeaders resolved = resolveHeaders();
+
+        Request request = chain.request().newBuilder()
+                .header("X-API-KEY", resolved.apiKey)
+                .header("Authorization", resolved.authorization)
+                .build();
+        return chain.proceed(request);
+    }
+
+    private ResolvedHeaders resolveHeaders() {
+        final AccessToken accessToken = upstoxAuthService.getAccessToken();
+        final ApiCredentials credentials = upstoxAuthService.getApiCredentials();
+
+        ResolvedHeaders resolved = headers;
+        if (null == resolved || !resolved.isFor(accessToken, credentials)) {
+            resolved = new ResolvedHeaders(accessToken, credentials);
+            headers = resolved;
+        }
+        return resolved;
+    }
+
+    /**
+     * The headers formatted for a particular token and API key.
+     */
+    private static final class ResolvedHeaders {
+
+        private final String type;
+        private final String token;
+        private final String apiKey;
+        private final String authorization;
+
+        private ResolvedHeaders(final AccessToken accessToken, final ApiCredentials credentials) {
+            this.type = accessToken.getType();
+            this.token = accessToken.getToken();
+            this.apiKey = credentials.getApiKey();
+            this.authorization = type + " " + token;
+        }
+
+        private boolean isFor(final AccessToken accessToken, final ApiCredentials credentials) {
+            return Objects.equals(token, accessToken.getToken())
+                    && Objects.equals(type, accessToken.getType())
+                    && Objects.equals(apiKey, credentials.getApiKey());
+        }
+    }
+}
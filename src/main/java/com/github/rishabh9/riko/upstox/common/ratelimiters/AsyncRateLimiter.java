@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimiters;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A rate limiter that never blocks the calling thread.
+ * <p>
+ * Permits are handed out at evenly spaced instants, {@code 1 / permitsPerSecond} apart.
+ * Acquiring a permit reserves the next free instant with a single compare-and-set, and returns a future
+ * that a timer completes at that instant. Callers chain their call on the future instead of waiting for it,
+ * so a burst of calls to a slow endpoint queues up on the timer without holding any threads.
+ */
+public class AsyncRateLimiter {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    /**
+     * One timer thread is enough for all limiters, as it only completes futures.
+     */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("riko-rate-limiter").setDaemon(true).build());
+
+    private final double permitsPerSecond;
+    private final long intervalNanos;
+    private final Ticker ticker;
+    /**
+     * The instant, read from the ticker, at which the next permit becomes free.
+     */
+    private final AtomicLong nextFreeNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /**
+     * @param permitsPerSecond The number of permits handed out every second
+     */
+    public AsyncRateLimiter(final double permitsPerSecond) {
+        this(permitsPerSecond, Ticker.systemTicker());
+    }
+
+    /**
+     * @param permitsPerSecond The number of permits handed out every second
+     * @param ticker           The source of the time, in nanoseconds
+     */
+    AsyncRateLimiter(final double permitsPerSecond, @Nonnull final Ticker ticker) {
+        checkArgument(permitsPerSecond > 0.0D && !Double.isNaN(permitsPerSecond),
+                "permitsPerSecond must be positive");
+        this.permitsPerSecond = permitsPerSecond;
+        this.intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1L) / permitsPerSecond));
+        this.ticker = Objects.requireNonNull(ticker);
+        this.nextFreeNanos = new AtomicLong(ticker.read());
+    }
+
+    /**
+     * Reserves a permit.
+     *
+     * @return A future completing once the permit is available. It is already complete if no waiting is needed.
+     */
+    @Nonnull
+    public CompletableFuture<Void> acquire() {
+        final long now = ticker.read();
+        long reserved;
+        long next;
+        do {
+            next = nextFreeNanos.get();
+            // An idle limiter does not accumulate permits, so bursts are not allowed.
+            reserved = next - now > 0 ? next : now;
+        } while (!nextFreeNanos.compareAndSet(next, reserved + intervalNanos));
+
+        final long delay = reserved - now;
+        if (delay <= 0) {
+            return GRANTED;
+        }
+        final CompletableFuture<Void> permit = new CompletableFuture<>();
+        waiting.incrementAndGet();
+        timer.schedule(() -> {
+            waiting.decrementAndGet();
+            permit.complete(null);
+        }, delay, TimeUnit.NANOSECONDS);
+        return permit;
+    }
+
+    /**
+     * Takes a permit if one is available now, without reserving a later one otherwise.
+     *
+     * @return {@code true} if the permit was taken.
+     */
+    public boolean tryAcquire() {
+        final long now = ticker.read();
+        long next;
+        do {
+            next = nextFreeNanos.get();
+            if (next - now > 0) {
+                return false;
+            }
+        } while (!nextFreeNanos.compareAndSet(next, now + intervalNanos));
+        return true;
+    }
+
+    /**
+     * @return The number of callers holding a reserved permit that is not yet available.
+     */
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    /**
+     * @return How long a permit acquired now would have to wait.
+     */
+    @Nonnull
+    public Duration getExpectedWait() {
+        return Duration.ofNanos(Math.max(0L, nextFreeNanos.get() - ticker.read()));
+    }
+
+    public double getRate() {
+        return permitsPerSecond;
+    }
+}
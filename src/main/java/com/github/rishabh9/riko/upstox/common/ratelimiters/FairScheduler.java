@@ -0,0 +1,291 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimiters;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs API calls of many accounts on a bounded pool of threads, picking accounts in round-robin order.
+ * <p>
+ * An account with a large backlog could otherwise hold every thread, and calls of the other accounts
+ * would wait behind it. Here an account can run at most {@code maxConcurrencyPerAccount} calls at a time,
+ * and the remaining threads are shared fairly among the accounts that have calls queued.
+ * <p>
+ * A call takes the permit of its rate limiter when it is dispatched, right before it runs, so calls leave
+ * the queue no faster than their endpoint allows. A call whose endpoint has no permit left stays queued
+ * without taking a thread, and the calls of the account to other endpoints are dispatched ahead of it.
+ * <p>
+ * A call holds its slot only while it runs on a thread, until it returns the future of its response.
+ * The pool bounds the threads issuing calls, not the requests in flight, so an account waiting for a slow
+ * response can still issue its other calls.
+ */
+public class FairScheduler {
+
+    private static final FairScheduler instance = new FairScheduler(
+            getInt(RIKO_SCHEDULER_THREADS, RIKO_SCHEDULER_THREADS_DEFAULT),
+            getInt(RIKO_SCHEDULER_ACCOUNT_CONCURRENCY, RIKO_SCHEDULER_ACCOUNT_CONCURRENCY_DEFAULT));
+
+    private final ScheduledExecutorService executor;
+    private final int maxConcurrency;
+    private final int maxConcurrencyPerAccount;
+
+    // All of the state below is guarded by 'this'.
+    private final Map<String, AccountQueue> queues = new HashMap<>();
+    /**
+     * Accounts with queued calls and spare capacity, in the order they will be served.
+     */
+    private final Deque<AccountQueue> ready = new ArrayDeque<>();
+    private int running;
+
+    /**
+     * @param maxConcurrency           The number of calls that can run at a time, across all accounts
+     * @param maxConcurrencyPerAccount The number of calls that can run at a time, for a single account
+     */
+    public FairScheduler(final int maxConcurrency, final int maxConcurrencyPerAccount) {
+        checkArgument(maxConcurrency > 0, "maxConcurrency must be positive");
+        checkArgument(maxConcurrencyPerAccount > 0, "maxConcurrencyPerAccount must be positive");
+        this.maxConcurrency = maxConcurrency;
+        this.maxConcurrencyPerAccount = Math.min(maxConcurrencyPerAccount, maxConcurrency);
+        // Its threads also wake up the accounts waiting for a permit.
+        this.executor = Executors.newScheduledThreadPool(maxConcurrency,
+                new ThreadFactoryBuilder().setNameFormat("riko-scheduler-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @return The scheduler shared by all the services.
+     */
+    public static FairScheduler getInstance() {
+        return FairScheduler.instance;
+    }
+
+    /**
+     * Queues a call of an account.
+     *
+     * @param account The account making the call, usually its API key
+     * @param call    The call to make. It is run on a thread of this scheduler, and may block.
+     *                It counts against the limits until it returns, not until the future it returns completes.
+     * @param <T>     The type of the result
+     * @return A future completing with the result of the call
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> submit(@Nonnull final String account,
+                                           @Nonnull final Supplier<CompletableFuture<T>> call) {
+
+        return submit(account, null, call);
+    }
+
+    /**
+     * Queues a rate limited call of an account.
+     *
+     * @param account     The account making the call, usually its API key
+     * @param rateLimiter The rate limiter of the endpoint called, of which the call takes a permit
+     *                    when it is dispatched. {@code null} if the call is not rate limited.
+     * @param call        The call to make. It is run on a thread of this scheduler, and may block.
+     *                    It counts against the limits until it returns, not until the future it returns completes.
+     * @param <T>         The type of the result
+     * @return A future completing with the result of the call
+     */
+    @Nonnull
+    public <T> CompletableFuture<T> submit(@Nonnull final String account,
+                                           @Nullable final AsyncRateLimiter rateLimiter,
+                                           @Nonnull final Supplier<CompletableFuture<T>> call) {
+
+        Objects.requireNonNull(account);
+        Objects.requireNonNull(call);
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Runnable task = () -> {
+            try {
+                call.get().whenComplete((value, failure) -> {
+                    if (null != failure) {
+                        result.completeExceptionally(failure);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (Throwable failure) {
+                result.completeExceptionally(failure);
+            }
+        };
+        synchronized (this) {
+            final AccountQueue queue = queues.computeIfAbsent(account, AccountQueue::new);
+            queue.tasks.add(new Task(rateLimiter, task));
+            // The call may be to an endpoint with a permit left.
+            queue.throttled = false;
+            markReady(queue);
+        }
+        dispatch();
+        return result;
+    }
+
+    /**
+     * @param account The account
+     * @return The number of calls of the account waiting for a thread or a permit.
+     */
+    public synchronized int getQueueDepth(@Nonnull final String account) {
+        final AccountQueue queue = queues.get(account);
+        return null == queue ? 0 : queue.tasks.size();
+    }
+
+    private void dispatch() {
+        final List<Runnable> toRun = new ArrayList<>();
+        synchronized (this) {
+            while (running < maxConcurrency && !ready.isEmpty()) {
+                final AccountQueue queue = ready.poll();
+                queue.ready = false;
+                final Runnable task = takePermitted(queue);
+                if (null == task) {
+                    throttle(queue);
+                    continue;
+                }
+                queue.running++;
+                running++;
+                // Back of the line, behind the other accounts.
+                markReady(queue);
+                toRun.add(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        completed(queue);
+                    }
+                });
+            }
+        }
+        toRun.forEach(executor::execute);
+    }
+
+    private void completed(final AccountQueue queue) {
+        synchronized (this) {
+            queue.running--;
+            running--;
+            markReady(queue);
+            if (queue.tasks.isEmpty() && queue.running == 0) {
+                queues.remove(queue.account);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Must be called holding the lock.
+     *
+     * @return The first queued call of the account that is not rate limited or got a permit, if any.
+     * The calls to an endpoint keep their order, as none is looked at once one of them got no permit.
+     */
+    @Nullable
+    private Runnable takePermitted(final AccountQueue queue) {
+        Set<AsyncRateLimiter> exhausted = null;
+        for (Iterator<Task> tasks = queue.tasks.iterator(); tasks.hasNext(); ) {
+            final Task task = tasks.next();
+            final AsyncRateLimiter rateLimiter = task.rateLimiter;
+            if (null == rateLimiter
+                    || (null == exhausted || !exhausted.contains(rateLimiter)) && rateLimiter.tryAcquire()) {
+                tasks.remove();
+                return task.call;
+            }
+            if (null == exhausted) {
+                exhausted = Collections.newSetFromMap(new IdentityHashMap<>());
+            }
+            exhausted.add(rateLimiter);
+        }
+        return null;
+    }
+
+    /**
+     * Must be called holding the lock. Leaves the account out of the rotation until its first permit is due.
+     */
+    private void throttle(final AccountQueue queue) {
+        queue.throttled = true;
+        long waitNanos = Long.MAX_VALUE;
+        for (Task task : queue.tasks) {
+            waitNanos = Math.min(waitNanos, task.rateLimiter.getExpectedWait().toNanos());
+        }
+        executor.schedule(() -> {
+            synchronized (this) {
+                queue.throttled = false;
+                markReady(queue);
+            }
+            dispatch();
+        }, waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Must be called holding the lock.
+    private void markReady(final AccountQueue queue) {
+        if (!queue.ready && !queue.throttled && !queue.tasks.isEmpty() && queue.running < maxConcurrencyPerAccount) {
+            queue.ready = true;
+            ready.add(queue);
+        }
+    }
+
+    private static final class AccountQueue {
+
+        private final String account;
+        private final Deque<Task> tasks = new ArrayDeque<>();
+        private int running;
+        private boolean ready;
+        /**
+         * Whether none of the queued calls can get a permit before the account is woken up.
+         */
+        private boolean throttled;
+
+        private AccountQueue(final String account) {
+            this.account = account;
+        }
+    }
+
+    private static final class Task {
+
+        @Nullable
+        private final AsyncRateLimiter rateLimiter;
+        private final Runnable call;
+
+        private Task(@Nullable final AsyncRateLimiter rateLimiter, final Runnable call) {
+            this.rateLimiter = rateLimiter;
+            this.call = call;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimiters;
+
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands out rate limiters scoped to an API key and an endpoint.
+ * Upstox enforces its limits per API key, so every account gets its own budget
+ * instead of sharing one with all the other accounts in the JVM.
+ * Limiters are created on first use.
+ */
+public class RateLimiterRegistry {
+
+    private static final Logger log = LogManager.getLogger(RateLimiterRegistry.class);
+
+    private static final RateLimiterRegistry instance = new RateLimiterRegistry();
+
+    private final ConcurrentMap<Key, AsyncRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    public static RateLimiterRegistry getInstance() {
+        return RateLimiterRegistry.instance;
+    }
+
+    /**
+     * @param apiKey           The API key of the account
+     * @param endpoint         The endpoint being rate limited
+     * @param permitsPerSecond The rate, used only when the limiter is created
+     * @return The rate limiter of the endpoint, for the given API key.
+     */
+    @Nonnull
+    public AsyncRateLimiter get(@Nonnull final String apiKey,
+                                @Nonnull final String endpoint,
+                                final double permitsPerSecond) {
+
+        return rateLimiters.computeIfAbsent(
+                new Key(Objects.requireNonNull(apiKey), Objects.requireNonNull(endpoint)),
+                key -> {
+                    log.debug("Creating rate limiter for {} at {}/s", key, permitsPerSecond);
+                    return new AsyncRateLimiter(permitsPerSecond);
+                });
+    }
+
+    /**
+     * @param apiKey   The API key of the account
+     * @param endpoint The endpoint
+     * @return The number of calls of the account waiting for a permit of the endpoint.
+     */
+    public int getQueueDepth(@Nonnull final String apiKey, @Nonnull final String endpoint) {
+        final AsyncRateLimiter rateLimiter = rateLimiters.get(new Key(apiKey, endpoint));
+        return null == rateLimiter ? 0 : rateLimiter.getQueueDepth();
+    }
+
+    /**
+     * @param apiKey   The API key of the account
+     * @param endpoint The endpoint
+     * @return How long a new call of the account to the endpoint would wait for a permit.
+     */
+    @Nonnull
+    public Duration getExpectedWait(@Nonnull final String apiKey, @Nonnull final String endpoint) {
+        final AsyncRateLimiter rateLimiter = rateLimiters.get(new Key(apiKey, endpoint));
+        return null == rateLimiter ? Duration.ZERO : rateLimiter.getExpectedWait();
+    }
+
+    /**
+     * Discards the rate limiters of an account, for instance when its API key is no longer used.
+     *
+     * @param apiKey The API key of the account
+     */
+    public void remove(@Nonnull final String apiKey) {
+        rateLimiters.keySet().removeIf(key -> key.apiKey.equals(apiKey));
+    }
+
+    private static final class Key {
+
+        private final String apiKey;
+        private final String endpoint;
+
+        private Key(final String apiKey, final String endpoint) {
+            this.apiKey = apiKey;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return apiKey.equals(key.apiKey) && endpoint.equals(key.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(apiKey, endpoint);
+        }
+
+        @Override
+        public String toString() {
+            // The API key is deliberately left out of the logs.
+            return MoreObjects.toStringHelper(this)
+                    .add("endpoint", endpoint)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.retries;
+
+import net.jodah.failsafe.ExecutionContext;
+import net.jodah.failsafe.RetryPolicy;
+import net.jodah.failsafe.util.Duration;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Computes the delay before a retry: exponential backoff with full jitter,
+ * unless the failed response asked for a specific delay through {@code Retry-After}.
+ * <p>
+ * With full jitter, the delay of the n<sup>th</sup> retry is picked at random between zero and
+ * {@code min(maxDelay, baseDelay * 2^(n-1))}, which spreads the retries of many clients over time
+ * instead of having them all retry at once.
+ */
+public class ExponentialBackoff implements RetryPolicy.DelayFunction<Object, Throwable> {
+
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+
+    /**
+     * @param baseDelay The upper bound of the delay before the first retry
+     * @param maxDelay  The upper bound of any delay
+     */
+    public ExponentialBackoff(final java.time.Duration baseDelay, final java.time.Duration maxDelay) {
+        checkArgument(!baseDelay.isNegative() && !baseDelay.isZero(), "baseDelay must be positive");
+        checkArgument(maxDelay.compareTo(baseDelay) >= 0, "maxDelay cannot be less than baseDelay");
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    @Override
+    public Duration computeDelay(final Object result, final Throwable failure, final ExecutionContext context) {
+        final java.time.Duration retryAfter = RetryableFailures.retryAfter(failure).orElse(null);
+        if (null != retryAfter) {
+            return new Duration(retryAfter.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return new Duration(delayNanos(context.getExecutions()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param executions The number of executions made so far
+     * @return A random delay, in nanoseconds.
+     */
+    long delayNanos(final int executions) {
+        // Shifting past 30 would overflow long before maxDelay is reached anyway.
+        final int exponent = Math.min(30, Math.max(0, executions - 1));
+        final long ceiling = baseDelayNanos > (maxDelayNanos >> exponent)
+                ? maxDelayNanos
+                : baseDelayNanos << exponent;
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
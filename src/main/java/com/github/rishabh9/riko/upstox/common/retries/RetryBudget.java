@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.retries;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A token bucket limiting retries to a fraction of the successful calls.
+ * <p>
+ * Every success deposits {@code ratio} tokens, up to {@code maxTokens}, and every retry withdraws one.
+ * The bucket starts full, so a few retries are allowed before any call succeeds. When a service is down,
+ * nothing is deposited and the clients quickly stop retrying, instead of multiplying the load on it.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    /**
+     * @param ratio     The number of retries earned by each successful call, for instance {@code 0.1} for 10%
+     * @param maxTokens The number of retries that can be saved up
+     */
+    public RetryBudget(final double ratio, final double maxTokens) {
+        checkArgument(ratio >= 0.0D, "ratio cannot be negative");
+        checkArgument(maxTokens >= 1.0D, "maxTokens must be at least 1");
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void onSuccess() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    /**
+     * @return {@code true} if a retry is allowed, in which case its token has been withdrawn.
+     */
+    public synchronized boolean tryRetry() {
+        if (tokens < 1.0D) {
+            return false;
+        }
+        tokens -= 1.0D;
+        return true;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.retries;
+
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Tells apart the failures worth retrying from the ones that will fail again.
+ */
+public final class RetryableFailures {
+
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private RetryableFailures() {
+    }
+
+    /**
+     * A failure is retryable when Upstox asks to slow down ({@code 429}), is unavailable
+     * ({@code 408, 500, 502, 503, 504}), or when the network failed.
+     * Any other response, such as a {@code 400} for an invalid request, is final.
+     *
+     * @param failure The failure
+     * @return {@code true} if the call may succeed when made again.
+     */
+    public static boolean isRetryable(@Nullable final Throwable failure) {
+        final Throwable cause = unwrap(failure);
+        if (cause instanceof HttpException) {
+            return isRetryableStatus(((HttpException) cause).code());
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * @param failure The failure
+     * @return {@code true} if the failure suggests Upstox is unhealthy: a server error, a timeout or a network error.
+     * Rate limiting ({@code 429}) and invalid requests are not outages.
+     */
+    public static boolean indicatesOutage(@Nullable final Throwable failure) {
+        final Throwable cause = unwrap(failure);
+        if (cause instanceof HttpException) {
+            final int code = ((HttpException) cause).code();
+            return code != 429 && isRetryableStatus(code);
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * A stricter check for calls that are not idempotent, such as placing an order.
+     * Those are retried only if Upstox surely did not act on them:
+     * it rejected them with {@code 429} or {@code 503}, or no connection could be made.
+     *
+     * @param failure The failure
+     * @return {@code true} if the call can be made again without risking a duplicate.
+     */
+    public static boolean isSafeToRetry(@Nullable final Throwable failure) {
+        final Throwable cause = unwrap(failure);
+        if (cause instanceof HttpException) {
+            final int code = ((HttpException) cause).code();
+            return code == 429 || code == 503;
+        }
+        return cause instanceof ConnectException
+                || cause instanceof UnknownHostException
+                || cause instanceof NoRouteToHostException;
+    }
+
+    /**
+     * @param failure The failure
+     * @return The delay requested through the {@code Retry-After} header of a {@code 429} or {@code 503} response.
+     */
+    @Nonnull
+    public static Optional<Duration> retryAfter(@Nullable final Throwable failure) {
+        final Throwable cause = unwrap(failure);
+        if (!(cause instanceof HttpException)) {
+            return Optional.empty();
+        }
+        final HttpException exception = (HttpException) cause;
+        final Response<?> response = exception.response();
+        if ((exception.code() != 429 && exception.code() != 503) || null == response) {
+            return Optional.empty();
+        }
+        return parseRetryAfter(response.headers().get(RETRY_AFTER));
+    }
+
+    /**
+     * @param value Either a number of seconds or an HTTP date
+     * @return The delay, if the value could be parsed.
+     */
+    @Nonnull
+    static Optional<Duration> parseRetryAfter(@Nullable final String value) {
+        if (null == value || value.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        final String trimmed = value.trim();
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0L, Long.parseLong(trimmed))));
+        } catch (NumberFormatException e) {
+            // Not seconds, try a date.
+        }
+        try {
+            final Instant until = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            final Duration delay = Duration.between(Instant.now(), until);
+            return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isRetryableStatus(final int code) {
+        return code == 408 || code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    @Nullable
+    private static Throwable unwrap(@Nullable final Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && null != cause.getCause()) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -26,20 +26,23 @@ package com.github.rishabh9.riko.upstox.feed;
 
 import com.github.rishabh9.riko.upstox.common.RetryPolicyFactory;
 import com.github.rishabh9.riko.upstox.common.Service;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.feed.models.Feed;
 import com.github.rishabh9.riko.upstox.feed.models.Subscription;
 import com.github.rishabh9.riko.upstox.feed.models.SubscriptionResponse;
 import com.google.common.base.Strings;
-import com.google.common.util.concurrent.RateLimiter;
 import net.jodah.failsafe.Failsafe;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
 
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.*;
 import static com.github.rishabh9.riko.upstox.common.constants.RateLimits.*;
 
 @SuppressWarnings("UnstableApiUsage")
@@ -47,10 +50,7 @@ public class FeedService extends Service {
 
     private static final Logger log = LogManager.getLogger(FeedService.class);
 
-    private static final RateLimiter liveFeedRateLimiter = RateLimiter.create(LIVE_FEED_RATE_LIMIT);
-    private static final RateLimiter subscribeRateLimiter = RateLimiter.create(SUBSCRIBE_RATE_LIMIT);
-    private static final RateLimiter unsubscribeRateLimiter = RateLimiter.create(UNSUBSCRIBE_RATE_LIMIT);
-    private static final RateLimiter symbolsSubscribedRateLimiter = RateLimiter.create(SYMBOLS_SUBSCRIBED_RATE_LIMIT);
+    private final FeedCache feedCache;
 
     /**
      * @param upstoxAuthService The service to retrieve authentication details
@@ -58,11 +58,38 @@ public class FeedService extends Service {
     public FeedService(@Nonnull final UpstoxAuthService upstoxAuthService,
                        @Nonnull final RetryPolicyFactory retryPolicyFactory) {
 
-        super(upstoxAuthService, retryPolicyFactory);
+        this(upstoxAuthService, retryPolicyFactory, ServiceGenerator.getInstance(), null);
+    }
+
+    /**
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param serviceGenerator  The generator of the service APIs
+     */
+    public FeedService(@Nonnull final UpstoxAuthService upstoxAuthService,
+                       @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                       @Nonnull final ServiceGenerator serviceGenerator) {
+
+        this(upstoxAuthService, retryPolicyFactory, serviceGenerator, null);
+    }
+
+    /**
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param serviceGenerator  The generator of the service APIs
+     * @param feedCache         The live feeds to serve, while they are fresh, instead of calling Upstox.
+     *                          Optional.
+     */
+    public FeedService(@Nonnull final UpstoxAuthService upstoxAuthService,
+                       @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                       @Nonnull final ServiceGenerator serviceGenerator,
+                       @Nullable final FeedCache feedCache) {
+
+        super(upstoxAuthService, retryPolicyFactory, serviceGenerator);
+        this.feedCache = feedCache;
     }
 
     /**
      * Get live feed information about a single instrument.
+     * It is served from the {@link FeedCache feed cache}, if this service has one holding a fresh feed.
      *
      * @param exchange Name of the exchange. <em>Mandatory.</em>
      * @param symbol   Trading symbol. <em>Mandatory.</em>
@@ -76,21 +103,32 @@ public class FeedService extends Service {
         log.debug("Validate parameters - GET Live Feed");
         validatePathParameters(exchange, symbol, type);
 
+        if (null != feedCache) {
+            final Feed cached = feedCache.getFeed(exchange, symbol, type);
+            if (null != cached) {
+                log.debug("Serving Live Feed from the cache");
+                final UpstoxResponse<Feed> response = new UpstoxResponse<>();
+                response.setCode(200);
+                response.setStatus("OK");
+                response.setData(cached);
+                return CompletableFuture.completedFuture(response);
+            }
+        }
+
         log.debug("Preparing service - GET Live Feed");
         final FeedApi api = prepareServiceApi(FeedApi.class);
 
         log.debug("Making request - GET Live Feed");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Live Feed.", failure))
-                .onSuccess(response -> log.debug("GET Live Feed successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Live Feed, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    liveFeedRateLimiter.acquire(1);
-                    return api.liveFeed(exchange, symbol, type);
-                });
+        return coalesced(LIVE_FEED, Arrays.asList(exchange, symbol, type), () ->
+                Failsafe.with(retryPolicy(LIVE_FEED))
+                        .with(circuitBreaker(LIVE_FEED))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Live Feed.", failure))
+                        .onSuccess(response -> log.debug("GET Live Feed successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Live Feed, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(LIVE_FEED, LIVE_FEED_RATE_LIMIT, () -> api.liveFeed(exchange, symbol, type))));
     }
 
     /**
@@ -112,17 +150,16 @@ public class FeedService extends Service {
         final FeedApi api = prepareServiceApi(FeedApi.class);
 
         log.debug("Making request - GET Subscribe");
-        return Failsafe.with(retryPolicy)
+        return Failsafe.with(retryPolicy(SUBSCRIBE))
+                .with(circuitBreaker(SUBSCRIBE))
                 .with(retryExecutor)
                 .onFailure(failure -> log.fatal("Failed completely to GET Subscribe.", failure))
                 .onSuccess(response -> log.debug("GET Subscribe successful!", response))
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to GET Subscribe, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    subscribeRateLimiter.acquire(1);
-                    return api.subscribe(type, exchange, symbolsCsv);
-                });
+                .future(() -> rateLimited(SUBSCRIBE, SUBSCRIBE_RATE_LIMIT,
+                        () -> api.subscribe(type, exchange, symbolsCsv)));
     }
 
     /**
@@ -144,17 +181,16 @@ public class FeedService extends Service {
         final FeedApi api = prepareServiceApi(FeedApi.class);
 
         log.debug("Making request - GET Unsubscribe");
-        return Failsafe.with(retryPolicy)
+        return Failsafe.with(retryPolicy(UNSUBSCRIBE))
+                .with(circuitBreaker(UNSUBSCRIBE))
                 .with(retryExecutor)
                 .onFailure(failure -> log.fatal("Failed completely to GET Unsubscribe.", failure))
                 .onSuccess(response -> log.debug("GET Unsubscribe successful!", response))
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to GET Unsubscribe, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    unsubscribeRateLimiter.acquire(1);
-                    return api.unsubscribe(type, exchange, symbolsCsv);
-                });
+                .future(() -> rateLimited(UNSUBSCRIBE, UNSUBSCRIBE_RATE_LIMIT,
+                        () -> api.unsubscribe(type, exchange, symbolsCsv)));
     }
 
 
@@ -173,17 +209,17 @@ public class FeedService extends Service {
         final FeedApi api = prepareServiceApi(FeedApi.class);
 
         log.debug("Making request - GET Symbols Subscribed");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Symbols Subscribed.", failure))
-                .onSuccess(response -> log.debug("GET Symbols Subscribed successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Symbols Subscribed, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    symbolsSubscribedRateLimiter.acquire(1);
-                    return api.symbolsSubscribed(type);
-                });
+        return coalesced(SYMBOLS_SUBSCRIBED, Arrays.asList(type), () ->
+                Failsafe.with(retryPolicy(SYMBOLS_SUBSCRIBED))
+                        .with(circuitBreaker(SYMBOLS_SUBSCRIBED))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Symbols Subscribed.", failure))
+                        .onSuccess(response -> log.debug("GET Symbols Subscribed successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Symbols Subscribed, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(SYMBOLS_SUBSCRIBED, SYMBOLS_SUBSCRIBED_RATE_LIMIT,
+                                () -> api.symbolsSubscribed(type))));
     }
 
     private void validatePathParameters(String... values) {
@@ -26,19 +26,21 @@ package com.github.rishabh9.riko.upstox.historical;
 
 import com.github.rishabh9.riko.upstox.common.RetryPolicyFactory;
 import com.github.rishabh9.riko.upstox.common.Service;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.historical.models.Candle;
 import com.google.common.base.Strings;
-import com.google.common.util.concurrent.RateLimiter;
 import net.jodah.failsafe.Failsafe;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.HISTORICAL;
 import static com.github.rishabh9.riko.upstox.common.constants.RateLimits.HISTORICAL_RATE_LIMIT;
 
 @SuppressWarnings("UnstableApiUsage")
@@ -46,8 +48,6 @@ public class HistoricalService extends Service {
 
     private static final Logger log = LogManager.getLogger(HistoricalService.class);
 
-    private static final RateLimiter historicalRateLimiter = RateLimiter.create(HISTORICAL_RATE_LIMIT);
-
     /**
      * @param upstoxAuthService The service to retrieve authentication details
      */
@@ -57,6 +57,17 @@ public class HistoricalService extends Service {
         super(upstoxAuthService, retryPolicyFactory);
     }
 
+    /**
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param serviceGenerator  The generator of the service APIs
+     */
+    public HistoricalService(@Nonnull final UpstoxAuthService upstoxAuthService,
+                             @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                             @Nonnull final ServiceGenerator serviceGenerator) {
+
+        super(upstoxAuthService, retryPolicyFactory, serviceGenerator);
+    }
+
     /**
      * Get OHLC data.
      *
@@ -94,17 +105,17 @@ public class HistoricalService extends Service {
         final HistoricalApi api = prepareServiceApi(HistoricalApi.class);
 
         log.debug("Making request - GET OHLC");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET OHLC.", failure))
-                .onSuccess(response -> log.debug("GET OHLC successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET OHLC, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    historicalRateLimiter.acquire(1);
-                    return api.getOhlc(exchange, symbol, interval, startDate, endDate, "json");
-                });
+        return coalesced(HISTORICAL, Arrays.asList(exchange, symbol, interval, startDate, endDate), () ->
+                Failsafe.with(retryPolicy(HISTORICAL))
+                        .with(circuitBreaker(HISTORICAL))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET OHLC.", failure))
+                        .onSuccess(response -> log.debug("GET OHLC successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET OHLC, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(HISTORICAL, HISTORICAL_RATE_LIMIT,
+                                () -> api.getOhlc(exchange, symbol, interval, startDate, endDate, "json"))));
     }
 
     private void validatePathParameters(String... values) {
@@ -31,7 +31,6 @@ import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.login.models.AccessToken;
 import com.github.rishabh9.riko.upstox.login.models.TokenRequest;
 import com.google.common.base.Strings;
-import com.google.common.util.concurrent.RateLimiter;
 import net.jodah.failsafe.Failsafe;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -40,6 +39,7 @@ import javax.annotation.Nonnull;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.LOGIN;
 import static com.github.rishabh9.riko.upstox.common.constants.RateLimits.LOGIN_RATE_LIMIT;
 
 @SuppressWarnings("UnstableApiUsage")
@@ -47,8 +47,6 @@ public class LoginService extends Service {
 
     private static final Logger log = LogManager.getLogger(LoginService.class);
 
-    private static final RateLimiter loginRateLimiter = RateLimiter.create(LOGIN_RATE_LIMIT);
-
     /**
      * @param upstoxAuthService The service to retrieve authentication details.
      */
@@ -58,6 +56,17 @@ public class LoginService extends Service {
         super(upstoxAuthService, retryPolicyFactory);
     }
 
+    /**
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param serviceGenerator  The generator of the service APIs
+     */
+    public LoginService(@Nonnull final UpstoxAuthService upstoxAuthService,
+                        @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                        @Nonnull final ServiceGenerator serviceGenerator) {
+
+        super(upstoxAuthService, retryPolicyFactory, serviceGenerator);
+    }
+
     /**
      * Retrieves the access code from Upstox Authorization URL through a synchronous call.<br>
      *
@@ -74,21 +83,19 @@ public class LoginService extends Service {
 
         // Create a very simple REST adapter which points the Upstox API endpoint.
         final LoginApi loginApi =
-                ServiceGenerator.getInstance().createService(
+                serviceGenerator.createService(
                         LoginApi.class,
                         upstoxAuthService.getApiCredentials().getApiKey(),
                         upstoxAuthService.getApiCredentials().getApiSecret());
 
-        return Failsafe.with(retryPolicy)
+        return Failsafe.with(retryPolicy(LOGIN))
+                .with(circuitBreaker(LOGIN))
                 .with(retryExecutor)
                 .onFailure(failure -> log.fatal("Failed completely to GET AccessToken.", failure))
                 .onSuccess(response -> log.debug("GET AccessToken successful!", response))
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to GET AccessToken, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    loginRateLimiter.acquire(1);
-                    return loginApi.getAccessToken(request);
-                });
+                .future(() -> rateLimited(LOGIN, LOGIN_RATE_LIMIT, () -> loginApi.getAccessToken(request)));
     }
 }
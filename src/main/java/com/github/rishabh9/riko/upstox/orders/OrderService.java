@@ -26,21 +26,23 @@ package com.github.rishabh9.riko.upstox.orders;
 
 import com.github.rishabh9.riko.upstox.common.RetryPolicyFactory;
 import com.github.rishabh9.riko.upstox.common.Service;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.orders.models.Order;
 import com.github.rishabh9.riko.upstox.orders.models.OrderRequest;
 import com.github.rishabh9.riko.upstox.orders.models.Trade;
 import com.google.common.base.Strings;
-import com.google.common.util.concurrent.RateLimiter;
 import net.jodah.failsafe.Failsafe;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.*;
 import static com.github.rishabh9.riko.upstox.common.constants.RateLimits.*;
 
 @SuppressWarnings("UnstableApiUsage")
@@ -48,14 +50,6 @@ public class OrderService extends Service {
 
     private static final Logger log = LogManager.getLogger(OrderService.class);
 
-    private static final RateLimiter orderHistoryRateLimiter = RateLimiter.create(ORDER_HISTORY_RATE_LIMIT);
-    private static final RateLimiter orderDetailsRateLimiter = RateLimiter.create(ORDER_DETAILS_RATE_LIMIT);
-    private static final RateLimiter tradeBookRateLimiter = RateLimiter.create(TRADE_BOOK_RATE_LIMIT);
-    private static final RateLimiter tradeHistoryRateLimiter = RateLimiter.create(TRADE_HISTORY_RATE_LIMIT);
-    private static final RateLimiter placeOrderRateLimiter = RateLimiter.create(PLACE_ORDER_RATE_LIMIT);
-    private static final RateLimiter modifyOrderRateLimiter = RateLimiter.create(MODIFY_ORDER_RATE_LIMIT);
-    private static final RateLimiter cancelOrderRateLimiter = RateLimiter.create(CANCEL_ORDER_RATE_LIMIT);
-
     /**
      * @param upstoxAuthService The service to retrieve authentication details
      */
@@ -65,6 +59,17 @@ public class OrderService extends Service {
         super(upstoxAuthService, retryPolicyFactory);
     }
 
+    /**
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param serviceGenerator  The generator of the service APIs
+     */
+    public OrderService(@Nonnull final UpstoxAuthService upstoxAuthService,
+                        @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                        @Nonnull final ServiceGenerator serviceGenerator) {
+
+        super(upstoxAuthService, retryPolicyFactory, serviceGenerator);
+    }
+
     /**
      * Fetches the list of orders placed by the user.
      *
@@ -76,17 +81,16 @@ public class OrderService extends Service {
         final OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - GET Order History");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Order History.", failure))
-                .onSuccess(response -> log.debug("GET Order History successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Order History, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    orderHistoryRateLimiter.acquire(1);
-                    return api.getOrderHistory();
-                });
+        return coalesced(ORDER_HISTORY, () ->
+                Failsafe.with(retryPolicy(ORDER_HISTORY))
+                        .with(circuitBreaker(ORDER_HISTORY))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Order History.", failure))
+                        .onSuccess(response -> log.debug("GET Order History successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Order History, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(ORDER_HISTORY, ORDER_HISTORY_RATE_LIMIT, () -> api.getOrderHistory())));
     }
 
     /**
@@ -104,17 +108,16 @@ public class OrderService extends Service {
         final OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - GET Order Details");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Order Details. ", failure))
-                .onSuccess(response -> log.debug("GET Order Details successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Order Details, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    orderDetailsRateLimiter.acquire(1);
-                    return api.getOrderDetails(orderId);
-                });
+        return coalesced(ORDER_DETAILS, Arrays.asList(orderId), () ->
+                Failsafe.with(retryPolicy(ORDER_DETAILS))
+                        .with(circuitBreaker(ORDER_DETAILS))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Order Details. ", failure))
+                        .onSuccess(response -> log.debug("GET Order Details successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Order Details, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(ORDER_DETAILS, ORDER_DETAILS_RATE_LIMIT, () -> api.getOrderDetails(orderId))));
     }
 
     /**
@@ -128,17 +131,16 @@ public class OrderService extends Service {
         final OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - GET Trade Book");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Trade Book. ", failure))
-                .onSuccess(response -> log.debug("GET Trade Book successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Trade Book, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    tradeBookRateLimiter.acquire(1);
-                    return api.getTradeBook();
-                });
+        return coalesced(TRADE_BOOK, () ->
+                Failsafe.with(retryPolicy(TRADE_BOOK))
+                        .with(circuitBreaker(TRADE_BOOK))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Trade Book. ", failure))
+                        .onSuccess(response -> log.debug("GET Trade Book successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Trade Book, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(TRADE_BOOK, TRADE_BOOK_RATE_LIMIT, () -> api.getTradeBook())));
     }
 
     /**
@@ -156,17 +158,16 @@ public class OrderService extends Service {
         final OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - GET Trade History");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Trade History. ", failure))
-                .onSuccess(response -> log.debug("GET Trade History successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Trade History, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    tradeHistoryRateLimiter.acquire(1);
-                    return api.getTradeHistory(orderId);
-                });
+        return coalesced(TRADE_HISTORY, Arrays.asList(orderId), () ->
+                Failsafe.with(retryPolicy(TRADE_HISTORY))
+                        .with(circuitBreaker(TRADE_HISTORY))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Trade History. ", failure))
+                        .onSuccess(response -> log.debug("GET Trade History successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Trade History, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(TRADE_HISTORY, TRADE_HISTORY_RATE_LIMIT, () -> api.getTradeHistory(orderId))));
     }
 
     /**
@@ -184,17 +185,15 @@ public class OrderService extends Service {
         final OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - POST Place Order");
-        return Failsafe.with(retryPolicy)
+        return Failsafe.with(retryPolicy(PLACE_ORDER))
+                .with(circuitBreaker(PLACE_ORDER))
                 .with(retryExecutor)
                 .onFailure(failure -> log.fatal("Failed completely to POST Place Order.", failure))
                 .onSuccess(response -> log.debug("POST Place Order successful!", response))
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to POST Place Order, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    placeOrderRateLimiter.acquire(1);
-                    return api.placeOrder(request);
-                });
+                .future(() -> rateLimited(PLACE_ORDER, PLACE_ORDER_RATE_LIMIT, () -> api.placeOrder(request)));
     }
 
     /**
@@ -215,17 +214,16 @@ public class OrderService extends Service {
         final OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - PUT Modify Order");
-        return Failsafe.with(retryPolicy)
+        return Failsafe.with(retryPolicy(MODIFY_ORDER))
+                .with(circuitBreaker(MODIFY_ORDER))
                 .with(retryExecutor)
                 .onFailure(failure -> log.fatal("Failed completely to PUT Modify Order.", failure))
                 .onSuccess(response -> log.debug("PUT Modify Order successful!", response))
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to PUT Modify Order, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    modifyOrderRateLimiter.acquire(1);
-                    return api.modifyOrder(orderId, request);
-                });
+                .future(() -> rateLimited(MODIFY_ORDER, MODIFY_ORDER_RATE_LIMIT,
+                        () -> api.modifyOrder(orderId, request)));
     }
 
     /**
@@ -243,17 +241,15 @@ public class OrderService extends Service {
         final OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - DELETE Orders");
-        return Failsafe.with(retryPolicy)
+        return Failsafe.with(retryPolicy(CANCEL_ORDER))
+                .with(circuitBreaker(CANCEL_ORDER))
                 .with(retryExecutor)
                 .onFailure(failure -> log.fatal("Failed completely to DELETE Orders.", failure))
                 .onSuccess(response -> log.debug("DELETE Orders successful!", response))
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to DELETE Orders, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    cancelOrderRateLimiter.acquire(1);
-                    return api.cancelOrders(orderIdsCsv);
-                });
+                .future(() -> rateLimited(CANCEL_ORDER, CANCEL_ORDER_RATE_LIMIT, () -> api.cancelOrders(orderIdsCsv)));
     }
 
     /**
@@ -267,17 +263,15 @@ public class OrderService extends Service {
         OrderApi api = prepareServiceApi(OrderApi.class);
 
         log.debug("Making request - DELETE All Orders");
-        return Failsafe.with(retryPolicy)
+        return Failsafe.with(retryPolicy(CANCEL_ORDER))
+                .with(circuitBreaker(CANCEL_ORDER))
                 .with(retryExecutor)
                 .onFailure(failure -> log.fatal("Failed completely to DELETE All Orders.", failure))
                 .onSuccess(response -> log.debug("DELETE All Orders successful!", response))
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to DELETE All Orders, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    cancelOrderRateLimiter.acquire(1);
-                    return api.cancelAllOrders();
-                });
+                .future(() -> rateLimited(CANCEL_ORDER, CANCEL_ORDER_RATE_LIMIT, () -> api.cancelAllOrders()));
     }
 
     private void validateOrderRequest(OrderRequest request) {
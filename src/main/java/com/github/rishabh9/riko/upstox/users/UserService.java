@@ -26,11 +26,11 @@ package com.github.rishabh9.riko.upstox.users;
 
 import com.github.rishabh9.riko.upstox.common.RetryPolicyFactory;
 import com.github.rishabh9.riko.upstox.common.Service;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.users.models.*;
 import com.google.common.base.Strings;
-import com.google.common.util.concurrent.RateLimiter;
 import net.jodah.failsafe.Failsafe;
 import okhttp3.ResponseBody;
 import org.apache.logging.log4j.LogManager;
@@ -39,9 +39,11 @@ import org.apache.logging.log4j.Logger;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.*;
 import static com.github.rishabh9.riko.upstox.common.constants.RateLimits.*;
 
 @SuppressWarnings("UnstableApiUsage")
@@ -49,12 +51,6 @@ public class UserService extends Service {
 
     private static final Logger log = LogManager.getLogger(UserService.class);
 
-    private static final RateLimiter profileRateLimiter = RateLimiter.create(PROFILE_RATE_LIMIT);
-    private static final RateLimiter balanceRateLimiter = RateLimiter.create(BALANCE_RATE_LIMIT);
-    private static final RateLimiter positionsRateLimiter = RateLimiter.create(POSITIONS_RATE_LIMIT);
-    private static final RateLimiter holdingsRateLimiter = RateLimiter.create(HOLDINGS_RATE_LIMIT);
-    private static final RateLimiter masterContractRateLimiter = RateLimiter.create(MASTER_CONTRACT_RATE_LIMIT);
-
     /**
      * @param upstoxAuthService The service to retrieve authentication details
      */
@@ -64,6 +60,17 @@ public class UserService extends Service {
         super(upstoxAuthService, retryPolicyFactory);
     }
 
+    /**
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param serviceGenerator  The generator of the service APIs
+     */
+    public UserService(@Nonnull final UpstoxAuthService upstoxAuthService,
+                       @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                       @Nonnull final ServiceGenerator serviceGenerator) {
+
+        super(upstoxAuthService, retryPolicyFactory, serviceGenerator);
+    }
+
     /**
      * Retrieves the user's profile
      *
@@ -75,17 +82,16 @@ public class UserService extends Service {
         final UsersApi api = prepareServiceApi(UsersApi.class);
 
         log.debug("Making request - GET Profile");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Profile.", failure))
-                .onSuccess(response -> log.debug("GET Profile successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Profile, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    profileRateLimiter.acquire(1);
-                    return api.getProfile();
-                });
+        return coalesced(PROFILE, () ->
+                Failsafe.with(retryPolicy(PROFILE))
+                        .with(circuitBreaker(PROFILE))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Profile.", failure))
+                        .onSuccess(response -> log.debug("GET Profile successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Profile, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(PROFILE, PROFILE_RATE_LIMIT, () -> api.getProfile())));
     }
 
     /**
@@ -101,17 +107,16 @@ public class UserService extends Service {
         final UsersApi api = prepareServiceApi(UsersApi.class);
 
         log.debug("Making request - GET Profile Balance");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Profile Balance.", failure))
-                .onSuccess(response -> log.debug("GET Profile Balance successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Profile Balance, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    balanceRateLimiter.acquire(1);
-                    return api.getProfileBalance(accountType);
-                });
+        return coalesced(BALANCE, Arrays.asList(accountType), () ->
+                Failsafe.with(retryPolicy(BALANCE))
+                        .with(circuitBreaker(BALANCE))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Profile Balance.", failure))
+                        .onSuccess(response -> log.debug("GET Profile Balance successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Profile Balance, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(BALANCE, BALANCE_RATE_LIMIT, () -> api.getProfileBalance(accountType))));
     }
 
     /**
@@ -125,17 +130,16 @@ public class UserService extends Service {
         final UsersApi api = prepareServiceApi(UsersApi.class);
 
         log.debug("Making request - GET Positions");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Positions.", failure))
-                .onSuccess(response -> log.debug("GET Positions successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Positions, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    positionsRateLimiter.acquire(1);
-                    return api.getPositions();
-                });
+        return coalesced(POSITIONS, () ->
+                Failsafe.with(retryPolicy(POSITIONS))
+                        .with(circuitBreaker(POSITIONS))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Positions.", failure))
+                        .onSuccess(response -> log.debug("GET Positions successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Positions, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(POSITIONS, POSITIONS_RATE_LIMIT, () -> api.getPositions())));
     }
 
     /**
@@ -149,17 +153,16 @@ public class UserService extends Service {
         final UsersApi api = prepareServiceApi(UsersApi.class);
 
         log.debug("Making request - GET Holdings");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Holdings.", failure))
-                .onSuccess(response -> log.debug("GET Holdings successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Holdings, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    holdingsRateLimiter.acquire(1);
-                    return api.getHoldings();
-                });
+        return coalesced(HOLDINGS, () ->
+                Failsafe.with(retryPolicy(HOLDINGS))
+                        .with(circuitBreaker(HOLDINGS))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Holdings.", failure))
+                        .onSuccess(response -> log.debug("GET Holdings successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Holdings, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(HOLDINGS, HOLDINGS_RATE_LIMIT, () -> api.getHoldings())));
     }
 
     /**
@@ -192,17 +195,16 @@ public class UserService extends Service {
         final UsersApi api = prepareServiceApi(UsersApi.class);
 
         log.debug("Making request - GET All Contracts");
-        return Failsafe.with(retryPolicy)
+        return Failsafe.with(retryPolicy(MASTER_CONTRACT))
+                .with(circuitBreaker(MASTER_CONTRACT))
                 .with(retryExecutor)
                 .onFailure(failure -> log.fatal("Failed completely to GET All Contracts.", failure))
                 .onSuccess(response -> log.debug("GET All Contracts successful!", response))
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to GET All Contracts, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    masterContractRateLimiter.acquire(1);
-                    return api.getAllMasterContracts(exchange);
-                })
+                .future(() -> rateLimited(MASTER_CONTRACT, MASTER_CONTRACT_RATE_LIMIT,
+                        () -> api.getAllMasterContracts(exchange)))
                 .thenApply(ResponseBody::byteStream);
     }
 
@@ -238,17 +240,17 @@ public class UserService extends Service {
         final UsersApi api = prepareServiceApi(UsersApi.class);
 
         log.debug("Making request - GET Contract");
-        return Failsafe.with(retryPolicy)
-                .with(retryExecutor)
-                .onFailure(failure -> log.fatal("Failed completely to GET Contract.", failure))
-                .onSuccess(response -> log.debug("GET Contract successful!", response))
-                .onRetry((c, f, ctx) ->
-                        log.warn("Failure #" + ctx.getExecutions()
-                                + ". Unable to GET Contract, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    masterContractRateLimiter.acquire(1);
-                    return api.getMasterContract(exchange, symbol, token);
-                });
+        return coalesced(MASTER_CONTRACT, Arrays.asList(exchange, symbol, token), () ->
+                Failsafe.with(retryPolicy(MASTER_CONTRACT))
+                        .with(circuitBreaker(MASTER_CONTRACT))
+                        .with(retryExecutor)
+                        .onFailure(failure -> log.fatal("Failed completely to GET Contract.", failure))
+                        .onSuccess(response -> log.debug("GET Contract successful!", response))
+                        .onRetry((c, f, ctx) ->
+                                log.warn("Failure #" + ctx.getExecutions()
+                                        + ". Unable to GET Contract, retrying. REASON: {}", f.getCause().getMessage()))
+                        .future(() -> rateLimited(MASTER_CONTRACT, MASTER_CONTRACT_RATE_LIMIT,
+                                () -> api.getMasterContract(exchange, symbol, token))));
     }
 
     private void validateSymbolAndToken(final String symbol, final String token) {
@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+
+/**
+ * A snapshot of the counters of a {@link SupervisedConnection}.
+ */
+public final class ConnectionStats {
+
+    private final boolean connected;
+    private final long reconnects;
+    private final long failedAttempts;
+    private final long lastTimeToRecovery;
+    private final long maxTimeToRecovery;
+    private final long totalDowntime;
+    private final Instant lastMissedFrom;
+    private final Instant lastMissedTo;
+
+    public ConnectionStats(final boolean connected,
+                           final long reconnects,
+                           final long failedAttempts,
+                           final long lastTimeToRecovery,
+                           final long maxTimeToRecovery,
+                           final long totalDowntime,
+                           @Nullable final Instant lastMissedFrom,
+                           @Nullable final Instant lastMissedTo) {
+
+        this.connected = connected;
+        this.reconnects = reconnects;
+        this.failedAttempts = failedAttempts;
+        this.lastTimeToRecovery = lastTimeToRecovery;
+        this.maxTimeToRecovery = maxTimeToRecovery;
+        this.totalDowntime = totalDowntime;
+        this.lastMissedFrom = lastMissedFrom;
+        this.lastMissedTo = lastMissedTo;
+    }
+
+    /**
+     * @return {@code true} if the web socket is open, and the feed subscriptions were made again on it.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * @return The number of times the connection was recovered.
+     */
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    /**
+     * @return The number of attempts to reconnect that failed, each after the retries of the web socket service.
+     */
+    public long getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    /**
+     * @return The milliseconds from the last disconnection until the feed subscriptions were made again.
+     */
+    public long getLastTimeToRecovery() {
+        return lastTimeToRecovery;
+    }
+
+    /**
+     * @return The longest {@link #getLastTimeToRecovery() time to recovery}, in milliseconds.
+     */
+    public long getMaxTimeToRecovery() {
+        return maxTimeToRecovery;
+    }
+
+    /**
+     * @return The milliseconds spent disconnected, not counting the current disconnection.
+     */
+    public long getTotalDowntime() {
+        return totalDowntime;
+    }
+
+    /**
+     * @return When the last disconnection started, and so when the feed may have been missed from,
+     * or {@code null} if the connection was never lost.
+     */
+    @Nullable
+    public Instant getLastMissedFrom() {
+        return lastMissedFrom;
+    }
+
+    /**
+     * @return When the feed was received again after the last disconnection,
+     * or {@code null} if it was never lost, or is not yet recovered.
+     */
+    @Nullable
+    public Instant getLastMissedTo() {
+        return lastMissedTo;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("connected", connected)
+                .add("reconnects", reconnects)
+                .add("failedAttempts", failedAttempts)
+                .add("lastTimeToRecovery", lastTimeToRecovery)
+                .add("maxTimeToRecovery", maxTimeToRecovery)
+                .add("totalDowntime", totalDowntime)
+                .add("lastMissedFrom", lastMissedFrom)
+                .add("lastMissedTo", lastMissedTo)
+                .toString();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.github.rishabh9.riko.upstox.websockets.ticks.Instrument;
+
+import java.util.BitSet;
+import java.util.function.Predicate;
+
+/**
+ * Applies the filter of a subscriber to the message being routed, remembering for each instrument,
+ * by its token, whether the filter lets its quotes through. Used by the publishing thread only.
+ */
+final class FilterIndex implements Predicate<WebSocketMessage> {
+
+    private final MessageFilter filter;
+    private final MessageRoute route;
+    private final BitSet known = new BitSet();
+    private final BitSet accepted = new BitSet();
+
+    FilterIndex(final MessageFilter filter, final MessageRoute route) {
+        this.filter = filter;
+        this.route = route;
+    }
+
+    @Override
+    public boolean test(final WebSocketMessage message) {
+        if (!filter.acceptsType(message)) {
+            return false;
+        }
+        if (!filter.hasInstrumentCriteria()) {
+            return true;
+        }
+        if (route.getMessage() != message) {
+            route.reset(message);
+        }
+        final int quotes = route.getQuotes();
+        if (quotes == 0) {
+            return true;
+        }
+        for (int i = 0; i < quotes; i++) {
+            if (accepts(route.getInstrument(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean accepts(final Instrument instrument) {
+        final int token = instrument.getId();
+        if (!known.get(token)) {
+            known.set(token);
+            if (filter.accepts(instrument)) {
+                accepted.set(token);
+            }
+        }
+        return accepted.get(token);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.websockets.dispatch.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Keys identifying the instrument a feed message is about, for subscribers that only need the latest quote
+ * of each instrument:
+ * <pre>{@code
+ * public BackpressurePolicy<WebSocketMessage> getBackpressurePolicy() {
+ *     return InstrumentKeys.latestPerInstrument();
+ * }
+ * }</pre>
+ * A feed message holds records separated by {@code ;}, each starting with the timestamp, the exchange
+ * and the symbol, separated by {@code ,}. Only a message holding a single record has a key:
+ * the others quote several instruments, and are delivered as they are, in order.
+ * <p>
+ * So when the feed quotes several instruments per frame, this conflates little. Decoded ticks are conflated
+ * per instrument by a {@link com.github.rishabh9.riko.upstox.websockets.ticks.PartitionedTickStream#conflating
+ * conflating PartitionedTickStream} instead.
+ */
+public final class InstrumentKeys {
+
+    private static final Function<WebSocketMessage, Object> EXCHANGE_AND_SYMBOL = InstrumentKeys::exchangeAndSymbol;
+
+    private static final char RECORD_SEPARATOR = ';';
+    private static final char FIELD_SEPARATOR = ',';
+
+    private InstrumentKeys() {
+    }
+
+    /**
+     * @return A policy keeping the latest undelivered frame quoting only one instrument, for each instrument.
+     */
+    @Nonnull
+    public static BackpressurePolicy<WebSocketMessage> latestPerInstrument() {
+        return BackpressurePolicy.conflate(EXCHANGE_AND_SYMBOL);
+    }
+
+    /**
+     * @param message A message received on the web socket
+     * @return The exchange and the symbol of the only quote in the message, like {@code NSE_EQ,INFY},
+     * or {@code null} if the message is not a quote of a single instrument.
+     */
+    @Nullable
+    public static String exchangeAndSymbol(@Nonnull final WebSocketMessage message) {
+        if (message instanceof TextMessage) {
+            return exchangeAndSymbol(((TextMessage) message).getMessage());
+        }
+        if (message instanceof BinaryMessage) {
+            return exchangeAndSymbol((BinaryMessage) message);
+        }
+        return null;
+    }
+
+    private static String exchangeAndSymbol(final String frame) {
+        if (null == frame) {
+            return null;
+        }
+        final int end = recordEnd(frame.length(), frame.isEmpty() ? 0 : frame.charAt(frame.length() - 1));
+        final int separator = frame.indexOf(RECORD_SEPARATOR);
+        if (separator >= 0 && separator < end) {
+            return null;
+        }
+        final int first = frame.indexOf(FIELD_SEPARATOR);
+        final int second = first < 0 ? -1 : frame.indexOf(FIELD_SEPARATOR, first + 1);
+        final int third = second < 0 ? -1 : frame.indexOf(FIELD_SEPARATOR, second + 1);
+        return third < 0 || third > end ? null : frame.substring(first + 1, third);
+    }
+
+    /**
+     * Reads the bytes in place. The separators are ASCII, so they can't be part of a multi-byte character.
+     */
+    private static String exchangeAndSymbol(final BinaryMessage frame) {
+        final int size = frame.getSize();
+        final int end = recordEnd(size, size > 0 ? frame.getByte(size - 1) : 0);
+        int first = -1;
+        int third = -1;
+        int fields = 0;
+        for (int i = 0; i < end; i++) {
+            final byte b = frame.getByte(i);
+            if (b == RECORD_SEPARATOR) {
+                return null;
+            }
+            if (b == FIELD_SEPARATOR) {
+                fields++;
+                if (fields == 1) {
+                    first = i;
+                } else if (fields == 3) {
+                    third = i;
+                }
+            }
+        }
+        if (third < 0) {
+            return null;
+        }
+        final byte[] key = new byte[third - first - 1];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = frame.getByte(first + 1 + i);
+        }
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A single record may be terminated by a separator.
+     */
+    private static int recordEnd(final int length, final int last) {
+        return last == RECORD_SEPARATOR ? length - 1 : length;
+    }
+}
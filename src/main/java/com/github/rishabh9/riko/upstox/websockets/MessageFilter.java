@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.github.rishabh9.riko.upstox.websockets.ticks.Instrument;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+
+import javax.annotation.Nonnull;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The messages a {@link MessageSubscriber} wants. The others are not queued for it.
+ * <p>
+ * A filter is built from {@link #all()}, narrowing it down:
+ * <pre>{@code
+ * MessageFilter.all()
+ *         .symbols("NSE_EQ", "INFY", "TCS")
+ *         .exchanges("NSE_FO");
+ * }</pre>
+ * A message passes the filter when it is of one of the {@link #types(Class[]) types}, if any are set,
+ * and, for the quotes, when one of the quoted instruments is of one of the {@link #exchanges(String...) exchanges},
+ * one of the {@link #symbols(String, String...) symbols} or one of the {@link #instruments(Instrument...)
+ * instruments}, if any of those are set. The messages that are not quotes, such as the disconnection,
+ * are not filtered by instrument.
+ * <p>
+ * Exchanges and symbols are upper-cased, as the feed quotes them, so the lower case
+ * {@link com.github.rishabh9.riko.upstox.common.constants.Exchanges} constants can be used.
+ */
+public final class MessageFilter {
+
+    private static final MessageFilter ALL =
+            new MessageFilter(ImmutableSet.of(), ImmutableSet.of(), ImmutableSetMultimap.of(), ImmutableSet.of());
+
+    private final ImmutableSet<Class<? extends WebSocketMessage>> types;
+    private final ImmutableSet<String> exchanges;
+    private final ImmutableSetMultimap<String, String> symbols;
+    private final ImmutableSet<Integer> tokens;
+
+    private MessageFilter(final ImmutableSet<Class<? extends WebSocketMessage>> types,
+                          final ImmutableSet<String> exchanges,
+                          final ImmutableSetMultimap<String, String> symbols,
+                          final ImmutableSet<Integer> tokens) {
+        this.types = types;
+        this.exchanges = exchanges;
+        this.symbols = symbols;
+        this.tokens = tokens;
+    }
+
+    /**
+     * @return A filter every message passes.
+     */
+    @Nonnull
+    public static MessageFilter all() {
+        return ALL;
+    }
+
+    /**
+     * @param types Types of messages, such as {@code TextMessage.class}
+     * @return A filter also letting through the messages of these types.
+     */
+    @Nonnull
+    @SafeVarargs
+    public final MessageFilter types(@Nonnull final Class<? extends WebSocketMessage>... types) {
+        final ImmutableSet.Builder<Class<? extends WebSocketMessage>> builder =
+                ImmutableSet.<Class<? extends WebSocketMessage>>builder().addAll(this.types);
+        // Not through Arrays.asList, which would pass the generic array on.
+        for (Class<? extends WebSocketMessage> type : types) {
+            builder.add(type);
+        }
+        return new MessageFilter(builder.build(), exchanges, symbols, tokens);
+    }
+
+    /**
+     * @param exchanges Exchanges, such as {@code NSE_FO} or {@code Exchanges.NSE_FnO}
+     * @return A filter also letting through the quotes of the instruments of these exchanges.
+     */
+    @Nonnull
+    public MessageFilter exchanges(@Nonnull final String... exchanges) {
+        final ImmutableSet.Builder<String> builder = ImmutableSet.<String>builder().addAll(this.exchanges);
+        for (String exchange : exchanges) {
+            builder.add(upperCase(exchange));
+        }
+        return new MessageFilter(types, builder.build(), symbols, tokens);
+    }
+
+    /**
+     * @param exchange The exchange of the symbols, such as {@code NSE_EQ} or {@code Exchanges.NSE_EQUITY}
+     * @param symbols  Symbols, such as {@code INFY}
+     * @return A filter also letting through the quotes of these instruments.
+     */
+    @Nonnull
+    public MessageFilter symbols(@Nonnull final String exchange, @Nonnull final String... symbols) {
+        final String normalisedExchange = upperCase(exchange);
+        final ImmutableSetMultimap.Builder<String, String> builder =
+                ImmutableSetMultimap.<String, String>builder().putAll(this.symbols);
+        for (String symbol : symbols) {
+            builder.put(normalisedExchange, upperCase(symbol));
+        }
+        return new MessageFilter(types, exchanges, builder.build(), tokens);
+    }
+
+    /**
+     * @param instruments Instruments, from the {@link com.github.rishabh9.riko.upstox.websockets.ticks.InstrumentRegistry
+     *                    shared registry}
+     * @return A filter also letting through the quotes of these instruments.
+     */
+    @Nonnull
+    public MessageFilter instruments(@Nonnull final Instrument... instruments) {
+        final ImmutableSet.Builder<Integer> builder = ImmutableSet.<Integer>builder().addAll(tokens);
+        for (Instrument instrument : instruments) {
+            builder.add(instrument.getId());
+        }
+        return new MessageFilter(types, exchanges, symbols, builder.build());
+    }
+
+    /**
+     * @return {@code true} if every message passes this filter.
+     */
+    public boolean isAll() {
+        return types.isEmpty() && !hasInstrumentCriteria();
+    }
+
+    boolean acceptsType(final WebSocketMessage message) {
+        if (types.isEmpty()) {
+            return true;
+        }
+        for (Class<? extends WebSocketMessage> type : types) {
+            if (type.isInstance(message)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean hasInstrumentCriteria() {
+        return !exchanges.isEmpty() || !symbols.isEmpty() || !tokens.isEmpty();
+    }
+
+    boolean accepts(final Instrument instrument) {
+        return exchanges.contains(instrument.getExchange())
+                || symbols.containsEntry(instrument.getExchange(), instrument.getSymbol())
+                || tokens.contains(instrument.getId());
+    }
+
+    private static String upperCase(final String value) {
+        return Objects.requireNonNull(value).toUpperCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MessageFilter that = (MessageFilter) o;
+        return Objects.equals(types, that.types) &&
+                Objects.equals(exchanges, that.exchanges) &&
+                Objects.equals(symbols, that.symbols) &&
+                Objects.equals(tokens, that.tokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(types, exchanges, symbols, tokens);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .omitNullValues()
+                .add("types", types.isEmpty() ? null : types)
+                .add("exchanges", exchanges.isEmpty() ? null : exchanges)
+                .add("symbols", symbols.isEmpty() ? null : symbols)
+                .add("tokens", tokens.isEmpty() ? null : tokens)
+                .toString();
+    }
+}
@@ -24,7 +24,9 @@
 
 package com.github.rishabh9.riko.upstox.websockets;
 
-import com.github.rishabh9.riko.upstox.websockets.exceptions.SlowSubscriberException;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.RingBufferPublisher;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.SubscriberStats;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.WaitStrategy;
 import com.github.rishabh9.riko.upstox.websockets.messages.*;
 import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
 import okhttp3.Response;
@@ -35,12 +37,16 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
-import java.util.concurrent.SubmissionPublisher;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getEnum;
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
 
 /**
  * The web socket listener.
@@ -53,49 +59,100 @@ public final class MessageListener
 
     private static final Logger log = LogManager.getLogger(MessageListener.class);
 
-    private static final int MAX_SECONDS_TO_KEEP_IT_WHEN_NO_SPACE = 3;
-    private final SubmissionPublisher<WebSocketMessage> publisher;
+    private final RingBufferPublisher<WebSocketMessage> publisher;
+    /**
+     * The message being published, as seen by the filters of the subscribers.
+     */
+    private final MessageRoute route = new MessageRoute();
+
+    /**
+     * The web socket the messages come from, wrapped once per connection rather than once per message.
+     */
+    private volatile WrappedWebSocket sender;
+
+    /**
+     * Completed when the web socket being opened by {@link #expectOpen()} opens, or fails to.
+     */
+    private volatile CompletableFuture<WrappedWebSocket> opening;
+
+    /**
+     * If set, told when an open web socket closes or fails, in place of completing the subscribers.
+     */
+    private volatile Consumer<Throwable> disconnectHandler;
 
+    /**
+     * Publishes to the subscribers through ring buffers sized by the {@code riko.ws.ring.size} system property,
+     * whose dispatch threads wait as set by the {@code riko.ws.wait.strategy} system property.
+     *
+     * @param subscribers The subscribers of the messages
+     */
     public MessageListener(@Nonnull List<MessageSubscriber> subscribers) {
-        this.publisher =
-                new SubmissionPublisher<>(
-                        Executors.newWorkStealingPool(),
-                        Flow.defaultBufferSize());
-
-        Objects.requireNonNull(subscribers).forEach(publisher::subscribe);
-    }
-
-    private void publishMessage(WebSocketMessage message) {
-        int lag = publisher.offer(message,
-                MAX_SECONDS_TO_KEEP_IT_WHEN_NO_SPACE, TimeUnit.SECONDS,
-                (subscriber, msg) -> {
-                    // inform subscriber that it isn't receiving the messages.
-                    // We can try again - but only once.
-                    // But we won't try again, as the subscriber should be quick.
-                    final String errorMsg = "Subscriber "
-                            + ((MessageSubscriber) subscriber).getName()
-                            + " is slow in receiving messages. Dropping message: "
-                            + msg.toString();
-                    subscriber.onError(new SlowSubscriberException(errorMsg));
-                    return false; // If we do not want to re-try once again.
-                    // return true; // If we want to re-try once
-                });
-        if (lag < 0) {
-            log.warn("Dropping {} messages", -lag);
-        } else {
-            log.debug("The slowest consumer has {} messages in total to be picked up.", lag);
+        this(subscribers,
+                getInt(RIKO_WS_RING_SIZE, RIKO_WS_RING_SIZE_DEFAULT),
+                getEnum(RIKO_WS_WAIT_STRATEGY, WaitStrategy.class, WaitStrategy.valueOf(RIKO_WS_WAIT_STRATEGY_DEFAULT)));
+    }
+
+    /**
+     * @param subscribers  The subscribers of the messages
+     * @param ringSize     The number of messages a subscriber can fall behind by, before messages are dropped for it
+     * @param waitStrategy How the dispatch threads wait for messages
+     */
+    public MessageListener(@Nonnull List<MessageSubscriber> subscribers,
+                           int ringSize,
+                           @Nonnull WaitStrategy waitStrategy) {
+        this.publisher = new RingBufferPublisher<>(ringSize, waitStrategy);
+        Objects.requireNonNull(subscribers).forEach(this::subscribe);
+    }
+
+    /**
+     * @return The web socket wrapped once per connection.
+     */
+    WrappedWebSocket wrap(WebSocket webSocket) {
+        final WrappedWebSocket current = sender;
+        if (null != current && current.wraps(webSocket)) {
+            return current;
+        }
+        synchronized (this) {
+            if (null == sender || !sender.wraps(webSocket)) {
+                sender = new WrappedWebSocket(webSocket);
+            }
+            return sender;
         }
     }
 
+    /**
+     * OkHttp reads the frames on a single thread, but may report a failure from its writer thread.
+     *
+     * @return The number of subscribers for which a message was dropped.
+     */
+    synchronized int publishMessage(WebSocketMessage message) {
+        if (publisher.isClosed()) {
+            log.debug("Not publishing {} after the publisher was closed", message);
+            return 0;
+        }
+        route.reset(message);
+        final int dropped = publisher.offer(message);
+        route.reset(null);
+        if (dropped > 0) {
+            log.debug("Dropped a message for {} slow subscribers", dropped);
+        }
+        return dropped;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void onOpen(WebSocket webSocket, Response response) {
         super.onOpen(webSocket, response);
+        final WrappedWebSocket wrapped = wrap(webSocket);
         publishMessage(
                 new ConnectedMessage(
-                        new WrappedWebSocket(webSocket), response.message()));
+                        wrapped, response.message()));
+        final CompletableFuture<WrappedWebSocket> current = opening;
+        if (null != current) {
+            current.complete(wrapped);
+        }
     }
 
     /**
@@ -106,7 +163,7 @@ public final class MessageListener
         super.onMessage(webSocket, message);
         publishMessage(
                 new TextMessage(
-                        new WrappedWebSocket(webSocket), message));
+                        wrap(webSocket), message));
     }
 
     /**
@@ -117,7 +174,7 @@ public final class MessageListener
         super.onMessage(webSocket, bytes);
         publishMessage(
                 new BinaryMessage(
-                        new WrappedWebSocket(webSocket), bytes));
+                        wrap(webSocket), bytes));
     }
 
     /**
@@ -128,7 +185,11 @@ public final class MessageListener
         super.onClosing(webSocket, code, reason);
         publishMessage(
                 new ClosingMessage(
-                        new WrappedWebSocket(webSocket), code, reason));
+                        wrap(webSocket), code, reason));
+        if (null != disconnectHandler && null != webSocket) {
+            // Nobody else closes a supervised web socket, and it is not closed until both sides did.
+            webSocket.close(code, null);
+        }
     }
 
     /**
@@ -139,8 +200,13 @@ public final class MessageListener
         super.onClosed(webSocket, code, reason);
         publishMessage(
                 new DisconnectedMessage(
-                        new WrappedWebSocket(webSocket), code, reason));
-        publisher.close();
+                        wrap(webSocket), code, reason));
+        if (isOpening()) {
+            opening.completeExceptionally(
+                    new IOException("Web socket closed before opening: " + code + " " + reason));
+        } else {
+            disconnected(null);
+        }
     }
 
     /**
@@ -151,8 +217,62 @@ public final class MessageListener
         super.onFailure(webSocket, t, response);
         publishMessage(
                 new ErrorMessage(
-                        new WrappedWebSocket(webSocket), t, response));
-        publisher.closeExceptionally(t);
+                        wrap(webSocket), t, response));
+        if (isOpening()) {
+            opening.completeExceptionally(t);
+        } else {
+            disconnected(t);
+        }
+    }
+
+    private void disconnected(@Nullable Throwable failure) {
+        final Consumer<Throwable> handler = disconnectHandler;
+        if (null == handler) {
+            closePublisher(failure);
+        } else {
+            handler.accept(failure);
+        }
+    }
+
+    /**
+     * Keeps the subscribers subscribed when an open web socket closes or fails,
+     * so that the connection can be made again with this listener.
+     * The handler is then responsible for {@link #closePublisher(Throwable) completing them}.
+     *
+     * @param handler Told when an open web socket closed, with {@code null}, or failed, with the failure.
+     */
+    void supervise(@Nonnull Consumer<Throwable> handler) {
+        disconnectHandler = Objects.requireNonNull(handler);
+    }
+
+    /**
+     * Called before opening a web socket with this listener. Until it opens, a failure or a closure
+     * only fails the returned future, and the subscribers stay subscribed, so that opening can be retried
+     * with the same listener. Once it opened, they are completed when the web socket closes.
+     *
+     * @return A future completed with the web socket once it is open,
+     * or completed exceptionally if it fails or closes before.
+     */
+    CompletableFuture<WrappedWebSocket> expectOpen() {
+        final CompletableFuture<WrappedWebSocket> future = new CompletableFuture<>();
+        opening = future;
+        return future;
+    }
+
+    private boolean isOpening() {
+        final CompletableFuture<WrappedWebSocket> current = opening;
+        return null != current && !current.isDone();
+    }
+
+    /**
+     * Completes the subscribers, or sends them the failure, once they got the messages already published.
+     */
+    synchronized void closePublisher(@Nullable Throwable failure) {
+        if (null == failure) {
+            publisher.close();
+        } else {
+            publisher.closeExceptionally(failure);
+        }
     }
 
     /**
@@ -160,6 +280,21 @@ public final class MessageListener
      */
     @Override
     public void subscribe(Flow.Subscriber<? super WebSocketMessage> subscriber) {
-        publisher.subscribe(subscriber);
+        if (subscriber instanceof MessageSubscriber) {
+            final MessageSubscriber messageSubscriber = (MessageSubscriber) subscriber;
+            final MessageFilter filter = messageSubscriber.getFilter();
+            publisher.subscribe(subscriber, messageSubscriber.getBackpressurePolicy(),
+                    filter.isAll() ? null : new FilterIndex(filter, route));
+        } else {
+            publisher.subscribe(subscriber);
+        }
+    }
+
+    /**
+     * @return The counters of the subscribers: messages delivered, dropped and waiting to be delivered.
+     */
+    @Nonnull
+    public List<SubscriberStats> getSubscriberStats() {
+        return publisher.getSubscriberStats();
     }
 }
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.github.rishabh9.riko.upstox.websockets.ticks.Instrument;
+import com.github.rishabh9.riko.upstox.websockets.ticks.TickDecoder;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The message being published, and the instruments it quotes, found once for all the subscriber filters,
+ * and only if one of them needs them. Reused for every message, by the publishing thread.
+ */
+final class MessageRoute implements Consumer<Instrument> {
+
+    private final TickDecoder decoder = new TickDecoder();
+
+    private WebSocketMessage message;
+    private boolean scanned;
+    private Instrument[] instruments = new Instrument[16];
+    private int count;
+
+    void reset(final WebSocketMessage message) {
+        this.message = message;
+        this.scanned = false;
+        this.count = 0;
+    }
+
+    WebSocketMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The number of quotes in the message, each with its instrument in {@link #getInstrument(int)}.
+     */
+    int getQuotes() {
+        if (!scanned) {
+            scanned = true;
+            decoder.instruments(message, this);
+        }
+        return count;
+    }
+
+    Instrument getInstrument(final int index) {
+        return instruments[index];
+    }
+
+    @Override
+    public void accept(final Instrument instrument) {
+        if (count == instruments.length) {
+            instruments = Arrays.copyOf(instruments, count * 2);
+        }
+        instruments[count++] = instrument;
+    }
+}
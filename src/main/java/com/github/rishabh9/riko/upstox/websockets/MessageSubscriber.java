@@ -24,6 +24,7 @@
 
 package com.github.rishabh9.riko.upstox.websockets;
 
+import com.github.rishabh9.riko.upstox.websockets.dispatch.BackpressurePolicy;
 import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
 
 import java.util.UUID;
@@ -41,4 +42,20 @@ public interface MessageSubscriber extends Flow.Subscriber<WebSocketMessage> {
     default String getName() {
         return "websocket-subscriber-" + UUID.randomUUID().toString();
     }
+
+    /**
+     * @return What happens to the messages while this subscriber is too slow to keep up with the socket.
+     * By default, new messages are dropped until it catches up.
+     */
+    default BackpressurePolicy<WebSocketMessage> getBackpressurePolicy() {
+        return BackpressurePolicy.dropNewest();
+    }
+
+    /**
+     * @return The messages this subscriber wants. The others are never queued for it.
+     * By default, it gets every message.
+     */
+    default MessageFilter getFilter() {
+        return MessageFilter.all();
+    }
 }
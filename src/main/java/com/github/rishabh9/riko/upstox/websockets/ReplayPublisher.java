@@ -0,0 +1,290 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.common.EpochClock;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.LatencyHistogram;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.WaitStrategy;
+import com.github.rishabh9.riko.upstox.websockets.journal.JournalReader;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import okio.ByteString;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getEnum;
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Publishes the frames recorded in a journal to subscribers, the way {@link MessageListener} publishes the frames
+ * received on the web socket, to benchmark or backtest them against the feed:
+ * <pre>{@code
+ * ReplayPublisher replay = new ReplayPublisher(new JournalReader(directory), subscribers, ReplayPublisher.REAL_TIME);
+ * ReplayStats stats = replay.replay();
+ * }</pre>
+ * The frames are published {@link #AS_FAST_AS_POSSIBLE as fast as possible}, {@link #REAL_TIME as they were
+ * received}, or that many times faster. They are published as {@link TextMessage text} or
+ * {@link BinaryMessage binary} messages without a sender, received when they are published.
+ * The subscribers are completed once the journal was replayed.
+ */
+public final class ReplayPublisher implements Flow.Publisher<WebSocketMessage> {
+
+    private static final Logger log = LogManager.getLogger(ReplayPublisher.class);
+
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+    public static final double REAL_TIME = 1.0;
+
+    /**
+     * Waits shorter than this are spun, as parking is not that precise.
+     */
+    private static final long SPIN_NANOS = 50_000L;
+
+    private final JournalReader reader;
+    private final double speed;
+    private final MessageListener listener;
+    private final List<LatencyRecorder> recorders = new ArrayList<>();
+    private boolean replayed;
+
+    /**
+     * Publishes through ring buffers sized by the {@code riko.ws.ring.size} system property,
+     * whose dispatch threads wait as set by the {@code riko.ws.wait.strategy} system property.
+     *
+     * @param reader      The journal to replay
+     * @param subscribers The subscribers of the messages
+     * @param speed       How many times faster than they were received the frames are published
+     */
+    public ReplayPublisher(@Nonnull JournalReader reader,
+                           @Nonnull List<MessageSubscriber> subscribers,
+                           double speed) {
+        this(reader, subscribers, speed,
+                getInt(RIKO_WS_RING_SIZE, RIKO_WS_RING_SIZE_DEFAULT),
+                getEnum(RIKO_WS_WAIT_STRATEGY, WaitStrategy.class, WaitStrategy.valueOf(RIKO_WS_WAIT_STRATEGY_DEFAULT)));
+    }
+
+    /**
+     * @param reader       The journal to replay
+     * @param subscribers  The subscribers of the messages
+     * @param speed        How many times faster than they were received the frames are published
+     * @param ringSize     The number of messages a subscriber can fall behind by, before messages are dropped for it
+     * @param waitStrategy How the dispatch threads wait for messages
+     */
+    public ReplayPublisher(@Nonnull JournalReader reader,
+                           @Nonnull List<MessageSubscriber> subscribers,
+                           double speed,
+                           int ringSize,
+                           @Nonnull WaitStrategy waitStrategy) {
+        checkArgument(speed > 0.0, "speed must be positive");
+        this.reader = Objects.requireNonNull(reader);
+        this.speed = speed;
+        this.listener = new MessageListener(new ArrayList<>(), ringSize, waitStrategy);
+        Objects.requireNonNull(subscribers).forEach(this::subscribe);
+    }
+
+    /**
+     * Adds a subscriber, before the replay.
+     */
+    @Override
+    public synchronized void subscribe(Flow.Subscriber<? super WebSocketMessage> subscriber) {
+        checkState(!replayed, "Already replayed");
+        final LatencyRecorder recorder = new LatencyRecorder(Objects.requireNonNull(subscriber));
+        recorders.add(recorder);
+        listener.subscribe(recorder);
+    }
+
+    /**
+     * Publishes every frame of the journal, on this thread, then completes the subscribers,
+     * and waits for them to be done.
+     *
+     * @return The messages published per second, and the latencies of the subscribers.
+     * @throws IOException          If the journal can't be read. The subscribers are sent the failure.
+     * @throws InterruptedException If interrupted while waiting for a frame's time, or for the subscribers
+     */
+    @Nonnull
+    public ReplayStats replay() throws IOException, InterruptedException {
+        final List<LatencyRecorder> subscribed;
+        synchronized (this) {
+            checkState(!replayed, "Already replayed");
+            replayed = true;
+            subscribed = new ArrayList<>(recorders);
+        }
+        long messages = 0L;
+        long dropped = 0L;
+        long start = 0L;
+        long firstReceivedAt = 0L;
+        try {
+            while (reader.next()) {
+                if (0L == messages) {
+                    start = System.nanoTime();
+                    firstReceivedAt = reader.getReceivedAt();
+                } else if (speed != AS_FAST_AS_POSSIBLE) {
+                    awaitUntil(start + (long) ((reader.getReceivedAt() - firstReceivedAt) / speed));
+                }
+                dropped += listener.publishMessage(reader.isText()
+                        ? new TextMessage(null, reader.getText(), EpochClock.nanos())
+                        : new BinaryMessage(null, ByteString.of(reader.getPayload()), EpochClock.nanos()));
+                messages++;
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            listener.closePublisher(e);
+            throw e;
+        }
+        listener.closePublisher(null);
+        for (LatencyRecorder recorder : subscribed) {
+            recorder.done.await();
+        }
+        final long elapsed = 0L == messages ? 0L : System.nanoTime() - start;
+        final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+        for (LatencyRecorder recorder : subscribed) {
+            // Names are not unique, and each subscriber has its own latencies.
+            String name = recorder.name;
+            for (int n = 2; latencies.containsKey(name); n++) {
+                name = recorder.name + '#' + n;
+            }
+            latencies.put(name, recorder.histogram);
+        }
+        final ReplayStats stats = new ReplayStats(messages, dropped, elapsed, latencies);
+        log.info("Replayed {}", stats);
+        return stats;
+    }
+
+    private static void awaitUntil(final long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0L) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Measures, on the dispatch thread of the subscriber, the time from publishing a message until the subscriber
+     * is done with it, and tells when the subscriber is done with every message.
+     */
+    private static final class LatencyRecorder implements MessageSubscriber {
+
+        private final Flow.Subscriber<? super WebSocketMessage> subscriber;
+        private final String name;
+        private final BackpressurePolicy<WebSocketMessage> policy;
+        private final MessageFilter filter;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private LatencyRecorder(final Flow.Subscriber<? super WebSocketMessage> subscriber) {
+            this.subscriber = subscriber;
+            if (subscriber instanceof MessageSubscriber) {
+                final MessageSubscriber messageSubscriber = (MessageSubscriber) subscriber;
+                // The default name is a different one every time.
+                this.name = messageSubscriber.getName();
+                this.policy = messageSubscriber.getBackpressurePolicy();
+                this.filter = messageSubscriber.getFilter();
+            } else {
+                this.name = String.valueOf(subscriber);
+                this.policy = BackpressurePolicy.dropNewest();
+                this.filter = MessageFilter.all();
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public BackpressurePolicy<WebSocketMessage> getBackpressurePolicy() {
+            return policy;
+        }
+
+        @Override
+        public MessageFilter getFilter() {
+            return filter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    subscription.cancel();
+                    done.countDown();
+                }
+            });
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            subscriber.onNext(item);
+            histogram.record(EpochClock.nanos() - item.getReceivedAt());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            try {
+                subscriber.onError(throwable);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                subscriber.onComplete();
+            } finally {
+                done.countDown();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(subscriber);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.websockets.dispatch.LatencyHistogram;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What a {@link ReplayPublisher} measured while replaying a journal.
+ */
+public final class ReplayStats {
+
+    private final long messages;
+    private final long dropped;
+    private final long elapsed;
+    private final Map<String, LatencyHistogram> latencies;
+
+    public ReplayStats(final long messages,
+                       final long dropped,
+                       final long elapsed,
+                       @Nonnull final Map<String, LatencyHistogram> latencies) {
+
+        this.messages = messages;
+        this.dropped = dropped;
+        this.elapsed = elapsed;
+        this.latencies = Collections.unmodifiableMap(Objects.requireNonNull(latencies));
+    }
+
+    /**
+     * @return The number of messages published.
+     */
+    public long getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return The number of times a message was dropped for a subscriber, because it was too far behind.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return The nanoseconds from the first message published until every subscriber was done.
+     */
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return The messages published per second, sustained until every subscriber was done with them.
+     */
+    public double getMessagesPerSecond() {
+        return elapsed == 0L ? 0.0 : messages * 1e9 / elapsed;
+    }
+
+    /**
+     * @return By name of subscriber, in the order they subscribed, the nanoseconds from publishing each message
+     * it was delivered until it was done with it. Subscribers with the same name are told apart by a suffix,
+     * the second one being {@code name#2}.
+     */
+    @Nonnull
+    public Map<String, LatencyHistogram> getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("messages", messages)
+                .add("dropped", dropped)
+                .add("elapsed", elapsed)
+                .add("messagesPerSecond", getMessagesPerSecond())
+                .add("latencies", latencies)
+                .toString();
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.feed.FeedService;
+import com.github.rishabh9.riko.upstox.feed.models.SubscriptionResponse;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import com.google.common.base.MoreObjects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A web socket connection that is made again when it is lost, with backoff, until it is {@link #close() closed}.
+ * Every attempt fetches the web socket parameters again. Once the web socket is open, the feed subscriptions
+ * made through this connection are made again, and the connection is recovered.
+ * <p>
+ * The subscribers stay subscribed across the connections: they get a {@code DisconnectedMessage}
+ * or an {@code ErrorMessage} when the connection is lost, and a {@code ConnectedMessage} when it is made again.
+ * They are completed when the connection is closed.
+ * <p>
+ * Closing the web socket itself is taken for a disconnection: use {@link #close()} instead.
+ *
+ * @see WebSocketService#connectSupervised(List, FeedService)
+ */
+public final class SupervisedConnection implements Closeable {
+
+    private static final Logger log = LogManager.getLogger(SupervisedConnection.class);
+
+    private final MessageListener listener;
+    private final Function<MessageListener, CompletableFuture<WrappedWebSocket>> connector;
+    private final FeedService feedService;
+    private final ScheduledExecutorService scheduler;
+    private final long delay;
+    private final long maxDelay;
+
+    /**
+     * The symbols subscribed to through this connection, by type and exchange.
+     */
+    private final Map<String, Map<String, Set<String>>> subscriptions = new LinkedHashMap<>();
+
+    private volatile boolean closed;
+    private volatile WrappedWebSocket webSocket;
+
+    // Guarded by this
+    private long reconnects;
+    private long failedAttempts;
+    private long lastTimeToRecovery;
+    private long maxTimeToRecovery;
+    private long totalDowntime;
+    private long disconnectedAt;
+    private Instant lastMissedFrom;
+    private Instant lastMissedTo;
+
+    /**
+     * @param listener    The listener of every web socket of this connection
+     * @param connector   Opens a web socket with the listener
+     * @param feedService The service to make the feed subscriptions with
+     * @param scheduler   The executor to wait on before reconnecting
+     * @param delay       The milliseconds to wait before the first attempt to reconnect, doubled after every failure
+     * @param maxDelay    The most milliseconds to wait between two attempts
+     */
+    SupervisedConnection(@Nonnull final MessageListener listener,
+                         @Nonnull final Function<MessageListener, CompletableFuture<WrappedWebSocket>> connector,
+                         @Nonnull final FeedService feedService,
+                         @Nonnull final ScheduledExecutorService scheduler,
+                         final long delay,
+                         final long maxDelay) {
+
+        this.listener = Objects.requireNonNull(listener);
+        this.connector = Objects.requireNonNull(connector);
+        this.feedService = Objects.requireNonNull(feedService);
+        this.scheduler = Objects.requireNonNull(scheduler);
+        this.delay = Math.max(0L, delay);
+        this.maxDelay = Math.max(this.delay, maxDelay);
+    }
+
+    /**
+     * Makes the first connection. It is not retried beyond the retries of the web socket service:
+     * if it fails, the subscribers get the failure.
+     *
+     * @return A future completed with this connection once it is open.
+     */
+    CompletableFuture<SupervisedConnection> start() {
+        listener.supervise(this::disconnected);
+        return connector.apply(listener)
+                .handle((openSocket, failure) -> {
+                    if (null != failure) {
+                        final Throwable cause = unwrap(failure);
+                        listener.closePublisher(cause);
+                        throw new CompletionException(cause);
+                    }
+                    connected(openSocket);
+                    return this;
+                });
+    }
+
+    /**
+     * Subscribe to the feed, and again every time the connection is made again.
+     *
+     * @param type       'ltp' or 'full'. <em>Either. Mandatory.</em>
+     * @param exchange   Name of the exchange. <em>Mandatory.</em>
+     * @param symbolsCsv Comma separated list of trading symbols
+     * @return Confirmation response
+     * @see FeedService#subscribe(String, String, String)
+     */
+    public CompletableFuture<UpstoxResponse<SubscriptionResponse>> subscribe(@Nonnull final String type,
+                                                                             @Nonnull final String exchange,
+                                                                             @Nonnull final String symbolsCsv) {
+
+        return feedService.subscribe(type, exchange, symbolsCsv)
+                .thenApply(response -> {
+                    synchronized (subscriptions) {
+                        subscriptions
+                                .computeIfAbsent(type.toLowerCase(Locale.ROOT), t -> new LinkedHashMap<>())
+                                .computeIfAbsent(exchange, e -> new LinkedHashSet<>())
+                                .addAll(symbols(symbolsCsv));
+                    }
+                    return response;
+                });
+    }
+
+    /**
+     * Unsubscribe to the feed, so that it is not subscribed to again when the connection is made again.
+     *
+     * @param type       'ltp' or 'full'. <em>Either. Mandatory.</em>
+     * @param exchange   Name of the exchange. <em>Mandatory.</em>
+     * @param symbolsCsv Comma separated list of trading symbols
+     * @return Confirmation response
+     * @see FeedService#unsubscribe(String, String, String)
+     */
+    public CompletableFuture<UpstoxResponse<SubscriptionResponse>> unsubscribe(@Nonnull final String type,
+                                                                               @Nonnull final String exchange,
+                                                                               @Nonnull final String symbolsCsv) {
+
+        return feedService.unsubscribe(type, exchange, symbolsCsv)
+                .thenApply(response -> {
+                    synchronized (subscriptions) {
+                        final Map<String, Set<String>> byExchange = subscriptions.get(type.toLowerCase(Locale.ROOT));
+                        final Set<String> symbols = null == byExchange ? null : byExchange.get(exchange);
+                        if (null != symbols) {
+                            symbols.removeAll(symbols(symbolsCsv));
+                            if (symbols.isEmpty()) {
+                                byExchange.remove(exchange);
+                            }
+                        }
+                    }
+                    return response;
+                });
+    }
+
+    /**
+     * @return The web socket currently open, or {@code null} while reconnecting.
+     */
+    @Nullable
+    public WrappedWebSocket getWebSocket() {
+        return webSocket;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public synchronized ConnectionStats getStats() {
+        return new ConnectionStats(null != webSocket && !closed, reconnects, failedAttempts,
+                lastTimeToRecovery, maxTimeToRecovery, totalDowntime, lastMissedFrom, lastMissedTo);
+    }
+
+    /**
+     * Closes the web socket, and stops reconnecting. The subscribers are completed once it is closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        final WrappedWebSocket current = webSocket;
+        if (null != current) {
+            current.close();
+        }
+        // Otherwise, the pending attempt to reconnect completes the subscribers.
+    }
+
+    private void connected(final WrappedWebSocket openSocket) {
+        webSocket = openSocket;
+        if (closed) {
+            openSocket.close();
+        }
+    }
+
+    private void disconnected(@Nullable final Throwable failure) {
+        webSocket = null;
+        if (closed) {
+            listener.closePublisher(failure);
+            return;
+        }
+        synchronized (this) {
+            disconnectedAt = System.nanoTime();
+            lastMissedFrom = Instant.now();
+            lastMissedTo = null;
+        }
+        if (null == failure) {
+            log.warn("Web socket closed. Reconnecting.");
+        } else {
+            log.warn("Web socket failed. Reconnecting. REASON: {}", failure.getMessage());
+        }
+        reconnect(0);
+    }
+
+    private void reconnect(final int attempt) {
+        final long wait = backoff(attempt);
+        log.debug("Reconnect attempt #{} in {} ms", attempt + 1, wait);
+        scheduler.schedule(() -> {
+            if (closed) {
+                listener.closePublisher(null);
+                return;
+            }
+            connector.apply(listener)
+                    .thenCompose(openSocket -> {
+                        connected(openSocket);
+                        return resubscribe().thenApply(done -> openSocket);
+                    })
+                    .whenComplete((openSocket, failure) -> {
+                        if (null == failure) {
+                            // Unless it was lost again meanwhile.
+                            if (openSocket == webSocket) {
+                                recovered();
+                            }
+                        } else if (closed) {
+                            listener.closePublisher(null);
+                        } else {
+                            synchronized (this) {
+                                failedAttempts++;
+                            }
+                            log.error("Reconnect attempt #" + (attempt + 1) + " failed.", unwrap(failure));
+                            reconnect(attempt + 1);
+                        }
+                    });
+        }, wait, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A subscription that fails is only logged, as the feed service already retried it.
+     */
+    private CompletableFuture<Void> resubscribe() {
+        final List<CompletableFuture<?>> requests = new ArrayList<>();
+        synchronized (subscriptions) {
+            subscriptions.forEach((type, byExchange) -> byExchange.forEach((exchange, symbols) -> {
+                final String symbolsCsv = String.join(",", symbols);
+                requests.add(feedService.subscribe(type, exchange, symbolsCsv)
+                        .exceptionally(failure -> {
+                            log.error("Failed to subscribe again to the " + type + " feed of "
+                                    + exchange + ": " + symbolsCsv, unwrap(failure));
+                            return null;
+                        }));
+            }));
+        }
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private synchronized void recovered() {
+        final long timeToRecovery = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - disconnectedAt);
+        reconnects++;
+        lastTimeToRecovery = timeToRecovery;
+        maxTimeToRecovery = Math.max(maxTimeToRecovery, timeToRecovery);
+        totalDowntime += timeToRecovery;
+        lastMissedTo = Instant.now();
+        log.info("Web socket connection recovered in {} ms. The feed was missed from {} to {}.",
+                timeToRecovery, lastMissedFrom, lastMissedTo);
+    }
+
+    private long backoff(final int attempt) {
+        // Shifting by more than 30 could overflow, while the delay reached the maximum long before.
+        return Math.min(maxDelay, delay << Math.min(attempt, 30));
+    }
+
+    private static Throwable unwrap(final Throwable failure) {
+        return failure instanceof CompletionException && null != failure.getCause() ? failure.getCause() : failure;
+    }
+
+    private static List<String> symbols(final String symbolsCsv) {
+        final List<String> symbols = new ArrayList<>();
+        for (String symbol : Arrays.asList(symbolsCsv.split(","))) {
+            if (!symbol.trim().isEmpty()) {
+                symbols.add(symbol.trim());
+            }
+        }
+        return symbols;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("webSocket", webSocket)
+                .add("closed", closed)
+                .toString();
+    }
+}
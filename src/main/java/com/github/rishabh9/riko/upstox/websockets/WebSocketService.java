@@ -26,14 +26,15 @@ package com.github.rishabh9.riko.upstox.websockets;
 
 import com.github.rishabh9.riko.upstox.common.RetryPolicyFactory;
 import com.github.rishabh9.riko.upstox.common.Service;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
 import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
 import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.feed.FeedService;
 import com.github.rishabh9.riko.upstox.login.models.AccessToken;
 import com.github.rishabh9.riko.upstox.websockets.models.WebsocketParameters;
 import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
 import com.google.common.base.Strings;
-import com.google.common.util.concurrent.RateLimiter;
 import net.jodah.failsafe.Failsafe;
 import okhttp3.*;
 import org.apache.logging.log4j.LogManager;
@@ -41,10 +42,15 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
 import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.WEB_SOCKET;
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.WS_PARAMS;
 import static com.github.rishabh9.riko.upstox.common.constants.RateLimits.WEB_SOCKET_RATE_LIMIT;
 import static com.github.rishabh9.riko.upstox.common.constants.RateLimits.WS_PARAMS_RATE_LIMIT;
 
@@ -53,9 +59,6 @@ public class WebSocketService extends Service {
 
     private static final Logger log = LogManager.getLogger(WebSocketService.class);
 
-    private static final RateLimiter wsParamsRateLimiter = RateLimiter.create(WS_PARAMS_RATE_LIMIT);
-    private static final RateLimiter webSocketRateLimiter = RateLimiter.create(WEB_SOCKET_RATE_LIMIT);
-
     /**
      * @param upstoxAuthService The service to retrieve authentication details
      */
@@ -65,6 +68,17 @@ public class WebSocketService extends Service {
         super(upstoxAuthService, retryPolicyFactory);
     }
 
+    /**
+     * @param upstoxAuthService The service to retrieve authentication details
+     * @param serviceGenerator  The generator of the service APIs
+     */
+    public WebSocketService(@Nonnull final UpstoxAuthService upstoxAuthService,
+                            @Nonnull final RetryPolicyFactory retryPolicyFactory,
+                            @Nonnull final ServiceGenerator serviceGenerator) {
+
+        super(upstoxAuthService, retryPolicyFactory, serviceGenerator);
+    }
+
     private CompletableFuture<UpstoxResponse<WebsocketParameters>> getWebsocketParameters() {
 
         log.debug("Preparing service - GET Websocket Parameters");
@@ -78,6 +92,7 @@ public class WebSocketService extends Service {
      * Connect to Upstox via web socket.<br>
      * Internally, this method retrieves the published parameters to connect to Upstox
      * via web sockets and then tries to setup a web socket connection.
+     * It blocks until the connection is open; see {@link #connectAsync(List)}.
      *
      * @param subscribers The subscribers interested in the messages received at the web socket.
      *                    <em>Mandatory.</em>
@@ -86,11 +101,69 @@ public class WebSocketService extends Service {
      */
     public WrappedWebSocket connect(final List<MessageSubscriber> subscribers) throws Exception {
 
+        return connectAsync(subscribers).get(); // block until open
+    }
+
+    /**
+     * Connect to Upstox via web socket, without blocking.<br>
+     * Internally, this method retrieves the published parameters to connect to Upstox
+     * via web sockets and then tries to setup a web socket connection, retrying both as configured.
+     * The subscribers are subscribed once, and stay subscribed across the attempts to connect.
+     * If all of them fail, the subscribers get the last failure.
+     *
+     * @param subscribers The subscribers interested in the messages received at the web socket.
+     *                    <em>Mandatory.</em>
+     * @return A future completed with the web socket wrapped in custom class for usability, once it is open.
+     */
+    public CompletableFuture<WrappedWebSocket> connectAsync(final List<MessageSubscriber> subscribers) {
+
+        if (null == subscribers || subscribers.isEmpty()) {
+            throw new IllegalArgumentException("Subscribers not provided. Not connecting to the socket.");
+        }
+
+        final MessageListener listener = new MessageListener(subscribers);
+        return open(listener).whenComplete((webSocket, failure) -> {
+            if (null != failure) {
+                listener.closePublisher(failure instanceof CompletionException ? failure.getCause() : failure);
+            }
+        });
+    }
+
+    /**
+     * Connect to Upstox via web socket, and connect again whenever the connection is lost, until it is closed.
+     * The subscribers stay subscribed across the connections.
+     * The feed subscriptions made through the returned connection are made again on every new connection.
+     *
+     * @param subscribers The subscribers interested in the messages received at the web socket.
+     *                    <em>Mandatory.</em>
+     * @param feedService The service to subscribe to the feed with. <em>Mandatory.</em>
+     * @return A future completed with the connection, once it is open.
+     * @see SupervisedConnection
+     */
+    public CompletableFuture<SupervisedConnection> connectSupervised(final List<MessageSubscriber> subscribers,
+                                                                     @Nonnull final FeedService feedService) {
+
         if (null == subscribers || subscribers.isEmpty()) {
             throw new IllegalArgumentException("Subscribers not provided. Not connecting to the socket.");
         }
 
-        return Failsafe.with(retryPolicy)
+        final SupervisedConnection connection = new SupervisedConnection(
+                new MessageListener(subscribers),
+                this::open,
+                Objects.requireNonNull(feedService),
+                retryExecutor,
+                getInt(RIKO_WS_RECONNECT_DELAY, RIKO_WS_RECONNECT_DELAY_DEFAULT),
+                getInt(RIKO_WS_RECONNECT_MAX_DELAY, RIKO_WS_RECONNECT_MAX_DELAY_DEFAULT));
+        return connection.start();
+    }
+
+    /**
+     * Retrieves the parameters, and opens a web socket with the listener, retrying both as configured.
+     */
+    private CompletableFuture<WrappedWebSocket> open(final MessageListener listener) {
+
+        return Failsafe.with(retryPolicy(WS_PARAMS))
+                .with(circuitBreaker(WS_PARAMS))
                 .with(retryExecutor)
                 .onFailure(failure -> {
                     log.fatal("Failed completely to retrieve web-socket parameters. ", failure);
@@ -102,34 +175,26 @@ public class WebSocketService extends Service {
                 .onRetry((c, f, ctx) ->
                         log.warn("Failure #" + ctx.getExecutions()
                                 + ". Unable to retrieve web-socket parameters, retrying. REASON: {}", f.getCause().getMessage()))
-                .future(() -> {
-                    // Step 1: Retrieve the webSocket parameters before connecting, as per Upstox documentation.
-                    wsParamsRateLimiter.acquire(1);
-                    return getWebsocketParameters();
-                })
-                .thenApply(paramResponse -> Failsafe.with(retryPolicy)
+                // Step 1: Retrieve the webSocket parameters before connecting, as per Upstox documentation.
+                .future(() -> rateLimited(WS_PARAMS, WS_PARAMS_RATE_LIMIT, this::getWebsocketParameters))
+                .thenCompose(paramResponse -> Failsafe.with(retryPolicy(WEB_SOCKET))
+                        .with(circuitBreaker(WEB_SOCKET))
                         .with(retryExecutor)
                         .onFailure(failure -> log.fatal("Failed completely to make web-socket connection. ", failure))
-                        .onSuccess(connection -> log.info("WebSocket connection is successful!"))
+                        .onSuccess(connected -> log.info("WebSocket connection is successful!"))
                         .onRetry((c, f, ctx) ->
                                 log.warn("Failure #" + ctx.getExecutions()
                                         + ". Unable to connect to web-socket, retrying. REASON: {}", f.getCause().getMessage()))
-                        .get(() -> {
-                            // Step 2: Make connection
-                            webSocketRateLimiter.acquire(1);
-                            return this.makeConnection(paramResponse.getData(), subscribers);
-                        }))
-                .get()
-                .get(); // block until complete
+                        // Step 2: Make connection
+                        .future(() -> rateLimiter(WEB_SOCKET, WEB_SOCKET_RATE_LIMIT).acquire()
+                                .thenCompose(permit -> makeConnection(paramResponse.getData(), listener))));
     }
 
-    private WrappedWebSocket makeConnection(final WebsocketParameters parameters,
-                                            final List<MessageSubscriber> subscribers) {
+    private CompletableFuture<WrappedWebSocket> makeConnection(final WebsocketParameters parameters,
+                                                               final MessageListener listener) {
 
-        final OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder();
-        final OkHttpClient httpClient = httpClientBuilder
-                .connectionPool(
-                        new ConnectionPool(5, parameters.getKeepaliveInterval(), TimeUnit.SECONDS))
+        // Derived from the shared client, so that every web socket doesn't start its own threads.
+        final OkHttpClient httpClient = serviceGenerator.newHttpClientBuilder()
                 .readTimeout(parameters.getPythonPingTimeout() * 3, TimeUnit.SECONDS)
                 .writeTimeout(parameters.getPythonPingTimeout() * 3, TimeUnit.SECONDS)
                 .pingInterval(parameters.getPythonPingInterval(), TimeUnit.SECONDS)
@@ -138,9 +203,10 @@ public class WebSocketService extends Service {
 
         final Request request = prepareRequest();
 
-        final WebSocket webSocket = httpClient.newWebSocket(request, new MessageListener(subscribers));
-
-        return new WrappedWebSocket(webSocket);
+        // Completed by the listener, with the same instance as the sender of the messages.
+        final CompletableFuture<WrappedWebSocket> opened = listener.expectOpen();
+        httpClient.newWebSocket(request, listener);
+        return opened;
     }
 
     private Request prepareRequest() {
@@ -0,0 +1,226 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * What happens to the messages of a subscriber that is too slow to keep up with the publisher.
+ * <p>
+ * Each subscriber picks its own policy, and none of them blocks the publisher for longer
+ * than the timeout of {@link #block(long, TimeUnit)}.
+ *
+ * @param <T> The type of the messages
+ */
+public final class BackpressurePolicy<T> {
+
+    public enum Type {
+        /**
+         * Drops the message being published, when the ring buffer of the subscriber is full.
+         */
+        DROP_NEWEST,
+        /**
+         * Drops the oldest undelivered message, when the ring buffer of the subscriber is full.
+         */
+        DROP_OLDEST,
+        /**
+         * Waits a bounded time for space in the ring buffer of the subscriber, then drops the message being published.
+         */
+        BLOCK,
+        /**
+         * Buffers the messages in a queue that grows as needed, up to a maximum number of messages.
+         */
+        UNBOUNDED,
+        /**
+         * Keeps only the latest undelivered message, or the latest one for each key.
+         */
+        CONFLATE
+    }
+
+    private static final BackpressurePolicy<?> DROP_NEWEST = new BackpressurePolicy<>(Type.DROP_NEWEST, 0L, 0L, null);
+    private static final BackpressurePolicy<?> DROP_OLDEST = new BackpressurePolicy<>(Type.DROP_OLDEST, 0L, 0L, null);
+    private static final BackpressurePolicy<?> CONFLATE = new BackpressurePolicy<>(Type.CONFLATE, 0L, 0L, null);
+
+    private final Type type;
+    private final long maxWaitNanos;
+    private final long maxMessages;
+    private final Function<? super T, ?> keyFunction;
+
+    private BackpressurePolicy(final Type type,
+                               final long maxWaitNanos,
+                               final long maxMessages,
+                               final Function<? super T, ?> keyFunction) {
+        this.type = type;
+        this.maxWaitNanos = maxWaitNanos;
+        this.maxMessages = maxMessages;
+        this.keyFunction = keyFunction;
+    }
+
+    /**
+     * The default policy.
+     *
+     * @param <T> The type of the messages
+     * @return A policy dropping the message being published, when the subscriber is too far behind.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <T> BackpressurePolicy<T> dropNewest() {
+        return (BackpressurePolicy<T>) DROP_NEWEST;
+    }
+
+    /**
+     * @param <T> The type of the messages
+     * @return A policy dropping the oldest undelivered message, when the subscriber is too far behind.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <T> BackpressurePolicy<T> dropOldest() {
+        return (BackpressurePolicy<T>) DROP_OLDEST;
+    }
+
+    /**
+     * Blocks the publisher, which usually is the thread reading the web socket, so keep the timeout in microseconds.
+     *
+     * @param timeout How long to wait for the subscriber to make space, before dropping the message
+     * @param unit    The unit of {@code timeout}
+     * @param <T>     The type of the messages
+     * @return A policy waiting for the subscriber, when it is too far behind.
+     */
+    @Nonnull
+    public static <T> BackpressurePolicy<T> block(final long timeout, @Nonnull final TimeUnit unit) {
+        checkArgument(timeout > 0L, "timeout must be positive");
+        return new BackpressurePolicy<>(Type.BLOCK, unit.toNanos(timeout), 0L, null);
+    }
+
+    /**
+     * @param maxMessages The number of undelivered messages above which messages are dropped,
+     *                    which caps the memory held for the subscriber
+     * @param <T>         The type of the messages
+     * @return A policy buffering every message, within the cap.
+     */
+    @Nonnull
+    public static <T> BackpressurePolicy<T> unbounded(final long maxMessages) {
+        checkArgument(maxMessages > 0L, "maxMessages must be positive");
+        return new BackpressurePolicy<>(Type.UNBOUNDED, 0L, maxMessages, null);
+    }
+
+    /**
+     * @param <T> The type of the messages
+     * @return A policy delivering only the latest message, for subscribers that don't need every one.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <T> BackpressurePolicy<T> conflate() {
+        return (BackpressurePolicy<T>) CONFLATE;
+    }
+
+    /**
+     * Keeps the latest undelivered message for each key, such as an instrument, in the position of the first
+     * message with that key: a subscriber catching up gets at most one message per key, never a backlog of stale ones.
+     * <p>
+     * Messages with a {@code null} key are not conflated, and are dropped while the subscriber is as far behind
+     * as the capacity of the publisher.
+     *
+     * @param keyFunction Computes the key of a message, on the publishing thread, so it must be cheap.
+     *                    The keys must implement {@code equals} and {@code hashCode}, and be of a bounded number,
+     *                    like the instruments of a feed, as a slot is kept for every key ever seen.
+     * @param <T>         The type of the messages
+     * @return A policy delivering only the latest message for each key.
+     */
+    @Nonnull
+    public static <T> BackpressurePolicy<T> conflate(@Nonnull final Function<? super T, ?> keyFunction) {
+        return new BackpressurePolicy<>(Type.CONFLATE, 0L, 0L, Objects.requireNonNull(keyFunction));
+    }
+
+    @Nonnull
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return How long {@link Type#BLOCK} waits, in nanoseconds.
+     */
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    /**
+     * @return How many messages {@link Type#UNBOUNDED} buffers at most.
+     */
+    public long getMaxMessages() {
+        return maxMessages;
+    }
+
+    /**
+     * @return The key function of a {@link Type#CONFLATE} policy conflating by key, or {@code null}.
+     */
+    @Nullable
+    public Function<? super T, ?> getKeyFunction() {
+        return keyFunction;
+    }
+
+    /**
+     * @param capacity The capacity of a ring buffer, a power of two
+     * @return A new buffer applying this policy.
+     */
+    LaneBuffer<T> newBuffer(final int capacity) {
+        switch (type) {
+            case DROP_OLDEST:
+                return new RingLaneBuffer<>(capacity, true, 0L);
+            case BLOCK:
+                return new RingLaneBuffer<>(capacity, false, maxWaitNanos);
+            case UNBOUNDED:
+                return new UnboundedLaneBuffer<>(maxMessages);
+            case CONFLATE:
+                return null == keyFunction
+                        ? new ConflatingLaneBuffer<>()
+                        : new KeyedConflatingLaneBuffer<>(keyFunction, capacity);
+            case DROP_NEWEST:
+            default:
+                return new RingLaneBuffer<>(capacity, false, 0L);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this).add("type", type);
+        if (Type.BLOCK == type) {
+            helper.add("maxWaitNanos", maxWaitNanos);
+        } else if (Type.UNBOUNDED == type) {
+            helper.add("maxMessages", maxMessages);
+        } else if (null != keyFunction) {
+            helper.add("keyFunction", keyFunction);
+        }
+        return helper.toString();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds only the latest message. A message not yet delivered is replaced by the next one.
+ *
+ * @param <T> The type of the messages
+ */
+final class ConflatingLaneBuffer<T> implements LaneBuffer<T> {
+
+    private final AtomicReference<T> latest = new AtomicReference<>();
+
+    @Override
+    public boolean offer(final T message) {
+        return null == latest.getAndSet(message);
+    }
+
+    @Override
+    public T poll() {
+        return null == latest.get() ? null : latest.getAndSet(null);
+    }
+
+    @Override
+    public long size() {
+        return null == latest.get() ? 0L : 1L;
+    }
+
+    @Override
+    public void clear() {
+        latest.set(null);
+    }
+}
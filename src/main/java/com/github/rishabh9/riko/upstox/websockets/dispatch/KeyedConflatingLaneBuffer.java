@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Holds the latest message for each key, in the order the keys first became pending.
+ * A message not yet delivered is replaced by the next one with the same key, which keeps its place in the queue.
+ * <p>
+ * Messages without a key are queued as they are, up to the capacity, and then the newest is dropped.
+ *
+ * @param <T> The type of the messages
+ */
+final class KeyedConflatingLaneBuffer<T> implements LaneBuffer<T> {
+
+    private static final Logger log = LogManager.getLogger(KeyedConflatingLaneBuffer.class);
+
+    private final Function<? super T, ?> keyFunction;
+    private final long maxUnkeyed;
+
+    /**
+     * Used by the publishing thread only. A slot lives as long as the buffer, so that it is allocated once per key.
+     * It is never pruned, so it is bounded by the number of keys, usually the instruments subscribed to: removing
+     * the slots once delivered would allocate again for every message of an instrument quoted slower than it is
+     * delivered, and would have to be coordinated with the dispatch thread.
+     */
+    private final Map<Object, Slot<T>> slots = new HashMap<>();
+    /**
+     * Pending slots, and messages without a key.
+     */
+    private final Queue<Object> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong unkeyed = new AtomicLong();
+
+    KeyedConflatingLaneBuffer(final Function<? super T, ?> keyFunction, final long maxUnkeyed) {
+        this.keyFunction = keyFunction;
+        this.maxUnkeyed = maxUnkeyed;
+    }
+
+    @Override
+    public boolean offer(final T message) {
+        final Object key = keyOf(message);
+        if (null == key) {
+            if (unkeyed.get() >= maxUnkeyed) {
+                return false;
+            }
+            // Counted first, so that the sizes are never negative.
+            unkeyed.incrementAndGet();
+            size.incrementAndGet();
+            pending.offer(message);
+            return true;
+        }
+        Slot<T> slot = slots.get(key);
+        if (null == slot) {
+            slot = new Slot<>();
+            slots.put(key, slot);
+        }
+        if (null != slot.getAndSet(message)) {
+            return false;
+        }
+        // The slot was empty, so it is not queued: the consumer empties a slot only after taking it off the queue.
+        size.incrementAndGet();
+        pending.offer(slot);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        final Object next = pending.poll();
+        if (null == next) {
+            return null;
+        }
+        size.decrementAndGet();
+        if (next instanceof Slot) {
+            return ((Slot<T>) next).getAndSet(null);
+        }
+        unkeyed.decrementAndGet();
+        return (T) next;
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Called by the dispatch thread, once it is done, so the slots may still be used by the publishing thread.
+     */
+    @Override
+    public void clear() {
+        pending.clear();
+    }
+
+    private Object keyOf(final T message) {
+        try {
+            return keyFunction.apply(message);
+        } catch (RuntimeException e) {
+            log.warn("Failed to compute the key of a message. Not conflating it.", e);
+            return null;
+        }
+    }
+
+    /**
+     * An {@link AtomicReference} itself rather than holding one, to allocate a single object per key.
+     */
+    private static final class Slot<T> extends AtomicReference<T> {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+/**
+ * Holds the messages of a subscriber between the publishing thread, which offers them,
+ * and the dispatch thread, which polls them.
+ *
+ * @param <T> The type of the messages
+ */
+interface LaneBuffer<T> {
+
+    /**
+     * Called by the publishing thread.
+     *
+     * @param message The message
+     * @return {@code false} if a message was dropped, either this one or an older one.
+     */
+    boolean offer(T message);
+
+    /**
+     * Called by the dispatch thread.
+     *
+     * @return The next message, or {@code null} if there is none.
+     */
+    T poll();
+
+    /**
+     * @return The number of messages waiting to be delivered.
+     */
+    long size();
+
+    default boolean isEmpty() {
+        return size() == 0L;
+    }
+
+    /**
+     * Releases the messages that won't be delivered.
+     */
+    void clear();
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import com.google.common.base.MoreObjects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Counts latencies, in nanoseconds, in buckets whose width grows with the latency, so that a percentile is
+ * within about 3% of the exact value, in a fixed amount of memory.
+ * <p>
+ * Recording neither allocates nor synchronizes: it is meant to be done by a single thread, like the dispatch thread
+ * of a subscriber, and the histogram read once that thread is done.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Latencies below this are counted exactly. Above, each power of two is split in {@code SUB_BUCKETS / 2} buckets.
+     */
+    private static final int SUB_BUCKETS = 64;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    private final long[] counts = new long[index(Long.MAX_VALUE) + 1];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * @param nanos A latency. A negative one, as clocks may disagree, is counted as 0.
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0L, nanos);
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * @return The number of latencies recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The lowest latency recorded, or 0 if none was.
+     */
+    public long getMin() {
+        return count == 0L ? 0L : min;
+    }
+
+    /**
+     * @return The highest latency recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return The mean of the latencies recorded, or 0 if none was.
+     */
+    public double getMean() {
+        return count == 0L ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile From 0 to 100, like 99.9
+     * @return The latency which that percent of the latencies recorded are lower than or equal to,
+     * rounded up to the top of its bucket, or 0 if none was recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        checkArgument(percentile >= 0.0 && percentile <= 100.0, "percentile must be between 0 and 100");
+        if (count == 0L) {
+            return 0L;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // The value shifted right to have SUB_BUCKET_BITS bits, so between HALF and SUB_BUCKETS - 1.
+        final int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    private static long highestIn(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKETS) / HALF + 1;
+        final long mantissa = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("count", count)
+                .add("min", getMin())
+                .add("mean", getMean())
+                .add("p50", getValueAtPercentile(50.0))
+                .add("p99", getValueAtPercentile(99.0))
+                .add("p99.9", getValueAtPercentile(99.9))
+                .add("max", max)
+                .toString();
+    }
+}
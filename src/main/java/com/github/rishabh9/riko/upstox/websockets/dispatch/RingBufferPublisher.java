@@ -0,0 +1,251 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Publishes messages from a single thread, such as a web socket reader, to any number of subscribers.
+ * <p>
+ * Every subscriber gets a ring buffer allocated up front, with its own read cursor, and a thread
+ * that delivers the messages to it. Publishing writes a reference into each ring and does not wait:
+ * when a subscriber falls so far behind that its ring is full, its {@link BackpressurePolicy} decides
+ * which of its messages are dropped, and the publisher and the other subscribers carry on.
+ * <p>
+ * {@link #offer(Object)}, {@link #close()} and {@link #closeExceptionally(Throwable)} must be called
+ * by one thread at a time.
+ *
+ * @param <T> The type of the messages
+ */
+public class RingBufferPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+    private static final ThreadFactory threadFactory =
+            new ThreadFactoryBuilder().setNameFormat("riko-ws-dispatch-%d").setDaemon(true).build();
+
+    @SuppressWarnings("rawtypes")
+    private static final SubscriberLane[] NO_LANES = new SubscriberLane[0];
+
+    private final int capacity;
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * Replaced, never modified, so that publishing can iterate it without locking or allocating.
+     */
+    @SuppressWarnings("unchecked")
+    private volatile SubscriberLane<T>[] lanes = NO_LANES;
+
+    private volatile boolean closed;
+    // Guarded by 'this'.
+    private Throwable closedException;
+
+    /**
+     * @param capacity     The number of messages each subscriber can fall behind by.
+     *                     Rounded up to a power of two.
+     * @param waitStrategy How the dispatch threads wait for messages
+     */
+    public RingBufferPublisher(final int capacity, @Nonnull final WaitStrategy waitStrategy) {
+        checkArgument(capacity > 0 && capacity <= (1 << 30), "capacity must be between 1 and 2^30");
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+    }
+
+    /**
+     * Adds a subscriber, which then is sent the messages published from now on, on a thread of its own.
+     * Messages are dropped for it while it is too far behind.
+     * A subscriber added after the publisher was closed is only sent the completion or the error.
+     */
+    @Override
+    public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+        subscribe(subscriber, BackpressurePolicy.dropNewest());
+    }
+
+    /**
+     * Adds a subscriber, which then is sent the messages published from now on, on a thread of its own.
+     * A subscriber added after the publisher was closed is only sent the completion or the error.
+     *
+     * @param subscriber The subscriber
+     * @param policy     What happens to the messages while the subscriber is too far behind
+     */
+    public void subscribe(@Nonnull final Flow.Subscriber<? super T> subscriber,
+                          @Nonnull final BackpressurePolicy<T> policy) {
+        subscribe(subscriber, policy, null);
+    }
+
+    /**
+     * Adds a subscriber, which then is sent the messages published from now on that pass its filter,
+     * on a thread of its own. A subscriber added after the publisher was closed is only sent the completion
+     * or the error.
+     *
+     * @param subscriber The subscriber
+     * @param policy     What happens to the messages while the subscriber is too far behind
+     * @param filter     Tells, on the publishing thread, whether the subscriber wants a message, which is otherwise
+     *                   not queued for it. It must be cheap. {@code null} lets every message through.
+     */
+    public void subscribe(@Nonnull final Flow.Subscriber<? super T> subscriber,
+                          @Nonnull final BackpressurePolicy<T> policy,
+                          @Nullable final Predicate<? super T> filter) {
+
+        Objects.requireNonNull(subscriber);
+        Objects.requireNonNull(policy);
+        final SubscriberLane<T> lane = new SubscriberLane<>(this, subscriber, policy, filter, capacity, waitStrategy);
+        synchronized (this) {
+            for (SubscriberLane<T> existing : lanes) {
+                if (existing.subscriber == subscriber) {
+                    lane.abort(new IllegalStateException("Duplicate subscribe"));
+                    threadFactory.newThread(lane).start();
+                    return;
+                }
+            }
+            if (closed) {
+                lane.complete(closedException);
+            } else {
+                final SubscriberLane<T>[] updated = Arrays.copyOf(lanes, lanes.length + 1);
+                updated[lanes.length] = lane;
+                lanes = updated;
+            }
+        }
+        threadFactory.newThread(lane).start();
+    }
+
+    /**
+     * Publishes a message to every subscriber whose filter it passes. It only blocks for subscribers with a {@link BackpressurePolicy#block
+     * blocking policy}, for as long as their timeout.
+     *
+     * @param message The message
+     * @return The number of subscribers for which a message was dropped, this one or an older one.
+     * @throws IllegalStateException If the publisher is closed
+     */
+    public int offer(@Nonnull final T message) {
+        Objects.requireNonNull(message);
+        final SubscriberLane<T>[] current = lanes;
+        if (isClosed()) {
+            throw new IllegalStateException("Closed");
+        }
+        int dropped = 0;
+        for (SubscriberLane<T> lane : current) {
+            if (lane.accepts(message) && !lane.offer(message)) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Completes every subscriber, once it has been sent the messages already published.
+     */
+    @Override
+    public void close() {
+        terminate(null);
+    }
+
+    /**
+     * Fails every subscriber, once it has been sent the messages already published
+     * (or right away, if it does not request them).
+     *
+     * @param error The error sent to the subscribers
+     */
+    public void closeExceptionally(@Nonnull final Throwable error) {
+        terminate(Objects.requireNonNull(error));
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getNumberOfSubscribers() {
+        return lanes.length;
+    }
+
+    /**
+     * @return The number of messages published but not yet delivered, for the subscriber that is furthest behind.
+     */
+    public long estimateMaximumLag() {
+        long lag = 0L;
+        for (SubscriberLane<T> lane : lanes) {
+            lag = Math.max(lag, lane.getLag());
+        }
+        return lag;
+    }
+
+    /**
+     * @return The counters of the current subscribers.
+     */
+    @Nonnull
+    public List<SubscriberStats> getSubscriberStats() {
+        final SubscriberLane<T>[] current = lanes;
+        final List<SubscriberStats> stats = new ArrayList<>(current.length);
+        for (SubscriberLane<T> lane : current) {
+            stats.add(lane.getStats());
+        }
+        return stats;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Nonnull
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    private synchronized void terminate(final Throwable error) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closedException = error;
+        for (SubscriberLane<T> lane : lanes) {
+            lane.complete(error);
+        }
+    }
+
+    /**
+     * Called by a lane once its subscriber is done.
+     */
+    synchronized void remove(final SubscriberLane<T> lane) {
+        final SubscriberLane<T>[] current = lanes;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == lane) {
+                final SubscriberLane<T>[] updated = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                lanes = updated;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ring buffer with a single producer and a single consumer.
+ * When it is full, it drops the newest message, drops the oldest one, or waits a bounded time for space.
+ *
+ * @param <T> The type of the messages
+ */
+final class RingLaneBuffer<T> implements LaneBuffer<T> {
+
+    private final Object[] entries;
+    private final int mask;
+    private final boolean dropOldest;
+    private final long maxWaitNanos;
+
+    /**
+     * The sequence of the next message to offer. Written by the producer only.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * The sequence of the next message to poll. Written by the consumer,
+     * and by the producer when it drops the oldest message.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * The last tail seen by the producer, which it re-reads only when the ring looks full.
+     */
+    private long cachedTail;
+
+    /**
+     * @param capacity     A power of two
+     * @param dropOldest   Whether to drop the oldest message rather than the newest, when full
+     * @param maxWaitNanos How long the producer waits for space before dropping the newest message
+     */
+    RingLaneBuffer(final int capacity, final boolean dropOldest, final long maxWaitNanos) {
+        this.entries = new Object[capacity];
+        this.mask = capacity - 1;
+        this.dropOldest = dropOldest;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    @Override
+    public boolean offer(final T message) {
+        final long sequence = head.get();
+        boolean lost = false;
+        if (sequence - cachedTail >= entries.length) {
+            cachedTail = tail.get();
+            if (sequence - cachedTail >= entries.length) {
+                if (dropOldest) {
+                    // If the consumer polled it meanwhile, there is space anyway.
+                    lost = tail.compareAndSet(cachedTail, cachedTail + 1);
+                    cachedTail = tail.get();
+                } else if (!awaitSpace(sequence)) {
+                    return false;
+                }
+            }
+        }
+        entries[(int) sequence & mask] = message;
+        head.lazySet(sequence + 1);
+        return !lost;
+    }
+
+    private boolean awaitSpace(final long sequence) {
+        if (maxWaitNanos <= 0L) {
+            return false;
+        }
+        final long deadline = System.nanoTime() + maxWaitNanos;
+        do {
+            Thread.onSpinWait();
+            cachedTail = tail.get();
+            if (sequence - cachedTail < entries.length) {
+                return true;
+            }
+        } while (deadline - System.nanoTime() > 0L);
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (dropOldest) {
+            return pollShared();
+        }
+        final long sequence = tail.get();
+        if (sequence >= head.get()) {
+            return null;
+        }
+        final int index = (int) sequence & mask;
+        final T message = (T) entries[index];
+        entries[index] = null;
+        tail.lazySet(sequence + 1);
+        return message;
+    }
+
+    /**
+     * The producer may move the tail too, so the slot is claimed with a compare-and-set.
+     * It is not cleared, as the producer may already be writing a newer message to it.
+     */
+    @SuppressWarnings("unchecked")
+    private T pollShared() {
+        while (true) {
+            final long sequence = tail.get();
+            if (sequence >= head.get()) {
+                return null;
+            }
+            final T message = (T) entries[(int) sequence & mask];
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                return message;
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return Math.max(0L, head.get() - tail.get());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(entries, null);
+    }
+}
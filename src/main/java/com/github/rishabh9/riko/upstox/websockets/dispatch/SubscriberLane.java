@@ -0,0 +1,298 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * The messages of a single subscriber, offered by the publishing thread and delivered by the dispatch thread,
+ * which runs this lane. The buffer in between applies the backpressure policy of the subscriber.
+ *
+ * @param <T> The type of the messages
+ */
+final class SubscriberLane<T> implements Flow.Subscription, Runnable {
+
+    private static final Logger log = LogManager.getLogger(SubscriberLane.class);
+
+    /**
+     * A wake-up can't be missed, so this only bounds the damage of a bug.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    final Flow.Subscriber<? super T> subscriber;
+    private final RingBufferPublisher<T> publisher;
+    private final BackpressurePolicy<T> policy;
+    private final Predicate<? super T> filter;
+    private final WaitStrategy waitStrategy;
+    private final LaneBuffer<T> buffer;
+
+    private final AtomicLong demand = new AtomicLong();
+    /**
+     * Written by the dispatch thread only.
+     */
+    private volatile long delivered;
+    private final AtomicLong dropped = new AtomicLong();
+    /**
+     * Whether the last message offered was dropped. Used by the publishing thread only.
+     */
+    private boolean dropping;
+
+    private volatile boolean cancelled;
+    private volatile boolean completed;
+    private volatile Throwable error;
+    /**
+     * Set when the error must be sent without delivering the remaining messages.
+     */
+    private volatile boolean aborted;
+    private volatile Thread thread;
+    private volatile boolean parked;
+
+    SubscriberLane(final RingBufferPublisher<T> publisher,
+                   final Flow.Subscriber<? super T> subscriber,
+                   final BackpressurePolicy<T> policy,
+                   final Predicate<? super T> filter,
+                   final int capacity,
+                   final WaitStrategy waitStrategy) {
+        this.publisher = publisher;
+        this.subscriber = subscriber;
+        this.policy = policy;
+        this.filter = filter;
+        this.waitStrategy = waitStrategy;
+        this.buffer = policy.newBuffer(capacity);
+    }
+
+    /**
+     * Called by the publishing thread, before offering a message.
+     *
+     * @return {@code true} if the subscriber wants the message.
+     */
+    boolean accepts(final T message) {
+        if (null == filter) {
+            return true;
+        }
+        try {
+            return filter.test(message);
+        } catch (RuntimeException e) {
+            log.error("The filter of subscriber {} failed. Sending it the message.", subscriber, e);
+            return true;
+        }
+    }
+
+    /**
+     * Called by the publishing thread.
+     *
+     * @return {@code false} if a message was dropped, this one or an older one.
+     */
+    boolean offer(final T message) {
+        if (cancelled) {
+            return true;
+        }
+        final boolean accepted = buffer.offer(message);
+        if (accepted) {
+            dropping = false;
+        } else {
+            onDrop();
+        }
+        if (waitStrategy == WaitStrategy.PARK) {
+            // So that a dispatch thread about to park either sees the message or is woken up.
+            VarHandle.fullFence();
+            wakeUp();
+        }
+        return accepted;
+    }
+
+    /**
+     * Called by the publishing thread, once it won't publish any more messages.
+     *
+     * @param failure The error to send, or {@code null} to complete the subscriber
+     */
+    void complete(final Throwable failure) {
+        error = failure;
+        completed = true;
+        wakeUp();
+    }
+
+    void abort(final Throwable failure) {
+        aborted = true;
+        complete(failure);
+    }
+
+    SubscriberStats getStats() {
+        return new SubscriberStats(subscriber, policy, delivered, dropped.get(), buffer.size());
+    }
+
+    long getLag() {
+        return buffer.size();
+    }
+
+    @Override
+    public void request(final long n) {
+        if (n <= 0L) {
+            abort(new IllegalArgumentException("non-positive subscription request"));
+            return;
+        }
+        long current;
+        long updated;
+        do {
+            current = demand.get();
+            updated = current + n;
+            if (updated < 0L) {
+                updated = Long.MAX_VALUE;
+            }
+        } while (!demand.compareAndSet(current, updated));
+        wakeUp();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        wakeUp();
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        try {
+            subscriber.onSubscribe(this);
+            dispatch();
+        } catch (Throwable t) {
+            fail(t);
+        } finally {
+            cancelled = true;
+            publisher.remove(this);
+            buffer.clear();
+        }
+    }
+
+    private void dispatch() {
+        int attempt = 0;
+        while (!cancelled) {
+            if (aborted) {
+                signalError(error);
+                return;
+            }
+            final long requested = demand.get();
+            long count = 0L;
+            T message;
+            while (count < requested && !cancelled && null != (message = buffer.poll())) {
+                count++;
+                deliver(message);
+            }
+            if (count > 0L) {
+                delivered += count;
+                if (requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-count);
+                }
+                attempt = 0;
+            } else if (isDone(requested)) {
+                if (null == error) {
+                    signalComplete();
+                } else {
+                    signalError(error);
+                }
+                return;
+            } else {
+                attempt = idle(attempt);
+            }
+        }
+    }
+
+    private void deliver(final T message) {
+        try {
+            subscriber.onNext(message);
+        } catch (Throwable t) {
+            log.error("Subscriber {} failed to receive a message. Cancelling its subscription.", subscriber, t);
+            fail(t);
+        }
+    }
+
+    private int idle(final int attempt) {
+        if (!waitStrategy.idle(attempt)) {
+            return attempt == Integer.MAX_VALUE ? attempt : attempt + 1;
+        }
+        parked = true;
+        if (!canProgress()) {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        }
+        parked = false;
+        return attempt;
+    }
+
+    private boolean canProgress() {
+        final long requested = demand.get();
+        return cancelled || aborted || (!buffer.isEmpty() && requested > 0L) || isDone(requested);
+    }
+
+    /**
+     * An error is sent without waiting for a subscriber that does not request the remaining messages.
+     */
+    private boolean isDone(final long requested) {
+        return completed && (buffer.isEmpty() || (null != error && requested == 0L));
+    }
+
+    private void wakeUp() {
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void onDrop() {
+        dropped.incrementAndGet();
+        if (!dropping && policy.getType() != BackpressurePolicy.Type.CONFLATE) {
+            dropping = true;
+            log.warn("Subscriber {} is slow in receiving messages. Dropping messages ({}) until it catches up.",
+                    subscriber, policy.getType());
+        }
+    }
+
+    private void fail(final Throwable t) {
+        cancelled = true;
+        signalError(t);
+    }
+
+    private void signalComplete() {
+        try {
+            subscriber.onComplete();
+        } catch (Throwable t) {
+            log.error("Subscriber {} failed to handle the completion", subscriber, t);
+        }
+    }
+
+    private void signalError(final Throwable t) {
+        try {
+            subscriber.onError(t);
+        } catch (Throwable e) {
+            log.error("Subscriber {} failed to handle an error", subscriber, e);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * A snapshot of the counters of a subscriber.
+ */
+public final class SubscriberStats {
+
+    private final Flow.Subscriber<?> subscriber;
+    private final BackpressurePolicy<?> policy;
+    private final long delivered;
+    private final long dropped;
+    private final long lag;
+
+    public SubscriberStats(@Nonnull final Flow.Subscriber<?> subscriber,
+                           @Nonnull final BackpressurePolicy<?> policy,
+                           final long delivered,
+                           final long dropped,
+                           final long lag) {
+
+        this.subscriber = Objects.requireNonNull(subscriber);
+        this.policy = Objects.requireNonNull(policy);
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.lag = lag;
+    }
+
+    @Nonnull
+    public Flow.Subscriber<?> getSubscriber() {
+        return subscriber;
+    }
+
+    @Nonnull
+    public BackpressurePolicy<?> getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return The number of messages delivered to the subscriber.
+     */
+    public long getDelivered() {
+        return delivered;
+    }
+
+    /**
+     * @return The number of messages the subscriber missed, because it was too far behind.
+     * This includes the messages replaced by a newer one, when conflating.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * @return The number of messages published but not yet delivered to the subscriber.
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("subscriber", subscriber)
+                .add("policy", policy)
+                .add("delivered", delivered)
+                .add("dropped", dropped)
+                .add("lag", lag)
+                .toString();
+    }
+}
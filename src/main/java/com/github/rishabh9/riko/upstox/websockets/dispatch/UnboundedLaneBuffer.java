@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A linked queue, which grows as needed up to a maximum number of messages, and then drops the newest message.
+ *
+ * @param <T> The type of the messages
+ */
+final class UnboundedLaneBuffer<T> implements LaneBuffer<T> {
+
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong size = new AtomicLong();
+    private final long maxMessages;
+
+    UnboundedLaneBuffer(final long maxMessages) {
+        this.maxMessages = maxMessages;
+    }
+
+    @Override
+    public boolean offer(final T message) {
+        if (size.get() >= maxMessages) {
+            return false;
+        }
+        // Counted first, so that the size is never negative.
+        size.incrementAndGet();
+        queue.offer(message);
+        return true;
+    }
+
+    @Override
+    public T poll() {
+        final T message = queue.poll();
+        if (null != message) {
+            size.decrementAndGet();
+        }
+        return message;
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+}
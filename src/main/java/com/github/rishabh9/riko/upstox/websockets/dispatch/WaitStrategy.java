@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+/**
+ * How a dispatch thread waits, once it has delivered every message published so far.
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spins on the CPU. The lowest latency, but it keeps a core busy for every subscriber.
+     */
+    BUSY_SPIN(Integer.MAX_VALUE, 0),
+
+    /**
+     * Spins for a short while, then yields the CPU to other threads.
+     */
+    YIELD(100, Integer.MAX_VALUE),
+
+    /**
+     * Spins and yields for a short while, then parks until the next message is published.
+     * The least CPU, at the cost of a wake-up on the publishing thread.
+     */
+    PARK(100, 100);
+
+    private final int spins;
+    private final int yields;
+
+    WaitStrategy(final int spins, final int yields) {
+        this.spins = spins;
+        this.yields = yields;
+    }
+
+    /**
+     * Waits a little.
+     *
+     * @param attempt How many times the caller waited since it last made progress
+     * @return {@code true} if the caller should now park.
+     */
+    boolean idle(final int attempt) {
+        if (attempt < spins) {
+            Thread.onSpinWait();
+            return false;
+        }
+        if (attempt - spins < yields) {
+            Thread.yield();
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.journal;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getBoolean;
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static com.github.rishabh9.riko.upstox.websockets.journal.JournalFormat.*;
+
+/**
+ * Appends the frames received on the web socket to memory-mapped files, in the {@link JournalFormat format}
+ * read by the {@link JournalReader}.
+ * <p>
+ * Appending a frame copies it into the mapped file, with no system call, and allocates nothing.
+ * The operating system writes the pages to the disk in the background: they are only forced to it when a file
+ * is full, at the end of the day, and when the journal is closed. So a crash of the process loses nothing,
+ * while a crash of the machine may lose the last records, and tear one: when the journal is opened again,
+ * it appends after the last valid record of the day.
+ * <p>
+ * A file stays mapped until its buffer is garbage collected. Setting the {@code riko.journal.unmap} system property
+ * to {@code true} unmaps it as soon as the journal is done with it, through {@code sun.misc.Unsafe}: only do so
+ * if no other code holds on to the buffers, as touching an unmapped buffer crashes the JVM.
+ * <p>
+ * A journal is not thread safe: it is written by one thread, like the one of a {@link JournalSubscriber}.
+ */
+public final class Journal implements Closeable {
+
+    private static final Logger log = LogManager.getLogger(Journal.class);
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ORDER);
+
+    private final Path directory;
+    private final int fileSize;
+    private final ZoneId zone;
+    private final CRC32C crc = new CRC32C();
+    /**
+     * Unmaps a file once done with it, or {@code null} to leave it to the garbage collector.
+     */
+    private final MethodHandle unmapper;
+    /**
+     * Writes the payload of binary messages at the position of the buffer.
+     */
+    private final OutputStream payloadWriter = new PayloadWriter();
+
+    private Path file;
+    private MappedByteBuffer buffer;
+    private int position;
+    private LocalDate day;
+    private int index;
+    /**
+     * When the day of the current file ends, in nanoseconds since the epoch.
+     */
+    private long dayEndsAt;
+    private long records;
+
+    /**
+     * Files of {@code riko.journal.file.size} megabytes, rolled over at midnight in the {@code riko.journal.zone}.
+     *
+     * @param directory The directory of the journal files, created if missing
+     * @throws IOException If the directory or the file can't be opened
+     */
+    public Journal(@Nonnull final Path directory) throws IOException {
+        this(directory, getInt(RIKO_JOURNAL_FILE_SIZE, RIKO_JOURNAL_FILE_SIZE_DEFAULT) * 1024 * 1024,
+                ZoneId.of(System.getProperty(RIKO_JOURNAL_ZONE, RIKO_JOURNAL_ZONE_DEFAULT)));
+    }
+
+    /**
+     * @param directory The directory of the journal files, created if missing
+     * @param fileSize  The size of a file, in bytes
+     * @param zone      The zone of the days, which the files are rolled over at the end of
+     * @throws IOException If the directory or the file can't be opened
+     */
+    public Journal(@Nonnull final Path directory, final int fileSize, @Nonnull final ZoneId zone) throws IOException {
+        if (fileSize < FILE_HEADER + HEADER) {
+            throw new IllegalArgumentException("File size is too small: " + fileSize);
+        }
+        this.directory = Files.createDirectories(Objects.requireNonNull(directory));
+        this.fileSize = fileSize & ~7;
+        this.zone = Objects.requireNonNull(zone);
+        this.unmapper = getBoolean(RIKO_JOURNAL_UNMAP, RIKO_JOURNAL_UNMAP_DEFAULT) ? Unmapper.UNMAP : null;
+        open(System.currentTimeMillis() * 1_000_000L);
+    }
+
+    /**
+     * Appends a text or a binary message. Other messages are not frames, and are not recorded.
+     *
+     * @param message A message received on the web socket
+     * @return {@code true} if the message was recorded.
+     * @throws IOException If a new file can't be opened, or the frame is larger than a file
+     */
+    public boolean append(@Nonnull final WebSocketMessage message) throws IOException {
+        if (message instanceof TextMessage) {
+            appendText(message.getReceivedAt(), ((TextMessage) message).getMessage());
+            return true;
+        }
+        if (message instanceof BinaryMessage) {
+            appendBinary(message.getReceivedAt(), (BinaryMessage) message);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param receivedAt When the frame was received, in nanoseconds since the epoch
+     * @param text       The frame, written in UTF-8
+     * @throws IOException If a new file can't be opened, or the frame is larger than a file
+     */
+    public void appendText(final long receivedAt, @Nonnull final CharSequence text) throws IOException {
+        final int start = reserve(receivedAt, utf8Length(text));
+        int at = start + HEADER;
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put(at++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.put(at++, (byte) (0xC0 | (c >> 6)));
+                buffer.put(at++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer.put(at++, (byte) (0xF0 | (codePoint >> 18)));
+                buffer.put(at++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put(at++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put(at++, (byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired, so replaced, as by String.getBytes.
+                buffer.put(at++, (byte) '?');
+            } else {
+                buffer.put(at++, (byte) (0xE0 | (c >> 12)));
+                buffer.put(at++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put(at++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        commit(start, TEXT, receivedAt, at - start);
+    }
+
+    /**
+     * @param receivedAt When the frame was received, in nanoseconds since the epoch
+     * @param payload    The frame, from its position to its limit. Its position is left unchanged.
+     * @throws IOException If a new file can't be opened, or the frame is larger than a file
+     */
+    public void appendBinary(final long receivedAt, @Nonnull final ByteBuffer payload) throws IOException {
+        final int length = payload.remaining();
+        final int start = reserve(receivedAt, length);
+        final int from = payload.position();
+        buffer.position(start + HEADER);
+        buffer.put(payload);
+        buffer.clear();
+        payload.position(from);
+        commit(start, BINARY, receivedAt, HEADER + length);
+    }
+
+    /**
+     * Copies the payload straight from the array of the message, which a view of it would have to wrap.
+     */
+    private void appendBinary(final long receivedAt, final BinaryMessage message) throws IOException {
+        final int length = message.getSize();
+        final int start = reserve(receivedAt, length);
+        buffer.position(start + HEADER);
+        message.writeMessageToOutputStream(payloadWriter);
+        buffer.clear();
+        commit(start, BINARY, receivedAt, HEADER + length);
+    }
+
+    /**
+     * @return The file being written.
+     */
+    @Nonnull
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return The number of records appended since the journal was opened.
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Forces the current file to the disk, and unmaps it if {@code riko.journal.unmap} is set.
+     */
+    @Override
+    public void close() {
+        if (null != buffer) {
+            final MappedByteBuffer closed = buffer;
+            buffer = null;
+            closed.force();
+            unmap(closed);
+        }
+    }
+
+    /**
+     * @return Where the record starts, in a file with room for it.
+     */
+    private int reserve(final long receivedAt, final int length) throws IOException {
+        if (null == buffer) {
+            throw new IOException("Journal is closed");
+        }
+        final int space = aligned(HEADER + length);
+        if (space > fileSize - FILE_HEADER) {
+            throw new IOException("Frame of " + length + " bytes is larger than a journal file");
+        }
+        if (receivedAt >= dayEndsAt || position + space > buffer.capacity()) {
+            roll(receivedAt);
+        }
+        return position;
+    }
+
+    private void commit(final int start, final byte type, final long receivedAt, final int size) {
+        buffer.putLong(start + RECEIVED_AT, receivedAt);
+        buffer.put(start + TYPE, type);
+        buffer.putInt(start + CHECKSUM, checksum(buffer, start, size, crc));
+        // Last, so that a reader following the file never sees the record before it is complete.
+        INT.setRelease(buffer, start + SIZE, size);
+        position = start + aligned(size);
+        records++;
+    }
+
+    private void roll(final long receivedAt) throws IOException {
+        final MappedByteBuffer full = buffer;
+        full.force();
+        final LocalDate next = dayOf(receivedAt);
+        if (next.equals(day)) {
+            create(day, index + 1);
+        } else {
+            open(receivedAt);
+        }
+        // Only once the buffer was replaced, as touching an unmapped one crashes the JVM.
+        unmap(full);
+    }
+
+    /**
+     * Appends to the last file of the day, if there is one.
+     *
+     * @param now A time of the day, in nanoseconds since the epoch
+     */
+    private void open(final long now) throws IOException {
+        final LocalDate today = dayOf(now);
+        int last = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path existing : files) {
+                last = Math.max(last, indexOf(existing.getFileName().toString(), today));
+            }
+        }
+        if (last < 0) {
+            create(today, 0);
+            return;
+        }
+        final Path existing = directory.resolve(fileName(today, last));
+        final MappedByteBuffer mapped = map(existing, (int) Math.max(Files.size(existing), fileSize));
+        if (MAGIC != mapped.getLong(0)) {
+            log.warn("Not appending to {}, which is not a journal file", existing);
+            unmap(mapped);
+            create(today, last + 1);
+            return;
+        }
+        int recovered = FILE_HEADER;
+        for (int size; (size = validSize(mapped, recovered, crc)) > 0; ) {
+            recovered += aligned(size);
+        }
+        if (recovered <= mapped.capacity() - 4 && 0 != mapped.getInt(recovered)) {
+            log.warn("Discarding the torn tail of {}, after {} bytes", existing, recovered);
+            for (int i = recovered; i < mapped.capacity(); i++) {
+                mapped.put(i, (byte) 0);
+            }
+        }
+        use(existing, mapped, today, last);
+        position = recovered;
+        log.info("Appending to {}, after {} bytes", existing, recovered);
+    }
+
+    private void create(final LocalDate newDay, final int newIndex) throws IOException {
+        final Path newFile = directory.resolve(fileName(newDay, newIndex));
+        final MappedByteBuffer mapped = map(newFile, fileSize);
+        mapped.putLong(0, MAGIC);
+        use(newFile, mapped, newDay, newIndex);
+        position = FILE_HEADER;
+        log.info("Journaling to {}", newFile);
+    }
+
+    private void use(final Path newFile, final MappedByteBuffer mapped, final LocalDate newDay, final int newIndex) {
+        file = newFile;
+        buffer = mapped;
+        day = newDay;
+        index = newIndex;
+        final Instant end = newDay.plusDays(1).atStartOfDay(zone).toInstant();
+        dayEndsAt = TimeUnit.SECONDS.toNanos(end.getEpochSecond()) + end.getNano();
+    }
+
+    private LocalDate dayOf(final long epochNanos) {
+        return Instant.ofEpochSecond(0L, epochNanos).atZone(zone).toLocalDate();
+    }
+
+    private static MappedByteBuffer map(final Path path, final int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid once the channel is closed.
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0L, size);
+            mapped.order(ORDER);
+            return mapped;
+        }
+    }
+
+    private void unmap(final MappedByteBuffer mapped) {
+        if (null == unmapper) {
+            return;
+        }
+        try {
+            unmapper.invokeExact((ByteBuffer) mapped);
+        } catch (Throwable e) {
+            log.warn("Failed to unmap a journal file. It is unmapped once garbage collected.", e);
+        }
+    }
+
+    /**
+     * Only looked up once unmapping is enabled.
+     */
+    private static final class Unmapper {
+
+        /**
+         * {@code null} if the JVM does not allow it.
+         */
+        private static final MethodHandle UNMAP = unmapper();
+    }
+
+    /**
+     * Looked up reflectively, as {@code sun.misc.Unsafe.invokeCleaner} is not part of the platform.
+     */
+    private static MethodHandle unmapper() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Journal files can't be unmapped explicitly, they are once garbage collected", e);
+            return null;
+        }
+    }
+
+    private static int utf8Length(final CharSequence text) {
+        final int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes++;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private final class PayloadWriter extends OutputStream {
+
+        @Override
+        public void write(final int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(@Nonnull final byte[] bytes, final int offset, final int length) {
+            buffer.put(bytes, offset, length);
+        }
+    }
+}
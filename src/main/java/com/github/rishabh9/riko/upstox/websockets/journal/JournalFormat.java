@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32C;
+
+/**
+ * The layout of the journal files.
+ * <p>
+ * A file starts with {@link #MAGIC}, followed by the records, each aligned on 8 bytes:
+ * <pre>
+ * offset  size
+ *      0     4  the size of the record, header included and padding excluded; 0 past the last record
+ *      4     4  the CRC-32C of the rest of the record
+ *      8     8  when the frame was received, in nanoseconds since the epoch
+ *     16     1  the type of the frame: {@link #TEXT} or {@link #BINARY}
+ *     17        the payload of the frame, text in UTF-8
+ * </pre>
+ * Numbers are little-endian. The size is written last, so a record is only seen once it is complete,
+ * and the checksum tells a record torn by a crash.
+ * <p>
+ * A file is named after the day of its records, and numbered within the day: {@code 20190124-0000.journal}.
+ */
+final class JournalFormat {
+
+    static final long MAGIC = 0x314C_4E4A_4F4B_4952L; // "RIKOJNL1", read as little-endian
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int FILE_HEADER = 8;
+    static final int SIZE = 0;
+    static final int CHECKSUM = 4;
+    static final int RECEIVED_AT = 8;
+    static final int TYPE = 16;
+    static final int HEADER = 17;
+
+    static final byte TEXT = 1;
+    static final byte BINARY = 2;
+
+    static final String EXTENSION = ".journal";
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Pattern NAME = Pattern.compile("(\\d{8})-(\\d{4})" + Pattern.quote(EXTENSION));
+
+    private JournalFormat() {
+    }
+
+    /**
+     * @return The space taken by a record of that size, padding included.
+     */
+    static int aligned(final int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * Checks the record, and leaves the buffer cleared.
+     *
+     * @return The size of the record at the position, or 0 if there is no valid record there.
+     */
+    static int validSize(final ByteBuffer buffer, final int position, final CRC32C crc) {
+        if (position > buffer.capacity() - HEADER) {
+            return 0;
+        }
+        final int size = buffer.getInt(position + SIZE);
+        if (size < HEADER || size > buffer.capacity() - position) {
+            return 0;
+        }
+        final byte type = buffer.get(position + TYPE);
+        if (TEXT != type && BINARY != type) {
+            return 0;
+        }
+        final int checksum = checksum(buffer, position, size, crc);
+        return checksum == buffer.getInt(position + CHECKSUM) ? size : 0;
+    }
+
+    /**
+     * @return The checksum of the record, leaving the buffer cleared.
+     */
+    static int checksum(final ByteBuffer buffer, final int position, final int size, final CRC32C crc) {
+        buffer.limit(position + size).position(position + RECEIVED_AT);
+        crc.reset();
+        crc.update(buffer);
+        buffer.clear();
+        return (int) crc.getValue();
+    }
+
+    static String fileName(final LocalDate day, final int index) {
+        return String.format("%s-%04d%s", DAY.format(day), index, EXTENSION);
+    }
+
+    /**
+     * @return The index of the file in its day, or -1 if it is not a journal file of that day.
+     */
+    static int indexOf(final String fileName, final LocalDate day) {
+        final Matcher matcher = NAME.matcher(fileName);
+        return matcher.matches() && DAY.format(day).equals(matcher.group(1)) ? Integer.parseInt(matcher.group(2)) : -1;
+    }
+
+    static boolean isJournal(final String fileName) {
+        return NAME.matcher(fileName).matches();
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.journal;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import okio.ByteString;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+
+import static com.github.rishabh9.riko.upstox.websockets.journal.JournalFormat.*;
+
+/**
+ * Reads the records of the files of a {@link Journal}, in the order they were written:
+ * <pre>{@code
+ * JournalReader reader = new JournalReader(directory);
+ * while (reader.next()) {
+ *     process(reader.getReceivedAt(), reader.getText());
+ * }
+ * }</pre>
+ * A file is read up to its last valid record.
+ */
+public final class JournalReader {
+
+    private static final Logger log = LogManager.getLogger(JournalReader.class);
+
+    private final List<Path> files;
+    private final CRC32C crc = new CRC32C();
+
+    private int nextFile;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int record = -1;
+    private int size;
+
+    /**
+     * @param directory The directory of the journal files
+     * @throws IOException If the directory can't be listed
+     */
+    public JournalReader(@Nonnull final Path directory) throws IOException {
+        final List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Objects.requireNonNull(directory))) {
+            for (Path file : stream) {
+                if (isJournal(file.getFileName().toString())) {
+                    found.add(file);
+                }
+            }
+        }
+        // The names sort by day, then by index.
+        Collections.sort(found);
+        this.files = Collections.unmodifiableList(found);
+    }
+
+    /**
+     * @return The journal files, in the order they are read.
+     */
+    @Nonnull
+    public List<Path> getFiles() {
+        return files;
+    }
+
+    /**
+     * Moves to the next record.
+     *
+     * @return {@code false} if there are no more records.
+     * @throws IOException If a file can't be read
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (null != buffer) {
+                final int valid = validSize(buffer, position, crc);
+                if (valid > 0) {
+                    record = position;
+                    size = valid;
+                    position += aligned(valid);
+                    return true;
+                }
+                if (position <= buffer.capacity() - 4 && 0 != buffer.getInt(position)) {
+                    log.warn("Skipping the torn tail of {}, after {} bytes", files.get(nextFile - 1), position);
+                }
+                buffer = null;
+            }
+            if (nextFile >= files.size()) {
+                record = -1;
+                return false;
+            }
+            open(files.get(nextFile++));
+        }
+    }
+
+    /**
+     * @return When the frame of the current record was received, in nanoseconds since the epoch.
+     */
+    public long getReceivedAt() {
+        return current().getLong(record + RECEIVED_AT);
+    }
+
+    /**
+     * @return {@code true} if the current record is a text frame, {@code false} if it is a binary frame.
+     */
+    public boolean isText() {
+        return TEXT == current().get(record + TYPE);
+    }
+
+    /**
+     * @return The size of the payload of the current record, in bytes.
+     */
+    public int getLength() {
+        current();
+        return size - HEADER;
+    }
+
+    /**
+     * @return The payload of the current record, read-only, in place in the file.
+     */
+    @Nonnull
+    public ByteBuffer getPayload() {
+        final ByteBuffer payload = current().duplicate();
+        payload.limit(record + size).position(record + HEADER);
+        return payload.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return The payload of the current record, decoded from UTF-8.
+     */
+    @Nonnull
+    public String getText() {
+        return StandardCharsets.UTF_8.decode(getPayload()).toString();
+    }
+
+    /**
+     * @param sender The web socket to give as the sender of the message
+     * @return The current record, as the message it was journaled from.
+     */
+    @Nonnull
+    public WebSocketMessage toMessage(@Nullable final WrappedWebSocket sender) {
+        return isText()
+                ? new TextMessage(sender, getText(), getReceivedAt())
+                : new BinaryMessage(sender, ByteString.of(getPayload()), getReceivedAt());
+    }
+
+    private ByteBuffer current() {
+        if (record < 0) {
+            throw new IllegalStateException("No current record");
+        }
+        return buffer;
+    }
+
+    private void open(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long length = channel.size();
+            if (length < FILE_HEADER) {
+                return;
+            }
+            final MappedByteBuffer mapped =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0L, Math.min(length, Integer.MAX_VALUE));
+            mapped.order(ORDER);
+            if (MAGIC != mapped.getLong(0)) {
+                log.warn("Skipping {}, which is not a journal file", file);
+                return;
+            }
+            buffer = mapped;
+            position = FILE_HEADER;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.journal;
+
+import com.github.rishabh9.riko.upstox.websockets.MessageFilter;
+import com.github.rishabh9.riko.upstox.websockets.MessageSubscriber;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * Records every frame received on the web socket in a {@link Journal}, on the thread of its subscription,
+ * and closes the journal once the web socket is closed:
+ * <pre>{@code
+ * webSocketService.connect(Arrays.asList(new JournalSubscriber(Paths.get("journal")), tickStream));
+ * }</pre>
+ * It buffers up to {@link #MAX_PENDING} frames while the disk catches up, rather than dropping them.
+ * If the journal fails, it logs the failure and stops recording.
+ */
+public class JournalSubscriber implements MessageSubscriber {
+
+    private static final Logger log = LogManager.getLogger(JournalSubscriber.class);
+
+    public static final long MAX_PENDING = 1L << 20;
+
+    private static final MessageFilter FRAMES = MessageFilter.all().types(TextMessage.class, BinaryMessage.class);
+
+    private final Journal journal;
+    private Flow.Subscription subscription;
+
+    /**
+     * @param directory The directory of the journal files, created if missing
+     * @throws IOException If the journal can't be opened
+     */
+    public JournalSubscriber(@Nonnull final Path directory) throws IOException {
+        this(new Journal(directory));
+    }
+
+    public JournalSubscriber(@Nonnull final Journal journal) {
+        this.journal = Objects.requireNonNull(journal);
+    }
+
+    @Nonnull
+    public Journal getJournal() {
+        return journal;
+    }
+
+    @Override
+    public String getName() {
+        return "journal-subscriber";
+    }
+
+    @Override
+    public BackpressurePolicy<WebSocketMessage> getBackpressurePolicy() {
+        return BackpressurePolicy.unbounded(MAX_PENDING);
+    }
+
+    @Override
+    public MessageFilter getFilter() {
+        return FRAMES;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(WebSocketMessage item) {
+        try {
+            journal.append(item);
+        } catch (IOException e) {
+            log.error("Failed to journal a frame. Not journaling any more.", e);
+            subscription.cancel();
+            journal.close();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        journal.close();
+    }
+
+    @Override
+    public void onComplete() {
+        journal.close();
+    }
+}
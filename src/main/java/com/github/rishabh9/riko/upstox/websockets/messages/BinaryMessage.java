@@ -28,24 +28,44 @@ import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
 import com.google.common.base.MoreObjects;
 import okio.ByteString;
 
+import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 /**
  * Web socket binary message.
+ * <p>
+ * The payload can be read in place, without copying it, with {@link #getByte(int)},
+ * {@link #getMessageAsByteBuffer()} or {@link #decode(PayloadDecoder)}.
  */
 public class BinaryMessage extends WebSocketMessage {
 
-    private ByteString message;
+    public static final Charset UTF_8 = StandardCharsets.UTF_8;
+
+    /**
+     * The number of bytes {@link #toString()} decodes at most.
+     */
+    private static final int PREVIEW_SIZE = 256;
+
+    private final ByteString message;
 
     public BinaryMessage(WrappedWebSocket sender, ByteString message) {
         super(sender);
         this.message = message;
     }
 
+    /**
+     * @param receivedAt When the message was received, in nanoseconds since the epoch
+     */
+    public BinaryMessage(WrappedWebSocket sender, ByteString message, long receivedAt) {
+        super(sender, receivedAt);
+        this.message = message;
+    }
+
     /**
      * @return Returns the number of bytes in the message.
      */
@@ -53,18 +73,67 @@ public class BinaryMessage extends WebSocketMessage {
         return message.size();
     }
 
+    /**
+     * @param index The index of a byte, from 0 to {@link #getSize()} excluded
+     * @return The byte at that index.
+     * @throws IndexOutOfBoundsException If the index is outside the payload
+     */
+    public byte getByte(int index) {
+        return message.getByte(index);
+    }
+
+    /**
+     * Decodes the whole payload on every call.
+     *
+     * @return The payload decoded as UTF-8.
+     */
     public String getMessageAsString() {
-        return message.string(Charset.forName("UTF-8"));
+        return message.string(UTF_8);
     }
 
+    /**
+     * Copies the payload on every call. Prefer {@link #getMessageAsByteBuffer()} to read it.
+     *
+     * @return A copy of the payload.
+     */
     public byte[] getMessageAsByteArray() {
         return message.toByteArray();
     }
 
+    /**
+     * @return A read-only view of the payload, which is not copied.
+     */
     public ByteBuffer getMessageAsByteBuffer() {
         return message.asByteBuffer();
     }
 
+    /**
+     * @param offset The index of the first byte of the slice
+     * @param length The number of bytes in the slice
+     * @return A read-only view of a part of the payload, which is not copied.
+     * @throws IndexOutOfBoundsException If the slice is not within the payload
+     */
+    public ByteBuffer getMessageAsByteBuffer(int offset, int length) {
+        if (offset < 0 || length < 0 || offset > getSize() - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + getSize());
+        }
+        final ByteBuffer buffer = message.asByteBuffer();
+        buffer.position(offset).limit(offset + length);
+        return buffer.slice();
+    }
+
+    /**
+     * Hands the payload to a decoder, which reads it in place.
+     *
+     * @param decoder Decodes the payload
+     * @param <R>     The type of the decoded payload
+     * @return What the decoder returned.
+     * @throws IOException When the decoder fails.
+     */
+    public <R> R decode(@Nonnull PayloadDecoder<R> decoder) throws IOException {
+        return decoder.decode(message.asByteBuffer());
+    }
+
     /**
      * @param stream The OutputStream to write the message to.
      * @throws IOException When something goes writing to the stream.
@@ -90,9 +159,19 @@ public class BinaryMessage extends WebSocketMessage {
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
-                .add("message", getSize() < 10000 ?
-                        getMessageAsString() : "message-more-than-10kb-hidden")
+                .add("size", getSize())
+                .add("message", preview())
                 .add("sender", getSender())
                 .toString();
     }
+
+    /**
+     * Only the beginning of the payload, as {@code toString()} is called for logging.
+     */
+    private String preview() {
+        if (getSize() <= PREVIEW_SIZE) {
+            return getMessageAsString();
+        }
+        return message.substring(0, PREVIEW_SIZE).string(UTF_8) + "...";
+    }
 }
@@ -41,6 +41,14 @@ public class TextMessage extends WebSocketMessage {
         this.message = message;
     }
 
+    /**
+     * @param receivedAt When the message was received, in nanoseconds since the epoch
+     */
+    public TextMessage(final WrappedWebSocket sender, final String message, final long receivedAt) {
+        super(sender, receivedAt);
+        this.message = message;
+    }
+
     public String getMessage() {
         return message;
     }
@@ -24,6 +24,7 @@
 
 package com.github.rishabh9.riko.upstox.websockets.messages;
 
+import com.github.rishabh9.riko.upstox.common.EpochClock;
 import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
 
 /**
@@ -32,13 +33,26 @@ import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
 public abstract class WebSocketMessage {
 
     private final WrappedWebSocket sender;
+    private final long receivedAt;
 
     WebSocketMessage(final WrappedWebSocket sender) {
+        this(sender, EpochClock.nanos());
+    }
+
+    WebSocketMessage(final WrappedWebSocket sender, final long receivedAt) {
         this.sender = sender;
+        this.receivedAt = receivedAt;
     }
 
     public WrappedWebSocket getSender() {
         return sender;
     }
 
+    /**
+     * @return When the message was received, in nanoseconds since the epoch, as read by {@link EpochClock}.
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
 }
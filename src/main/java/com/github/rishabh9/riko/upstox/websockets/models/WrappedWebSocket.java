@@ -69,6 +69,14 @@ public class WrappedWebSocket {
         return id;
     }
 
+    /**
+     * @param webSocket A web socket
+     * @return {@code true} if this wraps that very web socket.
+     */
+    public boolean wraps(WebSocket webSocket) {
+        return this.webSocket == webSocket;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The payload of a binary message read as characters in place, one byte each, for payloads in ASCII.
+ * Reused for every message.
+ */
+final class AsciiSequence implements CharSequence {
+
+    private BinaryMessage message;
+
+    AsciiSequence wrap(final BinaryMessage message) {
+        this.message = message;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return message.getSize();
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return (char) (message.getByte(index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        // One character per byte, as charAt reads them.
+        return StandardCharsets.ISO_8859_1.decode(message.getMessageAsByteBuffer(start, end - start)).toString();
+    }
+
+    @Override
+    public String toString() {
+        return message.getMessageAsString();
+    }
+}
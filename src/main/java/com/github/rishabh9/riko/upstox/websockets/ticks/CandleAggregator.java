@@ -0,0 +1,393 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.common.constants.Exchanges;
+import com.github.rishabh9.riko.upstox.historical.models.Candle;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.github.rishabh9.riko.upstox.common.constants.OhlcIntervals.*;
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.NULL_VALUE;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Builds the candles of every {@link com.github.rishabh9.riko.upstox.common.constants.OhlcIntervals interval}
+ * from the ticks, as they are received, in place of polling {@code HistoricalService.getOhlc}:
+ * <pre>{@code
+ * new TickStream(Arrays.asList(new CandleAggregator((instrument, interval, candle) -> ...)));
+ * }</pre>
+ * Intraday candles start at the open of the {@link Session session} of the exchange of the instrument, then every
+ * interval, and end at its close at the latest. By default, the sessions are those of {@link #sessionOf(Instrument)}.
+ * Ticks before the open count in the first candle, ticks after the close only in the day, week and month candles.
+ * Day, week and month candles start at midnight, on Monday for weeks.
+ * A candle is timestamped with its start, and is closed by the first tick of the instrument at or after its end,
+ * by {@link #advanceTo(long)}, or once the ticks are complete. As an instrument may not trade for a while, call
+ * {@link #advanceTo(long)} on a timer to close its candles on time:
+ * <pre>{@code
+ * executor.scheduleAtFixedRate(() -> aggregator.advanceTo(System.currentTimeMillis()), 1, 1, TimeUnit.SECONDS);
+ * }</pre>
+ * <p>
+ * The price is the last traded price, at the last traded time. The volume is the increase of the volume traded
+ * today since the previous tick: the volume traded before the first tick received is not counted.
+ * Only {@link Tick.Mode#FULL full} ticks carry it.
+ * <p>
+ * Each instrument keeps its candles being built in a few primitive arrays, indexed by its
+ * {@link Instrument#getId() token}, and a tick updates each in constant time. The candles of an instrument are
+ * built on the thread delivering its ticks, under a lock of their own which is only contended while
+ * {@link #advanceTo(long)} runs, so the aggregator can be shared by the partitions of a {@link PartitionedTickStream}.
+ */
+public final class CandleAggregator implements TickSubscriber {
+
+    public static final ZoneId INDIA = ZoneId.of("Asia/Kolkata");
+    /**
+     * The session of the equity and equity derivatives exchanges of India.
+     */
+    public static final Session EQUITY_SESSION = new Session(LocalTime.of(9, 15), LocalTime.of(15, 30));
+    /**
+     * The session of the currency derivatives exchanges of India.
+     */
+    public static final Session CURRENCY_SESSION = new Session(LocalTime.of(9, 0), LocalTime.of(17, 0));
+    /**
+     * The session of the commodity exchange of India.
+     */
+    public static final Session COMMODITY_SESSION = new Session(LocalTime.of(9, 0), LocalTime.of(23, 30));
+
+    private static final String[] INTERVALS = {ONE_MINUTE, THREE_MINUTES, FIVE_MINUTES, TEN_MINUTES,
+            FIFTEEN_MINUTES, THIRTY_MINUTES, SIXTY_MINUTES, ONE_DAY, ONE_WEEK, ONE_MONTH};
+    private static final int DAY = 7;
+    private static final int WEEK = 8;
+    private static final int MONTH = 9;
+    private static final long[] LENGTHS = new long[DAY];
+
+    static {
+        for (int i = 0; i < DAY; i++) {
+            LENGTHS[i] = TimeUnit.MINUTES.toMillis(Long.parseLong(INTERVALS[i]));
+        }
+    }
+
+    private final CandleListener listener;
+    private final ZoneId zone;
+    private final Function<Instrument, Session> sessions;
+
+    /**
+     * Replaced when it grows, and only filled in otherwise, under the lock.
+     */
+    private volatile Series[] series = new Series[64];
+
+    /**
+     * Aligns the candles to the sessions of the Indian exchanges.
+     *
+     * @param listener Told of every candle closed
+     */
+    public CandleAggregator(@Nonnull final CandleListener listener) {
+        this(listener, INDIA, CandleAggregator::sessionOf);
+    }
+
+    /**
+     * @param listener Told of every candle closed
+     * @param zone     The time zone of the exchanges
+     * @param sessions The session of the exchange of an instrument, in that zone.
+     *                 It is looked up once per instrument.
+     */
+    public CandleAggregator(@Nonnull final CandleListener listener,
+                            @Nonnull final ZoneId zone,
+                            @Nonnull final Function<Instrument, Session> sessions) {
+        this.listener = Objects.requireNonNull(listener);
+        this.zone = Objects.requireNonNull(zone);
+        this.sessions = Objects.requireNonNull(sessions);
+    }
+
+    /**
+     * @param instrument An instrument
+     * @return The {@link #COMMODITY_SESSION} for the {@link Exchanges#MCX_FUTURES commodities},
+     * the {@link #CURRENCY_SESSION} for the {@link Exchanges#NSE_CURRENCY_FnO currency} {@link
+     * Exchanges#BSE_CURRENCY_FnO derivatives}, and the {@link #EQUITY_SESSION} for the other exchanges.
+     */
+    @Nonnull
+    public static Session sessionOf(@Nonnull final Instrument instrument) {
+        // The feed quotes the exchanges in upper case.
+        switch (instrument.getExchange().toLowerCase(Locale.ROOT)) {
+            case Exchanges.MCX_FUTURES:
+                return COMMODITY_SESSION;
+            case Exchanges.NSE_CURRENCY_FnO:
+            case Exchanges.BSE_CURRENCY_FnO:
+                return CURRENCY_SESSION;
+            default:
+                return EQUITY_SESSION;
+        }
+    }
+
+    @Override
+    public void onTick(@Nonnull final Tick tick) {
+        if (NULL_VALUE == tick.ltp) {
+            return;
+        }
+        Series current = get(tick.instrument);
+        if (null == current) {
+            current = create(tick.instrument);
+        }
+        current.update(tick);
+    }
+
+    /**
+     * Closes the candles being built, as no more ticks will.
+     */
+    @Override
+    public void onComplete() {
+        for (Series each : series) {
+            if (null != each) {
+                each.closeAll();
+            }
+        }
+    }
+
+    /**
+     * Closes the candles which end at or before a time, though no later tick of their instrument was received.
+     * The listener is told of them on the calling thread.
+     *
+     * @param epochMillis The time, in milliseconds since the epoch, on the clock of the ticks
+     */
+    public void advanceTo(final long epochMillis) {
+        for (Series each : series) {
+            if (null != each) {
+                each.advanceTo(epochMillis);
+            }
+        }
+    }
+
+    /**
+     * @param instrument An instrument
+     * @param interval   One of the {@link com.github.rishabh9.riko.upstox.common.constants.OhlcIntervals}
+     * @return A copy of the candle being built, or {@code null} if no tick of the instrument was received.
+     */
+    @Nullable
+    public Candle getCandle(@Nonnull final Instrument instrument, @Nonnull final String interval) {
+        final int index = Arrays.asList(INTERVALS).indexOf(Objects.requireNonNull(interval));
+        checkArgument(index >= 0, "Unknown interval %s", interval);
+        final Series current = get(instrument);
+        return null == current ? null : current.getCandle(index);
+    }
+
+    private Series get(final Instrument instrument) {
+        final int id = instrument.getId();
+        final Series[] current = series;
+        return id < current.length ? current[id] : null;
+    }
+
+    private synchronized Series create(final Instrument instrument) {
+        final int id = instrument.getId();
+        Series[] current = series;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, 2 * current.length));
+        } else if (null != current[id]) {
+            return current[id];
+        }
+        final Series created = new Series(instrument);
+        current[id] = created;
+        series = current;
+        return created;
+    }
+
+    /**
+     * The candles of an instrument being built, one per interval, prices scaled as in a {@link Tick}.
+     */
+    private final class Series {
+
+        private final Instrument instrument;
+        private final Session session;
+        private final long[] start = new long[INTERVALS.length];
+        private final long[] end = new long[INTERVALS.length];
+        private final long[] open = new long[INTERVALS.length];
+        private final long[] high = new long[INTERVALS.length];
+        private final long[] low = new long[INTERVALS.length];
+        private final long[] close = new long[INTERVALS.length];
+        private final long[] volume = new long[INTERVALS.length];
+        private long closePrice = NULL_VALUE;
+        private long vtt = NULL_VALUE;
+
+        /**
+         * The boundaries of the day of the last tick, in milliseconds since the epoch,
+         * computed again when a tick falls outside of it.
+         */
+        private long dayStart = Long.MAX_VALUE;
+        private long dayEnd = Long.MIN_VALUE;
+        private long sessionStart;
+        private long sessionEnd;
+        private long weekStart;
+        private long weekEnd;
+        private long monthStart;
+        private long monthEnd;
+
+        private Series(final Instrument instrument) {
+            this.instrument = instrument;
+            this.session = Objects.requireNonNull(sessions.apply(instrument), "No session for " + instrument);
+            Arrays.fill(start, NULL_VALUE);
+        }
+
+        private synchronized void update(final Tick tick) {
+            final long time = NULL_VALUE == tick.ltt ? tick.timestamp : tick.ltt;
+            final boolean nextDay = time >= dayEnd;
+            if (time < dayStart || nextDay) {
+                moveTo(time);
+            }
+            final long traded = traded(tick.vtt, nextDay);
+            if (NULL_VALUE != tick.close) {
+                closePrice = tick.close;
+            }
+            for (int i = 0; i < INTERVALS.length; i++) {
+                if (NULL_VALUE != start[i] && time >= end[i]) {
+                    listener.onCandle(instrument, INTERVALS[i], toCandle(i));
+                    start[i] = NULL_VALUE;
+                }
+                if (i < DAY && time >= sessionEnd) {
+                    continue;
+                }
+                if (NULL_VALUE == start[i]) {
+                    start[i] = candleStart(i, time);
+                    end[i] = candleEnd(i, start[i]);
+                    open[i] = tick.ltp;
+                    high[i] = tick.ltp;
+                    low[i] = tick.ltp;
+                    volume[i] = 0L;
+                } else {
+                    high[i] = Math.max(high[i], tick.ltp);
+                    low[i] = Math.min(low[i], tick.ltp);
+                }
+                close[i] = tick.ltp;
+                volume[i] += traded;
+            }
+        }
+
+        /**
+         * The volume traded today starts again from 0 every day.
+         */
+        private long traded(final long volumeToday, final boolean nextDay) {
+            if (NULL_VALUE == volumeToday) {
+                return 0L;
+            }
+            final long previous = vtt;
+            vtt = volumeToday;
+            if (NULL_VALUE == previous) {
+                return 0L;
+            }
+            return nextDay || volumeToday < previous ? volumeToday : volumeToday - previous;
+        }
+
+        private long candleStart(final int interval, final long time) {
+            switch (interval) {
+                case DAY:
+                    return dayStart;
+                case WEEK:
+                    return weekStart;
+                case MONTH:
+                    return monthStart;
+                default:
+                    final long length = LENGTHS[interval];
+                    return time <= sessionStart ? sessionStart : sessionStart + (time - sessionStart) / length * length;
+            }
+        }
+
+        private long candleEnd(final int interval, final long candleStart) {
+            switch (interval) {
+                case DAY:
+                    return dayEnd;
+                case WEEK:
+                    return weekEnd;
+                case MONTH:
+                    return monthEnd;
+                default:
+                    return Math.min(candleStart + LENGTHS[interval], sessionEnd);
+            }
+        }
+
+        /**
+         * Only allocates once a day.
+         */
+        private void moveTo(final long time) {
+            final LocalDate date = Instant.ofEpochMilli(time).atZone(zone).toLocalDate();
+            dayStart = startOf(date);
+            dayEnd = startOf(date.plusDays(1L));
+            sessionStart = date.atTime(session.getOpen()).atZone(zone).toInstant().toEpochMilli();
+            sessionEnd = date.atTime(session.getClose()).atZone(zone).toInstant().toEpochMilli();
+            final LocalDate monday = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            weekStart = startOf(monday);
+            weekEnd = startOf(monday.plusWeeks(1L));
+            final LocalDate first = date.withDayOfMonth(1);
+            monthStart = startOf(first);
+            monthEnd = startOf(first.plusMonths(1L));
+        }
+
+        private long startOf(final LocalDate date) {
+            return date.atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+
+        private synchronized void advanceTo(final long time) {
+            for (int i = 0; i < INTERVALS.length; i++) {
+                if (NULL_VALUE != start[i] && time >= end[i]) {
+                    listener.onCandle(instrument, INTERVALS[i], toCandle(i));
+                    start[i] = NULL_VALUE;
+                }
+            }
+        }
+
+        private synchronized void closeAll() {
+            for (int i = 0; i < INTERVALS.length; i++) {
+                if (NULL_VALUE != start[i]) {
+                    listener.onCandle(instrument, INTERVALS[i], toCandle(i));
+                    start[i] = NULL_VALUE;
+                }
+            }
+        }
+
+        private synchronized Candle getCandle(final int interval) {
+            return NULL_VALUE == start[interval] ? null : toCandle(interval);
+        }
+
+        private Candle toCandle(final int interval) {
+            final Candle candle = new Candle();
+            candle.setTimestamp(start[interval]);
+            candle.setOpen(Tick.toBigDecimal(open[interval]));
+            candle.setHigh(Tick.toBigDecimal(high[interval]));
+            candle.setLow(Tick.toBigDecimal(low[interval]));
+            candle.setClose(Tick.toBigDecimal(close[interval]));
+            candle.setVolume(volume[interval]);
+            candle.setCp(Tick.toBigDecimal(closePrice));
+            return candle;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.historical.models.Candle;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Told of the candles built by a {@link CandleAggregator}, as they close.
+ */
+@FunctionalInterface
+public interface CandleListener {
+
+    /**
+     * Called on the thread delivering the ticks of the instrument.
+     *
+     * @param instrument The instrument of the candle
+     * @param interval   One of the {@link com.github.rishabh9.riko.upstox.common.constants.OhlcIntervals}
+     * @param candle     The closed candle, which belongs to the listener
+     */
+    void onCandle(@Nonnull Instrument instrument, @Nonnull String interval, @Nonnull Candle candle);
+}
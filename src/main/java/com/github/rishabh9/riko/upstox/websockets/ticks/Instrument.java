@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An instrument seen on the feed, identified by its exchange and its symbol.
+ * <p>
+ * Instruments are created by an {@link InstrumentRegistry}, once each, so they can be compared by reference.
+ */
+public final class Instrument {
+
+    private final int id;
+    private final String exchange;
+    private final String symbol;
+    private final int hash;
+
+    Instrument(final int id, final String exchange, final String symbol, final int hash) {
+        this.id = id;
+        this.exchange = exchange;
+        this.symbol = symbol;
+        this.hash = hash;
+    }
+
+    /**
+     * @return The token of this instrument in its registry: the instruments are numbered from 0, as they are seen,
+     * so the token can index an array.
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Nonnull
+    public String getExchange() {
+        return exchange;
+    }
+
+    @Nonnull
+    public String getSymbol() {
+        return symbol;
+    }
+
+    int getHash() {
+        return hash;
+    }
+
+    /**
+     * @return {@code true} if the characters of the frame in between the indices are the exchange and the symbol.
+     */
+    boolean matches(final CharSequence frame,
+                    final int exchangeStart, final int exchangeEnd,
+                    final int symbolStart, final int symbolEnd) {
+
+        return regionEquals(exchange, frame, exchangeStart, exchangeEnd)
+                && regionEquals(symbol, frame, symbolStart, symbolEnd);
+    }
+
+    private static boolean regionEquals(final String value, final CharSequence frame, final int start, final int end) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i - start) != frame.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("exchange", exchange)
+                .add("symbol", symbol)
+                .toString();
+    }
+}
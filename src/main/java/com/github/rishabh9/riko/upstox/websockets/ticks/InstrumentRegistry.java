@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Numbers the instruments seen on the feed, so that the ticks of an instrument share a single {@link Instrument},
+ * and so that the strings of its exchange and its symbol are only created the first time it is seen.
+ * <p>
+ * Looking up an instrument does not lock, and can be done from any thread.
+ */
+public final class InstrumentRegistry {
+
+    private static final InstrumentRegistry instance = new InstrumentRegistry();
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * An open addressing hash table, at most half full. Replaced when it grows, and only filled in otherwise.
+     */
+    private volatile Instrument[] table = new Instrument[INITIAL_CAPACITY];
+    /**
+     * Indexed by the id of the instruments. Replaced when it grows, and only appended to otherwise.
+     */
+    private volatile Instrument[] byId = new Instrument[INITIAL_CAPACITY / 2];
+    private volatile int size;
+
+    /**
+     * @return The registry used by the {@link TickDecoder decoders}, unless given another one.
+     */
+    public static InstrumentRegistry getInstance() {
+        return InstrumentRegistry.instance;
+    }
+
+    /**
+     * @param exchange The exchange, like {@code NSE_EQ}
+     * @param symbol   The symbol, like {@code INFY}
+     * @return The instrument, registered if it wasn't already.
+     */
+    @Nonnull
+    public Instrument register(@Nonnull final String exchange, @Nonnull final String symbol) {
+        Objects.requireNonNull(exchange);
+        Objects.requireNonNull(symbol);
+        return lookup(exchange + ',' + symbol, 0, exchange.length(), exchange.length() + 1,
+                exchange.length() + 1 + symbol.length());
+    }
+
+    /**
+     * @param exchange The exchange, like {@code NSE_EQ}
+     * @param symbol   The symbol, like {@code INFY}
+     * @return The instrument, or {@code null} if it is not registered.
+     */
+    @Nullable
+    public Instrument find(@Nonnull final String exchange, @Nonnull final String symbol) {
+        final String key = Objects.requireNonNull(exchange) + ',' + Objects.requireNonNull(symbol);
+        final int symbolStart = exchange.length() + 1;
+        return find(table, key, 0, exchange.length(), symbolStart, key.length(),
+                hash(key, 0, exchange.length(), symbolStart, key.length()));
+    }
+
+    /**
+     * @param id The id of an instrument
+     * @return The instrument, or {@code null} if no instrument has this id.
+     */
+    @Nullable
+    public Instrument get(final int id) {
+        final Instrument[] current = byId;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * @return The number of instruments registered, which is also the next id.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the instrument whose exchange and symbol are the characters of the frame in between the indices,
+     * registering it if it is new.
+     */
+    Instrument lookup(final CharSequence frame,
+                      final int exchangeStart, final int exchangeEnd,
+                      final int symbolStart, final int symbolEnd) {
+
+        final int hash = hash(frame, exchangeStart, exchangeEnd, symbolStart, symbolEnd);
+        final Instrument found = find(table, frame, exchangeStart, exchangeEnd, symbolStart, symbolEnd, hash);
+        if (null != found) {
+            return found;
+        }
+        return add(frame, exchangeStart, exchangeEnd, symbolStart, symbolEnd, hash);
+    }
+
+    private synchronized Instrument add(final CharSequence frame,
+                                        final int exchangeStart, final int exchangeEnd,
+                                        final int symbolStart, final int symbolEnd,
+                                        final int hash) {
+
+        final Instrument found = find(table, frame, exchangeStart, exchangeEnd, symbolStart, symbolEnd, hash);
+        if (null != found) {
+            return found;
+        }
+        final int id = size;
+        final Instrument instrument = new Instrument(id,
+                frame.subSequence(exchangeStart, exchangeEnd).toString(),
+                frame.subSequence(symbolStart, symbolEnd).toString(),
+                hash);
+
+        Instrument[] ids = byId;
+        if (id == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+        ids[id] = instrument;
+        byId = ids;
+
+        // Filling an empty slot in place is safe for a lookup in progress, which either misses the instrument,
+        // and then registers it under the lock, or sees it complete, its fields being final.
+        Instrument[] updated = table;
+        if ((id + 1) * 2 > updated.length) {
+            updated = new Instrument[updated.length * 2];
+            for (int i = 0; i < id; i++) {
+                insert(updated, ids[i]);
+            }
+        }
+        insert(updated, instrument);
+        table = updated;
+        size = id + 1;
+        return instrument;
+    }
+
+    private static void insert(final Instrument[] table, final Instrument instrument) {
+        final int mask = table.length - 1;
+        int index = instrument.getHash() & mask;
+        while (null != table[index]) {
+            index = (index + 1) & mask;
+        }
+        table[index] = instrument;
+    }
+
+    private static Instrument find(final Instrument[] table, final CharSequence frame,
+                                   final int exchangeStart, final int exchangeEnd,
+                                   final int symbolStart, final int symbolEnd,
+                                   final int hash) {
+
+        final int mask = table.length - 1;
+        int index = hash & mask;
+        Instrument candidate;
+        while (null != (candidate = table[index])) {
+            if (candidate.getHash() == hash
+                    && candidate.matches(frame, exchangeStart, exchangeEnd, symbolStart, symbolEnd)) {
+                return candidate;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private static int hash(final CharSequence frame,
+                            final int exchangeStart, final int exchangeEnd,
+                            final int symbolStart, final int symbolEnd) {
+        int h = 0;
+        for (int i = exchangeStart; i < exchangeEnd; i++) {
+            h = 31 * h + frame.charAt(i);
+        }
+        h = 31 * h + ',';
+        for (int i = symbolStart; i < symbolEnd; i++) {
+            h = 31 * h + frame.charAt(i);
+        }
+        // Spreads the bits, as the table is indexed by the lowest ones.
+        return h ^ (h >>> 16);
+    }
+}
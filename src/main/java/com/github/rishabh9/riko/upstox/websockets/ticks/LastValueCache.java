@@ -0,0 +1,301 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.feed.FeedCache;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_FEED_CACHE_MAX_AGE;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_FEED_CACHE_MAX_AGE_DEFAULT;
+
+/**
+ * The latest tick of every instrument, indexed by the {@link Instrument#getId() token} of the instrument.
+ * Subscribe it to a {@link TickStream} or a {@link PartitionedTickStream} to keep it up to date,
+ * and give it to the {@code FeedService} to serve the live feeds from it:
+ * <pre>{@code
+ * LastValueCache cache = new LastValueCache();
+ * webSocketService.connect(Collections.singletonList(new PartitionedTickStream(Collections.singletonList(cache))));
+ * FeedService feedService = new FeedService(authService, retryPolicyFactory, ServiceGenerator.getInstance(), cache);
+ * }</pre>
+ * The ticks are kept in flat arrays, with a sequence number per instrument (a seqlock): a writer makes it odd
+ * while it writes, and a reader copies the tick, then checks the sequence number did not change, or copies it again.
+ * So the readers never lock, and never see a tick half written. They only retry when a tick of the same instrument
+ * is written as they read it.
+ */
+public final class LastValueCache implements TickSubscriber, FeedCache {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    // The fields of a tick, in the slot of its instrument.
+    private static final int SEQUENCE = 0;
+    private static final int MODE = 1;
+    private static final int TIMESTAMP = 2;
+    private static final int LTP = 3;
+    private static final int CLOSE = 4;
+    private static final int OPEN = 5;
+    private static final int HIGH = 6;
+    private static final int LOW = 7;
+    private static final int VTT = 8;
+    private static final int ATP = 9;
+    private static final int OI = 10;
+    private static final int SPOT_PRICE = 11;
+    private static final int TOTAL_BUY_QUANTITY = 12;
+    private static final int TOTAL_SELL_QUANTITY = 13;
+    private static final int LOWER_CIRCUIT = 14;
+    private static final int UPPER_CIRCUIT = 15;
+    private static final int YEARLY_LOW = 16;
+    private static final int YEARLY_HIGH = 17;
+    private static final int BID_QUANTITY = 18;
+    private static final int BID_PRICE = BID_QUANTITY + Tick.DEPTH;
+    private static final int BID_ORDERS = BID_PRICE + Tick.DEPTH;
+    private static final int ASK_QUANTITY = BID_ORDERS + Tick.DEPTH;
+    private static final int ASK_PRICE = ASK_QUANTITY + Tick.DEPTH;
+    private static final int ASK_ORDERS = ASK_PRICE + Tick.DEPTH;
+    private static final int LTT = ASK_ORDERS + Tick.DEPTH;
+    private static final int SLOT_SIZE = LTT + 1;
+
+    private static final Tick.Mode[] MODES = Tick.Mode.values();
+
+    private final InstrumentRegistry registry;
+    private final long maxAge;
+    private final LongSupplier clock;
+
+    /**
+     * The slots of {@link #PAGE_SIZE} instruments per page, allocated as instruments are seen.
+     * Replaced when it grows, and only filled in otherwise.
+     */
+    private volatile long[][] pages = new long[0][];
+
+    /**
+     * Serves the feeds whose last trade, or quote, is at most {@code riko.feed.cache.max.age} milliseconds old.
+     */
+    public LastValueCache() {
+        this(InstrumentRegistry.getInstance(), getInt(RIKO_FEED_CACHE_MAX_AGE, RIKO_FEED_CACHE_MAX_AGE_DEFAULT));
+    }
+
+    /**
+     * @param registry The registry of the instruments, to find the feeds of
+     * @param maxAge   The most milliseconds since the last trade, or quote, of a feed to serve it
+     */
+    public LastValueCache(@Nonnull final InstrumentRegistry registry, final long maxAge) {
+        this(registry, maxAge, System::currentTimeMillis);
+    }
+
+    LastValueCache(final InstrumentRegistry registry, final long maxAge, final LongSupplier clock) {
+        this.registry = Objects.requireNonNull(registry);
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    /**
+     * Keeps the tick, in place of the previous one of its instrument.
+     * Ticks of the same instrument may be written by several threads, but they then wait on each other.
+     */
+    @Override
+    public void onTick(@Nonnull final Tick tick) {
+        final int id = tick.instrument.getId();
+        final long[] page = pageOf(id);
+        final int slot = (id & PAGE_MASK) * SLOT_SIZE;
+
+        long sequence;
+        do {
+            sequence = (long) LONGS.getVolatile(page, slot + SEQUENCE);
+        } while ((sequence & 1L) != 0L || !LONGS.compareAndSet(page, slot + SEQUENCE, sequence, sequence + 1L));
+        // The compare and set is a full fence: the fields below are not written before it.
+
+        page[slot + MODE] = tick.mode.ordinal();
+        page[slot + TIMESTAMP] = tick.timestamp;
+        page[slot + LTP] = tick.ltp;
+        page[slot + CLOSE] = tick.close;
+        page[slot + OPEN] = tick.open;
+        page[slot + HIGH] = tick.high;
+        page[slot + LOW] = tick.low;
+        page[slot + VTT] = tick.vtt;
+        page[slot + ATP] = tick.atp;
+        page[slot + OI] = tick.oi;
+        page[slot + SPOT_PRICE] = tick.spotPrice;
+        page[slot + TOTAL_BUY_QUANTITY] = tick.totalBuyQuantity;
+        page[slot + TOTAL_SELL_QUANTITY] = tick.totalSellQuantity;
+        page[slot + LOWER_CIRCUIT] = tick.lowerCircuit;
+        page[slot + UPPER_CIRCUIT] = tick.upperCircuit;
+        page[slot + YEARLY_LOW] = tick.yearlyLow;
+        page[slot + YEARLY_HIGH] = tick.yearlyHigh;
+        System.arraycopy(tick.bidQuantity, 0, page, slot + BID_QUANTITY, Tick.DEPTH);
+        System.arraycopy(tick.bidPrice, 0, page, slot + BID_PRICE, Tick.DEPTH);
+        System.arraycopy(tick.bidOrders, 0, page, slot + BID_ORDERS, Tick.DEPTH);
+        System.arraycopy(tick.askQuantity, 0, page, slot + ASK_QUANTITY, Tick.DEPTH);
+        System.arraycopy(tick.askPrice, 0, page, slot + ASK_PRICE, Tick.DEPTH);
+        System.arraycopy(tick.askOrders, 0, page, slot + ASK_ORDERS, Tick.DEPTH);
+        page[slot + LTT] = tick.ltt;
+
+        LONGS.setRelease(page, slot + SEQUENCE, sequence + 2L);
+    }
+
+    /**
+     * Copies the latest tick of an instrument, without allocating.
+     *
+     * @param instrument The instrument
+     * @param into       The tick to copy into
+     * @return {@code false} if no tick of the instrument was received, and then the tick is not changed.
+     */
+    public boolean read(@Nonnull final Instrument instrument, @Nonnull final Tick into) {
+        final int id = instrument.getId();
+        final long[][] current = pages;
+        if (id >> PAGE_SHIFT >= current.length) {
+            return false;
+        }
+        final long[] page = current[id >> PAGE_SHIFT];
+        final int slot = (id & PAGE_MASK) * SLOT_SIZE;
+        while (true) {
+            final long sequence = (long) LONGS.getAcquire(page, slot + SEQUENCE);
+            if (0L == sequence) {
+                return false;
+            }
+            if ((sequence & 1L) != 0L) {
+                Thread.onSpinWait();
+                continue;
+            }
+            into.mode = MODES[(int) page[slot + MODE]];
+            into.timestamp = page[slot + TIMESTAMP];
+            into.ltp = page[slot + LTP];
+            into.close = page[slot + CLOSE];
+            into.open = page[slot + OPEN];
+            into.high = page[slot + HIGH];
+            into.low = page[slot + LOW];
+            into.vtt = page[slot + VTT];
+            into.atp = page[slot + ATP];
+            into.oi = page[slot + OI];
+            into.spotPrice = page[slot + SPOT_PRICE];
+            into.totalBuyQuantity = page[slot + TOTAL_BUY_QUANTITY];
+            into.totalSellQuantity = page[slot + TOTAL_SELL_QUANTITY];
+            into.lowerCircuit = page[slot + LOWER_CIRCUIT];
+            into.upperCircuit = page[slot + UPPER_CIRCUIT];
+            into.yearlyLow = page[slot + YEARLY_LOW];
+            into.yearlyHigh = page[slot + YEARLY_HIGH];
+            System.arraycopy(page, slot + BID_QUANTITY, into.bidQuantity, 0, Tick.DEPTH);
+            System.arraycopy(page, slot + BID_PRICE, into.bidPrice, 0, Tick.DEPTH);
+            System.arraycopy(page, slot + BID_ORDERS, into.bidOrders, 0, Tick.DEPTH);
+            System.arraycopy(page, slot + ASK_QUANTITY, into.askQuantity, 0, Tick.DEPTH);
+            System.arraycopy(page, slot + ASK_PRICE, into.askPrice, 0, Tick.DEPTH);
+            System.arraycopy(page, slot + ASK_ORDERS, into.askOrders, 0, Tick.DEPTH);
+            into.ltt = page[slot + LTT];
+            // The fields are read before the sequence number is read again.
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getVolatile(page, slot + SEQUENCE) == sequence) {
+                into.instrument = instrument;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param instrument The instrument
+     * @return A copy of the latest tick of the instrument, or {@code null} if none was received.
+     */
+    @Nullable
+    public Tick get(@Nonnull final Instrument instrument) {
+        final Tick tick = new Tick();
+        return read(instrument, tick) ? tick : null;
+    }
+
+    /**
+     * Reads a single field, so it does not need to check the sequence number.
+     *
+     * @param instrument The instrument
+     * @return The last traded price of the instrument, scaled as in a {@link Tick},
+     * or {@link Tick#NULL_VALUE} if no tick of the instrument was received.
+     */
+    public long getLtp(@Nonnull final Instrument instrument) {
+        final int id = instrument.getId();
+        final long[][] current = pages;
+        if (id >> PAGE_SHIFT >= current.length) {
+            return Tick.NULL_VALUE;
+        }
+        final long[] page = current[id >> PAGE_SHIFT];
+        final int slot = (id & PAGE_MASK) * SLOT_SIZE;
+        if (0L == (long) LONGS.getAcquire(page, slot + SEQUENCE)) {
+            return Tick.NULL_VALUE;
+        }
+        return (long) LONGS.getOpaque(page, slot + LTP);
+    }
+
+    /**
+     * A feed is fresh if its last trade is at most the maximum age old, or if it has no last trade time,
+     * as in {@link Tick.Mode#LTP} mode, if the quote is.
+     * A feed in {@link Tick.Mode#LTP} mode is not served for the {@code full} type.
+     * The exchange and the symbol may be in lower case, like {@link com.github.rishabh9.riko.upstox.common.constants.Exchanges},
+     * while the web socket quotes them in upper case.
+     */
+    @Nullable
+    @Override
+    public Feed getFeed(@Nonnull final String exchange, @Nonnull final String symbol, @Nonnull final String type) {
+        Instrument instrument = registry.find(exchange, symbol);
+        if (null == instrument) {
+            instrument = registry.find(exchange.toUpperCase(Locale.ROOT), symbol.toUpperCase(Locale.ROOT));
+        }
+        if (null == instrument) {
+            return null;
+        }
+        final Tick tick = get(instrument);
+        if (null == tick || (Tick.Mode.FULL.name().equalsIgnoreCase(type) && Tick.Mode.FULL != tick.mode)) {
+            return null;
+        }
+        final long time = Tick.NULL_VALUE != tick.ltt ? tick.ltt : tick.timestamp;
+        return clock.getAsLong() - time <= maxAge ? tick.toFeed() : null;
+    }
+
+    private long[] pageOf(final int id) {
+        final int index = id >> PAGE_SHIFT;
+        final long[][] current = pages;
+        return index < current.length ? current[index] : grow(index);
+    }
+
+    private synchronized long[] grow(final int index) {
+        final long[][] current = pages;
+        if (index < current.length) {
+            return current[index];
+        }
+        final long[][] grown = Arrays.copyOf(current, index + 1);
+        for (int i = current.length; i < grown.length; i++) {
+            grown[i] = new long[PAGE_SIZE * SLOT_SIZE];
+        }
+        pages = grown;
+        return grown[index];
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.DEPTH;
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.NULL_VALUE;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * The market depth of an instrument, updated in place from its {@link Tick.Mode#FULL full} ticks.
+ * <p>
+ * The levels are kept in primitive arrays, prices scaled as in a {@link Tick}. A side only holds the levels
+ * up to the first one missing from the quote, or without quantity. The measures of the book are computed
+ * once per update, so reading them costs nothing.
+ * <p>
+ * An order book is not thread safe: it is updated by the thread delivering the ticks, and should be read there.
+ *
+ * @see OrderBooks
+ */
+public final class OrderBook {
+
+    private final Instrument instrument;
+
+    private final long[] bidPrice = new long[DEPTH];
+    private final long[] bidQuantity = new long[DEPTH];
+    private final long[] bidOrders = new long[DEPTH];
+    private final long[] askPrice = new long[DEPTH];
+    private final long[] askQuantity = new long[DEPTH];
+    private final long[] askOrders = new long[DEPTH];
+    private int bidLevels;
+    private int askLevels;
+
+    private long timestamp = NULL_VALUE;
+    private long updates;
+
+    private long spread = NULL_VALUE;
+    private long mid = NULL_VALUE;
+    private double microprice = Double.NaN;
+    private double imbalance = Double.NaN;
+    private long totalBidQuantity;
+    private long totalAskQuantity;
+
+    public OrderBook(@Nonnull final Instrument instrument) {
+        this.instrument = Objects.requireNonNull(instrument);
+    }
+
+    /**
+     * Replaces the levels of the book with those of the tick. A tick in {@link Tick.Mode#LTP} mode has none,
+     * so it is ignored.
+     *
+     * @param tick A tick of the instrument of this book
+     * @return {@code true} if the book was updated.
+     */
+    public boolean update(@Nonnull final Tick tick) {
+        if (Tick.Mode.FULL != tick.mode) {
+            return false;
+        }
+        if (tick.instrument != instrument) {
+            throw new IllegalArgumentException("Tick of " + tick.instrument + " given to the book of " + instrument);
+        }
+        bidLevels = copy(tick.bidPrice, tick.bidQuantity, tick.bidOrders, bidPrice, bidQuantity, bidOrders);
+        askLevels = copy(tick.askPrice, tick.askQuantity, tick.askOrders, askPrice, askQuantity, askOrders);
+        timestamp = tick.timestamp;
+        updates++;
+        measure();
+        return true;
+    }
+
+    private static int copy(final long[] fromPrice, final long[] fromQuantity, final long[] fromOrders,
+                            final long[] price, final long[] quantity, final long[] orders) {
+        int levels = 0;
+        while (levels < DEPTH && NULL_VALUE != fromPrice[levels]
+                && NULL_VALUE != fromQuantity[levels] && fromQuantity[levels] > 0L) {
+            price[levels] = fromPrice[levels];
+            quantity[levels] = fromQuantity[levels];
+            orders[levels] = fromOrders[levels];
+            levels++;
+        }
+        for (int i = levels; i < DEPTH; i++) {
+            price[i] = NULL_VALUE;
+            quantity[i] = 0L;
+            orders[i] = 0L;
+        }
+        return levels;
+    }
+
+    /**
+     * The imbalance weighs the level {@code i} by {@code DEPTH - i}, so that the best levels count the most.
+     */
+    private void measure() {
+        long weightedBid = 0L;
+        long weightedAsk = 0L;
+        totalBidQuantity = 0L;
+        totalAskQuantity = 0L;
+        for (int i = 0; i < bidLevels; i++) {
+            totalBidQuantity += bidQuantity[i];
+            weightedBid += (DEPTH - i) * bidQuantity[i];
+        }
+        for (int i = 0; i < askLevels; i++) {
+            totalAskQuantity += askQuantity[i];
+            weightedAsk += (DEPTH - i) * askQuantity[i];
+        }
+        imbalance = weightedBid + weightedAsk > 0L
+                ? (double) (weightedBid - weightedAsk) / (weightedBid + weightedAsk)
+                : Double.NaN;
+        if (bidLevels > 0 && askLevels > 0) {
+            spread = askPrice[0] - bidPrice[0];
+            mid = (bidPrice[0] + askPrice[0]) / 2L;
+            microprice = ((double) bidPrice[0] * askQuantity[0] + (double) askPrice[0] * bidQuantity[0])
+                    / (bidQuantity[0] + askQuantity[0]);
+        } else {
+            spread = NULL_VALUE;
+            mid = NULL_VALUE;
+            microprice = Double.NaN;
+        }
+    }
+
+    @Nonnull
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    /**
+     * @return The time of the last quote, in milliseconds since the epoch, or {@link Tick#NULL_VALUE} if none.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return The number of times the book was updated.
+     */
+    public long getUpdates() {
+        return updates;
+    }
+
+    /**
+     * @return The number of bid levels, up to {@link Tick#DEPTH}.
+     */
+    public int getBidLevels() {
+        return bidLevels;
+    }
+
+    /**
+     * @return The number of ask levels, up to {@link Tick#DEPTH}.
+     */
+    public int getAskLevels() {
+        return askLevels;
+    }
+
+    /**
+     * @return The best bid price, or {@link Tick#NULL_VALUE} if there is no bid.
+     */
+    public long getBestBid() {
+        return bidLevels > 0 ? bidPrice[0] : NULL_VALUE;
+    }
+
+    /**
+     * @return The best ask price, or {@link Tick#NULL_VALUE} if there is no ask.
+     */
+    public long getBestAsk() {
+        return askLevels > 0 ? askPrice[0] : NULL_VALUE;
+    }
+
+    /**
+     * @return The best ask price minus the best bid price, or {@link Tick#NULL_VALUE} if a side is empty.
+     */
+    public long getSpread() {
+        return spread;
+    }
+
+    /**
+     * @return The average of the best bid and ask prices, rounded down to the scale of the prices,
+     * or {@link Tick#NULL_VALUE} if a side is empty.
+     */
+    public long getMid() {
+        return mid;
+    }
+
+    /**
+     * @return The best bid and ask prices averaged by the quantity on the opposite side, as a scaled price,
+     * or {@code NaN} if a side is empty.
+     */
+    public double getMicroprice() {
+        return microprice;
+    }
+
+    /**
+     * @return The bid quantity minus the ask quantity over their sum, each level weighted by its rank,
+     * from -1 when there are only asks to 1 when there are only bids, or {@code NaN} if the book is empty.
+     */
+    public double getImbalance() {
+        return imbalance;
+    }
+
+    /**
+     * @return The quantity of all the bid levels.
+     */
+    public long getTotalBidQuantity() {
+        return totalBidQuantity;
+    }
+
+    /**
+     * @return The quantity of all the ask levels.
+     */
+    public long getTotalAskQuantity() {
+        return totalAskQuantity;
+    }
+
+    /**
+     * @param level From 0, the best bid, to {@link #getBidLevels()} excluded
+     */
+    public long getBidPrice(final int level) {
+        return bidPrice[checkElementIndex(level, bidLevels)];
+    }
+
+    /**
+     * @param level From 0, the best bid, to {@link #getBidLevels()} excluded
+     */
+    public long getBidQuantity(final int level) {
+        return bidQuantity[checkElementIndex(level, bidLevels)];
+    }
+
+    /**
+     * @param level From 0, the best bid, to {@link #getBidLevels()} excluded
+     */
+    public long getBidOrders(final int level) {
+        return bidOrders[checkElementIndex(level, bidLevels)];
+    }
+
+    /**
+     * @param level From 0, the best ask, to {@link #getAskLevels()} excluded
+     */
+    public long getAskPrice(final int level) {
+        return askPrice[checkElementIndex(level, askLevels)];
+    }
+
+    /**
+     * @param level From 0, the best ask, to {@link #getAskLevels()} excluded
+     */
+    public long getAskQuantity(final int level) {
+        return askQuantity[checkElementIndex(level, askLevels)];
+    }
+
+    /**
+     * @param level From 0, the best ask, to {@link #getAskLevels()} excluded
+     */
+    public long getAskOrders(final int level) {
+        return askOrders[checkElementIndex(level, askLevels)];
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("instrument", instrument)
+                .add("timestamp", timestamp)
+                .add("bestBid", Tick.toBigDecimal(getBestBid()))
+                .add("bestAsk", Tick.toBigDecimal(getBestAsk()))
+                .add("bidLevels", bidLevels)
+                .add("askLevels", askLevels)
+                .add("imbalance", imbalance)
+                .toString();
+    }
+}
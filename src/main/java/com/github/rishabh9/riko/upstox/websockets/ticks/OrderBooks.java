@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The {@link OrderBook order books} of the instruments quoted in full mode, indexed by the
+ * {@link Instrument#getId() token} of the instrument, and updated as the ticks are received.
+ * <p>
+ * A book is updated, and the listener told, on the thread delivering the ticks of its instrument.
+ * So the books can be shared by the partitions of a {@link PartitionedTickStream}, as long as a book is only
+ * read by the listener, or on the thread of its partition.
+ */
+public final class OrderBooks implements TickSubscriber {
+
+    private final Consumer<? super OrderBook> listener;
+
+    /**
+     * Replaced when it grows, and only filled in otherwise, under the lock.
+     */
+    private volatile OrderBook[] books = new OrderBook[64];
+
+    public OrderBooks() {
+        this(null);
+    }
+
+    /**
+     * @param listener Told of every book updated, right after it was. Optional.
+     */
+    public OrderBooks(@Nullable final Consumer<? super OrderBook> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void onTick(@Nonnull final Tick tick) {
+        if (Tick.Mode.FULL != tick.mode) {
+            return;
+        }
+        OrderBook book = get(tick.instrument);
+        if (null == book) {
+            book = create(tick.instrument);
+        }
+        book.update(tick);
+        if (null != listener) {
+            listener.accept(book);
+        }
+    }
+
+    /**
+     * @param instrument An instrument
+     * @return Its order book, or {@code null} if no full quote of it was received.
+     */
+    @Nullable
+    public OrderBook get(@Nonnull final Instrument instrument) {
+        final int id = instrument.getId();
+        final OrderBook[] current = books;
+        return id < current.length ? current[id] : null;
+    }
+
+    private synchronized OrderBook create(final Instrument instrument) {
+        final int id = instrument.getId();
+        OrderBook[] current = books;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, 2 * current.length));
+        } else if (null != current[id]) {
+            return current[id];
+        }
+        final OrderBook book = new OrderBook(instrument);
+        current[id] = book;
+        books = current;
+        return book;
+    }
+}
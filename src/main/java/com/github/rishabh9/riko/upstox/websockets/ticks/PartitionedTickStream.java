@@ -0,0 +1,252 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.websockets.MessageSubscriber;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.github.rishabh9.riko.upstox.common.SystemProperties.getInt;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * Like a {@link TickStream}, but hands the ticks to its subscribers on several threads, the partitions,
+ * so that handling them can use more than one core.
+ * <p>
+ * Every instrument is assigned to a partition by its {@link Instrument#getId() token}, so the ticks of
+ * an instrument are delivered in order, on the same thread. The subscribers are called concurrently
+ * for the instruments of different partitions.
+ * <p>
+ * Each frame is decoded once, on the thread delivering the messages, and each tick is copied into
+ * the ring of its partition, allocated up front. A tick is never dropped: when a partition is full,
+ * decoding waits, and messages queue up as the {@link #getBackpressurePolicy() backpressure policy} allows.
+ * <p>
+ * A {@link #conflating(List, int) conflating} stream never waits for its subscribers: each partition only keeps
+ * the latest undelivered tick of each instrument, even of the instruments quoted together in a frame.
+ */
+public class PartitionedTickStream implements MessageSubscriber {
+
+    private static final ThreadFactory threadFactory =
+            new ThreadFactoryBuilder().setNameFormat("riko-ws-partition-%d").setDaemon(true).build();
+
+    private final List<TickSubscriber> subscribers;
+    private final BackpressurePolicy<WebSocketMessage> policy;
+    private final TickDecoder decoder;
+    private final TickPartition[] partitions;
+    private final Consumer<Tick> router = this::route;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicInteger running;
+    private volatile Throwable error;
+
+    /**
+     * Uses as many partitions as the {@code riko.ws.tick.partitions} system property, the number of processors
+     * by default, each holding as many ticks as the {@code riko.ws.ring.size} system property.
+     *
+     * @param subscribers Receive the ticks
+     */
+    public PartitionedTickStream(@Nonnull final List<TickSubscriber> subscribers) {
+        this(subscribers,
+                getInt(RIKO_WS_TICK_PARTITIONS, RIKO_WS_TICK_PARTITIONS_DEFAULT),
+                getInt(RIKO_WS_RING_SIZE, RIKO_WS_RING_SIZE_DEFAULT),
+                BackpressurePolicy.dropNewest());
+    }
+
+    /**
+     * @param subscribers The subscribers of the ticks
+     * @param partitions  The number of threads delivering the ticks
+     * @param capacity    The number of ticks each partition can fall behind by, before decoding waits for it.
+     *                    Rounded up to a power of two.
+     * @param policy      What happens to the messages while decoding waits
+     */
+    public PartitionedTickStream(@Nonnull final List<TickSubscriber> subscribers,
+                                 final int partitions,
+                                 final int capacity,
+                                 @Nonnull final BackpressurePolicy<WebSocketMessage> policy) {
+
+        this(subscribers, partitions, policy, ringSize(capacity));
+    }
+
+    /**
+     * @param ringSize The size of the ring of each partition, or 0 to conflate the ticks of each instrument
+     */
+    private PartitionedTickStream(final List<TickSubscriber> subscribers,
+                                  final int partitions,
+                                  final BackpressurePolicy<WebSocketMessage> policy,
+                                  final int ringSize) {
+
+        checkArgument(partitions > 0, "partitions must be positive");
+        this.subscribers = ImmutableList.copyOf(subscribers);
+        this.policy = Objects.requireNonNull(policy);
+        this.decoder = new TickDecoder();
+        this.partitions = new TickPartition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new TickPartition(this, this.subscribers, ringSize);
+        }
+        this.running = new AtomicInteger(partitions);
+    }
+
+    /**
+     * A stream delivering only the latest tick of each instrument the subscribers have not received yet,
+     * for subscribers that don't need every tick, like a chart or a strategy acting on the last price.
+     * The ticks of different instruments are still delivered in the order they were first quoted.
+     *
+     * @param subscribers The subscribers of the ticks
+     * @param partitions  The number of threads delivering the ticks
+     * @return A stream which never makes decoding wait for its subscribers.
+     */
+    @Nonnull
+    public static PartitionedTickStream conflating(@Nonnull final List<TickSubscriber> subscribers,
+                                                   final int partitions) {
+        return new PartitionedTickStream(subscribers, partitions, BackpressurePolicy.dropNewest(), 0);
+    }
+
+    private static int ringSize(final int capacity) {
+        checkArgument(capacity > 0 && capacity <= (1 << 30), "capacity must be between 1 and 2^30");
+        return capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    @Override
+    public BackpressurePolicy<WebSocketMessage> getBackpressurePolicy() {
+        return policy;
+    }
+
+    public int getPartitions() {
+        return partitions.length;
+    }
+
+    /**
+     * @param instrument An instrument
+     * @return The partition delivering the ticks of the instrument.
+     */
+    public int partitionOf(@Nonnull final Instrument instrument) {
+        return instrument.getId() % partitions.length;
+    }
+
+    /**
+     * @param partition From 0 to {@link #getPartitions()} excluded
+     * @return The number of ticks of the partition waiting to be delivered.
+     */
+    public long getDepth(final int partition) {
+        return partitions[checkElementIndex(partition, partitions.length)].getDepth();
+    }
+
+    /**
+     * @param partition From 0 to {@link #getPartitions()} excluded
+     * @return The number of ticks delivered by the partition.
+     */
+    public long getDelivered(final int partition) {
+        return partitions[checkElementIndex(partition, partitions.length)].getDelivered();
+    }
+
+    /**
+     * @param partition From 0 to {@link #getPartitions()} excluded
+     * @return The number of times decoding waited for the partition, as it was full.
+     */
+    public long getStalls(final int partition) {
+        return partitions[checkElementIndex(partition, partitions.length)].getStalls();
+    }
+
+    /**
+     * @param partition From 0 to {@link #getPartitions()} excluded
+     * @return The number of ticks of the partition replaced by a later tick of their instrument,
+     * always 0 unless the stream is {@link #conflating(List, int) conflating}.
+     */
+    public long getConflated(final int partition) {
+        return partitions[checkElementIndex(partition, partitions.length)].getConflated();
+    }
+
+    /**
+     * @return The number of quotes that could not be decoded.
+     */
+    public long getMalformed() {
+        return decoder.getMalformed();
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscription.cancel();
+            return;
+        }
+        for (TickPartition partition : partitions) {
+            threadFactory.newThread(partition).start();
+        }
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(final WebSocketMessage message) {
+        decoder.decode(message, router);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        error = throwable;
+        completePartitions();
+    }
+
+    @Override
+    public void onComplete() {
+        completePartitions();
+    }
+
+    private void route(final Tick tick) {
+        partitions[partitionOf(tick.getInstrument())].put(tick);
+    }
+
+    private void completePartitions() {
+        for (TickPartition partition : partitions) {
+            partition.complete();
+        }
+    }
+
+    /**
+     * Called by each partition once it has delivered its last tick. The last one signals the subscribers.
+     */
+    void onPartitionDone() {
+        if (running.decrementAndGet() == 0) {
+            final Throwable failure = error;
+            if (null == failure) {
+                TickStream.signalComplete(subscribers);
+            } else {
+                TickStream.signalError(subscribers, failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.time.LocalTime;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The trading hours of an exchange, within a day, in the time zone of the exchange.
+ */
+public final class Session {
+
+    private final LocalTime open;
+    private final LocalTime close;
+
+    /**
+     * @param open  When the session opens
+     * @param close When the session closes, the same day
+     */
+    public Session(@Nonnull final LocalTime open, @Nonnull final LocalTime close) {
+        checkArgument(close.isAfter(open), "The session must close after it opens");
+        this.open = Objects.requireNonNull(open);
+        this.close = close;
+    }
+
+    @Nonnull
+    public LocalTime getOpen() {
+        return open;
+    }
+
+    @Nonnull
+    public LocalTime getClose() {
+        return close;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Session session = (Session) o;
+        return open.equals(session.open) && close.equals(session.close);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(open, close);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("open", open)
+                .add("close", close)
+                .toString();
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.common.converters.NumberString;
+import com.github.rishabh9.riko.upstox.feed.models.BidsAsk;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * A quote of an instrument, as sent on the web socket, in primitive fields.
+ * <p>
+ * Prices are scaled longs: the price multiplied by {@link #PRICE_MULTIPLIER}. Values missing from the quote,
+ * as are all but the last traded and the close prices in {@link Mode#LTP} mode, are {@link #NULL_VALUE}.
+ * <p>
+ * A decoder reuses the same tick for every quote, so a tick must be {@link #copy() copied} to be kept.
+ */
+public final class Tick {
+
+    public enum Mode {
+        /**
+         * Only the last traded price and the close price.
+         */
+        LTP,
+        /**
+         * Every field, including five levels of market depth.
+         */
+        FULL
+    }
+
+    /**
+     * The number of decimals of the prices.
+     */
+    public static final int PRICE_SCALE = 4;
+    public static final long PRICE_MULTIPLIER = 10_000L;
+    /**
+     * The value of a missing field.
+     */
+    public static final long NULL_VALUE = Long.MIN_VALUE;
+    /**
+     * The number of levels of market depth.
+     */
+    public static final int DEPTH = 5;
+
+    Mode mode;
+    Instrument instrument;
+    long timestamp;
+    long ltp;
+    long close;
+    long open;
+    long high;
+    long low;
+    long vtt;
+    long atp;
+    long oi;
+    long spotPrice;
+    long totalBuyQuantity;
+    long totalSellQuantity;
+    long lowerCircuit;
+    long upperCircuit;
+    long yearlyLow;
+    long yearlyHigh;
+    final long[] bidQuantity = new long[DEPTH];
+    final long[] bidPrice = new long[DEPTH];
+    final long[] bidOrders = new long[DEPTH];
+    final long[] askQuantity = new long[DEPTH];
+    final long[] askPrice = new long[DEPTH];
+    final long[] askOrders = new long[DEPTH];
+    long ltt;
+
+    /**
+     * @param price A scaled price
+     * @return The price, or {@code null} if it is {@link #NULL_VALUE}.
+     */
+    @Nullable
+    public static BigDecimal toBigDecimal(final long price) {
+        return NULL_VALUE == price ? null : BigDecimal.valueOf(price, PRICE_SCALE);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Instrument getInstrument() {
+        return instrument;
+    }
+
+    public String getExchange() {
+        return instrument.getExchange();
+    }
+
+    public String getSymbol() {
+        return instrument.getSymbol();
+    }
+
+    /**
+     * @return The time of the quote, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getLtp() {
+        return ltp;
+    }
+
+    public long getClose() {
+        return close;
+    }
+
+    public long getOpen() {
+        return open;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * @return The volume traded today.
+     */
+    public long getVtt() {
+        return vtt;
+    }
+
+    /**
+     * @return The average traded price.
+     */
+    public long getAtp() {
+        return atp;
+    }
+
+    /**
+     * @return The open interest.
+     */
+    public long getOi() {
+        return oi;
+    }
+
+    public long getSpotPrice() {
+        return spotPrice;
+    }
+
+    public long getTotalBuyQuantity() {
+        return totalBuyQuantity;
+    }
+
+    public long getTotalSellQuantity() {
+        return totalSellQuantity;
+    }
+
+    public long getLowerCircuit() {
+        return lowerCircuit;
+    }
+
+    public long getUpperCircuit() {
+        return upperCircuit;
+    }
+
+    public long getYearlyLow() {
+        return yearlyLow;
+    }
+
+    public long getYearlyHigh() {
+        return yearlyHigh;
+    }
+
+    /**
+     * @param level From 0, the best bid, to {@link #DEPTH} excluded
+     */
+    public long getBidQuantity(final int level) {
+        return bidQuantity[checkElementIndex(level, DEPTH)];
+    }
+
+    /**
+     * @param level From 0, the best bid, to {@link #DEPTH} excluded
+     */
+    public long getBidPrice(final int level) {
+        return bidPrice[checkElementIndex(level, DEPTH)];
+    }
+
+    /**
+     * @param level From 0, the best bid, to {@link #DEPTH} excluded
+     */
+    public long getBidOrders(final int level) {
+        return bidOrders[checkElementIndex(level, DEPTH)];
+    }
+
+    /**
+     * @param level From 0, the best ask, to {@link #DEPTH} excluded
+     */
+    public long getAskQuantity(final int level) {
+        return askQuantity[checkElementIndex(level, DEPTH)];
+    }
+
+    /**
+     * @param level From 0, the best ask, to {@link #DEPTH} excluded
+     */
+    public long getAskPrice(final int level) {
+        return askPrice[checkElementIndex(level, DEPTH)];
+    }
+
+    /**
+     * @param level From 0, the best ask, to {@link #DEPTH} excluded
+     */
+    public long getAskOrders(final int level) {
+        return askOrders[checkElementIndex(level, DEPTH)];
+    }
+
+    /**
+     * @return The last traded time, in milliseconds since the epoch.
+     */
+    public long getLtt() {
+        return ltt;
+    }
+
+    /**
+     * @return A copy of this tick, which can be kept.
+     */
+    @Nonnull
+    public Tick copy() {
+        final Tick copy = new Tick();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Copies another tick into this one, without allocating.
+     *
+     * @param other The tick to copy
+     */
+    public void copyFrom(@Nonnull final Tick other) {
+        mode = other.mode;
+        instrument = other.instrument;
+        timestamp = other.timestamp;
+        ltp = other.ltp;
+        close = other.close;
+        open = other.open;
+        high = other.high;
+        low = other.low;
+        vtt = other.vtt;
+        atp = other.atp;
+        oi = other.oi;
+        spotPrice = other.spotPrice;
+        totalBuyQuantity = other.totalBuyQuantity;
+        totalSellQuantity = other.totalSellQuantity;
+        lowerCircuit = other.lowerCircuit;
+        upperCircuit = other.upperCircuit;
+        yearlyLow = other.yearlyLow;
+        yearlyHigh = other.yearlyHigh;
+        System.arraycopy(other.bidQuantity, 0, bidQuantity, 0, DEPTH);
+        System.arraycopy(other.bidPrice, 0, bidPrice, 0, DEPTH);
+        System.arraycopy(other.bidOrders, 0, bidOrders, 0, DEPTH);
+        System.arraycopy(other.askQuantity, 0, askQuantity, 0, DEPTH);
+        System.arraycopy(other.askPrice, 0, askPrice, 0, DEPTH);
+        System.arraycopy(other.askOrders, 0, askOrders, 0, DEPTH);
+        ltt = other.ltt;
+    }
+
+    /**
+     * @return This tick, as the model of the {@code liveFeed} API.
+     */
+    @Nonnull
+    public Feed toFeed() {
+        final Feed feed = new Feed();
+        feed.setTimestamp(toLong(timestamp));
+        feed.setExchange(getExchange());
+        feed.setSymbol(getSymbol());
+        feed.setLtp(toBigDecimal(ltp));
+        feed.setClose(toBigDecimal(close));
+        if (Mode.FULL == mode) {
+            feed.setOpen(toBigDecimal(open));
+            feed.setHigh(toBigDecimal(high));
+            feed.setLow(toBigDecimal(low));
+            feed.setVtt(toLong(vtt));
+            feed.setAtp(toBigDecimal(atp));
+            feed.setOi(new NumberString(NULL_VALUE == oi ? null : BigDecimal.valueOf(oi)));
+            feed.setSpotPrice(toBigDecimal(spotPrice));
+            feed.setTotalBuyQuantity(toLong(totalBuyQuantity));
+            feed.setTotalSellQuantity(toLong(totalSellQuantity));
+            feed.setLowerCircuit(toBigDecimal(lowerCircuit));
+            feed.setUpperCircuit(toBigDecimal(upperCircuit));
+            feed.setYearlyLow(new NumberString(toBigDecimal(yearlyLow)));
+            feed.setYearlyHigh(new NumberString(toBigDecimal(yearlyHigh)));
+            feed.setBids(toBidsAsks(bidQuantity, bidPrice, bidOrders));
+            feed.setAsk(toBidsAsks(askQuantity, askPrice, askOrders));
+            feed.setLtt(toLong(ltt));
+        }
+        return feed;
+    }
+
+    /**
+     * Marks the fields sent in {@link Mode#FULL} mode only as missing.
+     */
+    void clearFull() {
+        open = NULL_VALUE;
+        high = NULL_VALUE;
+        low = NULL_VALUE;
+        vtt = NULL_VALUE;
+        atp = NULL_VALUE;
+        oi = NULL_VALUE;
+        spotPrice = NULL_VALUE;
+        totalBuyQuantity = NULL_VALUE;
+        totalSellQuantity = NULL_VALUE;
+        lowerCircuit = NULL_VALUE;
+        upperCircuit = NULL_VALUE;
+        yearlyLow = NULL_VALUE;
+        yearlyHigh = NULL_VALUE;
+        Arrays.fill(bidQuantity, NULL_VALUE);
+        Arrays.fill(bidPrice, NULL_VALUE);
+        Arrays.fill(bidOrders, NULL_VALUE);
+        Arrays.fill(askQuantity, NULL_VALUE);
+        Arrays.fill(askPrice, NULL_VALUE);
+        Arrays.fill(askOrders, NULL_VALUE);
+        ltt = NULL_VALUE;
+    }
+
+    private static Long toLong(final long value) {
+        return NULL_VALUE == value ? null : value;
+    }
+
+    private static List<BidsAsk> toBidsAsks(final long[] quantity, final long[] price, final long[] orders) {
+        final List<BidsAsk> levels = new ArrayList<>(DEPTH);
+        for (int i = 0; i < DEPTH; i++) {
+            final BidsAsk level = new BidsAsk();
+            level.setQuantity(toLong(quantity[i]));
+            level.setPrice(toBigDecimal(price[i]));
+            level.setOrders(toLong(orders[i]));
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this)
+                .add("mode", mode)
+                .add("instrument", instrument)
+                .add("timestamp", timestamp)
+                .add("ltp", toBigDecimal(ltp))
+                .add("close", toBigDecimal(close));
+        if (Mode.FULL == mode) {
+            helper.add("open", toBigDecimal(open))
+                    .add("high", toBigDecimal(high))
+                    .add("low", toBigDecimal(low))
+                    .add("vtt", toLong(vtt))
+                    .add("atp", toBigDecimal(atp))
+                    .add("oi", toLong(oi))
+                    .add("bestBid", toBigDecimal(bidPrice[0]))
+                    .add("bestAsk", toBigDecimal(askPrice[0]))
+                    .add("ltt", toLong(ltt));
+        }
+        return helper.toString();
+    }
+}
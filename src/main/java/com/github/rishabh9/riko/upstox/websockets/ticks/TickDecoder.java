@@ -0,0 +1,295 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.DEPTH;
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.NULL_VALUE;
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.PRICE_SCALE;
+
+/**
+ * Decodes the quotes sent on the web socket into {@link Tick ticks}, in a single pass over the frame,
+ * without creating strings or numbers.
+ * <p>
+ * A frame holds quotes separated by {@code ;}, each made of fields separated by {@code ,}:
+ * <ul>
+ * <li>5 fields in LTP mode: timestamp, exchange, symbol, ltp and close,</li>
+ * <li>49 fields in full mode: timestamp, exchange, symbol, ltp, close, open, high, low, vtt, atp, oi, spot price,
+ * total buy quantity, total sell quantity, lower circuit, upper circuit, yearly low, yearly high,
+ * five bids and five asks as quantity, price and orders, and ltt.</li>
+ * </ul>
+ * Fields following the 49th are ignored. A quote with any other number of fields is skipped,
+ * and counted as {@link #getMalformed() malformed}.
+ * A field that is not a number is decoded as {@link Tick#NULL_VALUE}.
+ * <p>
+ * A decoder reuses a single tick, and is meant to be used by one thread.
+ */
+public final class TickDecoder {
+
+    private static final Logger log = LogManager.getLogger(TickDecoder.class);
+
+    private static final int LTP_FIELDS = 5;
+    private static final int FULL_FIELDS = 49;
+
+    private static final char QUOTE_SEPARATOR = ';';
+    private static final char FIELD_SEPARATOR = ',';
+
+    private final InstrumentRegistry registry;
+    private final Tick tick = new Tick();
+    private final AsciiSequence ascii = new AsciiSequence();
+    /**
+     * The index of the first character of each field of the quote being decoded, and one past the last field.
+     */
+    private final int[] fields = new int[FULL_FIELDS + 1];
+    private long malformed;
+
+    /**
+     * Registers the instruments in the {@link InstrumentRegistry#getInstance() shared registry}.
+     */
+    public TickDecoder() {
+        this(InstrumentRegistry.getInstance());
+    }
+
+    /**
+     * @param registry Registers the instruments of the ticks
+     */
+    public TickDecoder(@Nonnull final InstrumentRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+    }
+
+    /**
+     * @param message A message received on the web socket. Messages other than text and binary have no quotes.
+     * @param handler Receives each quote of the message, in order, in the same tick
+     * @return The number of ticks decoded.
+     */
+    public int decode(@Nonnull final WebSocketMessage message, @Nonnull final Consumer<? super Tick> handler) {
+        if (message instanceof TextMessage) {
+            return decode(((TextMessage) message).getMessage(), handler);
+        }
+        if (message instanceof BinaryMessage) {
+            final int count = decode(ascii.wrap((BinaryMessage) message), handler);
+            ascii.wrap(null);
+            return count;
+        }
+        return 0;
+    }
+
+    /**
+     * @param frame   The quotes
+     * @param handler Receives each quote of the frame, in order, in the same tick
+     * @return The number of ticks decoded.
+     */
+    public int decode(@Nonnull final CharSequence frame, @Nonnull final Consumer<? super Tick> handler) {
+        return scan(frame, Objects.requireNonNull(handler), null);
+    }
+
+    /**
+     * Finds the instruments quoted by a message, without decoding the quotes.
+     *
+     * @param message A message received on the web socket. Messages other than text and binary have no quotes.
+     * @param handler Receives the instrument of each quote of the message, in order
+     * @return The number of quotes.
+     */
+    public int instruments(@Nonnull final WebSocketMessage message, @Nonnull final Consumer<? super Instrument> handler) {
+        Objects.requireNonNull(handler);
+        if (message instanceof TextMessage) {
+            return scan(((TextMessage) message).getMessage(), null, handler);
+        }
+        if (message instanceof BinaryMessage) {
+            final int count = scan(ascii.wrap((BinaryMessage) message), null, handler);
+            ascii.wrap(null);
+            return count;
+        }
+        return 0;
+    }
+
+    /**
+     * Hands either the ticks or the instruments of the quotes of the frame to their handler.
+     */
+    private int scan(final CharSequence frame,
+                     final Consumer<? super Tick> tickHandler,
+                     final Consumer<? super Instrument> instrumentHandler) {
+        final int length = frame.length();
+        int count = 0;
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            int field = 0;
+            fields[0] = start;
+            char c;
+            while (end < length && (c = frame.charAt(end)) != QUOTE_SEPARATOR) {
+                if (c == FIELD_SEPARATOR && field < FULL_FIELDS) {
+                    fields[++field] = end + 1;
+                }
+                end++;
+            }
+            // One past the last field, as if it was followed by a separator.
+            if (field < FULL_FIELDS) {
+                fields[++field] = end + 1;
+            }
+            if (end > start) {
+                if (null == tickHandler ? findInstrument(frame, field) : decodeQuote(frame, field)) {
+                    count++;
+                    if (null == tickHandler) {
+                        instrumentHandler.accept(tick.instrument);
+                    } else {
+                        tickHandler.accept(tick);
+                    }
+                } else {
+                    malformed++;
+                    if (log.isDebugEnabled()) {
+                        log.debug("Skipping a malformed quote: {}", frame.subSequence(start, end));
+                    }
+                }
+            }
+            start = end + 1;
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of quotes skipped since this decoder was created,
+     * because they had neither the number of fields of the LTP mode, nor that of the full mode.
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * Sets only the instrument of the tick.
+     */
+    private boolean findInstrument(final CharSequence frame, final int count) {
+        if (count != LTP_FIELDS && count != FULL_FIELDS) {
+            return false;
+        }
+        final int exchangeStart = fields[1];
+        final int exchangeEnd = fields[2] - 1;
+        final int symbolStart = fields[2];
+        final int symbolEnd = fields[3] - 1;
+        if (exchangeStart == exchangeEnd || symbolStart == symbolEnd) {
+            return false;
+        }
+        tick.instrument = registry.lookup(frame, exchangeStart, exchangeEnd, symbolStart, symbolEnd);
+        return true;
+    }
+
+    private boolean decodeQuote(final CharSequence frame, final int count) {
+        if (!findInstrument(frame, count)) {
+            return false;
+        }
+        final Tick tick = this.tick;
+        tick.timestamp = number(frame, 0, 0);
+        tick.ltp = price(frame, 3);
+        tick.close = price(frame, 4);
+        if (count == LTP_FIELDS) {
+            tick.mode = Tick.Mode.LTP;
+            tick.clearFull();
+            return true;
+        }
+        tick.mode = Tick.Mode.FULL;
+        tick.open = price(frame, 5);
+        tick.high = price(frame, 6);
+        tick.low = price(frame, 7);
+        tick.vtt = number(frame, 8, 0);
+        tick.atp = price(frame, 9);
+        tick.oi = number(frame, 10, 0);
+        tick.spotPrice = price(frame, 11);
+        tick.totalBuyQuantity = number(frame, 12, 0);
+        tick.totalSellQuantity = number(frame, 13, 0);
+        tick.lowerCircuit = price(frame, 14);
+        tick.upperCircuit = price(frame, 15);
+        tick.yearlyLow = price(frame, 16);
+        tick.yearlyHigh = price(frame, 17);
+        int field = 18;
+        for (int level = 0; level < DEPTH; level++, field += 3) {
+            tick.bidQuantity[level] = number(frame, field, 0);
+            tick.bidPrice[level] = price(frame, field + 1);
+            tick.bidOrders[level] = number(frame, field + 2, 0);
+        }
+        for (int level = 0; level < DEPTH; level++, field += 3) {
+            tick.askQuantity[level] = number(frame, field, 0);
+            tick.askPrice[level] = price(frame, field + 1);
+            tick.askOrders[level] = number(frame, field + 2, 0);
+        }
+        tick.ltt = number(frame, field, 0);
+        return true;
+    }
+
+    private long price(final CharSequence frame, final int field) {
+        return number(frame, field, PRICE_SCALE);
+    }
+
+    /**
+     * Parses a decimal number, dropping the decimals beyond the scale.
+     *
+     * @return The number multiplied by 10 to the power of the scale, or {@link Tick#NULL_VALUE} if it isn't one.
+     */
+    private long number(final CharSequence frame, final int field, final int scale) {
+        int i = fields[field];
+        final int end = fields[field + 1] - 1;
+        if (i >= end) {
+            return NULL_VALUE;
+        }
+        final boolean negative = frame.charAt(i) == '-';
+        if (negative || frame.charAt(i) == '+') {
+            i++;
+        }
+        long value = 0L;
+        int decimals = -1;
+        boolean digits = false;
+        for (; i < end; i++) {
+            final char c = frame.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (decimals < 0) {
+                    value = value * 10L + (c - '0');
+                } else if (decimals < scale) {
+                    value = value * 10L + (c - '0');
+                    decimals++;
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return NULL_VALUE;
+            }
+        }
+        if (!digits) {
+            return NULL_VALUE;
+        }
+        for (int d = Math.max(decimals, 0); d < scale; d++) {
+            value *= 10L;
+        }
+        return negative ? -value : value;
+    }
+}
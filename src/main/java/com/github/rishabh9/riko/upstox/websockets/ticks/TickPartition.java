@@ -0,0 +1,289 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The ticks of some of the instruments, copied by the decoding thread into a ring of ticks allocated up front,
+ * and delivered in order by the thread running this partition.
+ * <p>
+ * A conflating partition has no ring: it keeps the latest undelivered tick of each instrument instead,
+ * and the instruments in the order their first undelivered tick was put.
+ */
+final class TickPartition implements Runnable {
+
+    private static final int SPINS = 100;
+    /**
+     * A wake-up can't be missed, so this only bounds the damage of a bug.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10L);
+    /**
+     * How long the decoding thread sleeps, when the ring is full.
+     */
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50L);
+
+    private final PartitionedTickStream stream;
+    private final List<TickSubscriber> subscribers;
+    private final Tick[] ring;
+    private final int mask;
+    /**
+     * {@code null} unless the partition conflates.
+     */
+    private final Conflation conflation;
+    /**
+     * The tick being delivered, copied out of the conflation.
+     */
+    private final Tick delivering;
+
+    /**
+     * The number of ticks written, by the decoding thread.
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * The number of ticks delivered, by the partition thread.
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long stalls;
+
+    private volatile boolean done;
+    private volatile Thread thread;
+    private volatile boolean parked;
+
+    /**
+     * @param capacity The size of the ring, a power of two, or 0 to conflate the ticks of each instrument instead
+     */
+    TickPartition(final PartitionedTickStream stream, final List<TickSubscriber> subscribers, final int capacity) {
+        this.stream = stream;
+        this.subscribers = subscribers;
+        this.ring = new Tick[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Tick();
+        }
+        this.mask = capacity - 1;
+        this.conflation = 0 == capacity ? new Conflation() : null;
+        this.delivering = 0 == capacity ? new Tick() : null;
+    }
+
+    /**
+     * Called by the decoding thread. Waits while the ring is full, so that no tick is lost,
+     * or replaces the undelivered tick of the instrument when conflating.
+     */
+    void put(final Tick tick) {
+        final long position = head.get();
+        if (null != conflation) {
+            conflation.offer(tick);
+            head.lazySet(position + 1);
+            VarHandle.fullFence();
+            wakeUp();
+            return;
+        }
+        if (position - tail.get() > mask) {
+            stalls++;
+            while (position - tail.get() > mask) {
+                LockSupport.parkNanos(this, FULL_PARK_NANOS);
+            }
+        }
+        ring[(int) position & mask].copyFrom(tick);
+        head.lazySet(position + 1);
+        // So that a partition thread about to park either sees the tick or is woken up.
+        VarHandle.fullFence();
+        wakeUp();
+    }
+
+    /**
+     * Called by the decoding thread, once it won't put any more ticks.
+     */
+    void complete() {
+        done = true;
+        wakeUp();
+    }
+
+    /**
+     * @return The number of ticks waiting to be delivered.
+     */
+    long getDepth() {
+        return null == conflation ? head.get() - tail.get() : conflation.size();
+    }
+
+    /**
+     * @return The number of ticks replaced by a later one of their instrument before they were delivered.
+     */
+    long getConflated() {
+        return null == conflation ? 0L : conflation.conflated();
+    }
+
+    long getDelivered() {
+        return tail.get();
+    }
+
+    /**
+     * @return The number of times the decoding thread found the ring full, and had to wait.
+     */
+    long getStalls() {
+        return stalls;
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        try {
+            int attempt = 0;
+            while (true) {
+                final long available = head.get();
+                if (null == conflation ? deliverRing(available) : deliverConflated()) {
+                    attempt = 0;
+                } else if (done && head.get() == available) {
+                    // Ticks put right before completing are seen once done is, so they are delivered first.
+                    return;
+                } else if (attempt < SPINS) {
+                    attempt++;
+                    Thread.onSpinWait();
+                } else {
+                    park(available);
+                }
+            }
+        } finally {
+            stream.onPartitionDone();
+        }
+    }
+
+    /**
+     * @return {@code true} if any tick was delivered.
+     */
+    private boolean deliverRing(final long available) {
+        long position = tail.get();
+        if (position >= available) {
+            return false;
+        }
+        for (; position < available; position++) {
+            TickStream.deliver(subscribers, ring[(int) position & mask]);
+            tail.lazySet(position + 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if any tick was delivered.
+     */
+    private boolean deliverConflated() {
+        boolean delivered = false;
+        while (conflation.poll(delivering)) {
+            TickStream.deliver(subscribers, delivering);
+            tail.lazySet(tail.get() + 1);
+            delivered = true;
+        }
+        return delivered;
+    }
+
+    private void park(final long position) {
+        parked = true;
+        if (head.get() == position && !done) {
+            LockSupport.parkNanos(this, MAX_PARK_NANOS);
+        }
+        parked = false;
+    }
+
+    private void wakeUp() {
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * The latest undelivered tick of each instrument, indexed by its {@link Instrument#getId() token},
+     * and the queue of the instruments having one. Guarded by itself: a tick is only copied while holding it,
+     * so the decoding thread never waits for a subscriber. Only allocates when an instrument is first seen.
+     */
+    private static final class Conflation {
+
+        private Tick[] latest = new Tick[64];
+        private boolean[] pending = new boolean[64];
+        /**
+         * The instruments with a pending tick, a circular queue no longer than the number of instruments.
+         */
+        private int[] queue = new int[64];
+        private int first;
+        private int size;
+        private long conflated;
+
+        private synchronized void offer(final Tick tick) {
+            final int id = tick.getInstrument().getId();
+            if (id >= latest.length) {
+                grow(id);
+            }
+            Tick slot = latest[id];
+            if (null == slot) {
+                slot = new Tick();
+                latest[id] = slot;
+            }
+            slot.copyFrom(tick);
+            if (pending[id]) {
+                conflated++;
+                return;
+            }
+            pending[id] = true;
+            queue[(first + size) % queue.length] = id;
+            size++;
+        }
+
+        private synchronized boolean poll(final Tick into) {
+            if (0 == size) {
+                return false;
+            }
+            final int id = queue[first];
+            first = (first + 1) % queue.length;
+            size--;
+            pending[id] = false;
+            into.copyFrom(latest[id]);
+            return true;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized long conflated() {
+            return conflated;
+        }
+
+        private void grow(final int id) {
+            final int length = Math.max(id + 1, 2 * latest.length);
+            final int[] grown = new int[length];
+            for (int i = 0; i < size; i++) {
+                grown[i] = queue[(first + i) % queue.length];
+            }
+            queue = grown;
+            first = 0;
+            latest = Arrays.copyOf(latest, length);
+            pending = Arrays.copyOf(pending, length);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.websockets.MessageSubscriber;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.google.common.collect.ImmutableList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Subscribes to the messages of the web socket, decodes each frame once, and hands the ticks to its
+ * {@link TickSubscriber tick subscribers}, in order, on the thread delivering the messages.
+ * <p>
+ * Subscribed like any other {@link MessageSubscriber}:
+ * <pre>{@code
+ * webSocketService.connect(Collections.singletonList(
+ *         new TickStream(Arrays.asList(strategy, chart))));
+ * }</pre>
+ * Subscribers that only need the latest tick of each instrument are better served by a
+ * {@link PartitionedTickStream#conflating(List, int) conflating} stream: a backpressure policy such as
+ * {@link com.github.rishabh9.riko.upstox.websockets.InstrumentKeys#latestPerInstrument()} conflates whole frames,
+ * so it can't conflate the instruments quoted together in a frame.
+ */
+public class TickStream implements MessageSubscriber {
+
+    private static final Logger log = LogManager.getLogger(TickStream.class);
+
+    private final List<TickSubscriber> subscribers;
+    private final BackpressurePolicy<WebSocketMessage> policy;
+    private final TickDecoder decoder;
+    private final Consumer<Tick> fanOut = this::onTick;
+
+    /**
+     * Drops new messages while the tick subscribers are too slow to keep up with the socket.
+     *
+     * @param subscribers Receive the ticks
+     */
+    public TickStream(@Nonnull final List<TickSubscriber> subscribers) {
+        this(subscribers, BackpressurePolicy.dropNewest());
+    }
+
+    /**
+     * @param subscribers Receive the ticks
+     * @param policy      What happens to the messages while the tick subscribers are too slow to keep up
+     */
+    public TickStream(@Nonnull final List<TickSubscriber> subscribers,
+                      @Nonnull final BackpressurePolicy<WebSocketMessage> policy) {
+        this(subscribers, policy, new TickDecoder());
+    }
+
+    /**
+     * @param subscribers Receive the ticks
+     * @param policy      What happens to the messages while the tick subscribers are too slow to keep up
+     * @param decoder     Decodes the messages. Not to be used by anything else.
+     */
+    public TickStream(@Nonnull final List<TickSubscriber> subscribers,
+                      @Nonnull final BackpressurePolicy<WebSocketMessage> policy,
+                      @Nonnull final TickDecoder decoder) {
+        this.subscribers = ImmutableList.copyOf(subscribers);
+        this.policy = Objects.requireNonNull(policy);
+        this.decoder = Objects.requireNonNull(decoder);
+    }
+
+    @Override
+    public BackpressurePolicy<WebSocketMessage> getBackpressurePolicy() {
+        return policy;
+    }
+
+    /**
+     * @return The number of quotes that could not be decoded.
+     */
+    public long getMalformed() {
+        return decoder.getMalformed();
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(final WebSocketMessage message) {
+        decoder.decode(message, fanOut);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        signalError(subscribers, throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        signalComplete(subscribers);
+    }
+
+    private void onTick(final Tick tick) {
+        deliver(subscribers, tick);
+    }
+
+    static void deliver(final List<TickSubscriber> subscribers, final Tick tick) {
+        for (int i = 0; i < subscribers.size(); i++) {
+            final TickSubscriber subscriber = subscribers.get(i);
+            try {
+                subscriber.onTick(tick);
+            } catch (Throwable t) {
+                log.error("Tick subscriber {} failed to receive a tick", subscriber, t);
+            }
+        }
+    }
+
+    static void signalError(final List<TickSubscriber> subscribers, final Throwable throwable) {
+        for (TickSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onError(throwable);
+            } catch (Throwable t) {
+                log.error("Tick subscriber {} failed to handle an error", subscriber, t);
+            }
+        }
+    }
+
+    static void signalComplete(final List<TickSubscriber> subscribers) {
+        for (TickSubscriber subscriber : subscribers) {
+            try {
+                subscriber.onComplete();
+            } catch (Throwable t) {
+                log.error("Tick subscriber {} failed to handle the completion", subscriber, t);
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox;
+
+import com.github.rishabh9.riko.upstox.common.RetryPolicyFactory;
+import com.github.rishabh9.riko.upstox.common.Service;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import com.github.rishabh9.riko.upstox.users.UsersApi;
+import com.github.rishabh9.riko.upstox.users.models.Profile;
+import com.google.gson.Gson;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RikoClientTest extends BaseTest {
+
+    private static final int ACCOUNTS = 8;
+    private static final int THREADS = 32;
+    private static final int CALLS_PER_THREAD = 50;
+
+    @Test
+    void prepareServiceApi_returnsOneProxyPerAccount_whenCalledFromManyThreads()
+            throws InterruptedException, ExecutionException {
+
+        final ServiceGenerator serviceGenerator = new ServiceGenerator();
+        final List<ApiProbe> probes = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            probes.add(new ApiProbe(account(i), retryPolicyFactory, serviceGenerator));
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<List<UsersApi>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    final List<UsersApi> apis = new ArrayList<>();
+                    for (int c = 0; c < CALLS_PER_THREAD; c++) {
+                        apis.add(probes.get(c % ACCOUNTS).api());
+                    }
+                    return apis;
+                }));
+            }
+            start.countDown();
+
+            final List<Set<UsersApi>> perAccount = new ArrayList<>();
+            for (int i = 0; i < ACCOUNTS; i++) {
+                perAccount.add(ConcurrentHashMap.newKeySet());
+            }
+            for (Future<List<UsersApi>> result : results) {
+                final List<UsersApi> apis = result.get();
+                for (int c = 0; c < apis.size(); c++) {
+                    perAccount.get(c % ACCOUNTS).add(apis.get(c));
+                }
+            }
+            final Set<UsersApi> distinct = ConcurrentHashMap.newKeySet();
+            for (Set<UsersApi> apis : perAccount) {
+                assertEquals(1, apis.size());
+                distinct.addAll(apis);
+            }
+            assertEquals(ACCOUNTS, distinct.size());
+        } finally {
+            pool.shutdownNow();
+            serviceGenerator.close();
+        }
+    }
+
+    @Test
+    void serviceApis_sendTheirOwnCredentials_whenUsedConcurrently()
+            throws IOException, InterruptedException, ExecutionException {
+
+        final AtomicInteger mismatches = new AtomicInteger();
+        final MockWebServer server = new MockWebServer();
+        server.setDispatcher(new ProfileDispatcher(mismatches));
+        server.start();
+
+        final List<ServiceGenerator> serviceGenerators = new ArrayList<>();
+        final List<ApiProbe> probes = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            final ServiceGenerator serviceGenerator = new ServiceGenerator(server.url("/"));
+            serviceGenerators.add(serviceGenerator);
+            probes.add(new ApiProbe(account(i), retryPolicyFactory, serviceGenerator));
+        }
+
+        final ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (int c = 0; c < CALLS_PER_THREAD; c++) {
+                        final int account = (thread + c) % ACCOUNTS;
+                        final UpstoxResponse<Profile> response =
+                                probes.get(account).api().getProfile().get();
+                        assertEquals(String.valueOf(account), response.getData().getName());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+            assertEquals(0, mismatches.get());
+            assertEquals(THREADS * CALLS_PER_THREAD, server.getRequestCount());
+        } finally {
+            pool.shutdownNow();
+            serviceGenerators.forEach(ServiceGenerator::close);
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void clients_useTheirOwnAccount() throws IOException, InterruptedException, ExecutionException {
+
+        final AtomicInteger mismatches = new AtomicInteger();
+        final MockWebServer server = new MockWebServer();
+        server.setDispatcher(new ProfileDispatcher(mismatches));
+        server.start();
+
+        try (RikoClient first = new RikoClient(account(0), retryPolicyFactory, server.url("/"));
+             RikoClient second = new RikoClient(account(1), retryPolicyFactory, server.url("/"))) {
+
+            final CompletableFuture<UpstoxResponse<Profile>> firstProfile =
+                    first.getUserService().getProfile();
+            final CompletableFuture<UpstoxResponse<Profile>> secondProfile =
+                    second.getUserService().getProfile();
+
+            assertEquals("0", firstProfile.get().getData().getName());
+            assertEquals("1", secondProfile.get().getData().getName());
+            assertEquals(0, mismatches.get());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static UpstoxAuthService account(final int index) {
+        return new UpstoxAuthService() {
+            @Override
+            public ApiCredentials getApiCredentials() {
+                return new ApiCredentials("key-" + index, "secret-" + index);
+            }
+
+            @Override
+            public AccessToken getAccessToken() {
+                AccessToken token = new AccessToken();
+                token.setExpiresIn(86400L);
+                token.setType("Bearer");
+                token.setToken("token-" + index);
+                return token;
+            }
+        };
+    }
+
+    private static class ApiProbe extends Service {
+
+        ApiProbe(UpstoxAuthService upstoxAuthService,
+                 RetryPolicyFactory retryPolicyFactory,
+                 ServiceGenerator serviceGenerator) {
+            super(upstoxAuthService, retryPolicyFactory, serviceGenerator);
+        }
+
+        UsersApi api() {
+            return prepareServiceApi(UsersApi.class);
+        }
+    }
+
+    /**
+     * Answers with a profile named after the account, if the API key and the token belong to the same account.
+     */
+    private static class ProfileDispatcher extends Dispatcher {
+
+        private final AtomicInteger mismatches;
+
+        ProfileDispatcher(AtomicInteger mismatches) {
+            this.mismatches = mismatches;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            final String account = request.getHeader("x-api-key").substring("key-".length());
+            if (!("Bearer token-" + account).equals(request.getHeader("Authorization"))) {
+                mismatches.incrementAndGet();
+                return new MockResponse().setResponseCode(401);
+            }
+            final Profile profile = new Profile();
+            profile.setName(account);
+            final UpstoxResponse<Profile> response = new UpstoxResponse<>();
+            response.setCode(200);
+            response.setData(profile);
+            return new MockResponse().setBody(new Gson().toJson(response));
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_EXECUTOR_THREADS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionContextTest {
+
+    @Test
+    void bounded_runsAndSchedulesTasks() throws Exception {
+        try (ExecutionContext context = ExecutionContext.bounded(2)) {
+            assertFalse(context.isVirtualThreads());
+            assertFalse(context.isShared());
+            assertEquals("now", context.getExecutor().submit(() -> "now").get(5, TimeUnit.SECONDS));
+            assertEquals("later",
+                    context.getExecutor().schedule(() -> "later", 10, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void bounded_rejectsNoThreads() {
+        assertThrows(IllegalArgumentException.class, () -> ExecutionContext.bounded(0));
+    }
+
+    @Test
+    void close_shutsDownTheExecutor() throws Exception {
+        final ExecutionContext context = ExecutionContext.bounded(1);
+        context.close();
+
+        assertTrue(context.getExecutor().awaitTermination(5, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> context.getExecutor().execute(() -> {
+        }));
+    }
+
+    @Test
+    void virtual_runsTasks() throws Exception {
+        try (ExecutionContext context = ExecutionContext.virtual()) {
+            assertEquals("now", context.getExecutor().submit(() -> "now").get(5, TimeUnit.SECONDS));
+            assertEquals("later",
+                    context.getExecutor().schedule(() -> "later", 10, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void shared_cannotBeClosed() throws Exception {
+        final ExecutionContext shared = ExecutionContext.shared();
+        shared.close();
+
+        assertSame(shared, ExecutionContext.shared());
+        assertTrue(shared.isShared());
+        assertTrue(ExecutionContext.isSharedExecutor(shared.getExecutor()));
+        assertEquals("OK", shared.getExecutor().submit(() -> "OK").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void isSharedExecutor_isFalse_forADedicatedContext() {
+        try (ExecutionContext context = ExecutionContext.bounded(1)) {
+            assertFalse(ExecutionContext.isSharedExecutor(context.getExecutor()));
+        }
+    }
+
+    @Test
+    void createShared_rejectsThreadsThatAreNotPositive() {
+        System.setProperty(RIKO_EXECUTOR_THREADS, "0");
+        try {
+            final IllegalArgumentException e =
+                    assertThrows(IllegalArgumentException.class, ExecutionContext::createShared);
+            assertEquals("riko.executor.threads must be positive, was 0", e.getMessage());
+        } finally {
+            System.clearProperty(RIKO_EXECUTOR_THREADS);
+        }
+    }
+
+    @Test
+    void threadPerTask_runsEveryTaskOnANewThread() throws Exception {
+        final ThreadPerTaskScheduledExecutor executor = new ThreadPerTaskScheduledExecutor(Thread::new);
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final CountDownLatch allStarted = new CountDownLatch(3);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 3; i++) {
+                executor.execute(() -> {
+                    threads.add(Thread.currentThread());
+                    allStarted.countDown();
+                    await(release);
+                });
+            }
+
+            // None of them waits for another to complete.
+            assertTrue(allStarted.await(5, TimeUnit.SECONDS));
+            assertEquals(3, threads.size());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(executor.isTerminated());
+    }
+
+    @Test
+    void threadPerTask_runsADelayedTask_afterItsDelay() throws Exception {
+        final ThreadPerTaskScheduledExecutor executor = new ThreadPerTaskScheduledExecutor(Thread::new);
+        try {
+            final long start = System.nanoTime();
+            final ScheduledFuture<Long> ranAt = executor.schedule(System::nanoTime, 50, TimeUnit.MILLISECONDS);
+
+            assertTrue(ranAt.get(5, TimeUnit.SECONDS) - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void threadPerTask_doesNotRunACancelledTask() throws Exception {
+        final ThreadPerTaskScheduledExecutor executor = new ThreadPerTaskScheduledExecutor(Thread::new);
+        final AtomicInteger runs = new AtomicInteger();
+        try {
+            final ScheduledFuture<?> future = executor.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+            assertTrue(future.cancel(false));
+
+            executor.schedule(() -> null, 100, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+            assertEquals(0, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void threadPerTask_runsDelayedTasks_butNotPeriodicOnes_afterShutdown() throws Exception {
+        final ThreadPerTaskScheduledExecutor executor = new ThreadPerTaskScheduledExecutor(Thread::new);
+        final AtomicInteger periodicRuns = new AtomicInteger();
+        final ScheduledFuture<String> delayed = executor.schedule(() -> "OK", 50, TimeUnit.MILLISECONDS);
+        final ScheduledFuture<?> periodic =
+                executor.scheduleWithFixedDelay(periodicRuns::incrementAndGet, 1, 1, TimeUnit.HOURS);
+
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+        }));
+        assertEquals("OK", delayed.get(5, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(periodic.isCancelled());
+        assertEquals(0, periodicRuns.get());
+    }
+
+    @Test
+    void threadPerTask_repeatsAPeriodicTask_untilCancelled() throws Exception {
+        final ThreadPerTaskScheduledExecutor executor = new ThreadPerTaskScheduledExecutor(Thread::new);
+        final CountDownLatch runs = new CountDownLatch(3);
+        try {
+            final ScheduledFuture<?> periodic =
+                    executor.scheduleAtFixedRate(runs::countDown, 0, 10, TimeUnit.MILLISECONDS);
+
+            assertTrue(runs.await(5, TimeUnit.SECONDS));
+            assertTrue(periodic.cancel(false));
+            assertTrue(periodic.isDone());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common;
+
+import com.github.rishabh9.riko.upstox.common.retries.RetryBudget;
+import com.github.rishabh9.riko.upstox.common.retries.RetryableFailures;
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.RetryPolicy;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.PLACE_ORDER;
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.PROFILE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RikoRetryPolicyFactoryTest {
+
+    private final RikoRetryPolicyFactory factory = new RikoRetryPolicyFactory();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void retryPolicy_doesNotRetry_whenRequestIsInvalid() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ExecutionException.class,
+                () -> call(PROFILE, attempts, 10, httpException(400, null)).get());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void retryPolicy_retries_whenUpstoxIsUnavailable() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("OK", call(PROFILE, attempts, 2, httpException(503, null)).get());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void retryPolicy_retries_onNetworkError() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("OK", call(PROFILE, attempts, 1, new SocketTimeoutException()).get());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void retryPolicy_waitsForRetryAfter_whenThrottled() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final long start = System.nanoTime();
+
+        assertEquals("OK", call(PROFILE, attempts, 1, httpException(429, "1")).get());
+        assertEquals(2, attempts.get());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofMillis(900L)) >= 0);
+    }
+
+    @Test
+    void retryPolicy_doesNotRetryPlaceOrder_whenItMayHaveReachedUpstox() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ExecutionException.class,
+                () -> call(PLACE_ORDER, attempts, 1, new SocketTimeoutException()).get());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void retryPolicy_retriesPlaceOrder_whenConnectionFailed() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("OK", call(PLACE_ORDER, attempts, 1, new ConnectException()).get());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void retryableFailures_unwrapCompletionException() {
+        assertTrue(RetryableFailures.isRetryable(new CompletionException(httpException(502, null))));
+        assertFalse(RetryableFailures.isRetryable(new CompletionException(httpException(404, null))));
+        assertFalse(RetryableFailures.isRetryable(new IllegalStateException()));
+        assertEquals(Duration.ofSeconds(7L),
+                RetryableFailures.retryAfter(new CompletionException(httpException(503, "7"))).orElse(null));
+        assertFalse(RetryableFailures.retryAfter(httpException(500, "7")).isPresent());
+    }
+
+    @Test
+    void retryBudget_allowsRetries_inProportionToSuccesses() {
+        final RetryBudget budget = new RetryBudget(0.5D, 2.0D);
+
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+
+        budget.onSuccess();
+        assertFalse(budget.tryRetry());
+        budget.onSuccess();
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+    }
+
+    private CompletableFuture<String> call(final String endpoint,
+                                           final AtomicInteger attempts,
+                                           final int failures,
+                                           final Throwable failure) {
+
+        final RetryPolicy retryPolicy = factory.createRetryPolicy(endpoint).orElseThrow(IllegalStateException::new);
+        return Failsafe.with(retryPolicy)
+                .with(executor)
+                .future(() -> {
+                    final CompletableFuture<String> result = new CompletableFuture<>();
+                    if (attempts.incrementAndGet() <= failures) {
+                        result.completeExceptionally(failure);
+                    } else {
+                        result.complete("OK");
+                    }
+                    return result;
+                });
+    }
+
+    private static HttpException httpException(final int code, final String retryAfter) {
+        final okhttp3.Response.Builder raw = new okhttp3.Response.Builder()
+                .code(code)
+                .message("Error")
+                .protocol(Protocol.HTTP_1_1)
+                .request(new Request.Builder().url("http://localhost/").build());
+        if (null != retryAfter) {
+            raw.header("Retry-After", retryAfter);
+        }
+        return new HttpException(
+                Response.error(ResponseBody.create(MediaType.parse("application/json"), "{}"), raw.build()));
+    }
+}
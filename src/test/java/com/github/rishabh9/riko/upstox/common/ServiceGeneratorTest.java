@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common;
+
+import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
+import com.github.rishabh9.riko.upstox.historical.models.Candle;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceGeneratorTest {
+
+    @Test
+    void copy_makesADeepCopyOfAResponse() {
+        final Candle candle = new Candle();
+        candle.setTimestamp(1548310214000L);
+        candle.setOpen(new BigDecimal("712.5"));
+        candle.setClose(new BigDecimal("715.05"));
+        candle.setVolume(1200L);
+        final List<Candle> candles = new ArrayList<>();
+        candles.add(candle);
+        final UpstoxResponse<List<Candle>> response = new UpstoxResponse<>();
+        response.setCode(200);
+        response.setStatus("OK");
+        response.setData(candles);
+
+        final UpstoxResponse<List<Candle>> copy = ServiceGenerator.getInstance().copy(response);
+
+        assertEquals(response, copy);
+        assertNotSame(response, copy);
+        assertNotSame(candles, copy.getData());
+        assertNotSame(candle, copy.getData().get(0));
+        assertNull(ServiceGenerator.getInstance().copy(null));
+    }
+}
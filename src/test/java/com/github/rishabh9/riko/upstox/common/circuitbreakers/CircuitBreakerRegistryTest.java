@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.circuitbreakers;
+
+import net.jodah.failsafe.CircuitBreaker;
+import net.jodah.failsafe.CircuitBreakerOpenException;
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.FailsafeException;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.LIVE_FEED;
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.PROFILE;
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_CIRCUIT_DELAY;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerRegistryTest {
+
+    private final CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+
+    @Test
+    void get_opens_afterOutages_andFailsFast() {
+        final CircuitBreaker breaker = registry.get(PROFILE);
+        assertSame(breaker, registry.get(PROFILE));
+
+        // 5 of the last 10 calls failed.
+        for (int i = 0; i < 5; i++) {
+            assertEquals("OK", Failsafe.with(breaker).get(() -> "OK"));
+        }
+        for (int i = 0; i < 5; i++) {
+            assertEquals(CircuitBreaker.State.CLOSED, registry.getState(PROFILE));
+            assertThrows(FailsafeException.class, () -> Failsafe.with(breaker).get(() -> {
+                throw new SocketTimeoutException();
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, registry.getState(PROFILE));
+        assertFalse(registry.isAvailable(PROFILE));
+        final AtomicInteger calls = new AtomicInteger();
+        assertThrows(CircuitBreakerOpenException.class, () -> Failsafe.with(breaker).get(calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        // The other endpoints are not affected.
+        assertTrue(registry.isAvailable(LIVE_FEED));
+    }
+
+    @Test
+    void get_staysClosed_whenRequestsAreInvalid() {
+        final CircuitBreaker breaker = registry.get(PROFILE);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(HttpException.class, () -> Failsafe.with(breaker).get(() -> {
+                throw httpException(400);
+            }));
+            assertThrows(HttpException.class, () -> Failsafe.with(breaker).get(() -> {
+                throw httpException(429);
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, registry.getState(PROFILE));
+    }
+
+    @Test
+    void get_letsProbesThrough_onceTheDelayElapsed() throws Exception {
+        System.setProperty(RIKO_CIRCUIT_DELAY, "1");
+        final CircuitBreaker breaker;
+        try {
+            breaker = registry.get(PROFILE);
+        } finally {
+            System.clearProperty(RIKO_CIRCUIT_DELAY);
+        }
+        for (int i = 0; i < 10; i++) {
+            breaker.recordFailure(new IOException());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, registry.getState(PROFILE));
+
+        Thread.sleep(1100L);
+
+        // A failed probe opens it again.
+        assertEquals("probe", Failsafe.with(breaker).get(() -> "probe"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, registry.getState(PROFILE));
+        assertThrows(FailsafeException.class, () -> Failsafe.with(breaker).get(() -> {
+            throw new IOException();
+        }));
+        assertEquals(CircuitBreaker.State.OPEN, registry.getState(PROFILE));
+
+        Thread.sleep(1100L);
+
+        // Two successful probes close it.
+        assertEquals("probe", Failsafe.with(breaker).get(() -> "probe"));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, registry.getState(PROFILE));
+        assertEquals("probe", Failsafe.with(breaker).get(() -> "probe"));
+        assertEquals(CircuitBreaker.State.CLOSED, registry.getState(PROFILE));
+    }
+
+    @Test
+    void getState_isClosed_forAnEndpointNeverCalled() {
+        assertEquals(CircuitBreaker.State.CLOSED, registry.getState(PROFILE));
+        assertTrue(registry.isAvailable(PROFILE));
+    }
+
+    @Test
+    void register_replacesTheBreakerOfAnEndpoint_ofThisRegistryOnly() {
+        final CircuitBreaker breaker = new CircuitBreaker();
+        breaker.open();
+        registry.register(PROFILE, breaker);
+
+        assertSame(breaker, registry.get(PROFILE));
+        assertEquals(CircuitBreaker.State.OPEN, registry.getState(PROFILE));
+        assertEquals(CircuitBreaker.State.CLOSED, new CircuitBreakerRegistry().getState(PROFILE));
+    }
+
+    private static HttpException httpException(final int code) {
+        return new HttpException(Response.error(code, ResponseBody.create(MediaType.parse("application/json"), "")));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.coalescing;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<CompletableFuture<List<String>>> responses = new ArrayList<>();
+
+    @Test
+    void execute_sharesACallInFlight_givingACopyToTheOtherCallers() throws Exception {
+        final SingleFlight flight = new SingleFlight(0L, TimeUnit.MILLISECONDS, ticker);
+        final CompletableFuture<List<String>> first = flight.execute("key", call(), ArrayList::new);
+        final CompletableFuture<List<String>> second = flight.execute("key", call(), ArrayList::new);
+        final CompletableFuture<List<String>> other = flight.execute("other", call(), ArrayList::new);
+
+        assertEquals(2, calls.get());
+        assertEquals(2, flight.size());
+        final List<String> result = new ArrayList<>(Collections.singletonList("a"));
+        responses.get(0).complete(result);
+
+        assertSame(result, first.get());
+        assertEquals(result, second.get());
+        assertNotSame(result, second.get());
+        assertFalse(other.isDone());
+        assertEquals(1, flight.size());
+
+        // Not reused once completed.
+        flight.execute("key", call(), ArrayList::new);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_sharesTheSameResult_withoutACopier() throws Exception {
+        final SingleFlight flight = new SingleFlight(100L, TimeUnit.MILLISECONDS, ticker);
+        final CompletableFuture<List<String>> first = flight.execute("key", call());
+        final CompletableFuture<List<String>> second = flight.execute("key", call());
+        final List<String> result = Collections.singletonList("a");
+        responses.get(0).complete(result);
+
+        assertSame(result, first.get());
+        assertSame(result, second.get());
+        assertSame(result, flight.execute("key", call()).get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_reusesAResult_untilItExpires_evenForKeysNeverAskedAgain() throws Exception {
+        final SingleFlight flight = new SingleFlight(100L, TimeUnit.MILLISECONDS, ticker);
+        final CompletableFuture<List<String>> first = flight.execute("key", call(), ArrayList::new);
+        flight.execute("unique", call(), ArrayList::new);
+        final List<String> result = new ArrayList<>(Collections.singletonList("a"));
+        responses.get(0).complete(result);
+        responses.get(1).complete(new ArrayList<>());
+        // The first caller changing its result does not change the one reused.
+        first.get().add("b");
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(99L));
+        final List<String> reused = flight.execute("key", call(), ArrayList::new).get();
+        assertEquals(Collections.singletonList("a"), reused);
+        assertEquals(2, calls.get());
+        assertEquals(2, flight.size());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1L));
+        assertEquals(0, flight.size());
+        flight.execute("key", call(), ArrayList::new);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_neverReusesAFailure() {
+        final SingleFlight flight = new SingleFlight(100L, TimeUnit.MILLISECONDS, ticker);
+        final CompletableFuture<List<String>> first = flight.execute("key", call());
+        final CompletableFuture<List<String>> second = flight.execute("key", call());
+        responses.get(0).completeExceptionally(new IllegalStateException("boom"));
+
+        assertThrows(ExecutionException.class, first::get);
+        assertThrows(ExecutionException.class, second::get);
+        assertEquals(0, flight.size());
+        flight.execute("key", call());
+        assertEquals(2, calls.get());
+
+        final CompletableFuture<List<String>> thrown = flight.execute("thrown", () -> {
+            throw new IllegalStateException("boom");
+        });
+        assertTrue(thrown.isCompletedExceptionally());
+        assertEquals(1, flight.size());
+    }
+
+    private Supplier<CompletableFuture<List<String>>> call() {
+        return () -> {
+            calls.incrementAndGet();
+            final CompletableFuture<List<String>> response = new CompletableFuture<>();
+            responses.add(response);
+            return response;
+        };
+    }
+}
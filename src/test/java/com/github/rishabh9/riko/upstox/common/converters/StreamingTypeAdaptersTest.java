@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.converters;
+
+import com.github.rishabh9.riko.upstox.feed.models.BidsAsk;
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.github.rishabh9.riko.upstox.historical.models.Candle;
+import com.github.rishabh9.riko.upstox.orders.models.Order;
+import com.github.rishabh9.riko.upstox.orders.models.Trade;
+import com.github.rishabh9.riko.upstox.users.models.Position;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTypeAdaptersTest {
+
+    private static final String FEED = "{\"timestamp\":1548310214000,\"exchange\":\"NSE_EQ\",\"symbol\":\"RELIANCE\","
+            + "\"ltp\":1230.5,\"open\":\"1221.00\",\"high\":1235.95,\"low\":1219.1,\"close\":1225,"
+            + "\"vtt\":\"4512397\",\"atp\":1228.73,\"oi\":\"\",\"spot_price\":null,\"total_buy_qty\":125632,"
+            + "\"total_sell_qty\":98211,\"lower_circuit\":1102.5,\"upper_circuit\":1347.5,"
+            + "\"yearly_low\":\"875.05\",\"yearly_high\":1329,"
+            + "\"bids\":[{\"quantity\":10,\"price\":1230.45,\"orders\":2},{\"quantity\":25,\"price\":1230.4,\"orders\":1}],"
+            + "\"ask\":{\"quantity\":5,\"price\":1230.6,\"orders\":1},"
+            + "\"unknown\":{\"nested\":[1,2,{\"a\":null}]},\"ltt\":1548310213000}";
+
+    private static final String ORDER = "{\"exchange\":\"NSE_EQ\",\"token\":\"2885\",\"symbol\":\"RELIANCE\","
+            + "\"product\":\"I\",\"order_type\":\"L\",\"duration\":\"DAY\",\"price\":1230.5,\"trigger_price\":0,"
+            + "\"quantity\":10,\"disclosed_quantity\":0,\"transaction_type\":\"B\",\"average_price\":\"1230.45\","
+            + "\"traded_quantity\":10,\"message\":\"\",\"exchange_order_id\":\"1100000001234567\","
+            + "\"parent_order_id\":\"NA\",\"order_id\":\"190124000012345\",\"exchange_time\":\"24-Jan-2019 09:15:01\","
+            + "\"time_in_micro\":\"1548301501000000\",\"status\":\"complete\",\"is_amo\":\"true\","
+            + "\"valid_date\":1,\"order_request_id\":\"1\",\"fill_leg\":null,\"report\":\"x\",\"text\":true}";
+
+    private static final String TRADES = "[{\"exchange\":\"NSE_EQ\",\"token\":2885,\"symbol\":\"RELIANCE\","
+            + "\"product\":\"I\",\"order_type\":\"L\",\"transaction_type\":\"B\",\"traded_quantity\":10,"
+            + "\"exchange_order_id\":\"1100000001234567\",\"order_id\":\"190124000012345\","
+            + "\"exchange_time\":\"24-Jan-2019 09:15:01\",\"time_in_micro\":\"1548301501000000\","
+            + "\"traded_price\":1230.45,\"trade_id\":\"50012345\",\"extra\":1.5},null]";
+
+    private static final String POSITION = "{\"exchange\":\"NSE_EQ\",\"product\":\"D\",\"symbol\":\"RELIANCE\","
+            + "\"token\":2885,\"buy_amount\":12304.5,\"sell_amount\":0,\"buy_quantity\":10,\"sell_quantity\":0,"
+            + "\"cf_buy_amount\":0,\"cf_sell_amount\":0,\"cf_buy_quantity\":0,\"cf_sell_quantity\":0,"
+            + "\"avg_buy_price\":1230.45,\"avg_sell_price\":\"\",\"net_quantity\":10,\"close_price\":1225,"
+            + "\"last_traded_price\":\"1231.1\",\"realized_profit\":false,\"unrealized_profit\":6.5,"
+            + "\"cf_avg_price\":null}";
+
+    private static final String CANDLES = "[{\"timestamp\":1548301500000,\"open\":1221,\"high\":1235.95,"
+            + "\"low\":1219.1,\"close\":1230.5,\"volume\":452397,\"cp\":1225},"
+            + "{\"timestamp\":1548301560000,\"open\":1230.5,\"high\":1231,\"low\":1229.8,\"close\":1230,"
+            + "\"volume\":\"12011\",\"cp\":1225,\"oi\":7}]";
+
+    private final Gson reflective = new GsonBuilder()
+            .registerTypeAdapter(NumberString.class, new NumberStringSerializer())
+            .registerTypeAdapter(NumberString.class, new NumberStringDeserializer())
+            .registerTypeAdapterFactory(new AlwaysListTypeAdapterFactory())
+            .create();
+
+    private final Gson streaming = new GsonBuilder()
+            .registerTypeAdapter(NumberString.class, new NumberStringSerializer())
+            .registerTypeAdapter(NumberString.class, new NumberStringDeserializer())
+            .registerTypeAdapterFactory(new AlwaysListTypeAdapterFactory())
+            .registerTypeAdapter(Feed.class, new FeedTypeAdapter())
+            .registerTypeAdapter(BidsAsk.class, new BidsAskTypeAdapter())
+            .registerTypeAdapter(Order.class, new OrderTypeAdapter())
+            .registerTypeAdapter(Trade.class, new TradeTypeAdapter())
+            .registerTypeAdapter(Position.class, new PositionTypeAdapter())
+            .registerTypeAdapter(Candle.class, new CandleTypeAdapter())
+            .create();
+
+    @Test
+    void read_producesTheSameFeed_asReflection() {
+        final Feed expected = reflective.fromJson(FEED, Feed.class);
+        final Feed actual = streaming.fromJson(FEED, Feed.class);
+
+        assertEquals(expected, actual);
+        assertFalse(actual.getOi().isNumber());
+        assertEquals(new BigDecimal("875.05"), actual.getYearlyLow().value());
+        assertEquals(1, actual.getAsk().size());
+        assertEquals(2, actual.getBids().size());
+    }
+
+    @Test
+    void read_producesTheSameOrder_asReflection() {
+        final Order expected = reflective.fromJson(ORDER, Order.class);
+        final Order actual = streaming.fromJson(ORDER, Order.class);
+
+        assertEquals(expected, actual);
+        assertTrue(actual.isIs_amo());
+    }
+
+    @Test
+    void read_producesTheSameTrades_asReflection() {
+        final Type type = new TypeToken<List<Trade>>() {
+        }.getType();
+        final List<Trade> expected = reflective.fromJson(TRADES, type);
+        final List<Trade> actual = streaming.fromJson(TRADES, type);
+
+        assertEquals(expected, actual);
+        assertNull(actual.get(1));
+    }
+
+    @Test
+    void read_producesTheSamePosition_asReflection() {
+        assertEquals(reflective.fromJson(POSITION, Position.class), streaming.fromJson(POSITION, Position.class));
+    }
+
+    @Test
+    void read_producesTheSameCandles_asReflection() {
+        final Type type = new TypeToken<List<Candle>>() {
+        }.getType();
+        final List<Candle> expected = reflective.fromJson(CANDLES, type);
+        final List<Candle> actual = streaming.fromJson(CANDLES, type);
+
+        assertEquals(expected, actual);
+        assertEquals(Long.valueOf(12011L), actual.get(1).getVolume());
+    }
+
+    @Test
+    void write_canBeReadBack_byReflection() {
+        final Feed feed = streaming.fromJson(FEED, Feed.class);
+        assertEquals(feed, reflective.fromJson(streaming.toJson(feed), Feed.class));
+
+        final Order order = streaming.fromJson(ORDER, Order.class);
+        assertEquals(order, reflective.fromJson(streaming.toJson(order), Order.class));
+
+        final Position position = streaming.fromJson(POSITION, Position.class);
+        assertEquals(position, reflective.fromJson(streaming.toJson(position), Position.class));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.interceptors;
+
+import com.github.rishabh9.riko.upstox.common.UpstoxAuthService;
+import com.github.rishabh9.riko.upstox.common.models.ApiCredentials;
+import com.github.rishabh9.riko.upstox.login.models.AccessToken;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstoxAuthenticationInterceptorTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final AtomicReference<String> token = new AtomicReference<>("first_token");
+    private final List<String> sentAuthorizations = new ArrayList<>();
+    private OkHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server.start();
+        final UpstoxAuthService authService = new UpstoxAuthService() {
+            @Override
+            public ApiCredentials getApiCredentials() {
+                return new ApiCredentials("secretApiKey", "secret-secret");
+            }
+
+            @Override
+            public AccessToken getAccessToken() {
+                final AccessToken accessToken = new AccessToken();
+                accessToken.setType("Bearer");
+                accessToken.setToken(token.get());
+                return accessToken;
+            }
+        };
+        client = new OkHttpClient.Builder()
+                .addInterceptor(new UpstoxAuthenticationInterceptor(authService))
+                // Sees the headers as the interceptor set them.
+                .addInterceptor(chain -> {
+                    sentAuthorizations.add(chain.request().header("Authorization"));
+                    return chain.proceed(chain.request());
+                })
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+        server.shutdown();
+    }
+
+    @Test
+    void intercept_sendsTheLatestToken_afterItIsRotated() throws Exception {
+        call();
+        token.set("second_token");
+        call();
+
+        final RecordedRequest first = server.takeRequest();
+        assertEquals("Bearer first_token", first.getHeader("Authorization"));
+        assertEquals("secretApiKey", first.getHeader("X-API-KEY"));
+        final RecordedRequest second = server.takeRequest();
+        assertEquals("Bearer second_token", second.getHeader("Authorization"));
+        assertEquals("secretApiKey", second.getHeader("X-API-KEY"));
+    }
+
+    @Test
+    void intercept_reusesTheHeaders_whileTheTokenIsUnchanged() throws Exception {
+        call();
+        call();
+        token.set("second_token");
+        call();
+
+        assertEquals(3, sentAuthorizations.size());
+        assertSame(sentAuthorizations.get(0), sentAuthorizations.get(1));
+        assertNotSame(sentAuthorizations.get(1), sentAuthorizations.get(2));
+        assertEquals("Bearer second_token", sentAuthorizations.get(2));
+    }
+
+    @Test
+    void intercept_replacesTheHeadersOfTheRequest() throws Exception {
+        final Request request = new Request.Builder()
+                .url(server.url("/"))
+                .header("Authorization", "Bearer stale_token")
+                .build();
+        server.enqueue(new MockResponse());
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals(200, response.code());
+        }
+
+        final RecordedRequest recorded = server.takeRequest();
+        assertEquals("Bearer first_token", recorded.getHeader("Authorization"));
+        assertEquals(1, recorded.getHeaders().values("Authorization").size());
+    }
+
+    private void call() throws IOException {
+        server.enqueue(new MockResponse());
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/")).build()).execute()) {
+            assertEquals(200, response.code());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimiters;
+
+import com.google.common.base.Ticker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    @Test
+    void acquire_reservesEvenlySpacedSlots() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(1.0, ticker);
+
+        assertTrue(limiter.acquire().isDone());
+        assertEquals(Duration.ofSeconds(1L), limiter.getExpectedWait());
+
+        assertFalse(limiter.acquire().isDone());
+        assertFalse(limiter.acquire().isDone());
+        assertEquals(2, limiter.getQueueDepth());
+        // The slots at 1s and 2s are taken, the next one is at 3s.
+        assertEquals(Duration.ofSeconds(3L), limiter.getExpectedWait());
+
+        advance(TimeUnit.MILLISECONDS.toNanos(2500L));
+        assertEquals(Duration.ofMillis(500L), limiter.getExpectedWait());
+    }
+
+    @Test
+    void acquire_doesNotAccumulatePermits_whileIdle() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(2.0, ticker);
+        assertTrue(limiter.acquire().isDone());
+
+        advance(TimeUnit.SECONDS.toNanos(10L));
+
+        assertEquals(Duration.ZERO, limiter.getExpectedWait());
+        assertTrue(limiter.acquire().isDone());
+        // Only one permit is free after a long idle period, not a burst of them.
+        assertEquals(Duration.ofMillis(500L), limiter.getExpectedWait());
+        assertFalse(limiter.acquire().isDone());
+    }
+
+    @Test
+    void acquire_completesThePermit_onceItsSlotArrives() throws Exception {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(20.0, ticker);
+        assertTrue(limiter.acquire().isDone());
+        final CompletableFuture<Void> second = limiter.acquire();
+        final CompletableFuture<Void> third = limiter.acquire();
+        assertEquals(2, limiter.getQueueDepth());
+
+        // Scheduled 50ms and 100ms from now.
+        second.get(1L, TimeUnit.SECONDS);
+        third.get(1L, TimeUnit.SECONDS);
+        assertEquals(0, limiter.getQueueDepth());
+    }
+
+    @Test
+    void tryAcquire_takesAPermit_onlyIfOneIsFreeNow() {
+        final AsyncRateLimiter limiter = new AsyncRateLimiter(2.0, ticker);
+
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        // A failed attempt does not reserve the next permit.
+        assertEquals(Duration.ofMillis(500L), limiter.getExpectedWait());
+        assertEquals(0, limiter.getQueueDepth());
+
+        advance(TimeUnit.MILLISECONDS.toNanos(500L));
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.acquire().isDone());
+    }
+
+    @Test
+    void constructor_rejectsARateThatIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncRateLimiter(0.0));
+        assertThrows(IllegalArgumentException.class, () -> new AsyncRateLimiter(Double.NaN));
+    }
+
+    private void advance(final long delta) {
+        nanos.addAndGet(delta);
+    }
+}
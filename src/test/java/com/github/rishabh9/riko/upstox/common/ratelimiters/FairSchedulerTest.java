@@ -0,0 +1,206 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimiters;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairSchedulerTest {
+
+    /**
+     * The names of the calls, as they start.
+     */
+    private final BlockingQueue<String> started = new LinkedBlockingQueue<>();
+    /**
+     * The latches the calls block their thread on, released by the test.
+     */
+    private final Map<String, CountDownLatch> releases = new ConcurrentHashMap<>();
+
+    @Test
+    void submit_limitsTheCallsOfAnAccount_runningOnTheThreads() throws Exception {
+        final FairScheduler scheduler = new FairScheduler(2, 1);
+        final CompletableFuture<String> a1 = scheduler.submit("a", blockingCall("a1"));
+        final CompletableFuture<String> a2 = scheduler.submit("a", blockingCall("a2"));
+
+        assertEquals("a1", next());
+        assertNull(started.poll(100L, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.getQueueDepth("a"));
+
+        // The backlog of 'a' did not take the thread left for 'b'.
+        final CompletableFuture<String> b1 = scheduler.submit("b", blockingCall("b1"));
+        assertEquals("b1", next());
+        release("b1");
+        assertEquals("b1", b1.get(1L, TimeUnit.SECONDS));
+
+        release("a1");
+        assertEquals("a1", a1.get(1L, TimeUnit.SECONDS));
+        assertEquals("a2", next());
+        assertFalse(a2.isDone());
+        release("a2");
+        assertEquals("a2", a2.get(1L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_doesNotDelayTheNextCall_whileASlowResponseIsInFlight() throws Exception {
+        final FairScheduler scheduler = new FairScheduler(1, 1);
+        final CompletableFuture<String> ohlc = new CompletableFuture<>();
+        final CompletableFuture<String> slow = scheduler.submit("a", () -> {
+            started.add("ohlc");
+            return ohlc;
+        });
+        assertEquals("ohlc", next());
+
+        // The order goes out, and its response arrives, while the response of the slow call is still awaited.
+        final CompletableFuture<String> order = scheduler.submit("a",
+                () -> CompletableFuture.completedFuture("order"));
+        assertEquals("order", order.get(1L, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+
+        ohlc.complete("ohlc");
+        assertEquals("ohlc", slow.get(1L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_takesThePermit_whenTheCallIsDispatched() throws Exception {
+        final FairScheduler scheduler = new FairScheduler(1, 1);
+        final AsyncRateLimiter rateLimiter = new AsyncRateLimiter(10.0);
+        final List<Long> startedAt = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<String> blocker = scheduler.submit("a", blockingCall("blocker"));
+        final List<CompletableFuture<Long>> calls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            calls.add(scheduler.submit("a", rateLimiter, () -> {
+                startedAt.add(System.nanoTime());
+                return CompletableFuture.completedFuture(System.nanoTime());
+            }));
+        }
+        assertEquals("blocker", next());
+        // Long enough for the permits to have piled up, had they been taken when the calls were queued.
+        Thread.sleep(300L);
+        release("blocker");
+        blocker.get(1L, TimeUnit.SECONDS);
+        for (CompletableFuture<Long> call : calls) {
+            call.get(1L, TimeUnit.SECONDS);
+        }
+
+        // The calls went out at the rate of the endpoint, instead of in a burst once the thread was free.
+        for (int i = 1; i < startedAt.size(); i++) {
+            assertTrue(startedAt.get(i) - startedAt.get(i - 1) >= TimeUnit.MILLISECONDS.toNanos(50L),
+                    "Call " + i + " started too early");
+        }
+    }
+
+    @Test
+    void submit_dispatchesTheOtherCallsOfAnAccount_whileAnEndpointHasNoPermitLeft() throws Exception {
+        final FairScheduler scheduler = new FairScheduler(1, 1);
+        final AsyncRateLimiter ohlcRateLimiter = new AsyncRateLimiter(1.0);
+        final AsyncRateLimiter orderRateLimiter = new AsyncRateLimiter(10.0);
+        final CompletableFuture<String> ohlc1 = scheduler.submit("a", ohlcRateLimiter,
+                () -> CompletableFuture.completedFuture("ohlc1"));
+        assertEquals("ohlc1", ohlc1.get(1L, TimeUnit.SECONDS));
+
+        final CompletableFuture<String> ohlc2 = scheduler.submit("a", ohlcRateLimiter,
+                () -> CompletableFuture.completedFuture("ohlc2"));
+        final CompletableFuture<String> order = scheduler.submit("a", orderRateLimiter,
+                () -> CompletableFuture.completedFuture("order"));
+
+        // The order does not wait a second behind the throttled call, which stays queued without a thread.
+        assertEquals("order", order.get(500L, TimeUnit.MILLISECONDS));
+        assertFalse(ohlc2.isDone());
+        assertEquals(1, scheduler.getQueueDepth("a"));
+        assertEquals("ohlc2", ohlc2.get(2L, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_failsTheFuture_whenTheCallThrows_andFreesTheSlot() throws Exception {
+        final FairScheduler scheduler = new FairScheduler(1, 1);
+        final CompletableFuture<String> failed = scheduler.submit("a", () -> {
+            throw new IllegalStateException("boom");
+        });
+        final CompletableFuture<String> next = scheduler.submit("a", blockingCall("a2"));
+
+        assertEquals("a2", next());
+        release("a2");
+        assertEquals("a2", next.get(1L, TimeUnit.SECONDS));
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    @Test
+    void submit_servesTheAccounts_inRoundRobinOrder() throws Exception {
+        final FairScheduler scheduler = new FairScheduler(1, 1);
+        scheduler.submit("a", blockingCall("a1"));
+        scheduler.submit("a", blockingCall("a2"));
+        scheduler.submit("a", blockingCall("a3"));
+        scheduler.submit("b", blockingCall("b1"));
+        scheduler.submit("b", blockingCall("b2"));
+        scheduler.submit("c", blockingCall("c1"));
+
+        // 'a' was served first, so it goes behind 'b' and 'c', which queued while a1 was running.
+        for (String expected : new String[]{"a1", "b1", "c1", "a2", "b2", "a3"}) {
+            assertEquals(expected, next());
+            assertNull(started.poll(20L, TimeUnit.MILLISECONDS));
+            release(expected);
+        }
+        assertEquals(0, scheduler.getQueueDepth("a"));
+        assertEquals(0, scheduler.getQueueDepth("b"));
+    }
+
+    /**
+     * A call blocking its thread until the test releases it, as the building of a large request does.
+     */
+    private Supplier<CompletableFuture<String>> blockingCall(final String name) {
+        final CountDownLatch release = new CountDownLatch(1);
+        releases.put(name, release);
+        return () -> {
+            started.add(name);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return CompletableFuture.completedFuture(name);
+        };
+    }
+
+    private void release(final String name) {
+        releases.get(name).countDown();
+    }
+
+    private String next() throws InterruptedException {
+        return started.poll(1L, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.common.ratelimiters;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.LIVE_FEED;
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.PROFILE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterRegistryTest {
+
+    private final RateLimiterRegistry registry = new RateLimiterRegistry();
+
+    @Test
+    void get_returnsOneLimiter_perApiKeyAndEndpoint() {
+        final AsyncRateLimiter limiter = registry.get("a", PROFILE, 1.0);
+
+        assertSame(limiter, registry.get("a", PROFILE, 5.0));
+        // The rate is only used when the limiter is created.
+        assertEquals(1.0, registry.get("a", PROFILE, 5.0).getRate());
+        assertNotSame(limiter, registry.get("b", PROFILE, 1.0));
+        assertNotSame(limiter, registry.get("a", LIVE_FEED, 1.0));
+    }
+
+    @Test
+    void get_keepsTheBudgetOfAnAccount_awayFromTheOthers() {
+        assertTrue(registry.get("a", PROFILE, 1.0).acquire().isDone());
+        final CompletableFuture<Void> throttled = registry.get("a", PROFILE, 1.0).acquire();
+
+        assertFalse(throttled.isDone());
+        assertEquals(1, registry.getQueueDepth("a", PROFILE));
+        assertTrue(registry.getExpectedWait("a", PROFILE).compareTo(Duration.ofMillis(500L)) > 0);
+
+        // Neither another account, nor another endpoint of the account, waits behind it.
+        assertEquals(0, registry.getQueueDepth("b", PROFILE));
+        assertEquals(Duration.ZERO, registry.getExpectedWait("b", PROFILE));
+        assertTrue(registry.get("b", PROFILE, 1.0).acquire().isDone());
+        assertTrue(registry.get("a", LIVE_FEED, 1.0).acquire().isDone());
+        assertEquals(0, registry.getQueueDepth("a", LIVE_FEED));
+    }
+
+    @Test
+    void remove_discardsTheLimitersOfAnAccount_only() {
+        final AsyncRateLimiter a = registry.get("a", PROFILE, 1.0);
+        final AsyncRateLimiter b = registry.get("b", PROFILE, 1.0);
+
+        registry.remove("a");
+
+        assertNotSame(a, registry.get("a", PROFILE, 1.0));
+        assertSame(b, registry.get("b", PROFILE, 1.0));
+    }
+}
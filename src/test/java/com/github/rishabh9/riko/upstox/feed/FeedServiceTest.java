@@ -26,12 +26,19 @@ package com.github.rishabh9.riko.upstox.feed;
 
 import com.github.rishabh9.riko.upstox.BaseTest;
 import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
+import com.github.rishabh9.riko.upstox.common.constants.Exchanges;
+import com.github.rishabh9.riko.upstox.common.constants.LiveFeedType;
 import com.github.rishabh9.riko.upstox.common.models.UpstoxResponse;
 import com.github.rishabh9.riko.upstox.feed.models.Feed;
 import com.github.rishabh9.riko.upstox.feed.models.Subscription;
 import com.github.rishabh9.riko.upstox.feed.models.SubscriptionResponse;
 import com.github.rishabh9.riko.upstox.feed.models.SymbolSubscribed;
+import com.github.rishabh9.riko.upstox.websockets.ticks.InstrumentRegistry;
+import com.github.rishabh9.riko.upstox.websockets.ticks.LastValueCache;
+import com.github.rishabh9.riko.upstox.websockets.ticks.TickDecoder;
 import com.google.gson.Gson;
+import net.jodah.failsafe.CircuitBreaker;
+import net.jodah.failsafe.CircuitBreakerOpenException;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import org.apache.logging.log4j.LogManager;
@@ -39,9 +46,11 @@ import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import static com.github.rishabh9.riko.upstox.common.constants.Endpoints.LIVE_FEED;
 import static okhttp3.mockwebserver.SocketPolicy.DISCONNECT_AFTER_REQUEST;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -127,6 +136,87 @@ class FeedServiceTest extends BaseTest {
         }
     }
 
+    @Test
+    void liveFeed_servedFromTheCache_whenItHoldsTheFeed() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+
+        Feed cached = new Feed();
+        cached.setSymbol("RELIANCE");
+        FeedService service = new FeedService(upstoxAuthService, retryPolicyFactory, ServiceGenerator.getInstance(),
+                (exchange, symbol, type) -> "RELIANCE".equals(symbol) ? cached : null);
+
+        try {
+            UpstoxResponse<Feed> serverResponse = service.liveFeed("NSE", "RELIANCE", "FULL").get();
+            assertEquals(200, serverResponse.getCode());
+            assertSame(cached, serverResponse.getData());
+            assertEquals(0, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void liveFeed_servedFromTheLastValueCache_forTheExchangesConstants() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.start();
+
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+
+        InstrumentRegistry registry = new InstrumentRegistry();
+        LastValueCache cache = new LastValueCache(registry, 1000L);
+        new TickDecoder(registry).decode(System.currentTimeMillis() + ",NSE_EQ,RELIANCE,1230.5,1225", cache::onTick);
+        FeedService service = new FeedService(upstoxAuthService, retryPolicyFactory, ServiceGenerator.getInstance(),
+                cache);
+
+        try {
+            UpstoxResponse<Feed> serverResponse =
+                    service.liveFeed(Exchanges.NSE_EQUITY, "reliance", LiveFeedType.LTP).get();
+            assertEquals(200, serverResponse.getCode());
+            assertEquals(new BigDecimal("1230.5000"), serverResponse.getData().getLtp());
+            assertEquals(0, server.getRequestCount());
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void liveFeed_failsFast_whileTheCircuitOfTheClientIsOpen() throws IOException {
+        MockWebServer server = new MockWebServer();
+        for (int i = 0; i < 10; i++) {
+            server.enqueue(new MockResponse().setResponseCode(1003));
+        }
+        server.start();
+
+        ServiceGenerator generator = new ServiceGenerator(server.url("/"));
+        ServiceGenerator otherGenerator = new ServiceGenerator(server.url("/"));
+        FeedService service = new FeedService(upstoxAuthService, retryPolicyFactory, generator);
+        FeedService otherService = new FeedService(upstoxAuthService, retryPolicyFactory, otherGenerator);
+
+        try {
+            // The default threshold is 5 failures of the last 10 calls.
+            for (int i = 0; i < 10; i++) {
+                assertEquals(CircuitBreaker.State.CLOSED, service.getCircuitState(LIVE_FEED));
+                assertThrows(ExecutionException.class,
+                        service.liveFeed("NSE", "RELIANCE", "FULL")::get);
+            }
+            assertEquals(CircuitBreaker.State.OPEN, service.getCircuitState(LIVE_FEED));
+
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    service.liveFeed("NSE", "RELIANCE", "FULL")::get);
+            assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+            assertEquals(10, server.getRequestCount());
+            // The circuit of another client is not affected.
+            assertEquals(CircuitBreaker.State.CLOSED, otherService.getCircuitState(LIVE_FEED));
+        } finally {
+            generator.close();
+            otherGenerator.close();
+            server.shutdown();
+        }
+    }
+
     @Test
     void liveFeed_throwIAE_whenRequiredParametersAreMissing() {
         FeedService service = new FeedService(upstoxAuthService, retryPolicyFactory);
@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.ConnectedMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InstrumentKeysTest {
+
+    private static final WrappedWebSocket socket = new WrappedWebSocket(null);
+
+    private static final String LTP = "1547448126000,NSE_EQ,INFY,712.5,708.35";
+
+    @Test
+    void exchangeAndSymbol_ofASingleQuote() {
+        assertEquals("NSE_EQ,INFY", InstrumentKeys.exchangeAndSymbol(new TextMessage(socket, LTP)));
+        assertEquals("NSE_EQ,INFY", InstrumentKeys.exchangeAndSymbol(new TextMessage(socket, LTP + ";")));
+        assertEquals("NSE_EQ,INFY",
+                InstrumentKeys.exchangeAndSymbol(new BinaryMessage(socket, ByteString.encodeUtf8(LTP + ";"))));
+    }
+
+    @Test
+    void exchangeAndSymbol_isNull_forSeveralQuotes() {
+        final String frame = LTP + ";1547448126000,BSE_EQ,TCS,1901.1,1899.0;";
+        assertNull(InstrumentKeys.exchangeAndSymbol(new TextMessage(socket, frame)));
+        assertNull(InstrumentKeys.exchangeAndSymbol(new BinaryMessage(socket, ByteString.encodeUtf8(frame))));
+    }
+
+    @Test
+    void exchangeAndSymbol_isNull_forOtherMessages() {
+        assertNull(InstrumentKeys.exchangeAndSymbol(new TextMessage(socket, "pong")));
+        assertNull(InstrumentKeys.exchangeAndSymbol(new TextMessage(socket, "a,b")));
+        assertNull(InstrumentKeys.exchangeAndSymbol(new BinaryMessage(socket, ByteString.EMPTY)));
+        assertNull(InstrumentKeys.exchangeAndSymbol(new ConnectedMessage(socket, null)));
+    }
+}
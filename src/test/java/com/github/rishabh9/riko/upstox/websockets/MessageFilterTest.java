@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.common.constants.Exchanges;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.WaitStrategy;
+import com.github.rishabh9.riko.upstox.websockets.messages.DisconnectedMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.github.rishabh9.riko.upstox.websockets.ticks.InstrumentRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageFilterTest {
+
+    private static final String INFY = "1548310214000,NSE_EQ,INFY,712.5,708.35";
+    private static final String TCS = "1548310214000,NSE_EQ,TCS,1901.1,1899.0";
+    private static final String NIFTY = "1548310214000,NSE_FO,NIFTY19JANFUT,10850.5,10830.0";
+    private static final String GOLD = "1548310214000,MCX_FO,GOLD19FEBFUT,32500,32450";
+
+    @Test
+    void symbols_letThroughTheFramesQuotingThem_andTheOtherMessages() throws InterruptedException {
+        final List<String> received = publish(MessageFilter.all().symbols("NSE_EQ", "INFY"));
+
+        assertEquals(Arrays.asList(INFY, TCS + ";" + INFY, "disconnected"), received);
+    }
+
+    @Test
+    void exchangesAndInstruments_areCombined() throws InterruptedException {
+        final MessageFilter filter = MessageFilter.all()
+                .exchanges("NSE_FO")
+                .instruments(InstrumentRegistry.getInstance().register("MCX_FO", "GOLD19FEBFUT"));
+
+        assertEquals(Arrays.asList(NIFTY, GOLD, "disconnected"), publish(filter));
+    }
+
+    @Test
+    void exchangesAndSymbols_matchTheFeed_whenGivenTheExchangesConstants() throws InterruptedException {
+        assertEquals(Arrays.asList(INFY, TCS, TCS + ";" + INFY, "disconnected"),
+                publish(MessageFilter.all().exchanges(Exchanges.NSE_EQUITY)));
+        assertEquals(Arrays.asList(GOLD, "disconnected"),
+                publish(MessageFilter.all().symbols(Exchanges.MCX_FUTURES, "gold19febfut")));
+        assertEquals(MessageFilter.all().exchanges("NSE_EQ"), MessageFilter.all().exchanges(Exchanges.NSE_EQUITY));
+    }
+
+    @Test
+    void types_letThroughTheMessagesOfThoseTypesOnly() throws InterruptedException {
+        assertEquals(Collections.singletonList("disconnected"),
+                publish(MessageFilter.all().types(DisconnectedMessage.class)));
+        assertEquals(Arrays.asList(INFY, TCS, TCS + ";" + INFY),
+                publish(MessageFilter.all().types(TextMessage.class).exchanges("NSE_EQ")));
+    }
+
+    @Test
+    void all_letsEverythingThrough() throws InterruptedException {
+        assertTrue(MessageFilter.all().isAll());
+        assertFalse(MessageFilter.all().exchanges("NSE_EQ").isAll());
+        assertEquals(Arrays.asList(INFY, TCS, TCS + ";" + INFY, NIFTY, GOLD, "disconnected"),
+                publish(MessageFilter.all()));
+    }
+
+    private static List<String> publish(final MessageFilter filter) throws InterruptedException {
+        final RecordingSubscriber subscriber = new RecordingSubscriber(filter);
+        final MessageListener listener =
+                new MessageListener(Collections.singletonList(subscriber), 16, WaitStrategy.YIELD);
+
+        for (String frame : Arrays.asList(INFY, TCS, TCS + ";" + INFY, NIFTY, GOLD)) {
+            listener.onMessage(null, frame);
+        }
+        listener.onClosed(null, 1000, "disconnected");
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        return subscriber.received;
+    }
+
+    private static class RecordingSubscriber implements MessageSubscriber {
+
+        private final MessageFilter filter;
+        private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        RecordingSubscriber(MessageFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public MessageFilter getFilter() {
+            return filter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            if (item instanceof TextMessage) {
+                received.add(((TextMessage) item).getMessage());
+            } else if (item instanceof DisconnectedMessage) {
+                received.add("disconnected");
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.websockets.dispatch.WaitStrategy;
+import com.github.rishabh9.riko.upstox.websockets.messages.ConnectedMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.ErrorMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageListenerTest {
+
+    private static final Response SWITCHING_PROTOCOLS = new Response.Builder()
+            .request(new Request.Builder().url("https://ws-api.upstox.com").build())
+            .protocol(Protocol.HTTP_1_1)
+            .code(101)
+            .message("Switching Protocols")
+            .build();
+
+    @Test
+    void expectOpen_completesOnOpen() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        final MessageListener listener =
+                new MessageListener(Collections.singletonList(subscriber), 16, WaitStrategy.YIELD);
+
+        final CompletableFuture<WrappedWebSocket> opened = listener.expectOpen();
+        assertFalse(opened.isDone());
+        listener.onOpen(null, SWITCHING_PROTOCOLS);
+
+        assertSame(listener.wrap(null), opened.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failureBeforeOpen_failsTheAttempt_andKeepsTheSubscribers() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        final MessageListener listener =
+                new MessageListener(Collections.singletonList(subscriber), 16, WaitStrategy.YIELD);
+
+        final IOException failure = new IOException("Connection refused");
+        final CompletableFuture<WrappedWebSocket> first = listener.expectOpen();
+        listener.onFailure(null, failure, null);
+        final ExecutionException thrown = assertThrows(ExecutionException.class, first::get);
+        assertSame(failure, thrown.getCause());
+
+        final CompletableFuture<WrappedWebSocket> second = listener.expectOpen();
+        listener.onOpen(null, SWITCHING_PROTOCOLS);
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+
+        // Once open, a failure ends the subscriptions.
+        listener.onFailure(null, failure, null);
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertSame(failure, subscriber.error);
+        assertEquals(3, subscriber.received.size());
+        assertTrue(subscriber.received.get(0) instanceof ErrorMessage);
+        assertTrue(subscriber.received.get(1) instanceof ConnectedMessage);
+        assertTrue(subscriber.received.get(2) instanceof ErrorMessage);
+    }
+
+    @Test
+    void closedBeforeOpen_failsTheAttempt() {
+        final MessageListener listener = new MessageListener(
+                Collections.singletonList(new RecordingSubscriber()), 16, WaitStrategy.YIELD);
+
+        final CompletableFuture<WrappedWebSocket> opened = listener.expectOpen();
+        listener.onClosed(null, 1001, "Going away");
+
+        final ExecutionException thrown = assertThrows(ExecutionException.class, opened::get);
+        assertTrue(thrown.getCause() instanceof IOException);
+    }
+
+    private static class RecordingSubscriber implements MessageSubscriber {
+
+        private final List<WebSocketMessage> received = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.common.EpochClock;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.LatencyHistogram;
+import com.github.rishabh9.riko.upstox.websockets.dispatch.WaitStrategy;
+import com.github.rishabh9.riko.upstox.websockets.journal.Journal;
+import com.github.rishabh9.riko.upstox.websockets.journal.JournalReader;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayPublisherTest {
+
+    private static final String INFY = "1548310214000,NSE_EQ,INFY,712.5,708.35";
+    private static final String TCS = "1548310214100,NSE_EQ,TCS,1890.1,1885.6";
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("replay");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void replay_asFastAsPossible_publishesEveryFrame_inOrder() throws Exception {
+        final long start = EpochClock.nanos();
+        record(start, TimeUnit.SECONDS.toNanos(10));
+        final Collector collector = new Collector();
+
+        final ReplayStats stats = new ReplayPublisher(new JournalReader(directory),
+                Collections.singletonList(collector), ReplayPublisher.AS_FAST_AS_POSSIBLE, 16, WaitStrategy.PARK)
+                .replay();
+
+        assertTrue(collector.completed);
+        assertEquals(3, collector.messages.size());
+        assertEquals(INFY, ((TextMessage) collector.messages.get(0)).getMessage());
+        assertEquals(TCS, ((BinaryMessage) collector.messages.get(1)).getMessageAsString());
+        assertEquals(INFY, ((TextMessage) collector.messages.get(2)).getMessage());
+        // Published when replayed, not when recorded.
+        assertTrue(collector.messages.get(0).getReceivedAt() > start + 1L);
+        assertNull(collector.messages.get(0).getSender());
+
+        assertEquals(3L, stats.getMessages());
+        assertEquals(0L, stats.getDropped());
+        // Far less than the 20 seconds it took to receive them.
+        assertTrue(stats.getElapsed() < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(stats.getMessagesPerSecond() > 0.0);
+        final LatencyHistogram latency = stats.getLatencies().get("collector");
+        assertEquals(3L, latency.getCount());
+        assertTrue(latency.getValueAtPercentile(50.0) <= latency.getMax());
+    }
+
+    @Test
+    void replay_keepsTheLatencies_ofSubscribersWithTheSameName() throws Exception {
+        record(EpochClock.nanos(), TimeUnit.SECONDS.toNanos(10));
+        final Collector first = new Collector();
+        final Collector second = new Collector();
+        final Collector third = new Collector();
+
+        final ReplayStats stats = new ReplayPublisher(new JournalReader(directory),
+                Arrays.asList(first, second, third), ReplayPublisher.AS_FAST_AS_POSSIBLE, 16, WaitStrategy.PARK)
+                .replay();
+
+        assertEquals(Arrays.asList("collector", "collector#2", "collector#3"),
+                new ArrayList<>(stats.getLatencies().keySet()));
+        for (LatencyHistogram latency : stats.getLatencies().values()) {
+            assertEquals(3L, latency.getCount());
+        }
+    }
+
+    @Test
+    void replay_scaled_keepsTheTimeBetweenFrames_fasterBySpeed() throws Exception {
+        record(EpochClock.nanos(), TimeUnit.MILLISECONDS.toNanos(100));
+        final Collector collector = new Collector();
+
+        final ReplayStats stats = new ReplayPublisher(new JournalReader(directory),
+                Collections.singletonList(collector), 2.0, 16, WaitStrategy.PARK)
+                .replay();
+
+        assertEquals(3, collector.messages.size());
+        // The frames were received over 200 milliseconds.
+        assertTrue(stats.getElapsed() >= TimeUnit.MILLISECONDS.toNanos(100), "elapsed " + stats.getElapsed());
+        assertTrue(stats.getElapsed() < TimeUnit.MILLISECONDS.toNanos(200), "elapsed " + stats.getElapsed());
+    }
+
+    @Test
+    void replay_emptyJournal_completesTheSubscribers() throws Exception {
+        final Collector collector = new Collector();
+        final ReplayPublisher replay = new ReplayPublisher(new JournalReader(directory),
+                Collections.singletonList(collector), ReplayPublisher.REAL_TIME, 16, WaitStrategy.PARK);
+
+        final ReplayStats stats = replay.replay();
+
+        assertTrue(collector.completed);
+        assertEquals(0L, stats.getMessages());
+        assertEquals(0.0, stats.getMessagesPerSecond());
+        assertThrows(IllegalStateException.class, replay::replay);
+        assertThrows(IllegalArgumentException.class, () -> new ReplayPublisher(new JournalReader(directory),
+                Collections.emptyList(), 0.0, 16, WaitStrategy.PARK));
+    }
+
+    private void record(final long start, final long interval) throws IOException {
+        try (Journal journal = new Journal(directory, 1 << 16, ZoneOffset.UTC)) {
+            journal.appendText(start, INFY);
+            journal.appendBinary(start + interval, ByteBuffer.wrap(TCS.getBytes(StandardCharsets.UTF_8)));
+            journal.appendText(start + 2 * interval, INFY);
+        }
+    }
+
+    private static final class Collector implements MessageSubscriber {
+
+        private final List<WebSocketMessage> messages = new CopyOnWriteArrayList<>();
+        private volatile boolean completed;
+
+        @Override
+        public String getName() {
+            return "collector";
+        }
+
+        @Override
+        public BackpressurePolicy<WebSocketMessage> getBackpressurePolicy() {
+            return BackpressurePolicy.block(1L, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            messages.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
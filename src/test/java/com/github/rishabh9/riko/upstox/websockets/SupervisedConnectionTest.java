@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets;
+
+import com.github.rishabh9.riko.upstox.BaseTest;
+import com.github.rishabh9.riko.upstox.common.ServiceGenerator;
+import com.github.rishabh9.riko.upstox.feed.FeedService;
+import com.github.rishabh9.riko.upstox.websockets.messages.ClosingMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.ConnectedMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.DisconnectedMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupervisedConnectionTest extends BaseTest {
+
+    private static final String OK = "{\"code\":200,\"status\":\"OK\",\"data\":{}}";
+
+    private final BlockingQueue<WebSocket> serverSockets = new LinkedBlockingQueue<>();
+    private final List<String> subscriptions = Collections.synchronizedList(new ArrayList<>());
+    private MockWebServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                final String path = request.getRequestUrl().encodedPath();
+                if (path.startsWith("/live/socket-params")) {
+                    return new MockResponse().setBody(OK);
+                }
+                if (path.startsWith("/live/feed/sub/")) {
+                    subscriptions.add(path + "?" + request.getRequestUrl().queryParameter("symbol"));
+                    return new MockResponse().setBody(OK);
+                }
+                return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+                    @Override
+                    public void onOpen(WebSocket webSocket, okhttp3.Response response) {
+                        serverSockets.add(webSocket);
+                    }
+
+                    @Override
+                    public void onClosing(WebSocket webSocket, int code, String reason) {
+                        webSocket.close(code, null);
+                    }
+                });
+            }
+        });
+        server.start();
+        ServiceGenerator.getInstance().rebuildWithUrl(server.url("/"));
+        System.setProperty(RIKO_WS_SERVER_SCHEME, "http");
+        System.setProperty(RIKO_WS_SERVER_URL, server.getHostName());
+        System.setProperty(RIKO_WS_SERVER_PORT, Integer.toString(server.getPort()));
+        System.setProperty(RIKO_WS_RECONNECT_DELAY, "10");
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        System.clearProperty(RIKO_WS_SERVER_SCHEME);
+        System.clearProperty(RIKO_WS_SERVER_URL);
+        System.clearProperty(RIKO_WS_SERVER_PORT);
+        System.clearProperty(RIKO_WS_RECONNECT_DELAY);
+        server.shutdown();
+    }
+
+    @Test
+    void reconnects_andSubscribesAgain_keepingTheSubscribers() throws Exception {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        final WebSocketService service = new WebSocketService(upstoxAuthService, retryPolicyFactory);
+        final FeedService feedService = new FeedService(upstoxAuthService, retryPolicyFactory);
+
+        final SupervisedConnection connection = service
+                .connectSupervised(Collections.singletonList(subscriber), feedService)
+                .get(10, TimeUnit.SECONDS);
+        connection.subscribe("ltp", "NSE_EQ", "INFY,TCS").get(10, TimeUnit.SECONDS);
+        connection.subscribe("full", "NSE_FO", "NIFTY19JANFUT").get(10, TimeUnit.SECONDS);
+
+        // The server goes away.
+        serverSockets.poll(10, TimeUnit.SECONDS).close(1001, "Going away");
+        assertNotNull(serverSockets.poll(10, TimeUnit.SECONDS), "Not reconnected");
+        waitFor(() -> connection.getStats().getReconnects() == 1);
+
+        assertEquals(Arrays.asList(
+                "/live/feed/sub/ltp/NSE_EQ?INFY,TCS",
+                "/live/feed/sub/full/NSE_FO?NIFTY19JANFUT",
+                "/live/feed/sub/ltp/NSE_EQ?INFY,TCS",
+                "/live/feed/sub/full/NSE_FO?NIFTY19JANFUT"), subscriptions);
+        final ConnectionStats stats = connection.getStats();
+        assertTrue(stats.isConnected());
+        assertNotNull(stats.getLastMissedFrom());
+        assertNotNull(stats.getLastMissedTo());
+        assertFalse(stats.getLastMissedTo().isBefore(stats.getLastMissedFrom()));
+        assertEquals(stats.getLastTimeToRecovery(), stats.getTotalDowntime());
+
+        assertEquals(1L, subscriber.done.getCount(), "Subscriber completed on reconnect");
+        connection.close();
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertTrue(connection.isClosed());
+
+        final List<Class<?>> types = new ArrayList<>();
+        for (WebSocketMessage message : subscriber.received) {
+            types.add(message.getClass());
+        }
+        assertEquals(Arrays.asList(ConnectedMessage.class, ClosingMessage.class, DisconnectedMessage.class,
+                ConnectedMessage.class), types.subList(0, 4));
+    }
+
+    @Test
+    void firstConnection_isNotRetried() throws InterruptedException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setResponseCode(500).setBody(OK);
+            }
+        });
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        final WebSocketService service = new WebSocketService(upstoxAuthService, retryPolicyFactory);
+        final FeedService feedService = new FeedService(upstoxAuthService, retryPolicyFactory);
+
+        assertThrows(ExecutionException.class, () -> service
+                .connectSupervised(Collections.singletonList(subscriber), feedService)
+                .get(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertNotNull(subscriber.error);
+    }
+
+    private static void waitFor(final java.util.function.BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private static class RecordingSubscriber implements MessageSubscriber {
+
+        private final List<WebSocketMessage> received = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(WebSocketMessage item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
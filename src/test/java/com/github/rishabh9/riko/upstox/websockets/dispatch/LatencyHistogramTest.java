@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void getValueAtPercentile_isWithin3PercentOfTheLatency() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5L);
+
+        assertEquals(1001L, histogram.getCount());
+        assertEquals(0L, histogram.getMin());
+        assertEquals(1_000_000L, histogram.getMax());
+        assertEquals(0L, histogram.getValueAtPercentile(0.0));
+        assertEquals(1_000_000L, histogram.getValueAtPercentile(100.0));
+        final long median = histogram.getValueAtPercentile(50.0);
+        assertTrue(median >= 500_000L && median <= 515_000L, "median " + median);
+        final long p99 = histogram.getValueAtPercentile(99.0);
+        assertTrue(p99 >= 990_000L && p99 <= 1_000_000L, "p99 " + p99);
+        assertEquals(500_000.0, histogram.getMean(), 1.0);
+    }
+
+    @Test
+    void getValueAtPercentile_ofNothing_isZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(17L);
+        assertEquals(17L, histogram.getValueAtPercentile(99.9));
+
+        assertEquals(0L, new LatencyHistogram().getValueAtPercentile(50.0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(100.1));
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferPublisherTest {
+
+    @Test
+    void offer_deliversEveryMessageInOrder_toEverySubscriber() throws InterruptedException {
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(1 << 14, WaitStrategy.PARK);
+        final RecordingSubscriber first = new RecordingSubscriber(Long.MAX_VALUE);
+        final RecordingSubscriber second = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(first);
+        publisher.subscribe(second);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, publisher.offer(i));
+        }
+        publisher.close();
+
+        assertTrue(first.done.await(5, TimeUnit.SECONDS));
+        assertTrue(second.done.await(5, TimeUnit.SECONDS));
+        assertEquals(sequence(10_000), first.received());
+        assertEquals(sequence(10_000), second.received());
+        assertTrue(first.completed);
+        assertEquals(0, publisher.getNumberOfSubscribers());
+    }
+
+    @Test
+    void offer_dropsForTheSlowSubscriberOnly_withoutBlocking() throws InterruptedException {
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(8, WaitStrategy.YIELD);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingSubscriber slow = new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                await(release);
+            }
+        };
+        final RecordingSubscriber fast = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(slow);
+        publisher.subscribe(fast);
+
+        int dropped = 0;
+        for (int i = 0; i < 100; i++) {
+            dropped += publisher.offer(i);
+            final int expected = i + 1;
+            waitUntil(() -> fast.received().size() == expected);
+        }
+        assertTrue(dropped >= 100 - 8 - 1, "dropped " + dropped);
+        assertEquals(sequence(100), fast.received());
+
+        release.countDown();
+        publisher.close();
+        assertTrue(slow.done.await(5, TimeUnit.SECONDS));
+        assertEquals(100 - dropped, slow.received().size());
+    }
+
+    @Test
+    void offer_deliversNoMoreThanRequested() throws InterruptedException {
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(16, WaitStrategy.PARK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(2);
+        publisher.subscribe(subscriber);
+        waitUntil(() -> null != subscriber.subscription);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.offer(i);
+        }
+        waitUntil(() -> subscriber.received().size() == 2);
+        Thread.sleep(50);
+        assertEquals(2, subscriber.received().size());
+        assertEquals(3, publisher.estimateMaximumLag());
+
+        subscriber.subscription.request(3);
+        waitUntil(() -> subscriber.received().size() == 5);
+        assertEquals(sequence(5), subscriber.received());
+    }
+
+    @Test
+    void closeExceptionally_sendsTheError_afterThePublishedMessages() throws InterruptedException {
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(16, WaitStrategy.PARK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        publisher.offer(1);
+        final IllegalStateException failure = new IllegalStateException("socket failed");
+        publisher.closeExceptionally(failure);
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(1), subscriber.received());
+        assertSame(failure, subscriber.error);
+        assertThrows(IllegalStateException.class, () -> publisher.offer(2));
+
+        final RecordingSubscriber late = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(late);
+        assertTrue(late.done.await(5, TimeUnit.SECONDS));
+        assertSame(failure, late.error);
+    }
+
+    @Test
+    void cancel_stopsDelivery_andRemovesTheSubscriber() {
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(16, WaitStrategy.BUSY_SPIN);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        waitUntil(() -> null != subscriber.subscription);
+        publisher.offer(1);
+        waitUntil(() -> subscriber.received().size() == 1);
+
+        subscriber.subscription.cancel();
+        waitUntil(() -> publisher.getNumberOfSubscribers() == 0);
+        publisher.offer(2);
+        assertEquals(Collections.singletonList(1), subscriber.received());
+    }
+
+    @Test
+    void subscribe_failsTheDuplicate() throws InterruptedException {
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(16, WaitStrategy.PARK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+        publisher.subscribe(subscriber);
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertEquals(1, publisher.getNumberOfSubscribers());
+    }
+
+    @Test
+    void dropNewest_keepsTheOldestMessages() {
+        assertEquals(sequence(4), deliverAfterBacklog(BackpressurePolicy.dropNewest(), 6));
+    }
+
+    @Test
+    void dropOldest_keepsTheNewestMessages() {
+        assertEquals(Arrays.asList(6, 7, 8, 9), deliverAfterBacklog(BackpressurePolicy.dropOldest(), 6));
+    }
+
+    @Test
+    void dropOldest_deliversInOrder_whilePublishing() throws InterruptedException {
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(8, WaitStrategy.YIELD);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber, BackpressurePolicy.dropOldest());
+
+        for (int i = 0; i < 100_000; i++) {
+            publisher.offer(i);
+        }
+        publisher.close();
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        final List<Integer> received = subscriber.received();
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i - 1) < received.get(i), "out of order at " + i);
+        }
+        assertEquals(99_999, received.get(received.size() - 1).intValue());
+    }
+
+    @Test
+    void unbounded_keepsMessagesUpToItsCap() {
+        assertEquals(sequence(7), deliverAfterBacklog(BackpressurePolicy.unbounded(7), 3));
+    }
+
+    @Test
+    void conflate_keepsTheLatestMessage() {
+        assertEquals(Collections.singletonList(9), deliverAfterBacklog(BackpressurePolicy.conflate(), 9));
+    }
+
+    @Test
+    void conflateByKey_keepsTheLatestMessagePerKey_inTheOrderOfTheKeys() {
+        assertEquals(Arrays.asList(9, 7, 8), deliverAfterBacklog(BackpressurePolicy.conflate(i -> i % 3), 7));
+    }
+
+    @Test
+    void conflateByKey_queuesMessagesWithoutKey_upToTheCapacity() {
+        final BackpressurePolicy<Integer> policy = BackpressurePolicy.conflate(i -> i % 2 == 0 ? null : i % 3);
+        assertEquals(Arrays.asList(0, 7, 2, 9, 4, 5, 6), deliverAfterBacklog(policy, 3));
+    }
+
+    @Test
+    void block_waitsForSpace_thenDrops() {
+        final long start = System.nanoTime();
+        assertEquals(sequence(4), deliverAfterBacklog(BackpressurePolicy.block(500, TimeUnit.MICROSECONDS), 6));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MICROSECONDS.toNanos(6 * 500));
+    }
+
+    @Test
+    void block_publishes_onceTheSubscriberMakesSpace() throws InterruptedException {
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(4, WaitStrategy.YIELD);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber, BackpressurePolicy.block(1, TimeUnit.SECONDS));
+
+        int dropped = 0;
+        for (int i = 0; i < 1000; i++) {
+            dropped += publisher.offer(i);
+        }
+        publisher.close();
+
+        assertEquals(0, dropped);
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(sequence(1000), subscriber.received());
+    }
+
+    /**
+     * Publishes 10 messages to a subscriber with a ring of 4 that requests none, then requests them all.
+     */
+    private static List<Integer> deliverAfterBacklog(final BackpressurePolicy<Integer> policy,
+                                                     final long expectedDrops) {
+
+        final RingBufferPublisher<Integer> publisher = new RingBufferPublisher<>(4, WaitStrategy.PARK);
+        final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher.subscribe(subscriber, policy);
+        waitUntil(() -> null != subscriber.subscription);
+
+        for (int i = 0; i < 10; i++) {
+            publisher.offer(i);
+        }
+        final SubscriberStats stats = publisher.getSubscriberStats().get(0);
+        assertSame(subscriber, stats.getSubscriber());
+        assertSame(policy, stats.getPolicy());
+        assertEquals(expectedDrops, stats.getDropped());
+        assertEquals(10 - expectedDrops, stats.getLag());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        waitUntil(() -> publisher.getSubscriberStats().get(0).getLag() == 0);
+        waitUntil(() -> publisher.getSubscriberStats().get(0).getDelivered() == 10 - expectedDrops);
+        return subscriber.received();
+    }
+
+    private static List<Integer> sequence(final int count) {
+        final List<Integer> sequence = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sequence.add(i);
+        }
+        return sequence;
+    }
+
+    private static void waitUntil(final BooleanSupplier condition) {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out");
+            }
+            Thread.yield();
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Integer> {
+
+        private final long initialRequest;
+        private final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        List<Integer> received() {
+            synchronized (received) {
+                return new ArrayList<>(received);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            done.countDown();
+        }
+    }
+}
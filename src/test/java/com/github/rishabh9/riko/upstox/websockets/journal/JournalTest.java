@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.journal;
+
+import com.github.rishabh9.riko.upstox.common.EpochClock;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.ConnectedMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.WebSocketMessage;
+import okio.ByteString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.github.rishabh9.riko.upstox.common.constants.PropertyKeys.RIKO_JOURNAL_UNMAP;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JournalTest {
+
+    private static final String LTP = "1548310214000,NSE_EQ,INFY,712.5,708.35";
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void append_recordsTheFrames_asTheyWereReceived() throws IOException {
+        final long now = EpochClock.nanos();
+        final List<WebSocketMessage> messages = Arrays.asList(
+                new TextMessage(null, LTP, now),
+                new TextMessage(null, "", now + 1),
+                new TextMessage(null, "NSE_EQ,\u00c9T\u00c9,\u20b9 712.5,\ud83d\ude80", now + 2),
+                new BinaryMessage(null, ByteString.encodeUtf8(LTP + ";"), now + 3));
+        try (Journal journal = new Journal(directory, 1 << 16, ZoneOffset.UTC)) {
+            for (WebSocketMessage message : messages) {
+                assertTrue(journal.append(message));
+            }
+            assertFalse(journal.append(new ConnectedMessage(null, "OK")));
+            assertEquals(4L, journal.getRecords());
+        }
+
+        assertEquals(messages, readAll());
+        final JournalReader reader = new JournalReader(directory);
+        for (WebSocketMessage message : messages) {
+            assertTrue(reader.next());
+            assertEquals(message.getReceivedAt(), reader.getReceivedAt());
+        }
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void append_rollsOver_whenTheFileIsFull_andEveryDay() throws IOException {
+        final long now = EpochClock.nanos();
+        try (Journal journal = new Journal(directory, 256, ZoneOffset.UTC)) {
+            for (int i = 0; i < 10; i++) {
+                journal.appendText(now + i, LTP);
+            }
+            journal.appendText(now + TimeUnit.DAYS.toNanos(1), LTP);
+        }
+
+        final JournalReader reader = new JournalReader(directory);
+        // Four records of 56 bytes fit after the header of a file.
+        assertEquals(4, reader.getFiles().size());
+        assertTrue(reader.getFiles().get(0).getFileName().toString().endsWith("-0000.journal"));
+        assertTrue(reader.getFiles().get(2).getFileName().toString().endsWith("-0002.journal"));
+        assertTrue(reader.getFiles().get(3).getFileName().toString().endsWith("-0000.journal"));
+        assertEquals(11, readAll().size());
+    }
+
+    @Test
+    void append_unmapsTheFiles_onceRolledOver_whenEnabled() throws IOException {
+        final Path maps = Paths.get("/proc/self/maps");
+        assumeTrue(Files.isReadable(maps), "The mappings of the process can't be listed");
+        final long now = EpochClock.nanos();
+        System.setProperty(RIKO_JOURNAL_UNMAP, "true");
+        try (Journal journal = new Journal(directory, 256, ZoneOffset.UTC)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(new BinaryMessage(null, ByteString.encodeUtf8(LTP), now + i));
+            }
+            final Path current = journal.getFile().toRealPath();
+            final List<String> mapped = mappedJournals(maps);
+            assertEquals(Collections.singletonList(current.toString()), mapped);
+        } finally {
+            System.clearProperty(RIKO_JOURNAL_UNMAP);
+        }
+        assertEquals(Collections.emptyList(), mappedJournals(maps));
+        assertEquals(5, readAll().size());
+    }
+
+    @Test
+    void open_appendsAfterTheLastValidRecord_discardingATornOne() throws IOException {
+        final long now = EpochClock.nanos();
+        final Path file;
+        try (Journal journal = new Journal(directory, 1 << 16, ZoneOffset.UTC)) {
+            journal.appendText(now, "first");
+            journal.appendText(now + 1, "second");
+            journal.appendText(now + 2, "torn");
+            file = journal.getFile();
+        }
+        // The payload of the third record is not fully written: 8 + 24 + 24, then the header.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0}), 56 + JournalFormat.HEADER + 2);
+        }
+
+        try (Journal journal = new Journal(directory, 1 << 16, ZoneOffset.UTC)) {
+            assertEquals(file, journal.getFile());
+            journal.appendText(now + 3, "third");
+        }
+
+        final List<String> texts = new ArrayList<>();
+        for (WebSocketMessage message : readAll()) {
+            texts.add(((TextMessage) message).getMessage());
+        }
+        assertEquals(Arrays.asList("first", "second", "third"), texts);
+    }
+
+    @Test
+    void append_failsForFramesLargerThanAFile() throws IOException {
+        try (Journal journal = new Journal(directory, 56, ZoneOffset.UTC)) {
+            assertThrows(IOException.class, () -> journal.appendText(EpochClock.nanos(), LTP));
+        }
+    }
+
+    private List<String> mappedJournals(final Path maps) throws IOException {
+        final String prefix = directory.toRealPath().toString();
+        final List<String> files = new ArrayList<>();
+        for (String line : Files.readAllLines(maps)) {
+            final int at = line.indexOf(prefix);
+            if (at >= 0) {
+                files.add(line.substring(at));
+            }
+        }
+        return files;
+    }
+
+    private List<WebSocketMessage> readAll() throws IOException {
+        final List<WebSocketMessage> messages = new ArrayList<>();
+        final JournalReader reader = new JournalReader(directory);
+        while (reader.next()) {
+            messages.add(reader.toMessage(null));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.messages;
+
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import com.google.common.base.Strings;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryMessageTest {
+
+    private static final WrappedWebSocket socket = new WrappedWebSocket(null);
+
+    private final BinaryMessage message = new BinaryMessage(socket, ByteString.encodeUtf8("NSE_EQ,INFY,712.5"));
+
+    @Test
+    void getByte_readsThePayloadInPlace() {
+        assertEquals('N', message.getByte(0));
+        assertEquals('5', message.getByte(message.getSize() - 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> message.getByte(message.getSize()));
+    }
+
+    @Test
+    void getMessageAsByteBuffer_isAReadOnlySlice() {
+        final ByteBuffer slice = message.getMessageAsByteBuffer(7, 4);
+        assertTrue(slice.isReadOnly());
+        assertEquals(0, slice.position());
+        assertEquals(4, slice.remaining());
+        assertEquals("INFY", BinaryMessage.UTF_8.decode(slice).toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> message.getMessageAsByteBuffer(7, 20));
+        assertThrows(IndexOutOfBoundsException.class, () -> message.getMessageAsByteBuffer(-1, 1));
+    }
+
+    @Test
+    void decode_handsTheWholePayloadToTheDecoder() throws IOException {
+        assertEquals(Integer.valueOf(message.getSize()), message.decode(ByteBuffer::remaining));
+        assertEquals("NSE_EQ,INFY,712.5", message.decode(payload -> BinaryMessage.UTF_8.decode(payload).toString()));
+    }
+
+    @Test
+    void toString_decodesOnlyTheBeginningOfALargePayload() {
+        final String payload = Strings.repeat("x", 100_000);
+        final String string = new BinaryMessage(socket, ByteString.encodeUtf8(payload)).toString();
+        assertTrue(string.contains("size=100000"));
+        assertTrue(string.length() < 1000);
+        assertTrue(message.toString().contains("NSE_EQ,INFY,712.5"));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.common.constants.OhlcIntervals;
+import com.github.rishabh9.riko.upstox.historical.models.Candle;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandleAggregatorTest {
+
+    private static final String DEPTH = "10,710.45,2,25,710.4,1,40,710.35,3,15,710.3,1,60,710.25,4,"
+            + "30,710.6,1,30,710.65,2,12,710.7,1,55,710.75,3,8,710.8,1,";
+
+    private final InstrumentRegistry registry = new InstrumentRegistry();
+    private final TickDecoder decoder = new TickDecoder(registry);
+    private final List<String> intervals = new ArrayList<>();
+    private final List<Candle> candles = new ArrayList<>();
+    private final CandleAggregator aggregator = new CandleAggregator((instrument, interval, candle) -> {
+        intervals.add(interval);
+        candles.add(candle);
+    });
+
+    @Test
+    void onTick_closesTheCandles_ofEveryInterval_atTheirEnd() {
+        tick(at(24, 9, 15, 10), "710", 1000L);
+        tick(at(24, 9, 15, 40), "712", 1100L);
+        tick(at(24, 9, 16, 5), "709", 1150L);
+
+        assertEquals(1, candles.size());
+        assertEquals(OhlcIntervals.ONE_MINUTE, intervals.get(0));
+        // The volume traded before the first tick is not counted.
+        assertCandle(candles.get(0), at(24, 9, 15, 0), "710", "712", "710", "712", 100L);
+
+        tick(at(24, 9, 18, 0), "711", 1200L);
+
+        assertEquals(3, candles.size());
+        assertEquals(OhlcIntervals.ONE_MINUTE, intervals.get(1));
+        assertCandle(candles.get(1), at(24, 9, 16, 0), "709", "709", "709", "709", 50L);
+        assertEquals(OhlcIntervals.THREE_MINUTES, intervals.get(2));
+        assertCandle(candles.get(2), at(24, 9, 15, 0), "710", "712", "709", "709", 150L);
+        assertEquals(new BigDecimal("700.0000"), candles.get(2).getCp());
+
+        aggregator.onComplete();
+
+        assertEquals(13, candles.size());
+        final Candle day = candles.get(intervals.lastIndexOf(OhlcIntervals.ONE_DAY));
+        assertCandle(day, at(24, 0, 0, 0), "710", "712", "709", "711", 200L);
+        final Candle month = candles.get(intervals.lastIndexOf(OhlcIntervals.ONE_MONTH));
+        assertCandle(month, at(1, 0, 0, 0), "710", "712", "709", "711", 200L);
+    }
+
+    @Test
+    void onTick_alignsTheCandles_toTheSession_andCountsTheVolumeOfEachDay() {
+        // Before the session opens, in the first candle.
+        tick(at(24, 9, 0, 0), "710", 0L);
+        tick(at(24, 10, 14, 59), "715", 4000L);
+        final Instrument infy = registry.find("NSE_EQ", "INFY");
+        assertCandle(aggregator.getCandle(infy, OhlcIntervals.SIXTY_MINUTES),
+                at(24, 9, 15, 0), "710", "715", "710", "715", 4000L);
+
+        tick(at(24, 10, 15, 0), "716", 5000L);
+        final Candle hour = candles.get(intervals.indexOf(OhlcIntervals.SIXTY_MINUTES));
+        assertCandle(hour, at(24, 9, 15, 0), "710", "715", "710", "715", 4000L);
+
+        // The next day, the volume traded today starts again.
+        tick(at(25, 9, 20, 0), "720", 300L);
+        final Candle day = candles.get(intervals.indexOf(OhlcIntervals.ONE_DAY));
+        assertCandle(day, at(24, 0, 0, 0), "710", "716", "710", "716", 5000L);
+        assertCandle(aggregator.getCandle(infy, OhlcIntervals.ONE_DAY),
+                at(25, 0, 0, 0), "720", "720", "720", "720", 300L);
+        // Thursday and Friday, starting on Monday.
+        assertCandle(aggregator.getCandle(infy, OhlcIntervals.ONE_WEEK),
+                at(21, 0, 0, 0), "710", "720", "710", "720", 5300L);
+
+        // Quotes without volume only move the price.
+        decoder.decode(at(25, 9, 21, 0) + ",NSE_EQ,INFY,719.5,716", aggregator::onTick);
+        assertCandle(aggregator.getCandle(infy, OhlcIntervals.ONE_DAY),
+                at(25, 0, 0, 0), "720", "720", "719.5", "719.5", 300L);
+        assertNull(aggregator.getCandle(registry.register("NSE_EQ", "TCS"), OhlcIntervals.ONE_MINUTE));
+        assertThrows(IllegalArgumentException.class, () -> aggregator.getCandle(infy, "2"));
+    }
+
+    @Test
+    void advanceTo_closesTheCandles_withoutALaterTickOfTheInstrument() {
+        tick(at(24, 15, 29, 10), "710", 1000L);
+        tick(at(24, 15, 29, 50), "711", 1100L);
+        // The ticks of another instrument don't close them.
+        decoder.decode(at(24, 15, 31, 0) + ",NSE_EQ,TCS,1900,1890", aggregator::onTick);
+        assertTrue(candles.isEmpty());
+
+        aggregator.advanceTo(at(24, 15, 29, 59));
+        assertTrue(candles.isEmpty());
+
+        // Every intraday candle ends at the session close.
+        aggregator.advanceTo(at(24, 15, 30, 0));
+        assertEquals(7, candles.size());
+        final Candle minute = candles.get(intervals.indexOf(OhlcIntervals.ONE_MINUTE));
+        assertCandle(minute, at(24, 15, 29, 0), "710", "711", "710", "711", 100L);
+        final Candle hour = candles.get(intervals.indexOf(OhlcIntervals.SIXTY_MINUTES));
+        assertCandle(hour, at(24, 15, 15, 0), "710", "711", "710", "711", 100L);
+        assertFalse(intervals.contains(OhlcIntervals.ONE_DAY));
+
+        // After the close, the ticks only count in the day, week and month candles.
+        tick(at(24, 15, 40, 0), "712", 1200L);
+        final Instrument infy = registry.find("NSE_EQ", "INFY");
+        assertNull(aggregator.getCandle(infy, OhlcIntervals.ONE_MINUTE));
+        assertCandle(aggregator.getCandle(infy, OhlcIntervals.ONE_DAY),
+                at(24, 0, 0, 0), "710", "712", "710", "712", 200L);
+
+        aggregator.advanceTo(at(25, 0, 0, 0));
+        assertCandle(candles.get(intervals.indexOf(OhlcIntervals.ONE_DAY)),
+                at(24, 0, 0, 0), "710", "712", "710", "712", 200L);
+        assertNotNull(aggregator.getCandle(infy, OhlcIntervals.ONE_WEEK));
+        assertNull(aggregator.getCandle(infy, OhlcIntervals.ONE_DAY));
+
+        aggregator.onComplete();
+        // The week and month of both, and the day of the other.
+        assertEquals(13, candles.size());
+    }
+
+    @Test
+    void onTick_closesTheLastCandleOfTheSession_atTheClose() {
+        tick(at(24, 15, 20, 0), "710", 1000L);
+        tick(at(24, 15, 30, 0), "711", 1100L);
+
+        // 09:15 plus a multiple of 60 minutes is 15:15, so the last hour is cut short by the close.
+        final Candle hour = candles.get(intervals.indexOf(OhlcIntervals.SIXTY_MINUTES));
+        assertCandle(hour, at(24, 15, 15, 0), "710", "710", "710", "710", 0L);
+        assertEquals(7, candles.size());
+    }
+
+    @Test
+    void onTick_buildsIntradayCandles_untilTheCloseOfTheSessionOfTheExchange() {
+        // The commodities trade after the equities close, in hours starting at 09:00.
+        decoder.decode(at(24, 16, 0, 10) + ",MCX_FO,GOLD19FEBFUT,32500,32450", aggregator::onTick);
+        decoder.decode(at(24, 16, 1, 5) + ",MCX_FO,GOLD19FEBFUT,32510,32450", aggregator::onTick);
+        final Instrument gold = registry.find("MCX_FO", "GOLD19FEBFUT");
+
+        assertEquals(1, candles.size());
+        assertCandle(candles.get(0), at(24, 16, 0, 0), "32500", "32500", "32500", "32500", 0L);
+        assertCandle(aggregator.getCandle(gold, OhlcIntervals.SIXTY_MINUTES),
+                at(24, 16, 0, 0), "32500", "32510", "32500", "32510", 0L);
+
+        // The currencies until 17:00.
+        decoder.decode(at(24, 16, 59, 0) + ",NCD_FO,USDINR19JANFUT,71.25,71.1", aggregator::onTick);
+        final Instrument usdInr = registry.find("NCD_FO", "USDINR19JANFUT");
+        assertNotNull(aggregator.getCandle(usdInr, OhlcIntervals.ONE_MINUTE));
+        decoder.decode(at(24, 17, 0, 0) + ",NCD_FO,USDINR19JANFUT,71.3,71.1", aggregator::onTick);
+        assertNull(aggregator.getCandle(usdInr, OhlcIntervals.ONE_MINUTE));
+        assertNotNull(aggregator.getCandle(gold, OhlcIntervals.ONE_MINUTE));
+    }
+
+    @Test
+    void constructor_usesTheSessionGivenForTheInstrument() {
+        final CandleAggregator allDay = new CandleAggregator((instrument, interval, candle) -> candles.add(candle),
+                CandleAggregator.INDIA, instrument -> new Session(LocalTime.MIN, LocalTime.MAX));
+        decoder.decode(at(24, 0, 5, 0) + ",NSE_EQ,INFY,710,700", allDay::onTick);
+
+        assertCandle(allDay.getCandle(registry.find("NSE_EQ", "INFY"), OhlcIntervals.SIXTY_MINUTES),
+                at(24, 0, 0, 0), "710", "710", "710", "710", 0L);
+    }
+
+    @Test
+    void session_mustCloseAfterItOpens() {
+        assertThrows(IllegalArgumentException.class, () -> new Session(LocalTime.of(15, 30), LocalTime.of(9, 15)));
+    }
+
+    private void tick(final long ltt, final String ltp, final long vtt) {
+        decoder.decode(ltt + ",NSE_EQ,INFY," + ltp + ",700,701,720,690," + vtt
+                + ",710,,710,100,100,630,770,600,800," + DEPTH + ltt, aggregator::onTick);
+    }
+
+    private static long at(final int day, final int hour, final int minute, final int second) {
+        return ZonedDateTime.of(2019, 1, day, hour, minute, second, 0, CandleAggregator.INDIA)
+                .toInstant().toEpochMilli();
+    }
+
+    private static void assertCandle(final Candle candle, final long timestamp, final String open, final String high,
+                                     final String low, final String close, final long volume) {
+        assertNotNull(candle);
+        assertEquals(Long.valueOf(timestamp), candle.getTimestamp());
+        assertEquals(0, new BigDecimal(open).compareTo(candle.getOpen()), "open " + candle);
+        assertEquals(0, new BigDecimal(high).compareTo(candle.getHigh()), "high " + candle);
+        assertEquals(0, new BigDecimal(low).compareTo(candle.getLow()), "low " + candle);
+        assertEquals(0, new BigDecimal(close).compareTo(candle.getClose()), "close " + candle);
+        assertEquals(Long.valueOf(volume), candle.getVolume());
+    }
+}
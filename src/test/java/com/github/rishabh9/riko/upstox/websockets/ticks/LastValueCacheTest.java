@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.NULL_VALUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LastValueCacheTest {
+
+    private static final long NOW = 1548310214000L;
+
+    private static final String FULL = NOW + ",NSE_EQ,RELIANCE,1230.5,1225,1221.0,1235.95,1219.1,4512397,"
+            + "1228.73,,1230.5,125632,98211,1102.5,1347.5,875.05,1329,"
+            + "10,1230.45,2,25,1230.4,1,40,1230.35,3,15,1230.3,1,60,1230.25,4,"
+            + "5,1230.6,1,30,1230.65,2,12,1230.7,1,55,1230.75,3,8,1230.8,1,"
+            + (NOW - 500);
+
+    private final InstrumentRegistry registry = new InstrumentRegistry();
+    private final AtomicLong clock = new AtomicLong(NOW);
+    private final LastValueCache cache = new LastValueCache(registry, 1000L, clock::get);
+
+    @Test
+    void read_copiesTheLatestTick() {
+        final TickDecoder decoder = new TickDecoder(registry);
+        decoder.decode(NOW + ",NSE_EQ,INFY,712.5,708.35;" + NOW + ",NSE_EQ,INFY,713,708.35", cache::onTick);
+        final Instrument infy = registry.find("NSE_EQ", "INFY");
+
+        final Tick tick = new Tick();
+        assertTrue(cache.read(infy, tick));
+        assertSame(infy, tick.getInstrument());
+        assertEquals(Tick.Mode.LTP, tick.getMode());
+        assertEquals(7_130_000L, tick.getLtp());
+        assertEquals(NULL_VALUE, tick.getBidPrice(0));
+        assertEquals(7_130_000L, cache.getLtp(infy));
+    }
+
+    @Test
+    void read_isFalse_forInstrumentsNotQuoted() {
+        final Instrument quoted = registry.register("NSE_EQ", "INFY");
+        final Instrument notQuoted = registry.register("NSE_EQ", "TCS");
+        // Beyond the instruments the cache has room for.
+        for (int i = 0; i < 2048; i++) {
+            registry.register("BSE_EQ", "S" + i);
+        }
+        final Instrument last = registry.register("BSE_EQ", "LAST");
+        cache.onTick(tick(quoted, 1L));
+
+        assertFalse(cache.read(notQuoted, new Tick()));
+        assertNull(cache.get(last));
+        assertEquals(NULL_VALUE, cache.getLtp(last));
+
+        cache.onTick(tick(last, 2L));
+        assertEquals(2L, cache.get(last).getLtp());
+        assertEquals(1L, cache.get(quoted).getLtp());
+    }
+
+    @Test
+    void getFeed_servesFreshFeeds_only() {
+        new TickDecoder(registry).decode(FULL, cache::onTick);
+
+        final Feed full = cache.getFeed("NSE_EQ", "RELIANCE", "full");
+        assertNotNull(full);
+        assertEquals(new BigDecimal("1230.5000"), full.getLtp());
+        assertEquals(NOW - 500, full.getLtt().longValue());
+        assertNotNull(cache.getFeed("NSE_EQ", "RELIANCE", "ltp"));
+        assertNull(cache.getFeed("NSE_EQ", "TCS", "ltp"));
+
+        // Checked against the time of the last trade, not of the quote.
+        clock.set(NOW - 500 + 1001);
+        assertNull(cache.getFeed("NSE_EQ", "RELIANCE", "full"));
+    }
+
+    @Test
+    void getFeed_doesNotServeLtpQuotes_forTheFullType() {
+        new TickDecoder(registry).decode(NOW + ",NSE_EQ,INFY,712.5,708.35", cache::onTick);
+
+        assertNotNull(cache.getFeed("NSE_EQ", "INFY", "ltp"));
+        assertNull(cache.getFeed("NSE_EQ", "INFY", "FULL"));
+        clock.set(NOW + 1001);
+        assertNull(cache.getFeed("NSE_EQ", "INFY", "ltp"));
+    }
+
+    @Test
+    void read_neverSeesATickHalfWritten() throws InterruptedException {
+        final Instrument instrument = registry.register("NSE_EQ", "INFY");
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> torn = new AtomicReference<>();
+        final Thread[] readers = new Thread[2];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                final Tick tick = new Tick();
+                while (!done.get() && null == torn.get()) {
+                    if (cache.read(instrument, tick) && !isConsistent(tick)) {
+                        torn.set(tick.toString());
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        final Tick tick = new Tick();
+        for (long value = 1; value <= 200_000; value++) {
+            cache.onTick(tick(instrument, value, tick));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(torn.get());
+        assertEquals(200_000L, cache.getLtp(instrument));
+    }
+
+    private static boolean isConsistent(final Tick tick) {
+        final long value = tick.ltp;
+        final long[] fields = {tick.timestamp, tick.close, tick.open, tick.high, tick.low, tick.vtt, tick.atp,
+                tick.oi, tick.spotPrice, tick.totalBuyQuantity, tick.totalSellQuantity, tick.lowerCircuit,
+                tick.upperCircuit, tick.yearlyLow, tick.yearlyHigh, tick.ltt};
+        for (long field : fields) {
+            if (field != value) {
+                return false;
+            }
+        }
+        for (long[] levels : Arrays.asList(tick.bidQuantity, tick.bidPrice, tick.bidOrders,
+                tick.askQuantity, tick.askPrice, tick.askOrders)) {
+            for (long level : levels) {
+                if (level != value) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Tick tick(final Instrument instrument, final long value) {
+        return tick(instrument, value, new Tick());
+    }
+
+    private static Tick tick(final Instrument instrument, final long value, final Tick tick) {
+        tick.mode = Tick.Mode.FULL;
+        tick.instrument = instrument;
+        tick.timestamp = value;
+        tick.ltp = value;
+        tick.close = value;
+        tick.open = value;
+        tick.high = value;
+        tick.low = value;
+        tick.vtt = value;
+        tick.atp = value;
+        tick.oi = value;
+        tick.spotPrice = value;
+        tick.totalBuyQuantity = value;
+        tick.totalSellQuantity = value;
+        tick.lowerCircuit = value;
+        tick.upperCircuit = value;
+        tick.yearlyLow = value;
+        tick.yearlyHigh = value;
+        Arrays.fill(tick.bidQuantity, value);
+        Arrays.fill(tick.bidPrice, value);
+        Arrays.fill(tick.bidOrders, value);
+        Arrays.fill(tick.askQuantity, value);
+        Arrays.fill(tick.askPrice, value);
+        Arrays.fill(tick.askOrders, value);
+        tick.ltt = value;
+        return tick;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.NULL_VALUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private static final String FULL = "1548310214000,NSE_EQ,RELIANCE,1230.5,1225,1221.0,1235.95,1219.1,4512397,"
+            + "1228.73,,1230.5,125632,98211,1102.5,1347.5,875.05,1329,"
+            + "10,1230.45,2,25,1230.4,1,40,1230.35,3,15,1230.3,1,60,1230.25,4,"
+            + "30,1230.6,1,30,1230.65,2,12,1230.7,1,55,1230.75,3,8,1230.8,1,"
+            + "1548310213000";
+
+    private final InstrumentRegistry registry = new InstrumentRegistry();
+    private final TickDecoder decoder = new TickDecoder(registry);
+
+    @Test
+    void update_computesTheMeasuresOfTheBook() {
+        final OrderBooks books = new OrderBooks();
+        decoder.decode(FULL, books::onTick);
+        final OrderBook book = books.get(registry.find("NSE_EQ", "RELIANCE"));
+
+        assertNotNull(book);
+        assertEquals(1L, book.getUpdates());
+        assertEquals(5, book.getBidLevels());
+        assertEquals(5, book.getAskLevels());
+        assertEquals(12_304_500L, book.getBestBid());
+        assertEquals(12_306_000L, book.getBestAsk());
+        assertEquals(1_500L, book.getSpread());
+        assertEquals(12_305_250L, book.getMid());
+        // (1230.45 * 30 + 1230.6 * 10) / 40
+        assertEquals(12_304_875.0, book.getMicroprice(), 1e-6);
+        assertEquals(150L, book.getTotalBidQuantity());
+        assertEquals(135L, book.getTotalAskQuantity());
+        // (5*10 + 4*25 + 3*40 + 2*15 + 60) - (5*30 + 4*30 + 3*12 + 2*55 + 8) = 360 - 424
+        assertEquals(-64.0 / 784.0, book.getImbalance(), 1e-9);
+        assertEquals(25L, book.getBidQuantity(1));
+        assertEquals(3L, book.getAskOrders(3));
+    }
+
+    @Test
+    void update_keepsTheLevelsUpToTheFirstMissingOne() {
+        final String oneSided = FULL.replace("30,1230.6,1,30,1230.65,2,12,1230.7,1,55,1230.75,3,8,1230.8,1,",
+                ",,,,,,,,,,,,,,,")
+                .replace("40,1230.35,3,", "0,1230.35,3,");
+        final List<OrderBook> updated = new ArrayList<>();
+        final OrderBooks books = new OrderBooks(updated::add);
+        decoder.decode(FULL + ";" + oneSided, books::onTick);
+
+        assertEquals(2, updated.size());
+        final OrderBook book = updated.get(1);
+        assertSame(updated.get(0), book);
+        assertEquals(2L, book.getUpdates());
+        assertEquals(2, book.getBidLevels());
+        assertEquals(0, book.getAskLevels());
+        assertEquals(NULL_VALUE, book.getBestAsk());
+        assertEquals(NULL_VALUE, book.getSpread());
+        assertEquals(NULL_VALUE, book.getMid());
+        assertTrue(Double.isNaN(book.getMicroprice()));
+        assertEquals(1.0, book.getImbalance());
+        assertThrows(IndexOutOfBoundsException.class, () -> book.getBidPrice(2));
+    }
+
+    @Test
+    void ltpTicks_doNotMakeBooks() {
+        final OrderBooks books = new OrderBooks();
+        decoder.decode("1548310214000,NSE_EQ,INFY,712.5,708.35", books::onTick);
+
+        assertNull(books.get(registry.find("NSE_EQ", "INFY")));
+    }
+}
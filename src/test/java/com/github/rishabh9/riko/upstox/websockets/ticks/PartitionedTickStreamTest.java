@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.websockets.dispatch.BackpressurePolicy;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedTickStreamTest {
+
+    private static final WrappedWebSocket socket = new WrappedWebSocket(null);
+
+    private static final int INSTRUMENTS = 10;
+    private static final int TICKS = 2_000;
+
+    @Test
+    void deliversTheTicksOfEachInstrumentInOrder_onASingleThread() throws InterruptedException {
+        final RecordingTickSubscriber subscriber = new RecordingTickSubscriber();
+        final PartitionedTickStream stream = new PartitionedTickStream(
+                Collections.singletonList(subscriber), 4, 8, BackpressurePolicy.dropNewest());
+        stream.onSubscribe(new NoSubscription());
+
+        for (int i = 0; i < TICKS; i++) {
+            final StringBuilder frame = new StringBuilder();
+            for (int symbol = 0; symbol < INSTRUMENTS; symbol++) {
+                frame.append(i).append(",NSE_EQ,PARTITION").append(symbol).append(",1.5,1.0;");
+            }
+            stream.onNext(new TextMessage(socket, frame.toString()));
+        }
+        stream.onComplete();
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(INSTRUMENTS, subscriber.timestamps.size());
+        for (Map.Entry<String, List<Long>> entry : subscriber.timestamps.entrySet()) {
+            final List<Long> timestamps = entry.getValue();
+            assertEquals(TICKS, timestamps.size(), entry.getKey());
+            for (int i = 0; i < TICKS; i++) {
+                assertEquals(i, timestamps.get(i).longValue(), entry.getKey());
+            }
+            assertEquals(1, subscriber.threads.get(entry.getKey()).size(), entry.getKey());
+        }
+        long delivered = 0;
+        for (int partition = 0; partition < stream.getPartitions(); partition++) {
+            assertEquals(0, stream.getDepth(partition));
+            delivered += stream.getDelivered(partition);
+        }
+        assertEquals(INSTRUMENTS * TICKS, delivered);
+    }
+
+    @Test
+    void sendsTheError_afterTheTicks() throws InterruptedException {
+        final RecordingTickSubscriber subscriber = new RecordingTickSubscriber();
+        final PartitionedTickStream stream = new PartitionedTickStream(
+                Collections.singletonList(subscriber), 2, 4, BackpressurePolicy.dropNewest());
+        stream.onSubscribe(new NoSubscription());
+
+        stream.onNext(new TextMessage(socket, "1,NSE_EQ,PARTITION0,1.5,1.0;1,NSE_EQ,PARTITION1,1.5,1.0"));
+        final IllegalStateException failure = new IllegalStateException("failure");
+        stream.onError(failure);
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertSame(failure, subscriber.error);
+        assertEquals(2, subscriber.timestamps.size());
+    }
+
+    @Test
+    void conflating_deliversTheLatestTickOfEachInstrument_evenWhenQuotedTogether() throws InterruptedException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingTickSubscriber subscriber = new RecordingTickSubscriber() {
+            @Override
+            public void onTick(Tick tick) {
+                super.onTick(tick);
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        final PartitionedTickStream stream =
+                PartitionedTickStream.conflating(Collections.singletonList(subscriber), 1);
+        stream.onSubscribe(new NoSubscription());
+
+        stream.onNext(new TextMessage(socket, frameOf(0, 3)));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        // Decoding doesn't wait for the subscriber, blocked on the first tick.
+        for (int i = 1; i <= 100; i++) {
+            stream.onNext(new TextMessage(socket, frameOf(i, 3)));
+        }
+        assertEquals(3, stream.getDepth(0));
+        release.countDown();
+        stream.onComplete();
+
+        assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0L, 100L), subscriber.timestamps.get("PARTITION0"));
+        assertEquals(Collections.singletonList(100L), subscriber.timestamps.get("PARTITION1"));
+        assertEquals(Collections.singletonList(100L), subscriber.timestamps.get("PARTITION2"));
+        assertEquals(4, stream.getDelivered(0));
+        assertEquals(3 * 101 - 4, stream.getConflated(0));
+        assertEquals(0, stream.getDepth(0));
+    }
+
+    private static String frameOf(final long timestamp, final int instruments) {
+        final StringBuilder frame = new StringBuilder();
+        for (int symbol = 0; symbol < instruments; symbol++) {
+            frame.append(timestamp).append(",NSE_EQ,PARTITION").append(symbol).append(",1.5,1.0;");
+        }
+        return frame.toString();
+    }
+
+    private static class RecordingTickSubscriber implements TickSubscriber {
+
+        private final Map<String, List<Long>> timestamps = new ConcurrentHashMap<>();
+        private final Map<String, List<String>> threads = new ConcurrentHashMap<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable error;
+
+        @Override
+        public void onTick(Tick tick) {
+            timestamps.computeIfAbsent(tick.getSymbol(), s -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(tick.getTimestamp());
+            final List<String> names = threads.computeIfAbsent(tick.getSymbol(),
+                    s -> Collections.synchronizedList(new ArrayList<>()));
+            final String name = Thread.currentThread().getName();
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+    }
+
+    private static class NoSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
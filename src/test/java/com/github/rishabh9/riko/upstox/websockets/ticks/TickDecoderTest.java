@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 Rishabh Joshi
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.github.rishabh9.riko.upstox.websockets.ticks;
+
+import com.github.rishabh9.riko.upstox.feed.models.Feed;
+import com.github.rishabh9.riko.upstox.websockets.messages.BinaryMessage;
+import com.github.rishabh9.riko.upstox.websockets.messages.TextMessage;
+import com.github.rishabh9.riko.upstox.websockets.models.WrappedWebSocket;
+import okio.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.rishabh9.riko.upstox.websockets.ticks.Tick.NULL_VALUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickDecoderTest {
+
+    private static final WrappedWebSocket socket = new WrappedWebSocket(null);
+
+    private static final String LTP = "1548310214000,NSE_EQ,INFY,712.5,708.35";
+
+    private static final String FULL = "1548310214000,NSE_EQ,RELIANCE,1230.5,1225,1221.0,1235.95,1219.1,4512397,"
+            + "1228.73,,1230.5,125632,98211,1102.5,1347.5,875.05,1329,"
+            + "10,1230.45,2,25,1230.4,1,40,1230.35,3,15,1230.3,1,60,1230.25,4,"
+            + "5,1230.6,1,30,1230.65,2,12,1230.7,1,55,1230.75,3,8,1230.8,1,"
+            + "1548310213000";
+
+    private final InstrumentRegistry registry = new InstrumentRegistry();
+    private final TickDecoder decoder = new TickDecoder(registry);
+
+    @Test
+    void decode_ltpQuote() {
+        final List<Tick> ticks = decode(LTP);
+
+        assertEquals(1, ticks.size());
+        final Tick tick = ticks.get(0);
+        assertEquals(Tick.Mode.LTP, tick.getMode());
+        assertEquals("NSE_EQ", tick.getExchange());
+        assertEquals("INFY", tick.getSymbol());
+        assertEquals(1548310214000L, tick.getTimestamp());
+        assertEquals(7_125_000L, tick.getLtp());
+        assertEquals(7_083_500L, tick.getClose());
+        assertEquals(NULL_VALUE, tick.getOpen());
+        assertEquals(NULL_VALUE, tick.getBidPrice(0));
+    }
+
+    @Test
+    void decode_fullQuote_fromABinaryMessage() {
+        final List<Tick> ticks = new ArrayList<>();
+        assertEquals(1, decoder.decode(new BinaryMessage(socket, ByteString.encodeUtf8(FULL + ";")),
+                tick -> ticks.add(tick.copy())));
+
+        final Tick tick = ticks.get(0);
+        assertEquals(Tick.Mode.FULL, tick.getMode());
+        assertEquals("RELIANCE", tick.getSymbol());
+        assertEquals(12_305_000L, tick.getLtp());
+        assertEquals(12_250_000L, tick.getClose());
+        assertEquals(12_359_500L, tick.getHigh());
+        assertEquals(4_512_397L, tick.getVtt());
+        assertEquals(NULL_VALUE, tick.getOi());
+        assertEquals(98_211L, tick.getTotalSellQuantity());
+        assertEquals(13_290_000L, tick.getYearlyHigh());
+        assertEquals(10L, tick.getBidQuantity(0));
+        assertEquals(12_304_500L, tick.getBidPrice(0));
+        assertEquals(4L, tick.getBidOrders(4));
+        assertEquals(12_306_000L, tick.getAskPrice(0));
+        assertEquals(8L, tick.getAskQuantity(4));
+        assertEquals(1548310213000L, tick.getLtt());
+        assertThrows(IndexOutOfBoundsException.class, () -> tick.getAskPrice(Tick.DEPTH));
+    }
+
+    @Test
+    void decode_everyQuoteOfAFrame_andSkipsTheMalformedOnes() {
+        final List<Tick> ticks = decode(LTP + ";1548310214000,NSE_EQ,TCS;" + FULL + ";;");
+
+        assertEquals(2, ticks.size());
+        assertEquals("INFY", ticks.get(0).getSymbol());
+        assertEquals("RELIANCE", ticks.get(1).getSymbol());
+        assertEquals(1, decoder.getMalformed());
+    }
+
+    @Test
+    void decode_sharesTheInstrument_ofTheSameExchangeAndSymbol() {
+        final List<Tick> ticks = decode(LTP + ";" + LTP.replace("NSE_EQ", "BSE_EQ") + ";" + LTP);
+
+        assertSame(ticks.get(0).getInstrument(), ticks.get(2).getInstrument());
+        assertNotSame(ticks.get(0).getInstrument(), ticks.get(1).getInstrument());
+        assertSame(ticks.get(0).getInstrument(), registry.find("NSE_EQ", "INFY"));
+        assertSame(ticks.get(1).getInstrument(), registry.get(1));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    void decode_negativeAndMissingNumbers() {
+        final Tick tick = decode("x,MCX_FO,CRUDE,-1.23456,NaN").get(0);
+
+        assertEquals(NULL_VALUE, tick.getTimestamp());
+        assertEquals(-12_345L, tick.getLtp());
+        assertEquals(NULL_VALUE, tick.getClose());
+    }
+
+    @Test
+    void toFeed_convertsThePrices() {
+        final Feed feed = decode(FULL).get(0).toFeed();
+
+        assertEquals(new BigDecimal("1230.5000"), feed.getLtp());
+        assertEquals(Long.valueOf(4512397L), feed.getVtt());
+        assertFalse(feed.getOi().isNumber());
+        assertEquals(new BigDecimal("1230.4500"), feed.getBids().get(0).getPrice());
+        assertEquals(Long.valueOf(1548310213000L), feed.getLtt());
+    }
+
+    @Test
+    void registry_growsPastItsInitialCapacity() {
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, registry.register("NSE_FO", "SYMBOL" + i).getId());
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertSame(registry.get(i), registry.find("NSE_FO", "SYMBOL" + i));
+            assertSame(registry.get(i), registry.register("NSE_FO", "SYMBOL" + i));
+        }
+        assertEquals(5000, registry.size());
+        assertNull(registry.find("NSE_FO", "SYMBOL5000"));
+    }
+
+    private List<Tick> decode(final String frame) {
+        final List<Tick> ticks = new ArrayList<>();
+        decoder.decode(new TextMessage(socket, frame), tick -> ticks.add(tick.copy()));
+        return ticks;
+    }
+}